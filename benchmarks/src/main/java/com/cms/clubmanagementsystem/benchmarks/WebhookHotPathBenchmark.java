@@ -0,0 +1,167 @@
+package com.cms.clubmanagementsystem.benchmarks;
+
+import com.cms.clubmanagementsystem.service.WebhookBatchParser;
+import com.cms.clubmanagementsystem.utils.HmacSignatureVerifier;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the webhook ingestion path: API key check, HMAC
+ * verification and payload parsing. {@code events} controls the payload size,
+ * from a single event (the /webhook case) to large /webhook/batch bodies.
+ *
+ * The plain benchmarks run on one warm thread. The {@code Contended} variants
+ * run on {@value #THREADS} threads sharing one verifier, and the
+ * {@code FreshThread} variants start a new virtual thread per call, as the
+ * webhook server does, so no per-thread state is ever warm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookHotPathBenchmark {
+
+    private static final String SECRET = "bench-hmac-secret-0123456789abcdef";
+    private static final String API_KEY = "bench-api-key-0123456789abcdefghijklmnop";
+    static final int THREADS = 8;
+
+    @Param({"1", "100", "1000"})
+    public int events;
+
+    private byte[] body;
+    private String bodyString;
+    private String signature;
+    private HmacSignatureVerifier verifier;
+    private WebhookBatchParser batchParser;
+    private final Gson gson = new Gson();
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        if (events == 1) {
+            appendEvent(sb, 0);
+        } else {
+            sb.append('[');
+            for (int i = 0; i < events; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendEvent(sb, i);
+            }
+            sb.append(']');
+        }
+        bodyString = sb.toString();
+        body = bodyString.getBytes(StandardCharsets.UTF_8);
+        verifier = new HmacSignatureVerifier(SECRET);
+        signature = verifier.sign(body);
+        batchParser = new WebhookBatchParser(Math.max(events, 1));
+    }
+
+    // Mirrors the payload ExcelSchoolServer sends
+    private static void appendEvent(StringBuilder sb, int i) {
+        sb.append("{\"event_type\":\"student_updated\",\"admission_number\":\"ADM").append(10000 + i)
+                .append("\",\"full_name\":\"Learner Number ").append(i)
+                .append("\",\"grade_name\":\"Grade 7\",\"date_joined_school\":\"2023-01-09\"")
+                .append(",\"gender\":\"Female\",\"status\":\"Active\",\"timestamp\":1700000000000")
+                .append(",\"source\":\"excel-school-server\"}");
+    }
+
+    @Benchmark
+    public boolean apiKeyCheck() {
+        return HmacSignatureVerifier.constantTimeEquals(API_KEY, API_KEY);
+    }
+
+    @Benchmark
+    public boolean hmacVerify() {
+        return verifier.verify(body, signature);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public boolean hmacVerifyContended() {
+        return verifier.verify(body, signature);
+    }
+
+    @Benchmark
+    public boolean hmacVerifyFreshThread() throws InterruptedException {
+        boolean[] valid = new boolean[1];
+        Thread.ofVirtual().start(() -> valid[0] = verifier.verify(body, signature)).join();
+        return valid[0];
+    }
+
+    /**
+     * Starting and joining an empty virtual thread, to subtract from the
+     * {@code FreshThread} results.
+     */
+    @Benchmark
+    public void freshThreadOnly() throws InterruptedException {
+        Thread.ofVirtual().start(() -> {}).join();
+    }
+
+    /**
+     * The previous implementation: new Mac per request, String.format hex encoding
+     * and a String to bytes conversion of the body. Kept as a baseline.
+     */
+    @Benchmark
+    public boolean hmacVerifyBaseline() throws Exception {
+        return baselineVerify();
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public boolean hmacVerifyBaselineContended() throws Exception {
+        return baselineVerify();
+    }
+
+    private boolean baselineVerify() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] digest = mac.doFinal(bodyString.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        String expected = "sha256=" + hex;
+        return MessageDigest.isEqual(expected.getBytes(), signature.getBytes());
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) throws Exception {
+        if (events == 1) {
+            bh.consume(gson.fromJson(bodyString, JsonObject.class));
+        } else {
+            bh.consume(batchParser.parse(body));
+        }
+    }
+
+    @Benchmark
+    public void fullRequest(Blackhole bh) throws Exception {
+        handle(bh);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public void fullRequestContended(Blackhole bh) throws Exception {
+        handle(bh);
+    }
+
+    private void handle(Blackhole bh) throws Exception {
+        bh.consume(HmacSignatureVerifier.constantTimeEquals(API_KEY, API_KEY));
+        bh.consume(verifier.verify(body, signature));
+        if (events == 1) {
+            bh.consume(gson.fromJson(bodyString, JsonObject.class));
+        } else {
+            bh.consume(batchParser.parse(body));
+        }
+    }
+}
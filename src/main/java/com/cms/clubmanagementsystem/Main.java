@@ -1,11 +1,9 @@
 package com.cms.clubmanagementsystem;
 
 import com.cms.clubmanagementsystem.controller.LoginController;
-import com.cms.clubmanagementsystem.controller.WebhookController;
-import com.cms.clubmanagementsystem.model.DataModel;
-import com.cms.clubmanagementsystem.model.Learner;
+import com.cms.clubmanagementsystem.service.AttendanceSyncService;
+import com.cms.clubmanagementsystem.service.ReportJobService;
 import com.cms.clubmanagementsystem.service.ExcelSchoolServer;
-import com.cms.clubmanagementsystem.service.StudentService;
 import com.cms.clubmanagementsystem.service.WebhookService;
 import com.cms.clubmanagementsystem.service.LearnerService;
 
@@ -29,11 +27,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class Main extends Application {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
@@ -42,8 +42,8 @@ public class Main extends Application {
     private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
 
     private ScheduledExecutorService cleanupScheduler;
-    private ExecutorService webhookExecutor;
     private WebhookService webhookService;
+    private EventBus.Subscription webhookNotifications;
     private ExcelSchoolServer excelSchoolServer;
     private int webhookPort;
     private LearnerService learnerService;
@@ -67,6 +67,12 @@ public class Main extends Application {
 
         // Set up exception handling
         setupExceptionHandling();
+
+        // Watch for handlers that block the FX thread
+        FxStallDetector.getInstance().start();
+
+        // Replay attendance captured while the database was unreachable
+        AttendanceSyncService.getInstance().start();
     }
 
     // Method to start services after login
@@ -180,7 +186,8 @@ public class Main extends Application {
     }
 
     /**
-     * Starts the webhook listener service in a background daemon thread
+     * Starts the webhook listener. The server runs its own virtual-thread handlers,
+     * so only the school server registration is moved off the calling thread.
      */
     private void startWebhookService() {
         try {
@@ -194,22 +201,15 @@ public class Main extends Application {
                     "http://localhost:" + webhookPort + "/webhook");
 
             webhookService = new WebhookService(webhookPort);
-            webhookExecutor = Executors.newSingleThreadExecutor(r -> {
-                Thread thread = new Thread(r, "Webhook-Service-Thread");
-                thread.setDaemon(true);
-                return thread;
-            });
+            webhookService.start(this::handleIncomingWebhook);
+            // One notification per burst instead of a runLater per event
+            webhookNotifications = EventBus.subscribeCoalesced(java.time.Duration.ofMillis(500), EventBus.Delivery.FX,
+                    this::showWebhookNotification, EventTypes.WEBHOOK_RECEIVED);
 
-            webhookExecutor.submit(() -> {
-                try {
-                    webhookService.start(this::handleIncomingWebhook);
-                    registerWebhookWithSchool(schoolWebhookUrl, callbackUrl);
-                } catch (Exception e) {
-                    logger.error("Webhook service failed to start", e);
-                }
-            });
+            Thread.ofVirtual().name("Webhook-Registration").start(() ->
+                    registerWebhookWithSchool(schoolWebhookUrl, callbackUrl));
 
-            logger.info("Webhook listener service initializing on port {}", webhookPort);
+            logger.info("Webhook listener service started on port {}", webhookPort);
         } catch (NumberFormatException e) {
             logger.error("Invalid webhook port configuration", e);
         } catch (Exception e) {
@@ -279,16 +279,23 @@ public class Main extends Application {
     private void handleIncomingWebhook(String eventType, String admissionNumber) {
         logger.info("Webhook received - Event: {}, Admission: {}", eventType, admissionNumber);
 
-        showWebhookNotification(eventType, admissionNumber);
         processWebhookEvent(eventType, admissionNumber);
     }
 
-    private void showWebhookNotification(String eventType, String admissionNumber) {
-        Platform.runLater(() -> {
-            String title = "Webhook Received";
-            String message = getWebhookMessage(eventType, admissionNumber);
-            NotificationUtil.showNotification(title, message);
-        });
+    private void showWebhookNotification(List<EventBus.Event> burst) {
+        if (burst.size() == 1) {
+            WebhookService.ReceivedEvent event = (WebhookService.ReceivedEvent) burst.get(0).data();
+            NotificationUtil.showNotification("Webhook Received",
+                    getWebhookMessage(event.eventType(), event.admissionNumber()));
+            return;
+        }
+        Map<String, Long> byType = burst.stream()
+                .map(event -> ((WebhookService.ReceivedEvent) event.data()).eventType())
+                .collect(Collectors.groupingBy(type -> type, TreeMap::new, Collectors.counting()));
+        String summary = byType.entrySet().stream()
+                .map(entry -> entry.getValue() + " " + entry.getKey().replace('_', ' '))
+                .collect(Collectors.joining(", "));
+        NotificationUtil.showNotification("Webhooks Received", "📨 " + burst.size() + " events: " + summary);
     }
 
     private String getWebhookMessage(String eventType, String admissionNumber) {
@@ -312,24 +319,16 @@ public class Main extends Application {
         }
     }
 
+    // Open learner lists re-query the pages they are showing; nothing is preloaded here
     private void refreshStudentData() {
         logger.info("Refreshing student data due to webhook notification");
 
-        try {
-            UUID schoolId = SessionManager.getCurrentSchoolId();
-            if (schoolId == null) {
-                logger.warn("No school ID in session, cannot fetch students");
-                return;
-            }
-
-            StudentService studentService = new StudentService();
-            List<Learner> updatedLearners = studentService.fetchAllStudentsFromDatabase(schoolId);
-            DataModel.getInstance().updateLearners(updatedLearners);
-
-            logger.info("Refreshed student data with {} learners", updatedLearners.size());
-        } catch (Exception e) {
-            logger.error("Error refreshing student data", e);
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        if (schoolId == null) {
+            logger.warn("No school ID in session, cannot refresh students");
+            return;
         }
+        EventBus.publish(EventTypes.LEARNERS_CHANGED, schoolId);
     }
 
     private void removeStudentFromData(String studentId) {
@@ -376,7 +375,11 @@ public class Main extends Application {
             }
         }
 
-        // Shutdown webhook service
+        if (webhookNotifications != null) {
+            webhookNotifications.cancel();
+        }
+
+        // Shutdown webhook service, draining in-flight requests
         if (webhookService != null) {
             try {
                 webhookService.stop();
@@ -384,15 +387,6 @@ public class Main extends Application {
                 logger.warn("Error stopping webhook service", e);
             }
         }
-
-        // Shutdown executor
-        if (webhookExecutor != null && !webhookExecutor.isShutdown()) {
-            try {
-                webhookExecutor.shutdownNow();
-            } catch (Exception e) {
-                logger.warn("Error shutting down webhook executor", e);
-            }
-        }
     }
 
     /**
@@ -417,6 +411,8 @@ public class Main extends Application {
             shutdownWebhookService();
             shutdownCleanupScheduler();
             shutdownExcelSchoolServer();
+            AttendanceSyncService.getInstance().stop();
+            ReportJobService.getInstance().shutdown();
 
             // Clean up session data
             SessionManager.closeSession();
@@ -425,6 +421,7 @@ public class Main extends Application {
             // Clean up resources
             PasswordService.shutdown();
             DatabaseConnector.shutdown();
+            FxStallDetector.getInstance().stop();
 
             logger.info("Application stopped successfully");
         } catch (Exception e) {
@@ -440,11 +437,8 @@ public class Main extends Application {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/webhook-settings.fxml"));
             Parent root = loader.load();
-            WebhookController controller = loader.getController();
-
-            // Set up webhook service to notify the controller
-            webhookService = new WebhookService(webhookPort);
-            webhookService.start(controller::onWebhookReceived);
+            // The listener started in startWebhookService keeps running; the controller
+            // shows its events through EventTypes.WEBHOOK_RECEIVED
 
             // Create a new stage for webhook settings
             Stage webhookStage = new Stage();
@@ -0,0 +1,17 @@
+package com.cms.clubmanagementsystem.controller;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A screen whose data arrives after {@code initialize} returns. The dashboard
+ * waits for {@link #initialDataShown()} before ending the screen-load span, so
+ * the recorded time covers the background query and not just the FXML load.
+ */
+interface AsyncScreen {
+
+    /**
+     * Completes once the first load has been put on screen, or exceptionally if
+     * it failed. May complete on any thread.
+     */
+    CompletionStage<Void> initialDataShown();
+}
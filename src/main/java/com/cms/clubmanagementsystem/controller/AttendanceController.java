@@ -1,8 +1,9 @@
 package com.cms.clubmanagementsystem.controller;
 
 import com.cms.clubmanagementsystem.model.ClubSchedule;
+import com.cms.clubmanagementsystem.service.AttendanceJournal;
+import com.cms.clubmanagementsystem.service.AttendanceSyncService;
 import com.cms.clubmanagementsystem.service.ClubService;
-import com.cms.clubmanagementsystem.utils.DatabaseConnector;
 import com.cms.clubmanagementsystem.utils.EventBus;
 import com.cms.clubmanagementsystem.utils.EventTypes;
 import com.cms.clubmanagementsystem.utils.SessionManager;
@@ -23,12 +24,12 @@ import java.net.URL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.Time;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.UUID;
 
@@ -45,6 +46,7 @@ public class AttendanceController implements Initializable {
     @FXML private Label sessionInfoLabel;
     @FXML private DatePicker sessionDatePicker;
     @FXML private Label attendanceSummaryLabel;
+    @FXML private Label syncStatusLabel;
 
     private UUID clubId;
     private String clubName;
@@ -58,6 +60,7 @@ public class AttendanceController implements Initializable {
     private ObservableList<String> statusOptions = FXCollections.observableArrayList("present", "absent", "late");
 
     private final ClubService clubService = new ClubService();
+    private final AttendanceSyncService syncService = AttendanceSyncService.getInstance();
     private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
 
     @Override
@@ -70,6 +73,71 @@ public class AttendanceController implements Initializable {
         setupScheduleComboBox();
         setupDatePicker();
         updateAttendanceSummary();
+        setupSyncStatus();
+    }
+
+    private void setupSyncStatus() {
+        showSyncStatus(syncService.getStatus());
+        EventBus.subscribe(EventTypes.ATTENDANCE_SYNC_STATUS, EventBus.Delivery.FX, this::showSyncStatus)
+                .bindTo(syncStatusLabel);
+    }
+
+    private void showSyncStatus(AttendanceSyncService.Status status) {
+        String text;
+        String color;
+        switch (status.state()) {
+            case SYNCED -> {
+                text = "All attendance synced";
+                color = "#27ae60";
+            }
+            case SYNCING -> {
+                text = String.format("Syncing %d change(s)...", status.pendingEntries());
+                color = "#2980b9";
+            }
+            case PENDING -> {
+                text = String.format("%d change(s) waiting to sync", status.pendingEntries());
+                color = "#2980b9";
+            }
+            case OFFLINE -> {
+                text = String.format("Offline - %d change(s) saved on this device, will sync when the connection returns",
+                        status.pendingEntries());
+                color = "#e67e22";
+            }
+            default -> {
+                text = String.format("Sync problem - %d change(s) saved on this device, retrying", status.pendingEntries());
+                color = "#e74c3c";
+            }
+        }
+        if (status.quarantinedEntries() > 0) {
+            text += String.format(" (%d change(s) rejected and set aside)", status.quarantinedEntries());
+            color = "#e74c3c";
+        }
+        syncStatusLabel.setText(text);
+        syncStatusLabel.setStyle("-fx-text-fill: " + color + ";");
+        if (status.lastError() != null) {
+            syncStatusLabel.setTooltip(new Tooltip(status.lastError()));
+        } else if (status.quarantinedEntries() > 0) {
+            syncStatusLabel.setTooltip(new Tooltip("Rejected changes are kept in quarantine.log in the attendance journal folder"));
+        } else {
+            syncStatusLabel.setTooltip(null);
+        }
+    }
+
+    private AttendanceJournal journal() throws java.io.IOException {
+        return AttendanceJournal.getInstance();
+    }
+
+    // Fails fast instead of blocking the FX thread when the database is unreachable
+    private Connection connect() throws java.sql.SQLException {
+        return syncService.connect(SessionManager.getCurrentSchoolId(), SessionManager.getCurrentUserId());
+    }
+
+    private void saveRoster(List<AttendanceJournal.RosterLearner> roster) {
+        try {
+            journal().saveRoster(clubId, selectedYear, selectedTerm, roster);
+        } catch (Exception e) {
+            logger.warn("Could not save the roster for offline use: {}", e.getMessage());
+        }
     }
 
     private void setupTableView() {
@@ -257,7 +325,7 @@ public class AttendanceController implements Initializable {
         scheduleList.clear();
         if (clubId == null) return;
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
+        try (Connection conn = connect()) {
             List<ClubSchedule> schedules = clubService.getClubSchedules(conn, clubId);
             scheduleList.addAll(schedules);
             logger.info("Loaded {} schedules for club {}", schedules.size(), clubId);
@@ -275,39 +343,55 @@ public class AttendanceController implements Initializable {
         sessionList.clear();
         if (clubId == null) return;
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            String sql = """
-                SELECT session_id, session_date, start_time, end_time, notes
-                FROM attendance_sessions
-                WHERE club_id = ? AND session_date = ?
-                ORDER BY start_time
-            """;
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, clubId);
-                ps.setDate(2, java.sql.Date.valueOf(date));
-                ResultSet rs = ps.executeQuery();
-
-                while (rs.next()) {
-                    sessionList.add(new Session(
-                            (UUID) rs.getObject("session_id"),
-                            rs.getDate("session_date").toLocalDate(),
-                            rs.getTime("start_time").toLocalTime(),
-                            rs.getTime("end_time").toLocalTime(),
-                            rs.getString("notes")
-                    ));
+        // While the syncer can't reach the database, don't wait out the pool timeout
+        if (!syncService.isOffline()) {
+            try (Connection conn = connect()) {
+                String sql = """
+                    SELECT session_id, session_date, start_time, end_time, notes
+                    FROM attendance_sessions
+                    WHERE club_id = ? AND session_date = ?
+                    ORDER BY start_time
+                """;
+
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setObject(1, clubId);
+                    ps.setDate(2, java.sql.Date.valueOf(date));
+                    ResultSet rs = ps.executeQuery();
+
+                    while (rs.next()) {
+                        sessionList.add(new Session(
+                                (UUID) rs.getObject("session_id"),
+                                rs.getDate("session_date").toLocalDate(),
+                                rs.getTime("start_time").toLocalTime(),
+                                rs.getTime("end_time").toLocalTime(),
+                                rs.getString("notes")
+                        ));
+                    }
+                    logger.info("Loaded {} sessions for club {} on {}", sessionList.size(), clubId, date);
                 }
-                logger.info("Loaded {} sessions for club {} on {}", sessionList.size(), clubId, date);
+            } catch (Exception e) {
+                logger.warn("Could not load sessions from the database, showing local sessions only: {}", e.getMessage());
+                syncService.requestSync();
             }
+        }
 
-            if (!sessionList.isEmpty()) {
-                sessionComboBox.getSelectionModel().selectFirst();
-            } else {
-                sessionComboBox.getSelectionModel().clearSelection();
+        // Sessions created on this device that haven't synced yet
+        try {
+            for (AttendanceJournal.SessionEntry pending : journal().pendingSessions(clubId, date)) {
+                boolean known = sessionList.stream().anyMatch(s -> s.getSessionId().equals(pending.sessionId()));
+                if (!known) {
+                    sessionList.add(new Session(pending.sessionId(), pending.sessionDate(),
+                            pending.startTime(), pending.endTime(), null));
+                }
             }
         } catch (Exception e) {
-            logger.error("Error loading sessions: {}", e.getMessage(), e);
-            showError("Error loading sessions: " + e.getMessage());
+            logger.error("Error reading local attendance journal: {}", e.getMessage(), e);
+        }
+
+        if (!sessionList.isEmpty()) {
+            sessionComboBox.getSelectionModel().selectFirst();
+        } else {
+            sessionComboBox.getSelectionModel().clearSelection();
         }
     }
 
@@ -315,49 +399,89 @@ public class AttendanceController implements Initializable {
         attendanceList.clear();
         if (sessionId == null) return;
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            String sql = """
-                SELECT l.learner_id, l.full_name, g.grade_name,
-                       ar.status as recorded_status
-                FROM club_enrollments ce
-                JOIN learners l ON ce.learner_id = l.learner_id
-                JOIN grades g ON l.grade_id = g.grade_id
-                LEFT JOIN attendance_records ar ON l.learner_id = ar.learner_id
-                    AND ar.session_id = ?
-                WHERE ce.club_id = ? AND ce.is_active = true
-                AND ce.academic_year = ?
-                AND ce.term_number = ?
-                ORDER BY g.grade_name, l.full_name
-            """;
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, sessionId);
-                ps.setObject(2, clubId);
-                ps.setInt(3, selectedYear);
-                ps.setInt(4, selectedTerm);
-                ResultSet rs = ps.executeQuery();
-
-                while (rs.next()) {
-                    String recordedStatus = rs.getString("recorded_status");
-                    // If no attendance record exists, default to "absent"
-                    String status = (recordedStatus != null) ? recordedStatus : "absent";
-
-                    attendanceList.add(new AttendanceRecord(
-                            rs.getString("learner_id"),
-                            rs.getString("full_name"),
-                            rs.getString("grade_name"),
-                            status
-                    ));
-                }
-                logger.info("Loaded {} attendance records for session {}, year {}, term {}",
-                        attendanceList.size(), sessionId, selectedYear, selectedTerm);
+        Map<UUID, String> pendingMarks;
+        try {
+            pendingMarks = journal().pendingMarks(sessionId);
+        } catch (Exception e) {
+            logger.error("Error reading local attendance journal: {}", e.getMessage(), e);
+            pendingMarks = Map.of();
+        }
 
-                updateAttendanceSummary();
+        if (!syncService.isOffline()) {
+            try (Connection conn = connect()) {
+                String sql = """
+                    SELECT l.learner_id, l.full_name, g.grade_name,
+                           ar.status as recorded_status
+                    FROM club_enrollments ce
+                    JOIN learners l ON ce.learner_id = l.learner_id
+                    JOIN grades g ON l.grade_id = g.grade_id
+                    LEFT JOIN attendance_records ar ON l.learner_id = ar.learner_id
+                        AND ar.session_id = ?
+                    WHERE ce.club_id = ? AND ce.is_active = true
+                    AND ce.academic_year = ?
+                    AND ce.term_number = ?
+                    ORDER BY g.grade_name, l.full_name
+                """;
+
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setObject(1, sessionId);
+                    ps.setObject(2, clubId);
+                    ps.setInt(3, selectedYear);
+                    ps.setInt(4, selectedTerm);
+                    ResultSet rs = ps.executeQuery();
+
+                    List<AttendanceRecord> loaded = new ArrayList<>();
+                    List<AttendanceJournal.RosterLearner> roster = new ArrayList<>();
+                    while (rs.next()) {
+                        String learnerId = rs.getString("learner_id");
+                        String recordedStatus = rs.getString("recorded_status");
+                        // Marks not yet synced from this device win over what the database has
+                        String pendingStatus = pendingMarks.get(UUID.fromString(learnerId));
+                        // If no attendance record exists, default to "absent"
+                        String status = pendingStatus != null ? pendingStatus
+                                : recordedStatus != null ? recordedStatus : "absent";
+
+                        loaded.add(new AttendanceRecord(
+                                learnerId,
+                                rs.getString("full_name"),
+                                rs.getString("grade_name"),
+                                status,
+                                recordedStatus != null || pendingStatus != null
+                        ));
+                        roster.add(new AttendanceJournal.RosterLearner(UUID.fromString(learnerId),
+                                rs.getString("full_name"), rs.getString("grade_name")));
+                    }
+                    saveRoster(roster);
+                    attendanceList.setAll(loaded);
+                    logger.info("Loaded {} attendance records for session {}, year {}, term {}",
+                            attendanceList.size(), sessionId, selectedYear, selectedTerm);
+
+                    updateAttendanceSummary();
+                    return;
+                }
+            } catch (Exception e) {
+                logger.warn("Could not load attendance from the database, using the cached roster: {}", e.getMessage());
+                syncService.requestSync();
             }
+        }
+
+        // Offline: the roster last loaded for this club and term, kept next to the journal
+        List<AttendanceJournal.RosterLearner> roster;
+        try {
+            roster = journal().roster(clubId, selectedYear, selectedTerm);
         } catch (Exception e) {
-            logger.error("Error loading attendance data: {}", e.getMessage(), e);
-            showError("Error loading attendance data: " + e.getMessage());
+            logger.error("Error reading the saved roster: {}", e.getMessage(), e);
+            roster = List.of();
         }
+        for (AttendanceJournal.RosterLearner learner : roster) {
+            String pendingStatus = pendingMarks.get(learner.learnerId());
+            attendanceList.add(new AttendanceRecord(learner.learnerId().toString(), learner.fullName(), learner.grade(),
+                    pendingStatus != null ? pendingStatus : "absent", pendingStatus != null));
+        }
+        if (roster.isEmpty()) {
+            showError("The learner list can't be loaded while offline. Open this club once while connected to mark attendance offline.");
+        }
+        updateAttendanceSummary();
     }
 
     private void updateSessionInfo(Session session) {
@@ -447,24 +571,15 @@ public class AttendanceController implements Initializable {
             }
         }
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            String sql = """
-        INSERT INTO attendance_sessions (session_id, club_id, session_date, start_time, end_time, created_by, school_id)
-        VALUES (?, ?, ?, ?, ?, ?, ?)
-    """;
-
+        try {
+            // Journaled locally and inserted by the syncer, so this works without a connection
             UUID sessionId = UUID.randomUUID();
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, sessionId);
-                ps.setObject(2, clubId);
-                ps.setDate(3, java.sql.Date.valueOf(sessionDate));
-                ps.setTime(4, Time.valueOf(selectedSchedule.getStartTime()));
-                ps.setTime(5, Time.valueOf(selectedSchedule.getEndTime()));
-                ps.setObject(6, SessionManager.getCurrentUserId());
-                ps.setObject(7, SessionManager.getCurrentSchoolId());
-                ps.executeUpdate();
-                logger.info("Created new session {} for club {}", sessionId, clubId);
-            }
+            journal().append(List.of(new AttendanceJournal.SessionEntry(sessionId, clubId,
+                    SessionManager.getCurrentSchoolId(), sessionDate,
+                    selectedSchedule.getStartTime(), selectedSchedule.getEndTime(),
+                    SessionManager.getCurrentUserId())));
+            syncService.journalChanged();
+            logger.info("Created new session {} for club {}", sessionId, clubId);
 
             Session newSession = new Session(sessionId, sessionDate,
                     selectedSchedule.getStartTime(), selectedSchedule.getEndTime(), null);
@@ -482,25 +597,15 @@ public class AttendanceController implements Initializable {
         }
     }
 
+    // sessionList holds the date's sessions from the database plus any created on this device
     private boolean sessionExistsForDate(LocalDate date) {
         if (clubId == null || date == null) {
             return false;
         }
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            String sql = "SELECT 1 FROM attendance_sessions WHERE club_id = ? AND session_date = ?";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, clubId);
-                ps.setDate(2, java.sql.Date.valueOf(date));
-                ResultSet rs = ps.executeQuery();
-                boolean exists = rs.next();
-                logger.debug("Session exists for date {}: {}", date, exists);
-                return exists;
-            }
-        } catch (Exception e) {
-            logger.error("Error checking session existence: {}", e.getMessage(), e);
-            return false; // Return false on error to allow creation
-        }
+        boolean exists = sessionList.stream().anyMatch(session -> date.equals(session.getSessionDate()));
+        logger.debug("Session exists for date {}: {}", date, exists);
+        return exists;
     }
 
     @FXML
@@ -528,93 +633,41 @@ public class AttendanceController implements Initializable {
         }
 
         UUID sessionId = selectedSession.getSessionId();
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            // Try approach 1: Using cast in SQL
-            String sql = """
-            INSERT INTO attendance_records (record_id, session_id, learner_id, school_id, status, marked_by)
-            VALUES (?, ?, ?, ?, ?::attendance_status, ?)
-            ON CONFLICT (session_id, learner_id)
-            DO UPDATE SET status = EXCLUDED.status::attendance_status, marked_by = EXCLUDED.marked_by, marked_at = CURRENT_TIMESTAMP
-        """;
-
-            boolean hasChanges = false;
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                for (AttendanceRecord record : attendanceList) {
-                    // Skip if status hasn't changed from default (but always save for new sessions)
-                    if (!record.isStatusChanged() && !isNewSession(sessionId)) {
-                        continue;
-                    }
 
-                    ps.setObject(1, UUID.randomUUID());
-                    ps.setObject(2, sessionId);
-                    ps.setObject(3, UUID.fromString(record.getLearnerId()));
-                    ps.setObject(4, SessionManager.getCurrentSchoolId());
-                    ps.setString(5, record.getStatus()); // This will be cast to attendance_status
-                    ps.setObject(6, SessionManager.getCurrentUserId());
-                    ps.addBatch();
-                    hasChanges = true;
-                }
-
-                if (hasChanges) {
-                    ps.executeBatch();
-                    logger.info("Saved attendance for session {}, year {}, term {}", sessionId, selectedYear, selectedTerm);
-                    showInfo("Attendance saved successfully!");
-                    EventBus.publish(EventTypes.CLUB_STATS_UPDATED, clubId);
+        // Rows without a stored record are always written so the session has a full roster
+        List<AttendanceRecord> toSave = attendanceList.stream()
+                .filter(record -> !record.isRecorded() || record.isStatusChanged())
+                .toList();
+        if (toSave.isEmpty()) {
+            showInfo("No changes to save.");
+            return;
+        }
 
-                    // Reset the changed status after saving
-                    for (AttendanceRecord record : attendanceList) {
-                        record.resetStatusChanged();
-                    }
-                } else {
-                    showInfo("No changes to save.");
-                }
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID markedBy = SessionManager.getCurrentUserId();
+        java.time.Instant markedAt = java.time.Instant.now();
+        List<AttendanceJournal.MarkEntry> marks = toSave.stream()
+                .map(record -> new AttendanceJournal.MarkEntry(sessionId, UUID.fromString(record.getLearnerId()),
+                        schoolId, record.getStatus(), markedBy, markedAt))
+                .toList();
+
+        try {
+            // Durable on this device once append returns; the syncer writes it to the database
+            journal().append(marks);
+            toSave.forEach(AttendanceRecord::markSaved);
+            syncService.journalChanged();
+            logger.info("Journaled {} attendance marks for session {}, year {}, term {}",
+                    marks.size(), sessionId, selectedYear, selectedTerm);
+            EventBus.publish(EventTypes.CLUB_STATS_UPDATED, clubId);
+
+            if (syncService.isOffline()) {
+                showInfo("Attendance saved on this device. It will sync when the connection returns.");
+            } else {
+                showInfo("Attendance saved successfully!");
             }
         } catch (Exception e) {
             logger.error("Error saving attendance: {}", e.getMessage(), e);
-
-            // If the cast approach fails, try the setObject approach
-            try (Connection conn = DatabaseConnector.getConnection()) {
-                String sql = """
-                INSERT INTO attendance_records (record_id, session_id, learner_id, school_id, status, marked_by)
-                VALUES (?, ?, ?, ?, ?, ?)
-                ON CONFLICT (session_id, learner_id)
-                DO UPDATE SET status = EXCLUDED.status, marked_by = EXCLUDED.marked_by, marked_at = CURRENT_TIMESTAMP
-            """;
-
-                boolean hasChanges = false;
-                try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                    for (AttendanceRecord record : attendanceList) {
-                        if (!record.isStatusChanged() && !isNewSession(sessionId)) {
-                            continue;
-                        }
-
-                        ps.setObject(1, UUID.randomUUID());
-                        ps.setObject(2, sessionId);
-                        ps.setObject(3, UUID.fromString(record.getLearnerId()));
-                        ps.setObject(4, SessionManager.getCurrentSchoolId());
-                        ps.setObject(5, record.getStatus()); // Use setObject instead of setString
-                        ps.setObject(6, SessionManager.getCurrentUserId());
-                        ps.addBatch();
-                        hasChanges = true;
-                    }
-
-                    if (hasChanges) {
-                        ps.executeBatch();
-                        logger.info("Saved attendance for session {}, year {}, term {}", sessionId, selectedYear, selectedTerm);
-                        showInfo("Attendance saved successfully!");
-                        EventBus.publish(EventTypes.CLUB_STATS_UPDATED, clubId);
-
-                        for (AttendanceRecord record : attendanceList) {
-                            record.resetStatusChanged();
-                        }
-                    } else {
-                        showInfo("No changes to save.");
-                    }
-                }
-            } catch (Exception e2) {
-                logger.error("Error saving attendance with alternative approach: {}", e2.getMessage(), e2);
-                showError("Error saving attendance: " + e2.getMessage());
-            }
+            showError("Error saving attendance: " + e.getMessage());
         }
     }
 
@@ -632,38 +685,19 @@ public class AttendanceController implements Initializable {
             }
         }
 
+    // Checked against the schedules already loaded for the club so it works offline
     private boolean validateSessionAgainstSchedules(LocalDate sessionDate) {
         if (clubId == null || sessionDate == null) {
             return false;
         }
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            // Get the day of the week for the session date (e.g., "MON", "TUE", etc.)
-            String dayOfWeek = sessionDate.getDayOfWeek().toString().substring(0, 3).toUpperCase();
-
-            String sql = """
-            SELECT COUNT(*) as matching_schedules
-            FROM club_schedules 
-            WHERE club_id = ? 
-            AND meeting_day = ?
-            AND is_active = true
-        """;
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, clubId);
-                ps.setString(2, dayOfWeek);
-                ResultSet rs = ps.executeQuery();
-
-                if (rs.next()) {
-                    int matchingSchedules = rs.getInt("matching_schedules");
-                    logger.debug("Found {} matching schedules for {} on {}", matchingSchedules, dayOfWeek, sessionDate);
-                    return matchingSchedules > 0;
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error validating session against schedules: {}", e.getMessage(), e);
-        }
-        return false;
+        // Get the day of the week for the session date (e.g., "MON", "TUE", etc.)
+        String dayOfWeek = sessionDate.getDayOfWeek().toString().substring(0, 3).toUpperCase();
+        long matchingSchedules = scheduleList.stream()
+                .filter(schedule -> dayOfWeek.equalsIgnoreCase(schedule.getMeetingDay()))
+                .count();
+        logger.debug("Found {} matching schedules for {} on {}", matchingSchedules, dayOfWeek, sessionDate);
+        return matchingSchedules > 0;
     }
 
     private String getScheduledDays() {
@@ -671,47 +705,15 @@ public class AttendanceController implements Initializable {
             return "No club selected";
         }
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            String sql = """
-            SELECT DISTINCT meeting_day
-            FROM club_schedules 
-            WHERE club_id = ? AND is_active = true
-            ORDER BY meeting_day
-        """;
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, clubId);
-                ResultSet rs = ps.executeQuery();
-
-                List<String> days = new ArrayList<>();
-                while (rs.next()) {
-                    days.add(rs.getString("meeting_day"));
-                }
-
-                if (days.isEmpty()) {
-                    return "No scheduled days";
-                }
-                return String.join(", ", days);
-            }
-        } catch (Exception e) {
-            logger.error("Error getting scheduled days: {}", e.getMessage(), e);
-            return "Error loading schedule";
-        }
-    }
-
-    private boolean isNewSession(UUID sessionId) {
-        // Check if this session has any existing attendance records
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            String sql = "SELECT 1 FROM attendance_records WHERE session_id = ? LIMIT 1";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, sessionId);
-                ResultSet rs = ps.executeQuery();
-                return !rs.next(); // If no records exist, it's a new session
-            }
-        } catch (Exception e) {
-            logger.error("Error checking if session is new: {}", e.getMessage(), e);
-            return true; // Assume it's new if there's an error
+        List<String> days = scheduleList.stream()
+                .map(ClubSchedule::getMeetingDay)
+                .distinct()
+                .sorted()
+                .toList();
+        if (days.isEmpty()) {
+            return "No scheduled days";
         }
+        return String.join(", ", days);
     }
 
     @FXML
@@ -762,13 +764,15 @@ public class AttendanceController implements Initializable {
         private final String grade;
         private String status;
         private String originalStatus;
+        private boolean recorded;
 
-        public AttendanceRecord(String learnerId, String fullName, String grade, String status) {
+        public AttendanceRecord(String learnerId, String fullName, String grade, String status, boolean recorded) {
             this.learnerId = learnerId;
             this.fullName = fullName;
             this.grade = grade;
             this.status = status;
             this.originalStatus = status;
+            this.recorded = recorded;
         }
 
         public String getLearnerId() { return learnerId; }
@@ -787,6 +791,16 @@ public class AttendanceController implements Initializable {
         public void resetStatusChanged() {
             this.originalStatus = this.status;
         }
+
+        // Whether the session already has a stored record for this learner
+        public boolean isRecorded() {
+            return recorded;
+        }
+
+        public void markSaved() {
+            this.originalStatus = this.status;
+            this.recorded = true;
+        }
     }
 
     private static class Session {
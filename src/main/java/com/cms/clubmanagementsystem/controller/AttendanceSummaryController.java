@@ -1,6 +1,7 @@
 package com.cms.clubmanagementsystem.controller;
 
 import com.cms.clubmanagementsystem.model.ClubAttendanceSummary;
+import com.cms.clubmanagementsystem.service.AttendanceSummaryService;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
 import com.cms.clubmanagementsystem.utils.SessionManager;
 import javafx.application.Platform;
@@ -15,15 +16,13 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URL;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.UUID;
 
 public class AttendanceSummaryController implements Initializable {
 
@@ -50,6 +49,7 @@ public class AttendanceSummaryController implements Initializable {
 
     private ObservableList<ClubAttendanceSummary> attendanceData = FXCollections.observableArrayList();
     private Map<String, LocalDate[]> termDates = new HashMap<>();
+    private final AttendanceSummaryService summaryService = new AttendanceSummaryService();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -243,7 +243,11 @@ public class AttendanceSummaryController implements Initializable {
     }
 
     private int getCurrentTerm() {
-        int month = LocalDate.now().getMonthValue();
+        return getTermOf(LocalDate.now());
+    }
+
+    private int getTermOf(LocalDate date) {
+        int month = date.getMonthValue();
         if (month >= 1 && month <= 4) return 1;
         if (month >= 5 && month <= 8) return 2;
         return 3;
@@ -260,19 +264,18 @@ public class AttendanceSummaryController implements Initializable {
         }
 
         try (Connection conn = DatabaseConnector.getConnection()) {
-            int totalActiveClubs = countActiveClubs(conn);
-
             AttendanceLoadResult result = switch (period) {
                 case DAILY_PERIOD -> loadDailyAttendance(conn, datePicker.getValue());
                 case MONTHLY_PERIOD -> loadMonthlyAttendance(conn, monthComboBox.getValue(), yearComboBox.getValue());
                 case TERM_PERIOD -> loadTermAttendance(conn, termComboBox.getValue(), yearComboBox.getValue());
-                default -> new AttendanceLoadResult(0, 0, 0.0);
+                default -> new AttendanceLoadResult(0, 0, 0, 0.0);
             };
 
-            updateStatistics(totalActiveClubs, result.activeSessions(), result.totalLearners(), result.avgAttendance());
+            updateStatistics(result.activeClubs(), result.activeSessions(), result.totalLearners(), result.avgAttendance());
 
-            logger.info("Loaded attendance data for {} period: {} clubs, {} sessions, {} learners, {:.1f}% attendance",
-                    period, totalActiveClubs, result.activeSessions(), result.totalLearners(), result.avgAttendance());
+            logger.info("Loaded attendance data for {} period: {} clubs, {} sessions, {} learners, {}% attendance",
+                    period, result.activeClubs(), result.activeSessions(), result.totalLearners(),
+                    String.format("%.1f", result.avgAttendance()));
 
         } catch (SQLException e) {
             logger.error("Error loading attendance data for period: {}", period, e);
@@ -283,312 +286,95 @@ public class AttendanceSummaryController implements Initializable {
         }
     }
 
-    private int countActiveClubs(Connection conn) throws SQLException {
-        String countQuery = "SELECT COUNT(*) as active_club_count FROM clubs WHERE school_id = ? AND is_active = true";
-        try (PreparedStatement stmt = conn.prepareStatement(countQuery)) {
-            stmt.setObject(1, SessionManager.getCurrentSchoolId());
-            ResultSet rs = stmt.executeQuery();
-            return rs.next() ? rs.getInt("active_club_count") : 0;
-        }
-    }
-
+    // Day, month-to-date and term-to-date rates for every club come back from one query
     private AttendanceLoadResult loadDailyAttendance(Connection conn, LocalDate date) throws SQLException {
         if (date == null) date = LocalDate.now();
 
-        String query = """
-            SELECT 
-                c.club_id,
-                c.club_name,
-                u.full_name as teacher_name,
-                COUNT(DISTINCT cl.learner_id) as total_learners,
-                COUNT(CASE WHEN ar.status = 'present' THEN 1 END) as daily_present,
-                COUNT(CASE WHEN ar.status IN ('absent', 'late') THEN 1 END) as daily_absent,
-                CONCAT(cs.start_time, ' - ', cs.end_time) as session_time,
-                asess.session_date
-            FROM clubs c
-            LEFT JOIN club_teachers ct ON c.club_id = ct.club_id AND ct.school_id = ?
-            LEFT JOIN users u ON ct.teacher_id = u.user_id
-            LEFT JOIN club_learners cl ON c.club_id = cl.club_id AND cl.is_active = true AND cl.school_id = ?
-            LEFT JOIN attendance_sessions asess ON c.club_id = asess.club_id AND asess.session_date = ? AND asess.school_id = ?
-            LEFT JOIN attendance_records ar ON asess.session_id = ar.session_id AND ar.school_id = ?
-            LEFT JOIN club_schedules cs ON c.club_id = cs.club_id AND cs.is_active = true AND cs.school_id = ?
-            WHERE c.school_id = ? AND c.is_active = true
-            GROUP BY c.club_id, c.club_name, u.full_name, cs.start_time, cs.end_time, asess.session_date
-            ORDER BY c.club_name
-            """;
-
-        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            UUID schoolId = SessionManager.getCurrentSchoolId();
-            stmt.setObject(1, schoolId);
-            stmt.setObject(2, schoolId);
-            stmt.setObject(3, date);
-            stmt.setObject(4, schoolId);
-            stmt.setObject(5, schoolId);
-            stmt.setObject(6, schoolId);
-            stmt.setObject(7, schoolId);
-
-            return processDailyResultSet(stmt, date);
-        }
-    }
-
-    private AttendanceLoadResult processDailyResultSet(PreparedStatement stmt, LocalDate date) throws SQLException {
-        ResultSet rs = stmt.executeQuery();
-        int activeSessions = 0;
-        int totalLearners = 0;
-
-        while (rs.next()) {
-            ClubAttendanceSummary summary = createClubAttendanceSummary(rs);
+        LocalDate[] termRange = getTermDateRange(getTermOf(date), date.getYear());
+        LocalDate termEnd = termRange[1].isBefore(date) ? termRange[1] : date;
 
-            int dailyPresent = rs.getInt("daily_present");
-            int dailyAbsent = rs.getInt("daily_absent");
-            summary.setPresentCount(dailyPresent);
-            summary.setAbsentCount(dailyAbsent);
-            summary.setDailyRate(calculateRate(dailyPresent, dailyAbsent));
-
-            String clubId = rs.getString("club_id");
-            summary.setMonthlyRate(loadMonthlyRate(clubId, date));
-            summary.setTermRate(loadTermRate(clubId, date));
+        List<AttendanceSummaryService.ClubSummary> clubs = summaryService.summarize(conn,
+                SessionManager.getCurrentSchoolId(),
+                AttendanceSummaryService.Window.day(date),
+                AttendanceSummaryService.Window.through(date.withDayOfMonth(1), date),
+                termRange[0].isAfter(date) ? null : AttendanceSummaryService.Window.through(termRange[0], termEnd));
 
+        int activeSessions = 0;
+        for (AttendanceSummaryService.ClubSummary club : clubs) {
+            ClubAttendanceSummary summary = createClubAttendanceSummary(club, club.day());
+            summary.setDailyRate(calculateRate(club.day()));
+            summary.setMonthlyRate(calculateRate(club.month()));
+            summary.setTermRate(calculateRate(club.term()));
             attendanceData.add(summary);
 
-            if (rs.getDate("session_date") != null) {
+            if (club.hadSessionInDay()) {
                 activeSessions++;
             }
-            totalLearners += summary.getTotalLearners();
         }
 
-        Platform.runLater(() -> {
-            attendanceTable.setItems(attendanceData);
-        });
-
-        double avgAttendance = calculateOverallAverageAttendance();
-        return new AttendanceLoadResult(activeSessions, totalLearners, avgAttendance);
-    }
-
-    private String loadMonthlyRate(String clubId, LocalDate date) {
-        if (clubId == null) return "0%";
-
-        String query = """
-            SELECT 
-                COUNT(CASE WHEN ar.status = 'present' THEN 1 END) as present_count,
-                COUNT(CASE WHEN ar.status IN ('absent', 'late') THEN 1 END) as absent_count
-            FROM attendance_sessions asess 
-            JOIN attendance_records ar ON asess.session_id = ar.session_id 
-            WHERE asess.club_id = ? 
-            AND EXTRACT(MONTH FROM asess.session_date) = ?
-            AND EXTRACT(YEAR FROM asess.session_date) = ?
-            AND asess.school_id = ?
-            """;
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setObject(1, UUID.fromString(clubId));
-            stmt.setInt(2, date.getMonthValue());
-            stmt.setInt(3, date.getYear());
-            stmt.setObject(4, SessionManager.getCurrentSchoolId());
-
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                int present = rs.getInt("present_count");
-                int absent = rs.getInt("absent_count");
-                return calculateRate(present, absent);
-            }
-        } catch (Exception e) {
-            logger.warn("Error loading monthly rate for club {}: {}", clubId, e.getMessage());
-        }
-        return "0%";
-    }
-
-    private String loadTermRate(String clubId, LocalDate date) {
-        if (clubId == null) return "0%";
-
-        LocalDate[] termRange = getTermDateRange(getCurrentTerm(), date.getYear());
-        if (termRange == null) return "0%";
-
-        String query = """
-            SELECT 
-                COUNT(CASE WHEN ar.status = 'present' THEN 1 END) as present_count,
-                COUNT(CASE WHEN ar.status IN ('absent', 'late') THEN 1 END) as absent_count
-            FROM attendance_sessions asess 
-            JOIN attendance_records ar ON asess.session_id = ar.session_id 
-            WHERE asess.club_id = ? 
-            AND asess.session_date BETWEEN ? AND ?
-            AND asess.school_id = ?
-            """;
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setObject(1, UUID.fromString(clubId));
-            stmt.setObject(2, termRange[0]);
-            stmt.setObject(3, termRange[1]);
-            stmt.setObject(4, SessionManager.getCurrentSchoolId());
-
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                int present = rs.getInt("present_count");
-                int absent = rs.getInt("absent_count");
-                return calculateRate(present, absent);
-            }
-        } catch (Exception e) {
-            logger.warn("Error loading term rate for club {}: {}", clubId, e.getMessage());
-        }
-        return "0%";
+        return publish(clubs, activeSessions);
     }
 
     private AttendanceLoadResult loadMonthlyAttendance(Connection conn, String month, Integer year) throws SQLException {
         if (month == null || year == null) {
-            return new AttendanceLoadResult(0, 0, 0.0);
+            return new AttendanceLoadResult(0, 0, 0, 0.0);
         }
 
-        int monthNumber = getMonthNumber(month);
-        YearMonth yearMonth = YearMonth.of(year, monthNumber);
-        LocalDate startDate = yearMonth.atDay(1);
-        LocalDate endDate = yearMonth.atEndOfMonth();
-
-        String query = """
-            SELECT 
-                c.club_id,
-                c.club_name,
-                u.full_name as teacher_name,
-                COUNT(DISTINCT cl.learner_id) as total_learners,
-                COUNT(CASE WHEN ar.status = 'present' THEN 1 END) as monthly_present,
-                COUNT(CASE WHEN ar.status IN ('absent', 'late') THEN 1 END) as monthly_absent,
-                CONCAT(cs.start_time, ' - ', cs.end_time) as session_time
-            FROM clubs c
-            LEFT JOIN club_teachers ct ON c.club_id = ct.club_id AND ct.school_id = ?
-            LEFT JOIN users u ON ct.teacher_id = u.user_id
-            LEFT JOIN club_learners cl ON c.club_id = cl.club_id AND cl.is_active = true AND cl.school_id = ?
-            LEFT JOIN attendance_sessions asess ON c.club_id = asess.club_id 
-                AND asess.session_date BETWEEN ? AND ? AND asess.school_id = ?
-            LEFT JOIN attendance_records ar ON asess.session_id = ar.session_id AND ar.school_id = ?
-            LEFT JOIN club_schedules cs ON c.club_id = cs.club_id AND cs.is_active = true AND cs.school_id = ?
-            WHERE c.school_id = ? AND c.is_active = true
-            GROUP BY c.club_id, c.club_name, u.full_name, cs.start_time, cs.end_time
-            ORDER BY c.club_name
-            """;
-
-        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            UUID schoolId = SessionManager.getCurrentSchoolId();
-            stmt.setObject(1, schoolId);
-            stmt.setObject(2, schoolId);
-            stmt.setObject(3, startDate);
-            stmt.setObject(4, endDate);
-            stmt.setObject(5, schoolId);
-            stmt.setObject(6, schoolId);
-            stmt.setObject(7, schoolId);
-            stmt.setObject(8, schoolId);
-
-            return processMonthlyResultSet(stmt);
-        }
-    }
-
-    private AttendanceLoadResult processMonthlyResultSet(PreparedStatement stmt) throws SQLException {
-        ResultSet rs = stmt.executeQuery();
-        int totalLearners = 0;
-
-        while (rs.next()) {
-            ClubAttendanceSummary summary = createClubAttendanceSummary(rs);
+        YearMonth yearMonth = YearMonth.of(year, getMonthNumber(month));
+        List<AttendanceSummaryService.ClubSummary> clubs = summaryService.summarize(conn,
+                SessionManager.getCurrentSchoolId(), null,
+                AttendanceSummaryService.Window.through(yearMonth.atDay(1), yearMonth.atEndOfMonth()), null);
 
-            int monthlyPresent = rs.getInt("monthly_present");
-            int monthlyAbsent = rs.getInt("monthly_absent");
-            summary.setPresentCount(monthlyPresent);
-            summary.setAbsentCount(monthlyAbsent);
+        for (AttendanceSummaryService.ClubSummary club : clubs) {
+            ClubAttendanceSummary summary = createClubAttendanceSummary(club, club.month());
             summary.setDailyRate("N/A");
-            summary.setMonthlyRate(calculateRate(monthlyPresent, monthlyAbsent));
+            summary.setMonthlyRate(calculateRate(club.month()));
             summary.setTermRate("N/A");
-
             attendanceData.add(summary);
-            totalLearners += summary.getTotalLearners();
         }
 
-        Platform.runLater(() -> {
-            attendanceTable.setItems(attendanceData);
-        });
-
-        double avgAttendance = calculateOverallAverageAttendance();
-        return new AttendanceLoadResult(0, totalLearners, avgAttendance);
+        return publish(clubs, 0);
     }
 
     private AttendanceLoadResult loadTermAttendance(Connection conn, Integer term, Integer year) throws SQLException {
         if (term == null || year == null) {
-            return new AttendanceLoadResult(0, 0, 0.0);
+            return new AttendanceLoadResult(0, 0, 0, 0.0);
         }
 
         LocalDate[] termRange = getTermDateRange(term, year);
-        if (termRange == null) return new AttendanceLoadResult(0, 0, 0.0);
-
-        String query = """
-            SELECT 
-                c.club_id,
-                c.club_name,
-                u.full_name as teacher_name,
-                COUNT(DISTINCT cl.learner_id) as total_learners,
-                COUNT(CASE WHEN ar.status = 'present' THEN 1 END) as term_present,
-                COUNT(CASE WHEN ar.status IN ('absent', 'late') THEN 1 END) as term_absent,
-                CONCAT(cs.start_time, ' - ', cs.end_time) as session_time
-            FROM clubs c
-            LEFT JOIN club_teachers ct ON c.club_id = ct.club_id AND ct.school_id = ?
-            LEFT JOIN users u ON ct.teacher_id = u.user_id
-            LEFT JOIN club_learners cl ON c.club_id = cl.club_id AND cl.is_active = true AND cl.school_id = ?
-            LEFT JOIN attendance_sessions asess ON c.club_id = asess.club_id 
-                AND asess.session_date BETWEEN ? AND ? AND asess.school_id = ?
-            LEFT JOIN attendance_records ar ON asess.session_id = ar.session_id AND ar.school_id = ?
-            LEFT JOIN club_schedules cs ON c.club_id = cs.club_id AND cs.is_active = true AND cs.school_id = ?
-            WHERE c.school_id = ? AND c.is_active = true
-            GROUP BY c.club_id, c.club_name, u.full_name, cs.start_time, cs.end_time
-            ORDER BY c.club_name
-            """;
-
-        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            UUID schoolId = SessionManager.getCurrentSchoolId();
-            stmt.setObject(1, schoolId);
-            stmt.setObject(2, schoolId);
-            stmt.setObject(3, termRange[0]);
-            stmt.setObject(4, termRange[1]);
-            stmt.setObject(5, schoolId);
-            stmt.setObject(6, schoolId);
-            stmt.setObject(7, schoolId);
-            stmt.setObject(8, schoolId);
-
-            return processTermResultSet(stmt);
-        }
-    }
+        List<AttendanceSummaryService.ClubSummary> clubs = summaryService.summarize(conn,
+                SessionManager.getCurrentSchoolId(), null, null,
+                AttendanceSummaryService.Window.through(termRange[0], termRange[1]));
 
-    private AttendanceLoadResult processTermResultSet(PreparedStatement stmt) throws SQLException {
-        ResultSet rs = stmt.executeQuery();
-        int totalLearners = 0;
-
-        while (rs.next()) {
-            ClubAttendanceSummary summary = createClubAttendanceSummary(rs);
-
-            int termPresent = rs.getInt("term_present");
-            int termAbsent = rs.getInt("term_absent");
-            summary.setPresentCount(termPresent);
-            summary.setAbsentCount(termAbsent);
+        for (AttendanceSummaryService.ClubSummary club : clubs) {
+            ClubAttendanceSummary summary = createClubAttendanceSummary(club, club.term());
             summary.setDailyRate("N/A");
             summary.setMonthlyRate("N/A");
-            summary.setTermRate(calculateRate(termPresent, termAbsent));
-
+            summary.setTermRate(calculateRate(club.term()));
             attendanceData.add(summary);
-            totalLearners += summary.getTotalLearners();
         }
 
+        return publish(clubs, 0);
+    }
+
+    private AttendanceLoadResult publish(List<AttendanceSummaryService.ClubSummary> clubs, int activeSessions) {
         Platform.runLater(() -> {
             attendanceTable.setItems(attendanceData);
         });
 
-        double avgAttendance = calculateOverallAverageAttendance();
-        return new AttendanceLoadResult(0, totalLearners, avgAttendance);
+        int totalLearners = clubs.stream().mapToInt(AttendanceSummaryService.ClubSummary::totalLearners).sum();
+        return new AttendanceLoadResult(clubs.size(), activeSessions, totalLearners, calculateOverallAverageAttendance());
     }
 
-    private ClubAttendanceSummary createClubAttendanceSummary(ResultSet rs) throws SQLException {
+    private ClubAttendanceSummary createClubAttendanceSummary(AttendanceSummaryService.ClubSummary club,
+                                                              AttendanceSummaryService.Counts counts) {
         ClubAttendanceSummary summary = new ClubAttendanceSummary();
-        summary.setClubName(rs.getString("club_name"));
-        summary.setTeacherName(rs.getString("teacher_name"));
-        summary.setTotalLearners(rs.getInt("total_learners"));
-        summary.setSessionTime(rs.getString("session_time"));
+        summary.setClubName(club.clubName());
+        summary.setTeacherName(club.teacherName());
+        summary.setTotalLearners(club.totalLearners());
+        summary.setSessionTime(club.sessionTime());
+        summary.setPresentCount(counts.present());
+        summary.setAbsentCount(counts.absent());
         return summary;
     }
 
@@ -613,9 +399,9 @@ public class AttendanceSummaryController implements Initializable {
         return clubsWithAttendance > 0 ? totalRate / clubsWithAttendance : 0.0;
     }
 
-    private String calculateRate(int present, int absent) {
-        int total = present + absent;
-        return total > 0 ? String.format("%.1f%%", (double) present / total * 100) : "0%";
+    private String calculateRate(AttendanceSummaryService.Counts counts) {
+        int total = counts.total();
+        return total > 0 ? String.format("%.1f%%", (double) counts.present() / total * 100) : "0%";
     }
 
     private int getMonthNumber(String monthName) {
@@ -652,5 +438,5 @@ public class AttendanceSummaryController implements Initializable {
     }
 
     // Record to hold attendance load results
-    private record AttendanceLoadResult(int activeSessions, int totalLearners, double avgAttendance) {}
+    private record AttendanceLoadResult(int activeClubs, int activeSessions, int totalLearners, double avgAttendance) {}
 }
\ No newline at end of file
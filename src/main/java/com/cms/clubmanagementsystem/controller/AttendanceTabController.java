@@ -1,6 +1,10 @@
 package com.cms.clubmanagementsystem.controller;
 
+import com.cms.clubmanagementsystem.service.AttendanceSummaryService;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.SessionManager;
+import com.cms.clubmanagementsystem.utils.StreamingExport;
+import com.cms.clubmanagementsystem.utils.TenantContext;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -16,14 +20,10 @@ import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -32,10 +32,16 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.Month;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.ResourceBundle;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javafx.scene.control.ProgressIndicator;
 
 public class AttendanceTabController implements Initializable {
@@ -49,8 +55,11 @@ public class AttendanceTabController implements Initializable {
         static final String EXPORT_DATE_PATTERN = "yyyyMMdd";
         static final int PAGE_SIZE = 100;
         static final int EXCEL_WINDOW_SIZE = 100; // For SXSSFWorkbook
+        static final String ALL_MONTHS = "All Months";
     }
 
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+
     // SQL Queries
     private static final String SESSIONS_SUMMARY_SQL = """
         SELECT 
@@ -70,17 +79,19 @@ public class AttendanceTabController implements Initializable {
             AND ce.term_number = ?
             AND ce.is_active = true
         WHERE asess.club_id = ?
-        AND EXTRACT(YEAR FROM asess.session_date) = ?
+        AND asess.session_date >= ? AND asess.session_date < ?
         AND (ce.learner_id IS NOT NULL OR ar.record_id IS NULL)
+        GROUP BY asess.session_id, asess.session_date, asess.start_time, asess.end_time
+        ORDER BY asess.session_date DESC
     """;
 
+    // Date bounds are plain ranges so an index on (club_id, session_date) applies
     private static final String ALL_ATTENDANCE_RECORDS_SQL = """
         SELECT 
+            ar.record_id,
             l.full_name,
             g.grade_name,
             ar.status,
-            TO_CHAR(asess.session_date, 'YYYY-MM-DD') as session_date,
-            TO_CHAR(asess.session_date, 'Month') as month_name,
             asess.session_date as raw_date
         FROM attendance_records ar
         JOIN attendance_sessions asess ON ar.session_id = asess.session_id
@@ -92,7 +103,19 @@ public class AttendanceTabController implements Initializable {
             AND ce.term_number = ?
             AND ce.is_active = true
         WHERE asess.club_id = ?
-        AND EXTRACT(YEAR FROM asess.session_date) = ?
+        AND asess.session_date >= ? AND asess.session_date < ?
+    """;
+
+    // Seeks past the previous page's last row in (session_date DESC, full_name, record_id) order
+    private static final String PAGE_AFTER_SQL = """
+        AND (asess.session_date < ?
+             OR (asess.session_date = ? AND (l.full_name > ?
+                 OR (l.full_name = ? AND ar.record_id > ?))))
+    """;
+
+    private static final String PAGE_ORDER_SQL = """
+        ORDER BY asess.session_date DESC, l.full_name, ar.record_id
+        LIMIT ?
     """;
 
     private static final String SESSION_DETAILS_SQL = """
@@ -138,6 +161,34 @@ public class AttendanceTabController implements Initializable {
         ORDER BY asess.session_date DESC, g.grade_name, l.full_name
     """;
 
+    // Same columns as EXPORT_DATA_SQL for every club in the school, grouped by club for the ZIP export
+    private static final String ALL_CLUBS_EXPORT_SQL = """
+        SELECT
+            c.club_id,
+            c.club_name,
+            asess.session_date,
+            TO_CHAR(asess.start_time, 'HH24:MI') as start_time,
+            TO_CHAR(asess.end_time, 'HH24:MI') as end_time,
+            l.full_name as learner_name,
+            g.grade_name as grade,
+            ar.status,
+            TO_CHAR(ar.marked_at, 'YYYY-MM-DD HH24:MI:SS') as marked_at,
+            u.full_name as marked_by
+        FROM attendance_records ar
+        JOIN attendance_sessions asess ON ar.session_id = asess.session_id
+        JOIN clubs c ON asess.club_id = c.club_id
+        JOIN learners l ON ar.learner_id = l.learner_id
+        JOIN grades g ON l.grade_id = g.grade_id
+        JOIN club_enrollments ce ON l.learner_id = ce.learner_id
+            AND ce.club_id = asess.club_id
+            AND ce.academic_year = ?
+            AND ce.term_number = ?
+            AND ce.is_active = true
+        LEFT JOIN users u ON ar.marked_by = u.user_id
+        WHERE c.school_id = ?
+        ORDER BY c.club_name, c.club_id, asess.session_date DESC, g.grade_name, l.full_name
+    """;
+
     // FXML Components
     @FXML private TableView<AttendanceSession> sessionsTable;
     @FXML private TableColumn<AttendanceSession, String> dateColumn;
@@ -159,6 +210,7 @@ public class AttendanceTabController implements Initializable {
     @FXML private Button previousPageButton;
     @FXML private Button nextPageButton;
     @FXML private Label pageInfoLabel;
+    @FXML private Button exportAllClubsButton;
 
     // Instance variables
     private UUID clubId;
@@ -166,7 +218,16 @@ public class AttendanceTabController implements Initializable {
     private int selectedYear;
     private int selectedTerm;
     private int currentPage = 0;
-    private int totalRecords = 0;
+
+    // Keyset paging: pageStarts.get(i) is the row page i starts after (null for the first page)
+    private record PageCursor(LocalDate sessionDate, String fullName, UUID recordId) {}
+    private final List<PageCursor> pageStarts = new ArrayList<>();
+    private PageCursor lastRowOnPage;
+    private boolean hasNextPage;
+    // Totals for the current filter: the planner's estimate first, then an exact count from a background query
+    private long estimatedTotal = -1;
+    private long exactTotal = -1;
+    private int filterGeneration = 0;
 
     private ObservableList<AttendanceSession> sessionsList = FXCollections.observableArrayList();
     private ObservableList<AttendanceRecord> attendanceRecords = FXCollections.observableArrayList();
@@ -176,6 +237,7 @@ public class AttendanceTabController implements Initializable {
     private final Properties exportConfig = new Properties();
 
     private Dialog<Void> progressDialog;
+    private Thread exportThread;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -185,6 +247,11 @@ public class AttendanceTabController implements Initializable {
             setupComboBoxes();
             setupTableListeners();
             setupPaginationControls();
+
+            // Whole-school exports are for coordinators only; the session's role avoids a query on the FX thread
+            boolean coordinator = "club_coordinator".equals(SessionManager.getCurrentUserRole());
+            exportAllClubsButton.setVisible(coordinator);
+            exportAllClubsButton.setManaged(coordinator);
             logger.info("AttendanceTabController initialized successfully");
         } catch (Exception e) {
             logger.error("Failed to initialize AttendanceTabController: {}", e.getMessage(), e);
@@ -304,11 +371,20 @@ public class AttendanceTabController implements Initializable {
     private void updatePaginationControls() {
         if (previousPageButton != null && nextPageButton != null && pageInfoLabel != null) {
             previousPageButton.setDisable(currentPage == 0);
-            nextPageButton.setDisable(attendanceRecords.size() < Constants.PAGE_SIZE);
+            nextPageButton.setDisable(!hasNextPage);
 
             int startRecord = currentPage * Constants.PAGE_SIZE + 1;
             int endRecord = startRecord + attendanceRecords.size() - 1;
-            pageInfoLabel.setText(String.format("Showing %d-%d", startRecord, endRecord));
+            if (attendanceRecords.isEmpty()) {
+                pageInfoLabel.setText("No records");
+            } else if (exactTotal >= 0) {
+                pageInfoLabel.setText(String.format("Showing %d-%d of %d", startRecord, endRecord, exactTotal));
+            } else if (estimatedTotal >= 0) {
+                pageInfoLabel.setText(String.format("Showing %d-%d of ~%d", startRecord, endRecord,
+                        Math.max(estimatedTotal, endRecord)));
+            } else {
+                pageInfoLabel.setText(String.format("Showing %d-%d", startRecord, endRecord));
+            }
         }
     }
 
@@ -338,13 +414,19 @@ public class AttendanceTabController implements Initializable {
         sessionsList.clear();
         attendanceRecords.clear();
         currentPage = 0;
+        pageStarts.clear();
+        pageStarts.add(null);
+        estimatedTotal = -1;
+        exactTotal = -1;
+        int generation = ++filterGeneration;
 
-        String selectedMonth = monthComboBox.getValue();
-        String selectedYearStr = yearComboBox.getValue();
+        AttendanceSummaryService.Window window = filterWindow(monthComboBox.getValue(), yearComboBox.getValue());
 
         try (Connection conn = DatabaseConnector.getConnection()) {
-            loadSessionsSummary(conn, selectedMonth, selectedYearStr);
-            loadAttendanceRecordsWithPagination(currentPage, Constants.PAGE_SIZE, selectedMonth, selectedYearStr);
+            loadSessionsSummary(conn, window);
+            estimatedTotal = estimateRecordCount(conn, window);
+            loadAttendanceRecordsWithPagination(conn, currentPage, Constants.PAGE_SIZE, window);
+            countRecordsInBackground(window, generation);
         } catch (SQLException e) {
             logger.error("Database error loading attendance data: {}", e.getMessage(), e);
             showError("Database connection error. Please try again.");
@@ -375,26 +457,24 @@ public class AttendanceTabController implements Initializable {
         }
     }
 
-    private void loadSessionsSummary(Connection conn, String selectedMonth, String selectedYearStr) throws SQLException {
-        StringBuilder sqlBuilder = new StringBuilder(SESSIONS_SUMMARY_SQL);
-
-        if (!"All Months".equals(selectedMonth)) {
-            sqlBuilder.append(" AND TO_CHAR(asess.session_date, 'Month') LIKE ?");
+    // Year, or one month of it, as a half-open date range
+    private AttendanceSummaryService.Window filterWindow(String selectedMonth, String selectedYearStr) {
+        int year = Integer.parseInt(selectedYearStr);
+        if (selectedMonth == null || Constants.ALL_MONTHS.equals(selectedMonth)) {
+            return new AttendanceSummaryService.Window(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
         }
+        LocalDate monthStart = LocalDate.of(year, Month.valueOf(selectedMonth.trim().toUpperCase()), 1);
+        return new AttendanceSummaryService.Window(monthStart, monthStart.plusMonths(1));
+    }
 
-        sqlBuilder.append(" GROUP BY asess.session_id, asess.session_date, asess.start_time, asess.end_time");
-        sqlBuilder.append(" ORDER BY asess.session_date DESC");
-
-        try (PreparedStatement ps = conn.prepareStatement(sqlBuilder.toString())) {
+    private void loadSessionsSummary(Connection conn, AttendanceSummaryService.Window window) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SESSIONS_SUMMARY_SQL)) {
             int paramIndex = 1;
             ps.setInt(paramIndex++, selectedYear);
             ps.setInt(paramIndex++, selectedTerm);
             ps.setObject(paramIndex++, clubId);
-            ps.setInt(paramIndex++, Integer.parseInt(selectedYearStr));
-
-            if (!"All Months".equals(selectedMonth)) {
-                ps.setString(paramIndex, selectedMonth.trim() + "%");
-            }
+            ps.setObject(paramIndex++, window.from());
+            ps.setObject(paramIndex, window.to());
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -419,31 +499,44 @@ public class AttendanceTabController implements Initializable {
         }
     }
 
-    private void loadAttendanceRecordsWithPagination(int page, int pageSize, String selectedMonth, String selectedYearStr) {
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            StringBuilder sqlBuilder = new StringBuilder(ALL_ATTENDANCE_RECORDS_SQL);
-
-            if (!"All Months".equals(selectedMonth)) {
-                sqlBuilder.append(" AND TO_CHAR(asess.session_date, 'Month') LIKE ?");
-            }
+    private int bindRecordFilter(PreparedStatement ps, AttendanceSummaryService.Window window) throws SQLException {
+        int paramIndex = 1;
+        ps.setObject(paramIndex++, clubId);
+        ps.setInt(paramIndex++, selectedYear);
+        ps.setInt(paramIndex++, selectedTerm);
+        ps.setObject(paramIndex++, clubId);
+        ps.setObject(paramIndex++, window.from());
+        ps.setObject(paramIndex++, window.to());
+        return paramIndex;
+    }
 
-            sqlBuilder.append(" ORDER BY asess.session_date DESC, l.full_name");
-            sqlBuilder.append(" LIMIT ? OFFSET ?");
+    private void loadAttendanceRecordsWithPagination(int page, int pageSize, AttendanceSummaryService.Window window) {
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            loadAttendanceRecordsWithPagination(conn, page, pageSize, window);
+        } catch (Exception e) {
+            logger.error("Error loading paginated attendance records: {}", e.getMessage(), e);
+            showError("Error loading attendance records.");
+        }
+    }
 
-            try (PreparedStatement ps = conn.prepareStatement(sqlBuilder.toString())) {
-                int paramIndex = 1;
-                ps.setObject(paramIndex++, clubId);
-                ps.setInt(paramIndex++, selectedYear);
-                ps.setInt(paramIndex++, selectedTerm);
-                ps.setObject(paramIndex++, clubId);
-                ps.setInt(paramIndex++, Integer.parseInt(selectedYearStr));
+    // Each page seeks from the last row of the one before it, so deep pages cost the same as the first
+    private void loadAttendanceRecordsWithPagination(Connection conn, int page, int pageSize,
+                                                     AttendanceSummaryService.Window window) {
+        try {
+            PageCursor after = pageStarts.get(page);
+            String sql = ALL_ATTENDANCE_RECORDS_SQL + (after != null ? PAGE_AFTER_SQL : "") + PAGE_ORDER_SQL;
 
-                if (!"All Months".equals(selectedMonth)) {
-                    ps.setString(paramIndex++, selectedMonth.trim() + "%");
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int paramIndex = bindRecordFilter(ps, window);
+                if (after != null) {
+                    ps.setObject(paramIndex++, after.sessionDate());
+                    ps.setObject(paramIndex++, after.sessionDate());
+                    ps.setString(paramIndex++, after.fullName());
+                    ps.setString(paramIndex++, after.fullName());
+                    ps.setObject(paramIndex++, after.recordId());
                 }
-
-                ps.setInt(paramIndex++, pageSize);
-                ps.setInt(paramIndex, page * pageSize);
+                // One extra row tells us whether there is a next page
+                ps.setInt(paramIndex, pageSize + 1);
 
                 try (ResultSet rs = ps.executeQuery()) {
                     ObservableList<AttendanceRecord> newRecords = FXCollections.observableArrayList();
@@ -452,9 +545,17 @@ public class AttendanceTabController implements Initializable {
                     int lateCount = 0;
                     int totalCount = 0;
 
+                    PageCursor lastRow = null;
+                    boolean more = false;
+
                     while (rs.next()) {
+                        if (totalCount == pageSize) {
+                            more = true;
+                            break;
+                        }
                         String status = rs.getString("status");
                         LocalDate sessionDate = rs.getDate("raw_date").toLocalDate();
+                        lastRow = new PageCursor(sessionDate, rs.getString("full_name"), (UUID) rs.getObject("record_id"));
 
                         newRecords.add(new AttendanceRecord(
                                 rs.getString("full_name"),
@@ -475,6 +576,9 @@ public class AttendanceTabController implements Initializable {
                     int finalAbsentCount = absentCount;
                     int finalLateCount = lateCount;
                     int finalTotalCount = totalCount;
+                    lastRowOnPage = lastRow;
+                    hasNextPage = more;
+                    currentPage = page;
                     Platform.runLater(() -> {
                         attendanceRecords.setAll(newRecords);
                         updateSummary(finalPresentCount, finalAbsentCount, finalLateCount, finalTotalCount);
@@ -646,13 +750,15 @@ public class AttendanceTabController implements Initializable {
                 progressDialog = createExportProgressDialog();
                 progressDialog.show();
 
-                new Thread(() -> {
+                exportThread = new Thread(() -> {
                     try {
                         exportAttendanceData(file);
                         Platform.runLater(() -> {
                             progressDialog.close();
                             showInfo("Attendance data exported successfully to: " + file.getAbsolutePath());
                         });
+                    } catch (CancellationException e) {
+                        Platform.runLater(() -> progressDialog.close());
                     } catch (Exception e) {
                         Platform.runLater(() -> {
                             progressDialog.close();
@@ -660,7 +766,9 @@ public class AttendanceTabController implements Initializable {
                             showError("Error exporting attendance data: " + e.getMessage());
                         });
                     }
-                }).start();
+                }, "attendance-export");
+                exportThread.setDaemon(true);
+                exportThread.start();
             }
 
         } catch (Exception e) {
@@ -696,13 +804,15 @@ public class AttendanceTabController implements Initializable {
                 progressDialog = createExportProgressDialog();
                 progressDialog.show();
 
-                new Thread(() -> {
+                exportThread = new Thread(() -> {
                     try {
                         exportSessionData(selectedSession.getSessionId(), file);
                         Platform.runLater(() -> {
                             progressDialog.close();
                             showInfo("Session data exported successfully to: " + file.getAbsolutePath());
                         });
+                    } catch (CancellationException e) {
+                        Platform.runLater(() -> progressDialog.close());
                     } catch (Exception e) {
                         Platform.runLater(() -> {
                             progressDialog.close();
@@ -710,7 +820,9 @@ public class AttendanceTabController implements Initializable {
                             showError("Error exporting session data: " + e.getMessage());
                         });
                     }
-                }).start();
+                }, "attendance-export");
+                exportThread.setDaemon(true);
+                exportThread.start();
             }
 
         } catch (Exception e) {
@@ -719,12 +831,95 @@ public class AttendanceTabController implements Initializable {
         }
     }
 
+    @FXML
+    private void handleExportAllClubs() {
+        if (selectedYear <= 0 || selectedTerm <= 0) {
+            showError("Please select a year and term to export.");
+            return;
+        }
+
+        ChoiceDialog<String> formatDialog = new ChoiceDialog<>("CSV", "CSV", "Excel");
+        formatDialog.setTitle("Export All Clubs");
+        formatDialog.setHeaderText("One file per club, bundled in a ZIP archive");
+        formatDialog.setContentText("File format:");
+        String choice = formatDialog.showAndWait().orElse(null);
+        if (choice == null) {
+            return;
+        }
+        StreamingExport.Format format = "Excel".equals(choice) ? StreamingExport.Format.XLSX : StreamingExport.Format.CSV;
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export All Clubs");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("ZIP Archives", "*.zip"));
+        fileChooser.setInitialFileName(String.format("attendance_all_clubs_%d_term%d_%s.zip",
+                selectedYear,
+                selectedTerm,
+                LocalDate.now().format(DateTimeFormatter.ofPattern(Constants.EXPORT_DATE_PATTERN))));
+
+        Stage stage = (Stage) sessionsTable.getScene().getWindow();
+        File chosen = fileChooser.showSaveDialog(stage);
+        if (chosen == null) {
+            return;
+        }
+        File file = chosen.getName().toLowerCase().endsWith(".zip") ? chosen : new File(chosen.getAbsolutePath() + ".zip");
+        // The export thread has no session, so the tenant is taken here
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+
+        progressDialog = createExportProgressDialog();
+        progressDialog.show();
+
+        exportThread = new Thread(() -> {
+            try {
+                long rows = exportAllClubs(schoolId, userId, format, file);
+                Platform.runLater(() -> {
+                    progressDialog.close();
+                    showInfo(String.format("Exported %d attendance records to: %s", rows, file.getAbsolutePath()));
+                });
+            } catch (CancellationException e) {
+                Platform.runLater(() -> progressDialog.close());
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    progressDialog.close();
+                    logger.error("Error exporting attendance for all clubs: {}", e.getMessage(), e);
+                    showError("Error exporting attendance for all clubs: " + e.getMessage());
+                });
+            }
+        }, "attendance-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    // One pass over the school's attendance, ordered by club, written straight into the archive
+    private long exportAllClubs(UUID schoolId, UUID userId, StreamingExport.Format format, File file) throws Exception {
+        int windowSize = Integer.parseInt(exportConfig.getProperty("excel.window.size",
+                String.valueOf(Constants.EXCEL_WINDOW_SIZE)));
+
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+            logger.info("Starting all-clubs export for {} term {} ({})", selectedYear, selectedTerm, format);
+            return StreamingExport.query(ALL_CLUBS_EXPORT_SQL)
+                    .bind(ps -> {
+                        ps.setInt(1, selectedYear);
+                        ps.setInt(2, selectedTerm);
+                        ps.setObject(3, schoolId);
+                    })
+                    .partitionBy("club_id", "club_name")
+                    .headerNames(this::getDisplayColumnName)
+                    .sheetName("Attendance Data")
+                    .xlsxWindow(windowSize)
+                    .onProgress(this::showExportProgress)
+                    .writeZipTo(conn, file, format);
+        }
+    }
+
     private FileChooser createFileChooser(String title, String defaultFileName) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle(title);
         fileChooser.getExtensionFilters().addAll(
                 new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
                 new FileChooser.ExtensionFilter("Excel Files", "*.xlsx"),
+                new FileChooser.ExtensionFilter("PDF Files", "*.pdf"),
                 new FileChooser.ExtensionFilter("All Files", "*.*")
         );
         fileChooser.setInitialFileName(defaultFileName);
@@ -754,6 +949,9 @@ public class AttendanceTabController implements Initializable {
         dialog.setResultConverter(buttonType -> {
             if (buttonType == ButtonType.CANCEL) {
                 logger.info("Export operation cancelled by user");
+                if (exportThread != null) {
+                    exportThread.interrupt();
+                }
             }
             return null;
         });
@@ -766,20 +964,11 @@ public class AttendanceTabController implements Initializable {
             // Get total count first
             int totalRecords = getTotalRecordCount(conn, EXPORT_DATA_SQL, clubId, selectedYear, selectedTerm, clubId);
 
-            // Add this missing logging statement
             logger.info("Starting export of {} records for club {}", totalRecords, clubId);
+            writeExport(conn, EXPORT_DATA_SQL, clubId, totalRecords, file);
 
-            try (PreparedStatement ps = conn.prepareStatement(EXPORT_DATA_SQL)) {
-                ps.setObject(1, clubId);
-                ps.setInt(2, selectedYear);
-                ps.setInt(3, selectedTerm);
-                ps.setObject(4, clubId);
-
-                try (ResultSet rs = ps.executeQuery()) {
-                    exportData(rs, file, getFileExtension(file.getName()), totalRecords);
-                }
-            }
-
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error exporting attendance data: {}", e.getMessage(), e);
             throw new RuntimeException("Export failed", e);
@@ -794,146 +983,91 @@ public class AttendanceTabController implements Initializable {
             int totalRecords = getTotalRecordCount(conn, sql, clubId, selectedYear, selectedTerm, sessionId);
 
             logger.info("Starting session export of {} records for session {}", totalRecords, sessionId);
+            writeExport(conn, sql, sessionId, totalRecords, file);
 
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setObject(1, clubId);
-                ps.setInt(2, selectedYear);
-                ps.setInt(3, selectedTerm);
-                ps.setObject(4, sessionId);
-
-                try (ResultSet rs = ps.executeQuery()) {
-                    exportData(rs, file, getFileExtension(file.getName()), totalRecords);
-                }
-            }
-
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error exporting session data: {}", e.getMessage(), e);
             throw new RuntimeException("Session export failed", e);
         }
     }
 
-    private void exportData(ResultSet rs, File file, String exportType, int totalRecords) {
-        try {
-            if ("xlsx".equalsIgnoreCase(exportType)) {
-                exportToExcel(rs, file, totalRecords);
-            } else {
-                if (!file.getName().toLowerCase().endsWith(".csv")) {
-                    file = new File(file.getAbsolutePath() + ".csv");
-                }
-                exportToCsv(rs, file, totalRecords);
-            }
-        } catch (Exception e) {
-            logger.error("Export failed for type {}: {}", exportType, e.getMessage(), e);
-            throw new RuntimeException("Export failed", e);
+    // Streams the rows to the file in the format its extension asks for; anything unknown becomes CSV
+    private void writeExport(Connection conn, String sql, UUID scopeId, int totalRecords, File file) throws Exception {
+        StreamingExport.Format format = StreamingExport.Format.forFile(file);
+        if (format == StreamingExport.Format.CSV && !file.getName().toLowerCase().endsWith(".csv")) {
+            file = new File(file.getAbsolutePath() + ".csv");
         }
-    }
+        int windowSize = Integer.parseInt(exportConfig.getProperty("excel.window.size",
+                String.valueOf(Constants.EXCEL_WINDOW_SIZE)));
 
-    private String getFileExtension(String fileName) {
-        int lastDot = fileName.lastIndexOf('.');
-        return lastDot > 0 ? fileName.substring(lastDot + 1).toLowerCase() : "csv";
+        StreamingExport.query(sql)
+                .bind(ps -> {
+                    ps.setObject(1, clubId);
+                    ps.setInt(2, selectedYear);
+                    ps.setInt(3, selectedTerm);
+                    ps.setObject(4, scopeId);
+                })
+                .headerNames(this::getDisplayColumnName)
+                .sheetName("Attendance Data")
+                .title(clubName + " Attendance", String.format("Academic Year: %d | Term: %d", selectedYear, selectedTerm))
+                .xlsxWindow(windowSize)
+                .expectedRows(totalRecords)
+                .onProgress(this::showExportProgress)
+                .writeTo(conn, file, format);
     }
 
-    private void exportToCsv(ResultSet rs, File file, int totalRecords) throws Exception {
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(file, "UTF-8")) {
-            java.sql.ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            // Write CSV header
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = getDisplayColumnName(metaData.getColumnName(i));
-                writer.print(escapeCsvValue(columnName));
-                if (i < columnCount) writer.print(",");
-            }
-            writer.println();
-
-            // Write data
-            int processedCount = 0;
-
-            // Show initial progress
-            showExportProgress(0, totalRecords > 0 ? totalRecords : -1);
-
-            while (rs.next()) {
-                for (int i = 1; i <= columnCount; i++) {
-                    String value = rs.getString(i);
-                    writer.print(escapeCsvValue(value));
-                    if (i < columnCount) writer.print(",");
-                }
-                writer.println();
-                processedCount++;
-
-                // Update progress - only update every 10 records to avoid UI overhead
-                if (processedCount % 10 == 0 || processedCount == totalRecords) {
-                    showExportProgress(processedCount, totalRecords > 0 ? totalRecords : -1);
+    // The planner's row estimate for the filtered records; costs a plan, not a scan
+    private long estimateRecordCount(Connection conn, AttendanceSummaryService.Window window) {
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN (FORMAT JSON) " + ALL_ATTENDANCE_RECORDS_SQL)) {
+            bindRecordFilter(ps, window);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    Matcher matcher = PLAN_ROWS.matcher(rs.getString(1));
+                    if (matcher.find()) {
+                        return Long.parseLong(matcher.group(1));
+                    }
                 }
             }
-
-            // Final progress update
-            showExportProgress(processedCount, totalRecords > 0 ? totalRecords : -1);
-
-            logger.info("Exported {} attendance records to CSV: {}", processedCount, file.getAbsolutePath());
+        } catch (SQLException e) {
+            logger.debug("Could not estimate attendance record count: {}", e.getMessage());
         }
+        return -1;
     }
 
-    private void exportToExcel(ResultSet rs, File file, int totalRecords) throws Exception {
-        int windowSize = Integer.parseInt(exportConfig.getProperty("excel.window.size",
-                String.valueOf(Constants.EXCEL_WINDOW_SIZE)));
-
-        try (Workbook workbook = new SXSSFWorkbook(windowSize)) {
-            Sheet sheet = workbook.createSheet("Attendance Data");
-
-            // Create styles
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle dataStyle = createDataStyle(workbook);
-
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            java.sql.ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            for (int i = 1; i <= columnCount; i++) {
-                Cell cell = headerRow.createCell(i - 1);
-                cell.setCellValue(getDisplayColumnName(metaData.getColumnName(i)));
-                cell.setCellStyle(headerStyle);
-            }
-
-            // Write data rows
-            int rowNum = 1;
-            int processedCount = 0;
-
-            // Show initial progress
-            showExportProgress(0, totalRecords > 0 ? totalRecords : -1);
-
-            while (rs.next()) {
-                Row row = sheet.createRow(rowNum++);
-                for (int i = 1; i <= columnCount; i++) {
-                    Cell cell = row.createCell(i - 1);
-                    String value = rs.getString(i);
-                    cell.setCellValue(value != null ? value : "");
-                    cell.setCellStyle(dataStyle);
-                }
-
-                processedCount++;
-
-                // Update progress - only update every 10 records to avoid UI overhead
-                if (processedCount % 10 == 0 || processedCount == totalRecords) {
-                    showExportProgress(processedCount, totalRecords > 0 ? totalRecords : -1);
+    // Replaces the estimate once the exact count is known; dropped if the filter changed meanwhile
+    private void countRecordsInBackground(AttendanceSummaryService.Window window, int generation) {
+        // The count thread has no session, so the tenant is taken here
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        if (schoolId == null || userId == null) {
+            return;
+        }
+        Thread countThread = new Thread(() -> {
+            try (Connection conn = DatabaseConnector.getConnection()) {
+                TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT COUNT(*) FROM (" + ALL_ATTENDANCE_RECORDS_SQL + ") AS count_query")) {
+                    bindRecordFilter(ps, window);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            long count = rs.getLong(1);
+                            Platform.runLater(() -> {
+                                if (generation == filterGeneration) {
+                                    exactTotal = count;
+                                    updatePaginationControls();
+                                }
+                            });
+                        }
+                    }
                 }
+            } catch (Exception e) {
+                logger.debug("Could not count attendance records: {}", e.getMessage());
             }
-
-            // Final progress update
-            showExportProgress(processedCount, totalRecords > 0 ? totalRecords : -1);
-
-            // Auto-size columns
-            for (int i = 0; i < columnCount; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            try (FileOutputStream outputStream = new FileOutputStream(file)) {
-                workbook.write(outputStream);
-            }
-
-            logger.info("Exported {} attendance records to Excel: {}", processedCount, file.getAbsolutePath());
-        }
+        }, "attendance-record-count");
+        countThread.setDaemon(true);
+        countThread.start();
     }
 
     private int getTotalRecordCount(Connection conn, String sql, Object... params) {
@@ -956,40 +1090,6 @@ public class AttendanceTabController implements Initializable {
         return -1; // Return -1 if count cannot be determined
     }
 
-    private CellStyle createHeaderStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setBold(true);
-        font.setColor(IndexedColors.WHITE.getIndex());
-        style.setFont(font);
-        style.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        style.setBorderBottom(BorderStyle.THIN);
-        style.setBorderTop(BorderStyle.THIN);
-        style.setBorderLeft(BorderStyle.THIN);
-        style.setBorderRight(BorderStyle.THIN);
-        return style;
-    }
-
-    private CellStyle createDataStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        style.setBorderBottom(BorderStyle.THIN);
-        style.setBorderTop(BorderStyle.THIN);
-        style.setBorderLeft(BorderStyle.THIN);
-        style.setBorderRight(BorderStyle.THIN);
-        return style;
-    }
-
-    private String escapeCsvValue(String value) {
-        if (value == null) {
-            return "";
-        }
-        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
-            value = "\"" + value.replace("\"", "\"\"") + "\"";
-        }
-        return value;
-    }
-
     private String getDisplayColumnName(String dbColumnName) {
         switch (dbColumnName) {
             case "session_date": return "Session Date";
@@ -1004,7 +1104,7 @@ public class AttendanceTabController implements Initializable {
         }
     }
 
-    private void showExportProgress(int current, int total) {
+    private void showExportProgress(long current, long total) {
         Platform.runLater(() -> {
             if (progressDialog != null && progressDialog.isShowing()) {
                 DialogPane dialogPane = progressDialog.getDialogPane();
@@ -1085,17 +1185,24 @@ public class AttendanceTabController implements Initializable {
     @FXML
     private void handlePreviousPage() {
         if (currentPage > 0) {
-            currentPage--;
-            loadAttendanceRecordsWithPagination(currentPage, Constants.PAGE_SIZE,
-                    monthComboBox.getValue(), yearComboBox.getValue());
+            loadAttendanceRecordsWithPagination(currentPage - 1, Constants.PAGE_SIZE,
+                    filterWindow(monthComboBox.getValue(), yearComboBox.getValue()));
         }
     }
 
     @FXML
     private void handleNextPage() {
-        currentPage++;
-        loadAttendanceRecordsWithPagination(currentPage, Constants.PAGE_SIZE,
-                monthComboBox.getValue(), yearComboBox.getValue());
+        if (!hasNextPage || lastRowOnPage == null) {
+            return;
+        }
+        int nextPage = currentPage + 1;
+        if (pageStarts.size() <= nextPage) {
+            pageStarts.add(lastRowOnPage);
+        } else {
+            pageStarts.set(nextPage, lastRowOnPage);
+        }
+        loadAttendanceRecordsWithPagination(nextPage, Constants.PAGE_SIZE,
+                filterWindow(monthComboBox.getValue(), yearComboBox.getValue()));
     }
 
     public void cleanup() {
@@ -2,7 +2,9 @@ package com.cms.clubmanagementsystem.controller;
 
 import com.cms.clubmanagementsystem.model.LearnerImportDTO;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.JfrEvents;
 import com.cms.clubmanagementsystem.utils.SessionManager;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -52,6 +54,8 @@ public class CoordinatorDashboardController implements Initializable {
     @FXML private Button coordinatorManagementButton;
 
     private ContextMenu studentsContextMenu;
+    // Span of a screen still waiting for its background data
+    private JfrEvents.ScreenLoad pendingScreenLoad;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -224,40 +228,96 @@ public class CoordinatorDashboardController implements Initializable {
     }
 
     private void loadModule(String fxmlPath) {
+        JfrEvents.ScreenLoad screenLoad = beginScreenLoad(fxmlPath);
         try {
             URL fxmlUrl = getClass().getResource(fxmlPath);
             if (fxmlUrl == null) {
                 System.err.println("CRITICAL ERROR: FXML NOT FOUND - " + fxmlPath);
+                screenLoad.commit();
                 showAlert("Error", "Feature not available: " + fxmlPath + " not found");
                 return;
             }
 
             System.out.println("Loading FXML: " + fxmlPath);
             FXMLLoader loader = new FXMLLoader(fxmlUrl);
+            long loadStart = System.nanoTime();
             Parent module = loader.load();
+            screenLoad.fxmlLoadTime = System.nanoTime() - loadStart;
             contentArea.getChildren().setAll(module);
+            commitWhenShown(screenLoad, loader.getController());
             System.out.println("Successfully loaded: " + fxmlPath);
         } catch (IOException e) {
+            screenLoad.commit();
             System.err.println("ERROR LOADING " + fxmlPath + ": " + e.getMessage());
             e.printStackTrace();
             showAlert("Load Error", "Failed to load: " + e.getMessage());
         } catch (Exception e) {
+            screenLoad.commit();
             System.err.println("UNEXPECTED ERROR with " + fxmlPath + ": " + e.getMessage());
             e.printStackTrace();
         }
     }
 
     private void loadModuleWithController(String fxmlPath) {
+        JfrEvents.ScreenLoad screenLoad = beginScreenLoad(fxmlPath);
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
+            long loadStart = System.nanoTime();
             Parent module = loader.load();
+            screenLoad.fxmlLoadTime = System.nanoTime() - loadStart;
             contentArea.getChildren().setAll(module);
+            commitWhenShown(screenLoad, loader.getController());
         } catch (IOException e) {
+            screenLoad.commit();
             System.err.println("Error loading module: " + fxmlPath);
             e.printStackTrace();
         }
     }
 
+    private JfrEvents.ScreenLoad beginScreenLoad(String fxmlPath) {
+        // A screen left before its data arrived never finished loading
+        if (pendingScreenLoad != null) {
+            pendingScreenLoad.commit();
+            pendingScreenLoad = null;
+        }
+        JfrEvents.ScreenLoad screenLoad = new JfrEvents.ScreenLoad();
+        screenLoad.begin();
+        screenLoad.fxml = fxmlPath;
+        return screenLoad;
+    }
+
+    // Screens that query in the background are timed until their first data is laid out
+    private void commitWhenShown(JfrEvents.ScreenLoad screenLoad, Object controller) {
+        if (!(controller instanceof AsyncScreen screen) || !screenLoad.isEnabled()) {
+            commitAfterLayout(screenLoad, true);
+            return;
+        }
+        pendingScreenLoad = screenLoad;
+        screen.initialDataShown().whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (pendingScreenLoad == screenLoad) {
+                pendingScreenLoad = null;
+                commitAfterLayout(screenLoad, error == null);
+            }
+        }));
+    }
+
+    // Ends the screen-load span after the next layout pass, which includes the new module or its data
+    private void commitAfterLayout(JfrEvents.ScreenLoad screenLoad, boolean succeeded) {
+        screenLoad.succeeded = succeeded;
+        Scene scene = contentArea.getScene();
+        if (scene == null || !screenLoad.isEnabled()) {
+            screenLoad.commit();
+            return;
+        }
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            screenLoad.commit();
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+        Platform.requestNextPulse();
+    }
+
     private void clearButtonStyles() {
         Button[] buttons = {overviewButton, clubManagementButton, teacherManagementButton,
                 studentsButton, attendanceSummaryButton, reportsButton, coordinatorManagementButton};
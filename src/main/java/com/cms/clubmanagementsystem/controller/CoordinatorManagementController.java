@@ -1,11 +1,15 @@
 package com.cms.clubmanagementsystem.controller;
 
+import com.cms.clubmanagementsystem.service.StaffRosterService;
+import com.cms.clubmanagementsystem.service.UserAvailabilityIndex;
+import com.cms.clubmanagementsystem.utils.AsyncFieldCheck;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
 import com.cms.clubmanagementsystem.utils.PasswordService;
 import com.cms.clubmanagementsystem.utils.SessionManager;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -17,13 +21,17 @@ import org.mindrot.jbcrypt.BCrypt;
 import java.security.SecureRandom;
 import java.sql.*;
 import java.text.SimpleDateFormat;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 import com.google.i18n.phonenumbers.NumberParseException;
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.Phonenumber;
 
-public class CoordinatorManagementController {
+public class CoordinatorManagementController implements AsyncScreen {
 
     @FXML private TableView<User> coordinatorsTable;
     @FXML private TableColumn<User, String> nameColumn;
@@ -39,8 +47,16 @@ public class CoordinatorManagementController {
     @FXML private HBox statusContainer;
 
     private ObservableList<User> coordinators = FXCollections.observableArrayList();
+    private final StaffRosterService rosterService = new StaffRosterService();
+    private long coordinatorLoadGeneration;
+    private final CompletableFuture<Void> initialDataShown = new CompletableFuture<>();
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
 
+    @Override
+    public CompletionStage<Void> initialDataShown() {
+        return initialDataShown;
+    }
+
     @FXML
     public void initialize() {
         // NEW: Check if user has at least coordinator access
@@ -58,6 +74,7 @@ public class CoordinatorManagementController {
 
         setupTable();
         loadCoordinators();
+        UserAvailabilityIndex.getInstance().preload(SessionManager.getCurrentSchoolId(), SessionManager.getCurrentUserId());
         updateUIForPermissions();
         addPermissionStatusIndicator();
     }
@@ -119,39 +136,44 @@ public class CoordinatorManagementController {
         if (!SessionManager.isCoordinator()) {
             showAlert(Alert.AlertType.ERROR, "Access Denied",
                     "You do not have permissions to view coordinators.");
+            initialDataShown.complete(null);
             return;
         }
 
-        coordinators.clear();
-        String sql = """
-    SELECT user_id, username, full_name, email, phone, is_active_coordinator, created_at 
-    FROM users WHERE school_id = ? AND 
-    role = 'club_coordinator' ORDER BY is_active_coordinator DESC, full_name""";
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setObject(1, SessionManager.getCurrentSchoolId());
-            ResultSet rs = stmt.executeQuery();
+        // The loader thread has no session, so the tenant is captured here
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        long generation = ++coordinatorLoadGeneration;
 
-            while (rs.next()) {
-                User user = new User(
-                        (UUID) rs.getObject("user_id"),
-                        rs.getString("username"),
-                        rs.getString("full_name"),
-                        rs.getString("email"),
-                        rs.getString("phone"),
-                        rs.getBoolean("is_active_coordinator"),
-                        rs.getTimestamp("created_at")
-                );
-                coordinators.add(user);
+        Task<List<StaffRosterService.CoordinatorEntry>> loadTask = new Task<>() {
+            @Override
+            protected List<StaffRosterService.CoordinatorEntry> call() throws Exception {
+                return rosterService.loadCoordinators(schoolId, userId);
             }
+        };
 
+        loadTask.setOnSucceeded(e -> {
+            if (generation != coordinatorLoadGeneration) {
+                return; // A newer reload is in flight
+            }
+            coordinators.setAll(loadTask.getValue().stream()
+                    .map(c -> new User(c.userId(), c.username(), c.fullName(), c.email(), c.phone(),
+                            c.activeCoordinator(), c.createdAt()))
+                    .toList());
             coordinatorsTable.setItems(coordinators);
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to load coordinators: " + e.getMessage());
-        }
+            initialDataShown.complete(null);
+        });
+
+        loadTask.setOnFailed(e -> {
+            initialDataShown.completeExceptionally(loadTask.getException());
+            loadTask.getException().printStackTrace();
+            showAlert(Alert.AlertType.ERROR, "Error",
+                    "Failed to load coordinators: " + loadTask.getException().getMessage());
+        });
+
+        Thread thread = new Thread(loadTask, "coordinator-roster-loader");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private boolean isCurrentUserActiveCoordinator() {
@@ -266,6 +288,16 @@ public class CoordinatorManagementController {
         javafx.scene.Node createButtonNode = dialog.getDialogPane().lookupButton(createButtonType);
         createButtonNode.setDisable(true);
 
+        // Availability is checked in the background once typing pauses; results re-run validation
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        UserAvailabilityIndex availability = UserAvailabilityIndex.getInstance();
+        AtomicReference<ChangeListener<String>> listener = new AtomicReference<>();
+        AsyncFieldCheck emailCheck = new AsyncFieldCheck(
+                email -> availability.isEmailAvailable(schoolId, userId, email), () -> listener.get().changed(null, null, null));
+        AsyncFieldCheck usernameCheck = new AsyncFieldCheck(
+                username -> availability.isUsernameAvailable(schoolId, userId, username), () -> listener.get().changed(null, null, null));
+
         // Add validation listeners
         ChangeListener<String> validationListener = (observable, oldValue, newValue) -> {
             boolean isValid = validateCreateForm(
@@ -276,10 +308,13 @@ public class CoordinatorManagementController {
                     fullNameError,
                     emailError,
                     usernameError,
-                    phoneError
+                    phoneError,
+                    emailCheck,
+                    usernameCheck
             );
             createButtonNode.setDisable(!isValid);
         };
+        listener.set(validationListener);
 
         fullNameField.textProperty().addListener(validationListener);
         emailField.textProperty().addListener(validationListener);
@@ -317,7 +352,8 @@ public class CoordinatorManagementController {
     }
 
     private boolean validateCreateForm(String fullName, String email, String username, String phone,
-                                       Label fullNameError, Label emailError, Label usernameError, Label phoneError) {
+                                       Label fullNameError, Label emailError, Label usernameError, Label phoneError,
+                                       AsyncFieldCheck emailCheck, AsyncFieldCheck usernameCheck) {
 
         boolean isValid = true;
 
@@ -334,30 +370,28 @@ public class CoordinatorManagementController {
 
         // Validate email
         if (email.isEmpty()) {
+            emailCheck.cancel();
             emailError.setText("Email is required");
             isValid = false;
         } else if (!EMAIL_PATTERN.matcher(email).matches()) {
+            emailCheck.cancel();
             emailError.setText("Invalid email format");
             isValid = false;
-        } else if (!isEmailAvailable(email)) {
-            emailError.setText("Email already exists");
-            isValid = false;
         } else {
-            emailError.setText("");
+            isValid &= showAvailability(emailCheck.check(email), "Email already exists", emailError);
         }
 
         // Validate username
         if (username.isEmpty()) {
+            usernameCheck.cancel();
             usernameError.setText("Username is required");
             isValid = false;
         } else if (username.length() < 3) {
+            usernameCheck.cancel();
             usernameError.setText("Username must be at least 3 characters");
             isValid = false;
-        } else if (!isUsernameAvailable(username)) {
-            usernameError.setText("Username already exists");
-            isValid = false;
         } else {
-            usernameError.setText("");
+            isValid &= showAvailability(usernameCheck.check(username), "Username already exists", usernameError);
         }
 
         // Validate phone
@@ -374,6 +408,28 @@ public class CoordinatorManagementController {
         return isValid;
     }
 
+    // A failed lookup doesn't block the form; createCoordinator checks the database again
+    private boolean showAvailability(AsyncFieldCheck.Result result, String takenMessage, Label errorLabel) {
+        switch (result) {
+            case PENDING -> {
+                errorLabel.setText("Checking availability...");
+                return false;
+            }
+            case FAILED -> {
+                errorLabel.setText(takenMessage);
+                return false;
+            }
+            case ERROR -> {
+                errorLabel.setText("Could not verify availability");
+                return true;
+            }
+            default -> {
+                errorLabel.setText("");
+                return true;
+            }
+        }
+    }
+
     private Label createErrorLabel() {
         Label errorLabel = new Label();
         errorLabel.setTextFill(Color.RED);
@@ -450,6 +506,7 @@ public class CoordinatorManagementController {
             if (rowsAffected > 0) {
                 // Store the temporary password for potential retrieval
                 PasswordService.storeTempPassword(conn, userId, tempPassword);
+                UserAvailabilityIndex.getInstance().recordUser(schoolId, username, email);
                 loadCoordinators();
                 return true;
             }
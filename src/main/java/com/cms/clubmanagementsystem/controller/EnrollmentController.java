@@ -4,7 +4,6 @@ import com.cms.clubmanagementsystem.service.EnrollmentService;
 import com.cms.clubmanagementsystem.service.LearnerService;
 import com.cms.clubmanagementsystem.utils.*;
 import javafx.animation.KeyFrame;
-import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
@@ -19,15 +18,10 @@ import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
-import org.apache.poi.ss.usermodel.Cell;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.net.URL;
 import java.sql.*;
 import java.time.Year;
@@ -65,6 +59,7 @@ public class EnrollmentController implements Initializable {
     private UUID assignedClubId;
     private String assignedClubName;
     private final EnrollmentService enrollmentService = new EnrollmentService();
+    private EventBus.Subscription enrollmentEvents;
     private boolean isTeacher = false;
 
     // Helper class
@@ -145,18 +140,17 @@ public class EnrollmentController implements Initializable {
     }
 
     private void setupEventListeners() {
-        EventBus.subscribe(EventTypes.ENROLLMENT_ADDED, this::handleExternalEnrollmentChange);
-        EventBus.subscribe(EventTypes.ENROLLMENT_WITHDRAWN, this::handleExternalEnrollmentChange);
-        EventBus.subscribe(EventTypes.ENROLLMENT_CHANGED, this::handleExternalEnrollmentChange);
+        // One reload per burst of enrollment events, e.g. a batch enrollment
+        enrollmentEvents = EventBus.subscribeCoalesced(java.time.Duration.ofMillis(300), EventBus.Delivery.FX,
+                this::handleExternalEnrollmentChange,
+                EventTypes.ENROLLMENT_ADDED, EventTypes.ENROLLMENT_WITHDRAWN, EventTypes.ENROLLMENT_CHANGED);
     }
 
-    private void handleExternalEnrollmentChange(Object data) {
+    // Delivered on the FX thread once the burst has gone quiet
+    private void handleExternalEnrollmentChange(List<EventBus.Event> events) {
         if (isTermAndYearSelected()) {
-            Platform.runLater(() -> {
-                PauseTransition pause = new PauseTransition(Duration.millis(300));
-                pause.setOnFinished(event -> loadEnrollments());
-                pause.play();
-            });
+            logger.debug("Reloading enrollments after {} enrollment events", events.size());
+            loadEnrollments();
         }
     }
 
@@ -168,23 +162,10 @@ public class EnrollmentController implements Initializable {
         }
     }
 
+    // Drops the subscription when the window closes, however it is closed, so the
+    // bus no longer keeps this controller and its scene graph alive
     private void setupCleanupListener() {
-        enrollmentsTable.sceneProperty().addListener((observable, oldScene, newScene) -> {
-            if (newScene != null) {
-                newScene.windowProperty().addListener((windowObs, oldWindow, newWindow) -> {
-                    if (newWindow != null) {
-                        newWindow.setOnCloseRequest(event -> cleanupEventListeners());
-                    }
-                });
-            }
-        });
-    }
-
-    private void cleanupEventListeners() {
-        EventBus.unsubscribe(EventTypes.ENROLLMENT_ADDED, this::handleExternalEnrollmentChange);
-        EventBus.unsubscribe(EventTypes.ENROLLMENT_WITHDRAWN, this::handleExternalEnrollmentChange);
-        EventBus.unsubscribe(EventTypes.ENROLLMENT_CHANGED, this::handleExternalEnrollmentChange);
-        logger.info("Cleaned up event listeners for EnrollmentController");
+        enrollmentEvents.bindTo(enrollmentsTable);
     }
 
     private void checkUserPermissions() {
@@ -768,112 +749,62 @@ public class EnrollmentController implements Initializable {
             return;
         }
 
-        try (Connection conn = DatabaseConnector.getConnection()) {
-            UUID currentUserId = SessionManager.getCurrentUserId();
-            if (currentUserId != null) {
-                TenantContext.setTenant(conn, currentSchoolId.toString(), currentUserId.toString());
-            }
-
-            // Fetch enrollment data
-            List<EnrollmentService.Enrollment> enrollments = enrollmentService.getEnrollmentsByClub(
-                    conn, assignedClubId, term, year);
-
-            if (enrollments.isEmpty()) {
-                showAlert(Alert.AlertType.INFORMATION, "No Data", "No enrollments found for the selected term and year.");
-                return;
-            }
-
-            // Create Excel workbook and sheet
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("Enrollments");
-
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Admission Number", "Learner Name", "Club Name", "Grade", "Gender",
-                    "Term", "Academic Year", "Status", "Enrollment Date", "Last Updated"
-            };
-
-            // Style for header
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font font = workbook.createFont();
-            font.setBold(true);
-            headerStyle.setFont(font);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-            // Populate header row
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+        // Prompt user to save the file
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Enrollment Report");
+        fileChooser.setInitialFileName("Enrollment_" + assignedClubName + "_Term" + term + "_" + year + ".xlsx");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Excel Files", "*.xlsx"),
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv")
+        );
 
-            // Populate data rows
-            int rowNum = 1;
-            for (EnrollmentService.Enrollment enrollment : enrollments) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(enrollment.getAdmissionNumber());
-                row.createCell(1).setCellValue(enrollment.getLearnerName());
-                row.createCell(2).setCellValue(enrollment.getClubName());
-                row.createCell(3).setCellValue(enrollment.getGradeName());
-                row.createCell(4).setCellValue(enrollment.getGender());
-                row.createCell(5).setCellValue(enrollment.getTermNumber());
-                row.createCell(6).setCellValue(enrollment.getAcademicYear());
-                row.createCell(7).setCellValue(enrollment.isActive() ? "Active" : "Withdrawn");
-                row.createCell(8).setCellValue(
-                        enrollment.getEnrollmentDate() != null ?
-                                enrollment.getEnrollmentDate().toLocalDateTime().toString() : "N/A"
-                );
-                row.createCell(9).setCellValue(
-                        enrollment.getUpdatedAt() != null ?
-                                enrollment.getUpdatedAt().toLocalDateTime().toString() : "N/A"
-                );
-            }
+        Stage stage = (Stage) enrollmentsTable.getScene().getWindow();
+        File file = fileChooser.showSaveDialog(stage);
+        if (file == null) {
+            logger.info("Excel export cancelled by user");
+            return;
+        }
 
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
+        // The session lives on the FX thread, so capture it before handing off
+        UUID clubId = assignedClubId;
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID currentUserId = SessionManager.getCurrentUserId();
+        if (schoolId == null || currentUserId == null) {
+            showAlert(Alert.AlertType.ERROR, "Session Error", "Your session has expired. Please log in again.");
+            return;
+        }
 
-            // Prompt user to save the file
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Save Enrollment Report");
-            fileChooser.setInitialFileName("Enrollment_" + assignedClubName + "_Term" + term + "_" + year + ".xlsx");
-            fileChooser.getExtensionFilters().add(
-                    new FileChooser.ExtensionFilter("Excel Files", "*.xlsx")
-            );
+        // Rows are streamed from the database to the file off the FX thread
+        Thread exportThread = new Thread(() -> {
+            try (Connection conn = DatabaseConnector.getConnection()) {
+                TenantContext.setTenant(conn, schoolId.toString(), currentUserId.toString());
 
-            Stage stage = (Stage) enrollmentsTable.getScene().getWindow();
-            File file = fileChooser.showSaveDialog(stage);
-
-            if (file != null) {
-                try (FileOutputStream fileOut = new FileOutputStream(file)) {
-                    workbook.write(fileOut);
-                    showAlert(Alert.AlertType.INFORMATION, "Export Successful",
-                            "Enrollment data exported successfully to " + file.getAbsolutePath());
-                    logger.info("Exported enrollment data to {}", file.getAbsolutePath());
-                } catch (IOException e) {
-                    logger.error("Error writing Excel file: {}", e.getMessage(), e);
-                    showAlert(Alert.AlertType.ERROR, "Export Error",
-                            "Failed to save Excel file: " + e.getMessage());
+                long exported = enrollmentService.exportEnrollmentsByClub(conn, schoolId, clubId, term, year, file);
+                logger.info("Exported {} enrollments to {}", exported, file.getAbsolutePath());
+                if (exported == 0 && !file.delete()) {
+                    logger.debug("Could not remove empty export {}", file.getAbsolutePath());
                 }
-            } else {
-                logger.info("Excel export cancelled by user");
+                Platform.runLater(() -> {
+                    if (exported == 0) {
+                        showAlert(Alert.AlertType.INFORMATION, "No Data",
+                                "No enrollments found for the selected term and year.");
+                    } else {
+                        showAlert(Alert.AlertType.INFORMATION, "Export Successful",
+                                "Enrollment data exported successfully to " + file.getAbsolutePath());
+                    }
+                });
+            } catch (SQLException e) {
+                logger.error("Error fetching enrollment data for export: {}", e.getMessage(), e);
+                Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, "Database Error",
+                        "Error fetching enrollment data: " + e.getMessage()));
+            } catch (Exception e) {
+                logger.error("Unexpected error during Excel export: {}", e.getMessage(), e);
+                Platform.runLater(() -> showAlert(Alert.AlertType.ERROR, "Export Error",
+                        "An unexpected error occurred during export: " + e.getMessage()));
             }
-
-            // Close the workbook
-            workbook.close();
-
-        } catch (SQLException e) {
-            logger.error("Error fetching enrollment data for export: {}", e.getMessage(), e);
-            showAlert(Alert.AlertType.ERROR, "Database Error",
-                    "Error fetching enrollment data: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("Unexpected error during Excel export: {}", e.getMessage(), e);
-            showAlert(Alert.AlertType.ERROR, "Export Error",
-                    "An unexpected error occurred during export: " + e.getMessage());
-        }
+        }, "enrollment-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
     }
 
     // ========== PRIVATE HELPER METHODS ==========
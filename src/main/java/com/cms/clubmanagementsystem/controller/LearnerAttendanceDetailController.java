@@ -1,9 +1,11 @@
 package com.cms.clubmanagementsystem.controller;
 
+import com.cms.clubmanagementsystem.service.AttendanceBitmapIndex;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
 import com.cms.clubmanagementsystem.utils.SessionManager;
+import com.cms.clubmanagementsystem.utils.StringPool;
+import com.cms.clubmanagementsystem.utils.TrendSeries;
 import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
@@ -33,10 +35,11 @@ import java.sql.SQLException;
 import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -66,6 +69,7 @@ public class LearnerAttendanceDetailController implements Initializable {
     @FXML private Label presentCountLabel;
     @FXML private Label absentCountLabel;
     @FXML private Label attendanceRateLabel;
+    @FXML private Label streakLabel;
 
     @FXML private TableView<AttendanceSession> attendanceTable;
     @FXML private TableColumn<AttendanceSession, String> dateColumn;
@@ -89,6 +93,19 @@ public class LearnerAttendanceDetailController implements Initializable {
     private final ObservableList<AttendanceSession> allSessions = FXCollections.observableArrayList();
     private final ObservableList<AttendanceSession> filteredSessions = FXCollections.observableArrayList();
 
+    // Statistics and filters are bit operations over the club's term index
+    private final AttendanceBitmapIndex attendanceIndex = AttendanceBitmapIndex.getInstance();
+    private volatile AttendanceBitmapIndex.ClubIndex clubIndex;
+    private volatile UUID learnerId;
+    private BitSet filteredMask = new BitSet();
+    // Range the index and rows were loaded for; a null start means from the club's first session
+    private LocalDate loadedFrom;
+    private LocalDate loadedTo;
+    private boolean rangeLoaded;
+    private int loadGeneration;
+    // Set while the period filter moves both pickers, so their listeners don't load twice
+    private boolean adjustingRange;
+
     // State
     private LearnersTabController.Learner learner;
     private UUID clubId;
@@ -142,7 +159,7 @@ public class LearnerAttendanceDetailController implements Initializable {
             Platform.runLater(() -> {
                 updateLearnerInfo();
                 setupDatePickers();
-                loadAttendanceData(); // This will now use the captured session context
+                loadAttendanceData(calculateTermStartDate(), calculateTermEndDate(selectedYear, selectedTerm));
             });
 
         } catch (Exception e) {
@@ -230,17 +247,19 @@ public class LearnerAttendanceDetailController implements Initializable {
 
             logger.info("Term date range: {} to {}", termStart, termEnd);
 
-            // Set date picker boundaries
-            fromDatePicker.setDayCellFactory(picker -> createDayCellFactory(termStart, termEnd));
-            toDatePicker.setDayCellFactory(picker -> createDayCellFactory(termStart, termEnd));
+            // Earlier terms can be picked; ranges outside the loaded one are fetched on demand
+            LocalDate latest = termEnd.isAfter(LocalDate.now()) ? termEnd : LocalDate.now();
+            fromDatePicker.setDayCellFactory(picker -> createDayCellFactory(LocalDate.MIN, latest));
+            toDatePicker.setDayCellFactory(picker -> createDayCellFactory(LocalDate.MIN, latest));
 
             // Set initial values
-            fromDatePicker.setValue(termStart);
-            toDatePicker.setValue(termEnd);
-
-            // Add listeners
-            fromDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> filterAttendanceData());
-            toDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> filterAttendanceData());
+            adjustingRange = true;
+            try {
+                fromDatePicker.setValue(termStart);
+                toDatePicker.setValue(termEnd);
+            } finally {
+                adjustingRange = false;
+            }
 
         } catch (Exception e) {
             logger.error("Error setting up date pickers: {}", e.getMessage(), e);
@@ -252,8 +271,28 @@ public class LearnerAttendanceDetailController implements Initializable {
     }
 
     private void filterAttendanceData() {
+        if (adjustingRange) {
+            return;
+        }
         logger.info("Filtering attendance data");
-        applyFilters();
+        LocalDate from = fromDatePicker.getValue();
+        LocalDate to = toDatePicker.getValue();
+        if (covers(from, to)) {
+            applyFilters();
+        } else {
+            loadAttendanceData(from, to != null ? to : LocalDate.now());
+        }
+    }
+
+    // Whether the loaded index already holds every session in the range
+    private boolean covers(LocalDate from, LocalDate to) {
+        if (!rangeLoaded) {
+            // The first load is still running and will apply the filters itself
+            return true;
+        }
+        boolean startCovered = loadedFrom == null || (from != null && !from.isBefore(loadedFrom));
+        boolean endCovered = to != null && !to.isAfter(loadedTo);
+        return startCovered && endCovered;
     }
 
     private DateCell createDayCellFactory(LocalDate minDate, LocalDate maxDate) {
@@ -371,6 +410,9 @@ public class LearnerAttendanceDetailController implements Initializable {
         timePeriodFilter.setValue("This Term");
         timePeriodFilter.valueProperty().addListener((obs, oldVal, newVal) -> handleTimePeriodChange(newVal));
 
+        fromDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> filterAttendanceData());
+        toDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> filterAttendanceData());
+
         // Status filter
         statusFilter.setItems(FXCollections.observableArrayList(
                 "All", "Present", "Absent"
@@ -386,6 +428,7 @@ public class LearnerAttendanceDetailController implements Initializable {
         switch (period) {
             case "This Term":
                 fromDate = calculateTermStartDate();
+                toDate = calculateTermEndDate(selectedYear, selectedTerm);
                 break;
             case "Last 30 Days":
                 fromDate = LocalDate.now().minusDays(30);
@@ -397,13 +440,18 @@ public class LearnerAttendanceDetailController implements Initializable {
                 fromDate = null;
                 break;
             case "Custom":
-                // Keep current custom dates
+                // Keep current custom dates; editing them loads whatever range they cover
                 return;
         }
 
-        fromDatePicker.setValue(fromDate);
-        toDatePicker.setValue(toDate);
-        applyFilters();
+        adjustingRange = true;
+        try {
+            fromDatePicker.setValue(fromDate);
+            toDatePicker.setValue(toDate);
+        } finally {
+            adjustingRange = false;
+        }
+        filterAttendanceData();
     }
 
     private void initializeChart() {
@@ -432,8 +480,13 @@ public class LearnerAttendanceDetailController implements Initializable {
         }
     }
 
-    private void loadAttendanceData() {
-        logger.info("Loading attendance data for learner: {}", learner != null ? learner.getFullName() : "Unknown");
+    /**
+     * Loads the learner's sessions and the club's index for the range. A null
+     * {@code from} loads everything from the club's first session.
+     */
+    private void loadAttendanceData(LocalDate from, LocalDate to) {
+        logger.info("Loading attendance data for learner: {} from {} to {}",
+                learner != null ? learner.getFullName() : "Unknown", from, to);
 
         if (learner == null || clubId == null) {
             logger.error("❌ Missing required data - learner: {}, clubId: {}", learner, clubId);
@@ -463,26 +516,43 @@ public class LearnerAttendanceDetailController implements Initializable {
                 currentSchoolId, currentUserId, admissionNumber);
 
         showLoading(true);
+        int generation = ++loadGeneration;
 
         new Thread(() -> {
             try (Connection conn = DatabaseConnector.getConnection()) {
                 // Use the CAPTURED session context, don't call SessionManager in background thread
                 setTenantContext(conn, currentSchoolId, currentUserId);
 
-                loadAttendanceSessions(conn, currentSchoolId, admissionNumber);
-                calculateStatistics();
-                updateChart();
+                LocalDate start = from != null ? from : firstSessionDate(conn, to);
+                List<AttendanceSession> sessions = loadAttendanceSessions(conn, currentSchoolId, admissionNumber, start, to);
+                AttendanceBitmapIndex.ClubIndex index = attendanceIndex.forClub(conn, currentSchoolId, clubId, start, to);
+                AttendanceStatistics loadedStatistics = calculateStatistics(index);
+                List<TrendSeries.Point> points = chartPoints(index, !sessions.isEmpty());
 
                 Platform.runLater(() -> {
+                    // A newer range was requested while this one loaded
+                    if (generation != loadGeneration) {
+                        return;
+                    }
+                    allSessions.setAll(sessions);
+                    clubIndex = index;
+                    statistics = loadedStatistics;
+                    loadedFrom = from;
+                    loadedTo = to;
+                    rangeLoaded = true;
                     attendanceTable.setItems(filteredSessions);
-                    applyFilters();
                     updateStatisticsDisplay();
+                    applyFilters();
+                    updateChart(points);
                     showLoading(false);
                 });
 
             } catch (Exception e) {
                 logger.error("Error loading attendance data for admission number {}: {}", admissionNumber, e.getMessage(), e);
                 Platform.runLater(() -> {
+                    if (generation != loadGeneration) {
+                        return;
+                    }
                     showError("Data Load Error",
                             "Failed to load attendance data for " + learner.getFullName() +
                                     "\n\nError: " + e.getMessage());
@@ -492,12 +562,25 @@ public class LearnerAttendanceDetailController implements Initializable {
         }).start();
     }
 
-    private void loadAttendanceSessions(Connection conn, UUID schoolId, String admissionNumber) throws Exception {
+    // Start of "All Time": the club's first session, or the end of the range if it has none
+    private LocalDate firstSessionDate(Connection conn, LocalDate to) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT MIN(session_date) FROM attendance_sessions WHERE club_id = ?")) {
+            ps.setObject(1, clubId);
+            try (ResultSet rs = ps.executeQuery()) {
+                java.sql.Date first = rs.next() ? rs.getDate(1) : null;
+                return first != null && first.toLocalDate().isBefore(to) ? first.toLocalDate() : to;
+            }
+        }
+    }
+
+    // Rows are only needed for the table's marked-by and notes columns; counts come from the index
+    private List<AttendanceSession> loadAttendanceSessions(Connection conn, UUID schoolId, String admissionNumber,
+                                                           LocalDate from, LocalDate to) throws Exception {
         logger.info("Loading attendance sessions for learner: {}, club: {}, school: {}",
                 admissionNumber, clubId, schoolId);
 
         // Get learner ID first with proper error handling
-        UUID learnerId;
         try {
             learnerId = getLearnerIdFromAdmissionNumber(conn, schoolId, admissionNumber);
         } catch (Exception e) {
@@ -507,6 +590,7 @@ public class LearnerAttendanceDetailController implements Initializable {
 
         String sql = """
     SELECT 
+        ass.session_id,
         ass.session_date,
         ass.start_time,
         ass.end_time,
@@ -520,6 +604,7 @@ public class LearnerAttendanceDetailController implements Initializable {
     WHERE ar.learner_id = ?
     AND ass.club_id = ?
     AND ass.school_id = ?
+    AND ass.session_date >= ? AND ass.session_date <= ?
     ORDER BY ass.session_date DESC, ass.start_time DESC
     """;
 
@@ -527,18 +612,17 @@ public class LearnerAttendanceDetailController implements Initializable {
             ps.setObject(1, learnerId);
             ps.setObject(2, clubId);
             ps.setObject(3, schoolId);
+            ps.setObject(4, from);
+            ps.setObject(5, to);
 
             ResultSet rs = ps.executeQuery();
-            allSessions.clear();
-            int count = 0;
-
+            List<AttendanceSession> sessions = new ArrayList<>();
             while (rs.next()) {
-                AttendanceSession session = createAttendanceSessionFromResultSet(rs);
-                allSessions.add(session);
-                count++;
+                sessions.add(createAttendanceSessionFromResultSet(rs));
             }
 
-            logger.info("Loaded {} attendance sessions for learner {}", count, learner.getFullName());
+            logger.info("Loaded {} attendance sessions for learner {}", sessions.size(), learner.getFullName());
+            return sessions;
         }
     }
 
@@ -608,70 +692,63 @@ public class LearnerAttendanceDetailController implements Initializable {
     }
 
     private AttendanceSession createAttendanceSessionFromResultSet(ResultSet rs) throws Exception {
+        UUID sessionId = (UUID) rs.getObject("session_id");
         LocalDate sessionDate = rs.getDate("session_date").toLocalDate();
         String status = rs.getString("status");
         String markedBy = rs.getString("marked_by");
         String notes = rs.getString("notes");
 
-        return new AttendanceSession(sessionDate, status, markedBy, notes);
+        return new AttendanceSession(sessionId, sessionDate, status, markedBy, notes);
     }
 
-    private void calculateStatistics() {
-        int total = allSessions.size();
-        long presentCount = allSessions.stream().filter(s -> "present".equalsIgnoreCase(s.getStatus())).count();
-        long absentCount = total - presentCount;
-        double attendanceRate = total > 0 ? (double) presentCount / total * 100 : 0;
-
-        statistics = new AttendanceStatistics(total, (int) presentCount, (int) absentCount, attendanceRate);
+    private AttendanceStatistics calculateStatistics(AttendanceBitmapIndex.ClubIndex index) {
+        AttendanceBitmapIndex.Counts counts = index.counts(learnerId, index.range(null, null));
+        return new AttendanceStatistics(counts.recorded(), counts.present(),
+                counts.recorded() - counts.present(), counts.rate());
     }
 
     private void applyFilters() {
-        LocalDate fromDate = fromDatePicker.getValue();
-        LocalDate toDate = toDatePicker.getValue();
-        String statusFilterValue = statusFilter.getValue();
+        AttendanceBitmapIndex.ClubIndex index = clubIndex;
+        if (index == null) {
+            // Date picker listeners fire before the first load completes
+            return;
+        }
 
-        filteredSessions.clear();
+        BitSet rangeMask = index.range(fromDatePicker.getValue(), toDatePicker.getValue());
+        String statusFilterValue = statusFilter.getValue();
+        String status = statusFilterValue == null || "All".equals(statusFilterValue) ? null : statusFilterValue;
+        BitSet selected = index.sessionsWith(learnerId, status, rangeMask);
+        filteredMask = selected;
 
+        List<AttendanceSession> matching = new ArrayList<>();
         for (AttendanceSession session : allSessions) {
-            if (matchesDateRange(session, fromDate, toDate) &&
-                    matchesStatus(session, statusFilterValue)) {
-                filteredSessions.add(session);
+            int position = index.positionOf(session.getSessionId());
+            if (position >= 0 && selected.get(position)) {
+                matching.add(session);
             }
         }
+        filteredSessions.setAll(matching);
 
-        updateFilteredStatistics();
+        updateFilteredStatistics(index, selected, rangeMask);
         logger.debug("Applied filters: {} sessions match criteria", filteredSessions.size());
     }
 
-    private boolean matchesDateRange(AttendanceSession session, LocalDate fromDate, LocalDate toDate) {
-        LocalDate sessionDate = session.getRawDate();
-
-        if (fromDate == null && toDate == null) {
-            return true; // No date filter applied
-        }
-
-        boolean afterFrom = fromDate == null || !sessionDate.isBefore(fromDate);
-        boolean beforeTo = toDate == null || !sessionDate.isAfter(toDate);
-        return afterFrom && beforeTo;
-    }
-
-    private boolean matchesStatus(AttendanceSession session, String statusFilter) {
-        if ("All".equals(statusFilter)) return true;
-        if (statusFilter == null || session.getStatus() == null) return false;
-        return session.getStatus().equalsIgnoreCase(statusFilter);
-    }
-
-    private void updateFilteredStatistics() {
-        int total = filteredSessions.size();
-        long presentCount = filteredSessions.stream().filter(s -> "Present".equalsIgnoreCase(s.getStatus())).count();
-        long absentCount = total - presentCount;
-        double attendanceRate = total > 0 ? (double) presentCount / total * 100 : 0;
+    private void updateFilteredStatistics(AttendanceBitmapIndex.ClubIndex index, BitSet selected, BitSet rangeMask) {
+        AttendanceBitmapIndex.Counts counts = index.counts(learnerId, selected);
+        int total = counts.recorded();
+        int presentCount = counts.present();
+        int absentCount = total - presentCount;
+        double attendanceRate = counts.rate();
+        // Streaks ignore the status filter, which would otherwise make every run unbroken
+        int currentStreak = index.currentPresentStreak(learnerId, rangeMask);
+        int longestStreak = index.longestPresentStreak(learnerId, rangeMask);
 
         Platform.runLater(() -> {
             totalSessionsLabel.setText(String.valueOf(total));
             presentCountLabel.setText(String.valueOf(presentCount));
             absentCountLabel.setText(String.valueOf(absentCount));
             attendanceRateLabel.setText(String.format("%.1f%%", attendanceRate));
+            streakLabel.setText(String.format("%d (best %d)", currentStreak, longestStreak));
         });
     }
 
@@ -686,59 +763,48 @@ public class LearnerAttendanceDetailController implements Initializable {
         }
     }
 
-    private void updateChart() {
-        Platform.runLater(() -> {
-            attendanceChart.getData().clear();
-
-            if (allSessions.isEmpty()) {
-                return;
-            }
-
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            series.setName("Monthly Attendance Rate");
-
-            Map<String, MonthlyStats> monthlyStats = calculateMonthlyStats();
-
-            for (Map.Entry<String, MonthlyStats> entry : monthlyStats.entrySet()) {
-                String month = entry.getKey();
-                MonthlyStats stats = entry.getValue();
-                double rate = stats.getAttendanceRate();
-
-                XYChart.Data<String, Number> data = new XYChart.Data<>(month, rate);
-                series.getData().add(data);
-            }
-
-            attendanceChart.getData().add(series);
-
-            // Style the chart
-            for (XYChart.Data<String, Number> data : series.getData()) {
-                data.nodeProperty().addListener((obs, oldNode, newNode) -> {
-                    if (newNode != null) {
-                        double rate = data.getYValue().doubleValue();
-                        if (rate >= 80) {
-                            newNode.setStyle("-fx-bar-fill: #27ae60;");
-                        } else if (rate >= 60) {
-                            newNode.setStyle("-fx-bar-fill: #f39c12;");
-                        } else {
-                            newNode.setStyle("-fx-bar-fill: #e74c3c;");
-                        }
-                    }
-                });
+    // Called on the loading thread; only the finished points are handed to the FX thread
+    private List<TrendSeries.Point> chartPoints(AttendanceBitmapIndex.ClubIndex index, boolean hasSessions) {
+        List<TrendSeries.Point> points = new ArrayList<>();
+        if (hasSessions) {
+            Map<YearMonth, AttendanceBitmapIndex.Counts> monthlyStats =
+                    index.monthly(learnerId, index.range(null, null));
+            for (Map.Entry<YearMonth, AttendanceBitmapIndex.Counts> entry : monthlyStats.entrySet()) {
+                points.add(new TrendSeries.Point(entry.getKey().atDay(1), entry.getValue().rate()));
             }
-        });
+        }
+        return points;
     }
 
-    private Map<String, MonthlyStats> calculateMonthlyStats() {
-        Map<String, MonthlyStats> monthlyStats = new HashMap<>();
+    private void updateChart(List<TrendSeries.Point> points) {
+        attendanceChart.getData().clear();
 
-        for (AttendanceSession session : allSessions) {
-            String monthKey = session.getRawDate().format(MONTH_FORMATTER);
-            MonthlyStats stats = monthlyStats.getOrDefault(monthKey, new MonthlyStats());
-            stats.addSession("Present".equalsIgnoreCase(session.getStatus()));
-            monthlyStats.put(monthKey, stats);
+        if (points.isEmpty()) {
+            return;
         }
 
-        return monthlyStats;
+        // Months already come aggregated from the index; long histories are thinned to the chart width
+        List<TrendSeries.Point> sampled = TrendSeries.downsample(points, TrendSeries.targetPoints(attendanceChart));
+        XYChart.Series<String, Number> series = TrendSeries.toSeries("Monthly Attendance Rate", sampled,
+                date -> YearMonth.from(date).format(MONTH_FORMATTER));
+
+        attendanceChart.getData().add(series);
+
+        // Style the chart
+        for (XYChart.Data<String, Number> data : series.getData()) {
+            data.nodeProperty().addListener((obs, oldNode, newNode) -> {
+                if (newNode != null) {
+                    double rate = data.getYValue().doubleValue();
+                    if (rate >= 80) {
+                        newNode.setStyle("-fx-bar-fill: #27ae60;");
+                    } else if (rate >= 60) {
+                        newNode.setStyle("-fx-bar-fill: #f39c12;");
+                    } else {
+                        newNode.setStyle("-fx-bar-fill: #e74c3c;");
+                    }
+                }
+            });
+        }
     }
 
     @FXML
@@ -905,12 +971,10 @@ public class LearnerAttendanceDetailController implements Initializable {
         writer.write("ATTENDANCE SUMMARY\n");
         writer.write("Total Sessions:," + filteredSessions.size() + "\n");
 
-        long presentCount = filteredSessions.stream()
-                .filter(s -> "Present".equalsIgnoreCase(s.getStatus()))
-                .count();
-        long absentCount = filteredSessions.size() - presentCount;
-        double attendanceRate = filteredSessions.size() > 0 ?
-                (double) presentCount / filteredSessions.size() * 100 : 0;
+        AttendanceBitmapIndex.Counts counts = clubIndex.counts(learnerId, filteredMask);
+        int presentCount = counts.present();
+        int absentCount = counts.recorded() - presentCount;
+        double attendanceRate = counts.rate();
 
         writer.write("Present:," + presentCount + "\n");
         writer.write("Absent:," + absentCount + "\n");
@@ -926,17 +990,17 @@ public class LearnerAttendanceDetailController implements Initializable {
         writer.write("MONTHLY BREAKDOWN\n");
         writer.write("Month,Total Sessions,Present,Absent,Attendance Rate,Performance\n");
 
-        Map<String, MonthlyStats> monthlyStats = calculateMonthlyStatsForExport();
-        for (Map.Entry<String, MonthlyStats> entry : monthlyStats.entrySet()) {
-            String month = entry.getKey();
-            MonthlyStats stats = entry.getValue();
-            double rate = stats.getAttendanceRate();
+        Map<YearMonth, AttendanceBitmapIndex.Counts> monthlyStats = clubIndex.monthly(learnerId, filteredMask);
+        for (Map.Entry<YearMonth, AttendanceBitmapIndex.Counts> entry : monthlyStats.entrySet()) {
+            String month = entry.getKey().format(MONTH_FORMATTER);
+            AttendanceBitmapIndex.Counts stats = entry.getValue();
+            double rate = stats.rate();
 
             String monthlyLine = String.format("\"%s\",%d,%d,%d,\"%.1f%%\",\"%s\"\n",
                     escapeCsv(month),
-                    stats.getTotalSessions(),
-                    stats.getPresentSessions(),
-                    stats.getAbsentSessions(),
+                    stats.recorded(),
+                    stats.present(),
+                    stats.recorded() - stats.present(),
                     rate,
                     getPerformanceIndicator(rate)
             );
@@ -945,19 +1009,6 @@ public class LearnerAttendanceDetailController implements Initializable {
     }
 
 
-    private Map<String, MonthlyStats> calculateMonthlyStatsForExport() {
-        Map<String, MonthlyStats> monthlyStats = new HashMap<>();
-
-        for (AttendanceSession session : filteredSessions) {
-            String monthKey = session.getRawDate().format(MONTH_FORMATTER);
-            MonthlyStats stats = monthlyStats.getOrDefault(monthKey, new MonthlyStats());
-            stats.addSession("Present".equalsIgnoreCase(session.getStatus()));
-            monthlyStats.put(monthKey, stats);
-        }
-
-        return monthlyStats;
-    }
-
     private String getFormattedDateRange() {
         LocalDate fromDate = fromDatePicker.getValue();
         LocalDate toDate = toDatePicker.getValue();
@@ -1017,6 +1068,14 @@ public class LearnerAttendanceDetailController implements Initializable {
         this.learner = null;
         this.clubId = null;
         this.clubName = null;
+        this.clubIndex = null;
+        this.learnerId = null;
+        this.filteredMask = new BitSet();
+        this.rangeLoaded = false;
+        this.loadedFrom = null;
+        this.loadedTo = null;
+        // Drops results of a load still in flight
+        this.loadGeneration++;
         this.allSessions.clear();
         this.filteredSessions.clear();
         logger.info("LearnerAttendanceDetailController reset");
@@ -1052,21 +1111,24 @@ public class LearnerAttendanceDetailController implements Initializable {
     }
 
     // Data Models
-    public static class AttendanceSession {
-        private final SimpleStringProperty sessionDate;
-        private final SimpleStringProperty dayOfWeek;
-        private final SimpleStringProperty status;
-        private final SimpleStringProperty markedBy;
-        private final SimpleStringProperty notes;
+    /**
+     * One row of the history table. Display text is derived in the getters, which
+     * the table's PropertyValueFactory wraps only for cells on screen; status and
+     * marker names are pooled since they repeat on every row.
+     */
+    public static final class AttendanceSession {
         private final LocalDate rawDate;
+        private final UUID sessionId;
+        private final String status;
+        private final String markedBy;
+        private final String notes;
 
-        public AttendanceSession(LocalDate sessionDate, String status, String markedBy, String notes) {
+        public AttendanceSession(UUID sessionId, LocalDate sessionDate, String status, String markedBy, String notes) {
+            this.sessionId = sessionId;
             this.rawDate = sessionDate;
-            this.sessionDate = new SimpleStringProperty(sessionDate.format(DATE_FORMATTER));
-            this.dayOfWeek = new SimpleStringProperty(sessionDate.getDayOfWeek().toString());
-            this.status = new SimpleStringProperty(capitalize(status));
-            this.markedBy = new SimpleStringProperty(markedBy != null ? markedBy : "System");
-            this.notes = new SimpleStringProperty(notes != null ? notes : "");
+            this.status = StringPool.intern(capitalize(status));
+            this.markedBy = StringPool.intern(markedBy != null ? markedBy : "System");
+            this.notes = notes != null ? notes : "";
         }
 
         private String capitalize(String str) {
@@ -1075,12 +1137,13 @@ public class LearnerAttendanceDetailController implements Initializable {
         }
 
         // Getters
-        public String getSessionDate() { return sessionDate.get(); }
-        public String getDayOfWeek() { return dayOfWeek.get(); }
-        public String getStatus() { return status.get(); }
-        public String getMarkedBy() { return markedBy.get(); }
-        public String getNotes() { return notes.get(); }
+        public String getSessionDate() { return rawDate.format(DATE_FORMATTER); }
+        public String getDayOfWeek() { return rawDate.getDayOfWeek().toString(); }
+        public String getStatus() { return status; }
+        public String getMarkedBy() { return markedBy; }
+        public String getNotes() { return notes; }
         public LocalDate getRawDate() { return rawDate; }
+        public UUID getSessionId() { return sessionId; }
     }
 
     private static class AttendanceStatistics {
@@ -1102,27 +1165,4 @@ public class LearnerAttendanceDetailController implements Initializable {
         public int getAbsentCount() { return absentCount; }
         public double getAttendanceRate() { return attendanceRate; }
     }
-
-    private static class MonthlyStats {
-        private int totalSessions = 0;
-        private int presentSessions = 0;
-        private int absentSessions = 0;
-
-        public void addSession(boolean isPresent) {
-            totalSessions++;
-            if (isPresent) {
-                presentSessions++;
-            } else {
-                absentSessions++;
-            }
-        }
-
-        public double getAttendanceRate() {
-            return totalSessions > 0 ? (double) presentSessions / totalSessions * 100 : 0;
-        }
-
-        public int getTotalSessions() { return totalSessions; }
-        public int getPresentSessions() { return presentSessions; }
-        public int getAbsentSessions() { return absentSessions; }
-    }
-}
\ No newline at end of file
+}
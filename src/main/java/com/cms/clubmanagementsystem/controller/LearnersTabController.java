@@ -1,23 +1,15 @@
 package com.cms.clubmanagementsystem.controller;
 
+import com.cms.clubmanagementsystem.service.AttendanceBitmapIndex;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.PagedTableSource;
 import com.cms.clubmanagementsystem.utils.SessionManager;
-import com.itextpdf.kernel.colors.DeviceGray;
-import com.itextpdf.kernel.colors.DeviceRgb;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Cell;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
+import com.cms.clubmanagementsystem.utils.StreamingExport;
+import com.cms.clubmanagementsystem.utils.StringPool;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -30,19 +22,24 @@ import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.UUID;
@@ -63,6 +60,25 @@ public class LearnersTabController implements Initializable {
     private static final String PDF_FORMAT = "PDF";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    private static final String ENROLLMENTS_FROM = """
+        FROM club_enrollments ce
+        JOIN learners l ON ce.learner_id = l.learner_id
+        JOIN grades g ON l.grade_id = g.grade_id
+        WHERE ce.club_id = ?
+        AND ce.academic_year = ?
+        AND ce.term_number = ?
+        AND ce.school_id = ?
+    """;
+
+    // Status sorts Active first when ascending, matching the text in the column
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "fullName", "l.full_name",
+            "admissionNumber", "l.admission_number",
+            "grade", "g.grade_name",
+            "enrollmentDate", "ce.enrollment_date",
+            "status", "NOT ce.is_active"
+    );
+
     // UI Components
     @FXML private TableView<Learner> learnersTable;
     @FXML private TableColumn<Learner, String> fullNameColumn;
@@ -80,9 +96,31 @@ public class LearnersTabController implements Initializable {
     @FXML private VBox contentArea;
 
     // Data
-    private final ObservableList<Learner> allLearners = FXCollections.observableArrayList();
-    private final FilteredList<Learner> filteredLearners = new FilteredList<>(allLearners);
-    private final SortedList<Learner> sortedLearners = new SortedList<>(filteredLearners);
+    private final PagedTableSource<LearnerQuery, Learner> learnerSource =
+            new PagedTableSource<>("club-learners", new PagedTableSource.PageLoader<>() {
+                @Override
+                public int count(LearnerQuery query) throws Exception {
+                    return countLearners(query);
+                }
+
+                @Override
+                public List<Learner> load(LearnerQuery query, List<PagedTableSource.SortKey> sort,
+                                          int offset, int limit) throws Exception {
+                    return fetchLearnerPage(query, sort, offset, limit);
+                }
+            }, null);
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(300));
+
+    /**
+     * What the table is showing: the club and term, the session it was loaded
+     * for, and the current search and filter values ("All" means no filter).
+     */
+    private record LearnerQuery(UUID schoolId, UUID userId, UUID clubId, int year, int term,
+                                String search, String grade, String status) {
+        LearnerQuery withCriteria(String search, String grade, String status) {
+            return new LearnerQuery(schoolId, userId, clubId, year, term, search, grade, status);
+        }
+    }
 
     // State
     private UUID clubId;
@@ -131,7 +169,7 @@ public class LearnersTabController implements Initializable {
     private void handleExport() {
         logger.info("Initiating data export");
 
-        if (filteredLearners.isEmpty()) {
+        if (learnerSource.isEmpty()) {
             showError("Export Error", "No data available to export");
             return;
         }
@@ -161,8 +199,21 @@ public class LearnersTabController implements Initializable {
 
         statusColumn.setCellFactory(column -> createStatusTableCell());
 
-        learnersTable.setItems(sortedLearners);
-        sortedLearners.comparatorProperty().bind(learnersTable.comparatorProperty());
+        learnerSource.setOnRefreshed(count -> {
+            showLoading(false);
+            logger.debug("Applied filters: {} learners match criteria", count);
+        });
+        learnerSource.setOnFailed(e -> {
+            showLoading(false);
+            handleDataLoadError(e);
+        });
+        learnerSource.bindSorting(learnersTable, Map.of(
+                fullNameColumn, "fullName",
+                admissionNumberColumn, "admissionNumber",
+                gradeColumn, "grade",
+                enrollmentDateColumn, "enrollmentDate",
+                statusColumn, "status"));
+        learnersTable.setItems(learnerSource);
     }
 
     private TableCell<Learner, String> createStatusTableCell() {
@@ -209,7 +260,8 @@ public class LearnersTabController implements Initializable {
     }
 
     private void initializeSearch() {
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> applyFilters());
+        searchDebounce.setOnFinished(e -> applyFilters());
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> searchDebounce.playFromStart());
     }
 
     private void initializeSorting() {
@@ -247,59 +299,170 @@ public class LearnersTabController implements Initializable {
             return;
         }
 
+        LearnerQuery query = new LearnerQuery(currentSchoolId, currentUserId, clubId, selectedYear, selectedTerm,
+                searchField.getText().trim(), gradeFilter.getValue(), statusFilter.getValue());
+
         showLoading(true);
+        if (query.equals(learnerSource.getFilter())) {
+            learnerSource.refresh();
+        } else {
+            learnerSource.setFilter(query);
+        }
 
-        // Run database operations in a separate thread to avoid blocking UI
+        // Totals and the grade list cover the whole term, not just the filtered rows
         new Thread(() -> {
-            try (Connection conn = DatabaseConnector.getConnection();
-                 PreparedStatement ps = createLearnersQuery(conn, currentSchoolId, currentUserId)) {
-
-                ResultSet rs = ps.executeQuery();
-                processLearnersResultSet(rs);
-
+            try {
+                loadEnrollmentSummary(query);
             } catch (Exception e) {
                 Platform.runLater(() -> handleDataLoadError(e));
-            } finally {
-                Platform.runLater(() -> showLoading(false));
             }
         }).start();
     }
 
-    private PreparedStatement createLearnersQuery(Connection conn, UUID currentSchoolId, UUID currentUserId) throws Exception {
-        // First, set the tenant context for this connection
-        setTenantContext(conn, currentSchoolId, currentUserId);
-
+    private void loadEnrollmentSummary(LearnerQuery query) throws SQLException {
         String sql = """
-        SELECT 
+        SELECT
+            COUNT(*) AS total,
+            COUNT(*) FILTER (WHERE ce.is_active) AS active,
+            array_agg(DISTINCT g.grade_name ORDER BY g.grade_name) AS grades
+    """ + ENROLLMENTS_FROM;
+
+        try (Connection conn = openConnection(query);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            bindEnrollmentKeys(ps, query);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                int totalCount = rs.getInt("total");
+                int activeCount = rs.getInt("active");
+                ObservableList<String> grades = FXCollections.observableArrayList(ALL_FILTER);
+                java.sql.Array gradeArray = rs.getArray("grades");
+                if (gradeArray != null) {
+                    grades.addAll(Arrays.asList((String[]) gradeArray.getArray()));
+                }
+
+                updateGradeFilterComboBox(grades);
+                updateStatistics(totalCount, activeCount);
+                logger.info("Loaded {} learners ({} active) for club {}", totalCount, activeCount, query.clubId());
+            }
+        }
+    }
+
+    private int countLearners(LearnerQuery query) throws SQLException {
+        if (query == null) {
+            return 0;
+        }
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) " + ENROLLMENTS_FROM + criteriaConditions(query, params);
+
+        try (Connection conn = openConnection(query);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            bindCriteria(ps, query, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private List<Learner> fetchLearnerPage(LearnerQuery query, List<PagedTableSource.SortKey> sort,
+                                           int offset, int limit) throws SQLException {
+        List<Learner> learners = new ArrayList<>();
+        if (query == null) {
+            return learners;
+        }
+
+        List<Object> params = new ArrayList<>();
+        String sql = learnersSql(query, sort, params) + " LIMIT ? OFFSET ?";
+
+        try (Connection conn = openConnection(query);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int index = bindCriteria(ps, query, params);
+            ps.setInt(index++, limit);
+            ps.setInt(index, offset);
+
+            Map<UUID, AttendanceBitmapIndex.Counts> attendance = termAttendance(conn, query);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    learners.add(createLearnerFromResultSet(rs, attendance));
+                }
+            }
+        }
+        return learners;
+    }
+
+    private String learnersSql(LearnerQuery query, List<PagedTableSource.SortKey> sort, List<Object> params) {
+        StringBuilder orderBy = new StringBuilder();
+        for (PagedTableSource.SortKey key : sort) {
+            String column = SORT_COLUMNS.get(key.key());
+            if (column != null) {
+                orderBy.append(column).append(key.ascending() ? " ASC" : " DESC").append(", ");
+            }
+        }
+        orderBy.append("l.full_name, l.learner_id");
+
+        return """
+        SELECT
             l.learner_id,
             l.full_name,
             l.admission_number,
             g.grade_name,
             ce.enrollment_date,
-            ce.is_active,
-            COUNT(ar.record_id) FILTER (WHERE ar.status = 'present') as present_count,
-            COUNT(ar.record_id) as total_attendance
-        FROM club_enrollments ce
-        JOIN learners l ON ce.learner_id = l.learner_id
-        JOIN grades g ON l.grade_id = g.grade_id
-        LEFT JOIN attendance_records ar ON l.learner_id = ar.learner_id
-        LEFT JOIN attendance_sessions ass ON ar.session_id = ass.session_id
-        WHERE ce.club_id = ?
-        AND ce.academic_year = ?
-        AND ce.term_number = ?
-        AND ce.school_id = ?
-        GROUP BY l.learner_id, l.full_name, l.admission_number, g.grade_name, 
-                 ce.enrollment_date, ce.is_active
-        ORDER BY l.full_name
-    """;
+            ce.is_active
+    """ + ENROLLMENTS_FROM + criteriaConditions(query, params) + " ORDER BY " + orderBy;
+    }
+
+    // Attendance for this club and term comes from the cached attendance index
+    private Map<UUID, AttendanceBitmapIndex.Counts> termAttendance(Connection conn, LearnerQuery query) throws SQLException {
+        AttendanceBitmapIndex.ClubIndex attendanceIndex = AttendanceBitmapIndex.getInstance()
+                .forTerm(conn, query.schoolId(), query.clubId(), query.year(), query.term());
+        return attendanceIndex.countsByLearner(attendanceIndex.range(null, null));
+    }
+
+    private String criteriaConditions(LearnerQuery query, List<Object> params) {
+        StringBuilder conditions = new StringBuilder();
+        if (query.search() != null && !query.search().isEmpty()) {
+            String pattern = "%" + query.search().replace("\\", "\\\\")
+                    .replace("%", "\\%").replace("_", "\\_") + "%";
+            conditions.append(" AND (l.full_name ILIKE ? OR l.admission_number ILIKE ? OR g.grade_name ILIKE ?)");
+            params.add(pattern);
+            params.add(pattern);
+            params.add(pattern);
+        }
+        if (query.grade() != null && !ALL_FILTER.equals(query.grade())) {
+            conditions.append(" AND g.grade_name = ?");
+            params.add(query.grade());
+        }
+        if (query.status() != null && !ALL_FILTER.equals(query.status())) {
+            conditions.append(" AND ce.is_active = ?");
+            params.add(ACTIVE_STATUS.equals(query.status()));
+        }
+        return conditions.toString();
+    }
+
+    private int bindEnrollmentKeys(PreparedStatement ps, LearnerQuery query) throws SQLException {
+        ps.setObject(1, query.clubId());
+        ps.setInt(2, query.year());
+        ps.setInt(3, query.term());
+        ps.setObject(4, query.schoolId());
+        return 5;
+    }
 
-        PreparedStatement ps = conn.prepareStatement(sql);
-        ps.setObject(1, clubId);
-        ps.setInt(2, selectedYear);
-        ps.setInt(3, selectedTerm);
-        ps.setObject(4, currentSchoolId);
+    private int bindCriteria(PreparedStatement ps, LearnerQuery query, List<Object> params) throws SQLException {
+        int index = bindEnrollmentKeys(ps, query);
+        for (Object param : params) {
+            ps.setObject(index++, param);
+        }
+        return index;
+    }
 
-        return ps;
+    private Connection openConnection(LearnerQuery query) throws SQLException {
+        Connection conn = DatabaseConnector.getConnection();
+        try {
+            setTenantContext(conn, query.schoolId(), query.userId());
+            return conn;
+        } catch (RuntimeException e) {
+            conn.close();
+            throw e;
+        }
     }
 
     private void setTenantContext(Connection conn, UUID currentSchoolId, UUID currentUserId) {
@@ -322,42 +485,16 @@ public class LearnersTabController implements Initializable {
         }
     }
 
-    private void processLearnersResultSet(ResultSet rs) throws Exception {
-        ObservableList<Learner> tempLearners = FXCollections.observableArrayList();
-        int activeCount = 0;
-        int totalCount = 0;
-        ObservableList<String> grades = FXCollections.observableArrayList(ALL_FILTER);
-
-        while (rs.next()) {
-            Learner learner = createLearnerFromResultSet(rs);
-            tempLearners.add(learner);
-
-            if (learner.isActive()) activeCount++;
-            totalCount++;
-
-            updateGradeFilter(grades, learner.getGrade());
-        }
-
-        // Update UI on JavaFX Application Thread
-        int finalTotalCount = totalCount;
-        int finalActiveCount = activeCount;
-        Platform.runLater(() -> {
-            allLearners.setAll(tempLearners);
-            updateGradeFilterComboBox(grades);
-            updateStatistics(finalTotalCount, finalActiveCount);
-            applyFilters(); // Apply initial filters
-            logger.info("Loaded {} learners ({} active) for club {}", finalTotalCount, finalActiveCount, clubId);
-        });
-    }
-
-    private Learner createLearnerFromResultSet(ResultSet rs) throws Exception {
+    private Learner createLearnerFromResultSet(ResultSet rs, Map<UUID, AttendanceBitmapIndex.Counts> attendance) throws SQLException {
         String fullName = rs.getString("full_name");
         String admissionNumber = rs.getString("admission_number");
         String grade = rs.getString("grade_name");
         String enrollmentDate = formatEnrollmentDate(rs.getTimestamp("enrollment_date"));
         boolean isActive = rs.getBoolean("is_active");
-        int presentCount = rs.getInt("present_count");
-        int totalAttendance = rs.getInt("total_attendance");
+        AttendanceBitmapIndex.Counts counts = attendance.getOrDefault(
+                (UUID) rs.getObject("learner_id"), AttendanceBitmapIndex.Counts.EMPTY);
+        int presentCount = counts.present();
+        int totalAttendance = counts.recorded();
 
         return new Learner(fullName, admissionNumber, grade, enrollmentDate,
                 isActive, presentCount, totalAttendance);
@@ -368,12 +505,6 @@ public class LearnersTabController implements Initializable {
         return timestamp.toLocalDateTime().toLocalDate().format(DATE_FORMATTER);
     }
 
-    private void updateGradeFilter(ObservableList<String> grades, String grade) {
-        if (grade != null && !grades.contains(grade)) {
-            grades.add(grade);
-        }
-    }
-
     private void updateGradeFilterComboBox(ObservableList<String> grades) {
         Platform.runLater(() -> {
             gradeFilter.setItems(grades);
@@ -383,43 +514,20 @@ public class LearnersTabController implements Initializable {
         });
     }
 
-    private void handleDataLoadError(Exception e) {
+    private void handleDataLoadError(Throwable e) {
         logger.error("Error loading learners data: {}", e.getMessage(), e);
         showError("Data Load Error", "Failed to load learners data: " + e.getMessage());
     }
 
     // Filtering Methods
     private void applyFilters() {
-        String searchText = searchField.getText().toLowerCase();
-        String selectedGrade = gradeFilter.getValue();
-        String selectedStatus = statusFilter.getValue();
-
-        filteredLearners.setPredicate(learner ->
-                matchesSearch(learner, searchText) &&
-                        matchesGrade(learner, selectedGrade) &&
-                        matchesStatus(learner, selectedStatus)
-        );
-
-        logger.debug("Applied filters: {} learners match criteria", filteredLearners.size());
-    }
-
-    private boolean matchesSearch(Learner learner, String searchText) {
-        if (searchText == null || searchText.isEmpty()) return true;
-
-        String searchLower = searchText.toLowerCase();
-        return (learner.getFullName() != null && learner.getFullName().toLowerCase().contains(searchLower)) ||
-                (learner.getAdmissionNumber() != null && learner.getAdmissionNumber().toLowerCase().contains(searchLower)) ||
-                (learner.getGrade() != null && learner.getGrade().toLowerCase().contains(searchLower));
-    }
-
-    private boolean matchesGrade(Learner learner, String selectedGrade) {
-        return ALL_FILTER.equals(selectedGrade) ||
-                (learner.getGrade() != null && learner.getGrade().equals(selectedGrade));
-    }
-
-    private boolean matchesStatus(Learner learner, String selectedStatus) {
-        return ALL_FILTER.equals(selectedStatus) ||
-                (learner.getStatus() != null && learner.getStatus().equals(selectedStatus));
+        LearnerQuery current = learnerSource.getFilter();
+        if (current == null) {
+            return;
+        }
+        searchDebounce.stop();
+        learnerSource.setFilter(current.withCriteria(
+                searchField.getText().trim(), gradeFilter.getValue(), statusFilter.getValue()));
     }
 
     // Export Methods
@@ -467,157 +575,55 @@ public class LearnersTabController implements Initializable {
     }
 
     private void performExport(String format, File file) {
-        try {
-            if (PDF_FORMAT.equals(format)) {
-                exportToPDF(file);
-            } else {
-                exportToCSV(file);
+        LearnerQuery query = learnerSource.getFilter();
+        List<PagedTableSource.SortKey> sort = learnerSource.getSort();
+        StreamingExport.Format exportFormat = PDF_FORMAT.equals(format)
+                ? StreamingExport.Format.PDF : StreamingExport.Format.CSV;
+
+        // Streamed straight from the database, so the export size doesn't depend on what the table has loaded
+        Thread exportThread = new Thread(() -> {
+            try (Connection conn = openConnection(query)) {
+                Map<UUID, AttendanceBitmapIndex.Counts> attendance = termAttendance(conn, query);
+                List<Object> params = new ArrayList<>();
+                String sql = learnersSql(query, sort, params);
+
+                long exported = StreamingExport.query(sql)
+                        .bind(ps -> bindCriteria(ps, query, params))
+                        .headers(List.of("Full Name", "Admission Number", "Grade", "Enrollment Date", "Status",
+                                "Attendance %", "Present Count", "Total Sessions"))
+                        .rows(rs -> exportRow(createLearnerFromResultSet(rs, attendance)))
+                        .title("Learners Report - " + clubName, String.format("Academic Year: %d | Term: %d | Export Date: %s",
+                                query.year(), query.term(), LocalDate.now().format(DATE_FORMATTER)))
+                        .footer(rows -> List.of(
+                                new String[]{"Total Learners:", String.valueOf(rows)},
+                                new String[]{"Export Date:", LocalDateTime.now().toString()},
+                                new String[]{"Club:", clubName},
+                                new String[]{"Academic Year:", String.valueOf(query.year())},
+                                new String[]{"Term:", String.valueOf(query.term())}))
+                        .writeTo(conn, file, exportFormat);
+
+                logger.info("Exported {} learners to {}", exported, file.getAbsolutePath());
+                showInfo("Export Successful", "Data exported successfully to: " + file.getAbsolutePath());
+            } catch (Exception e) {
+                logger.error("Error exporting data: {}", e.getMessage(), e);
+                showError("Export Error", "Failed to export data: " + e.getMessage());
             }
-            showInfo("Export Successful", "Data exported successfully to: " + file.getAbsolutePath());
-        } catch (Exception e) {
-            logger.error("Error exporting data: {}", e.getMessage(), e);
-            showError("Export Error", "Failed to export data: " + e.getMessage());
-        }
-    }
-
-    private void exportToCSV(File file) throws IOException {
-        logger.info("Exporting {} learners to CSV: {}", filteredLearners.size(), file.getAbsolutePath());
-
-        try (FileWriter writer = new FileWriter(file)) {
-            writeCsvHeader(writer);
-            writeCsvData(writer);
-            writeCsvSummary(writer);
-        }
-
-        logger.info("CSV export completed successfully");
-    }
-
-    private void writeCsvHeader(FileWriter writer) throws IOException {
-        writer.write("Full Name,Admission Number,Grade,Enrollment Date,Status,Attendance %,Present Count,Total Sessions\n");
-    }
-
-    private void writeCsvData(FileWriter writer) throws IOException {
-        for (Learner learner : filteredLearners) {
-            String line = String.format("\"%s\",\"%s\",\"%s\",\"%s\",\"%s\",%.1f%%,%d,%d\n",
-                    escapeCsv(learner.getFullName()),
-                    escapeCsv(learner.getAdmissionNumber()),
-                    escapeCsv(learner.getGrade()),
-                    escapeCsv(learner.getEnrollmentDate()),
-                    escapeCsv(learner.getStatus()),
-                    learner.getAttendancePercentage(),
-                    learner.getPresentCount(),
-                    learner.getTotalAttendance()
-            );
-            writer.write(line);
-        }
-    }
-
-    private void writeCsvSummary(FileWriter writer) throws IOException {
-        writer.write("\nSummary\n");
-        writer.write("Total Learners:," + filteredLearners.size() + "\n");
-        writer.write("Export Date:," + LocalDateTime.now() + "\n");
-        writer.write("Club:," + escapeCsv(clubName) + "\n");
-        writer.write("Academic Year:," + selectedYear + "\n");
-        writer.write("Term:," + selectedTerm + "\n");
-    }
-
-    private String escapeCsv(String value) {
-        if (value == null) return "";
-        return value.replace("\"", "\"\"");
-    }
-
-    private void exportToPDF(File file) throws IOException {
-        logger.info("Exporting {} learners to PDF: {}", filteredLearners.size(), file.getAbsolutePath());
-
-        try (PdfWriter writer = new PdfWriter(file.getAbsolutePath());
-             PdfDocument pdfDoc = new PdfDocument(writer);
-             Document document = new Document(pdfDoc)) {
-
-            addPdfHeader(document);
-            addPdfTable(document);
-            addPdfSummary(document);
-        }
-
-        logger.info("PDF export completed successfully");
-    }
-
-    private void addPdfHeader(Document document) {
-        Paragraph title = new Paragraph("Learners Report - " + clubName)
-                .setFontSize(18)
-                .setBold()
-                .setTextAlignment(TextAlignment.CENTER);
-        document.add(title);
-
-        Paragraph metadata = new Paragraph()
-                .add("Academic Year: " + selectedYear + " | ")
-                .add("Term: " + selectedTerm + " | ")
-                .add("Export Date: " + LocalDate.now().format(DATE_FORMATTER))
-                .setFontSize(10)
-                .setTextAlignment(TextAlignment.CENTER)
-                .setFontColor(DeviceGray.GRAY);
-        document.add(metadata);
-
-        document.add(new Paragraph("\n"));
-    }
-
-    private void addPdfTable(Document document) {
-        // Create table with 6 columns
-        Table table = new Table(6);
-        table.setWidth(UnitValue.createPercentValue(100));
-
-        addPdfTableHeaders(table);
-        addPdfTableRows(table);
-
-        document.add(table);
-    }
-
-    private void addPdfTableHeaders(Table table) {
-        String[] headers = {"Full Name", "Admission No.", "Grade", "Enrollment Date", "Status", "Attendance %"};
-        for (String header : headers) {
-            Cell cell = new Cell()
-                    .add(new Paragraph(header))
-                    .setBold()
-                    .setBackgroundColor(new DeviceRgb(52, 152, 219))
-                    .setFontColor(DeviceGray.WHITE)
-                    .setTextAlignment(TextAlignment.CENTER);
-            table.addHeaderCell(cell);
-        }
-    }
-
-    private void addPdfTableRows(Table table) {
-        for (Learner learner : filteredLearners) {
-            table.addCell(createPdfCell(learner.getFullName()));
-            table.addCell(createPdfCell(learner.getAdmissionNumber()));
-            table.addCell(createPdfCell(learner.getGrade()));
-            table.addCell(createPdfCell(learner.getEnrollmentDate()));
-            table.addCell(createStatusPdfCell(learner.getStatus()));
-            table.addCell(createPdfCell(learner.getFormattedAttendancePercentage()));
-        }
-    }
-
-    private Cell createPdfCell(String text) {
-        return new Cell()
-                .add(new Paragraph(text != null ? text : ""))
-                .setPadding(5)
-                .setFontSize(10);
-    }
-
-    private Cell createStatusPdfCell(String status) {
-        Cell cell = createPdfCell(status);
-        if (ACTIVE_STATUS.equals(status)) {
-            cell.setBackgroundColor(new DeviceRgb(39, 174, 96));
-        } else {
-            cell.setBackgroundColor(new DeviceRgb(231, 76, 60));
-        }
-        return cell;
-    }
-
-    private void addPdfSummary(Document document) {
-        document.add(new Paragraph("\n"));
-        Paragraph summary = new Paragraph("Summary: " + filteredLearners.size() + " learners found")
-                .setBold()
-                .setFontSize(12);
-        document.add(summary);
+        }, "learners-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    private String[] exportRow(Learner learner) {
+        return new String[]{
+                learner.getFullName(),
+                learner.getAdmissionNumber(),
+                learner.getGrade(),
+                learner.getEnrollmentDate(),
+                learner.getStatus(),
+                learner.getFormattedAttendancePercentage(),
+                String.valueOf(learner.getPresentCount()),
+                String.valueOf(learner.getTotalAttendance())
+        };
     }
 
     // UI Utility Methods
@@ -689,36 +695,36 @@ public class LearnersTabController implements Initializable {
     }
 
     /**
-     * Data model representing a learner in the club
+     * Data model representing a learner in the club. Immutable and property-free:
+     * the table's PropertyValueFactory wraps the getters only for visible cells.
+     * Grade and enrollment date repeat across the club, so they are pooled.
      */
-    public static class Learner {
-        private final SimpleStringProperty fullName;
-        private final SimpleStringProperty admissionNumber;
-        private final SimpleStringProperty grade;
-        private final SimpleStringProperty enrollmentDate;
-        private final SimpleStringProperty status;
+    public static final class Learner {
+        private final String fullName;
+        private final String admissionNumber;
+        private final String grade;
+        private final String enrollmentDate;
         private final int presentCount;
         private final int totalAttendance;
         private final boolean isActive;
 
         public Learner(String fullName, String admissionNumber, String grade,
                        String enrollmentDate, boolean isActive, int presentCount, int totalAttendance) {
-            this.fullName = new SimpleStringProperty(fullName != null ? fullName : "");
-            this.admissionNumber = new SimpleStringProperty(admissionNumber != null ? admissionNumber : "");
-            this.grade = new SimpleStringProperty(grade != null ? grade : "");
-            this.enrollmentDate = new SimpleStringProperty(enrollmentDate != null ? enrollmentDate : "");
+            this.fullName = fullName != null ? fullName : "";
+            this.admissionNumber = admissionNumber != null ? admissionNumber : "";
+            this.grade = StringPool.intern(grade != null ? grade : "");
+            this.enrollmentDate = StringPool.intern(enrollmentDate != null ? enrollmentDate : "");
             this.isActive = isActive;
-            this.status = new SimpleStringProperty(isActive ? ACTIVE_STATUS : INACTIVE_STATUS);
             this.presentCount = presentCount;
             this.totalAttendance = totalAttendance;
         }
 
         // Getters
-        public String getFullName() { return fullName.get(); }
-        public String getAdmissionNumber() { return admissionNumber.get(); }
-        public String getGrade() { return grade.get(); }
-        public String getEnrollmentDate() { return enrollmentDate.get(); }
-        public String getStatus() { return status.get(); }
+        public String getFullName() { return fullName; }
+        public String getAdmissionNumber() { return admissionNumber; }
+        public String getGrade() { return grade; }
+        public String getEnrollmentDate() { return enrollmentDate; }
+        public String getStatus() { return isActive ? ACTIVE_STATUS : INACTIVE_STATUS; }
         public boolean isActive() { return isActive; }
         public int getPresentCount() { return presentCount; }
         public int getTotalAttendance() { return totalAttendance; }
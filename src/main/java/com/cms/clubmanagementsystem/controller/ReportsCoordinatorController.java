@@ -1,8 +1,15 @@
 package com.cms.clubmanagementsystem.controller;
 
 import com.cms.clubmanagementsystem.model.Report;
+import com.cms.clubmanagementsystem.service.ReportJobService;
+import com.cms.clubmanagementsystem.service.ReportService;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.EventBus;
+import com.cms.clubmanagementsystem.utils.EventTypes;
 import com.cms.clubmanagementsystem.utils.SessionManager;
+import com.cms.clubmanagementsystem.utils.TenantContext;
+import com.cms.clubmanagementsystem.utils.TrendSeries;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -12,18 +19,33 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.util.Callback;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-public class ReportsCoordinatorController implements Initializable {
+public class ReportsCoordinatorController implements Initializable, AsyncScreen {
 
     @FXML private ComboBox<String> reportTypeCombo;
     @FXML private ComboBox<String> timePeriodCombo;
@@ -56,7 +78,17 @@ public class ReportsCoordinatorController implements Initializable {
     private PieChart sessionDayChart;
     private BarChart<String, Number> teacherEngagementChart;
 
-    private Map<String, String> reportFilePaths = new HashMap<>();
+    // Analytics panel queries in flight, and which load the FX thread still wants results from
+    private final List<Future<?>> analyticsLoads = new ArrayList<>();
+    private volatile int analyticsGeneration;
+    // Only the latest history reload may replace the table's rows
+    private int recentReportsGeneration;
+    private final CompletableFuture<Void> initialDataShown = new CompletableFuture<>();
+
+    @Override
+    public CompletionStage<Void> initialDataShown() {
+        return initialDataShown;
+    }
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -65,6 +97,10 @@ public class ReportsCoordinatorController implements Initializable {
         loadClubData();
         loadRecentReports();
 
+        // Report jobs run in the background; keep the history table in step with them
+        EventBus.subscribe(EventTypes.REPORT_JOB_UPDATED, EventBus.Delivery.FX, this::handleReportJobUpdate)
+                .bindTo(reportsTable);
+
         // Add listeners
         timePeriodCombo.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> handleTimePeriodChange(newValue)
@@ -142,7 +178,7 @@ public class ReportsCoordinatorController implements Initializable {
         actionCol.setCellFactory(cellFactory);
 
         // Add the action column if not already in table
-        if (reportsTable.getColumns().size() < 5) {
+        if (reportsTable.getColumns().size() < 6) {
             reportsTable.getColumns().add(actionCol);
         }
     }
@@ -217,32 +253,51 @@ public class ReportsCoordinatorController implements Initializable {
         }
     }
 
+    // Queried on the reporting query pool; only the finished rows are handed to the FX thread
     private void loadRecentReports() {
-        String query = "SELECT report_name, report_type, generated_at, format " +
+        String query = "SELECT report_id, report_name, report_type, generated_at, format, status, file_path " +
                 "FROM reports WHERE school_id = ? ORDER BY generated_at DESC LIMIT 10";
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setObject(1, SessionManager.getCurrentSchoolId());
-            ResultSet rs = stmt.executeQuery();
-
-            recentReports.clear();
-            while (rs.next()) {
-                Report report = new Report(
-                        rs.getString("report_name"),
-                        rs.getString("report_type"),
-                        rs.getTimestamp("generated_at").toLocalDateTime(),
-                        rs.getString("format")
-                );
-                recentReports.add(report);
-            }
-
-            reportsTable.setItems(recentReports);
-
-        } catch (SQLException e) {
-            System.err.println("Error loading recent reports: " + e.getMessage());
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        if (schoolId == null || userId == null) {
+            initialDataShown.complete(null);
+            return;
         }
+        int generation = ++recentReportsGeneration;
+
+        ReportJobService.getInstance().submitQuery(() -> {
+            List<Report> reports = new ArrayList<>();
+            try (Connection conn = DatabaseConnector.getConnection()) {
+                TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    stmt.setObject(1, schoolId);
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        reports.add(new Report(
+                                rs.getObject("report_id", UUID.class),
+                                rs.getString("report_name"),
+                                rs.getString("report_type"),
+                                rs.getTimestamp("generated_at").toLocalDateTime(),
+                                rs.getString("format"),
+                                statusLabel(ReportJobService.Status.fromDb(rs.getString("status"))),
+                                rs.getString("file_path")
+                        ));
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("Error loading recent reports: " + e.getMessage());
+                initialDataShown.completeExceptionally(e);
+                return null;
+            }
+            Platform.runLater(() -> {
+                if (generation == recentReportsGeneration) {
+                    recentReports.setAll(reports);
+                    reportsTable.setItems(recentReports);
+                }
+                initialDataShown.complete(null);
+            });
+            return null;
+        });
     }
 
     @FXML
@@ -258,103 +313,59 @@ public class ReportsCoordinatorController implements Initializable {
         }
 
         try {
-            // Generate report based on type
-            switch (reportType) {
-                case "Attendance Summary":
-                    generateAttendanceReport(timePeriod, club, format);
-                    break;
-                case "Club Performance":
-                    generateClubPerformanceReport(timePeriod, club, format);
-                    break;
-                case "Learner Enrollment":
-                    generateEnrollmentReport(timePeriod, club, format);
-                    break;
-                case "Teacher Engagement":
-                    generateTeacherReport(timePeriod, club, format);
-                    break;
-                case "Session Frequency":
-                    generateSessionReport(timePeriod, club, format);
-                    break;
-                case "Comprehensive Report":
-                    generateComprehensiveReport(timePeriod, club, format);
-                    break;
-            }
-
-            // Save report record
-            saveReportRecord(reportType, timePeriod, club, format);
-            loadRecentReports();
-
-            showAlert("Success", "Report generated successfully!");
-
-        } catch (Exception e) {
-            showAlert("Error", "Failed to generate report: " + e.getMessage());
+            LocalDate[] dateRange = calculateDateRange(timePeriod);
+            UUID clubId = club != null && !club.equals("All Clubs") ? clubMap.get(club) : null;
+            ReportService.ReportRequest request = new ReportService.ReportRequest(
+                    reportType, timePeriod, dateRange[0], dateRange[1], clubId, club, format,
+                    SessionManager.getCurrentSchoolId(), SessionManager.getCurrentUserId());
+
+            // Shows up in Recent Reports as queued; an alert follows when it finishes
+            ReportJobService.getInstance().submit(request);
+
+        } catch (IllegalArgumentException e) {
+            showAlert("Validation Error", e.getMessage());
+        } catch (RejectedExecutionException e) {
+            showAlert("Busy", "Too many reports are already queued. Please try again shortly.");
+        } catch (SQLException e) {
+            showAlert("Error", "Failed to queue report: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void generateAttendanceReport(String timePeriod, String club, String format) {
-        // Implementation for attendance report
-        String query = buildAttendanceQuery(timePeriod, club);
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            setQueryParameters(stmt, timePeriod, club);
-            ResultSet rs = stmt.executeQuery();
-
-            // Process results and generate report file
-            System.out.println("Generating Attendance Report...");
-
-            // For now, just display results in console
-            while (rs.next()) {
-                System.out.printf("Club: %s, Attendance Rate: %.2f%%%n",
-                        rs.getString("club_name"), rs.getDouble("attendance_rate"));
+    private void handleReportJobUpdate(ReportJobService.JobUpdate update) {
+        Report shown = null;
+        for (Report report : recentReports) {
+            if (update.reportId().equals(report.getReportId())) {
+                shown = report;
+                break;
             }
-
-        } catch (SQLException e) {
-            throw new RuntimeException("Database error: " + e.getMessage(), e);
         }
-    }
 
-    private String buildAttendanceQuery(String timePeriod, String club) {
-        StringBuilder query = new StringBuilder(
-                "SELECT c.club_name, " +
-                        "COUNT(DISTINCT ar.record_id) as total_records, " +
-                        "SUM(CASE WHEN ar.status = 'present' THEN 1 ELSE 0 END) as present_count, " +
-                        "ROUND(SUM(CASE WHEN ar.status = 'present' THEN 1 ELSE 0 END) * 100.0 / COUNT(ar.record_id), 2) as attendance_rate " +
-                        "FROM attendance_records ar " +
-                        "JOIN attendance_sessions s ON ar.session_id = s.session_id " +
-                        "JOIN clubs c ON s.club_id = c.club_id " +
-                        "WHERE c.school_id = ? AND s.session_date BETWEEN ? AND ? "
-        );
-
-        if (club != null && !club.equals("All Clubs")) {
-            query.append("AND c.club_id = ? ");
+        if (shown != null) {
+            // Rows already listed are updated from the event itself
+            shown.setStatus(update.status() == ReportJobService.Status.RUNNING && update.rowsWritten() > 0
+                    ? String.format("Running (%,d rows)", update.rowsWritten())
+                    : statusLabel(update.status()));
+            if (update.filePath() != null) {
+                shown.setFilePath(update.filePath());
+            }
+            reportsTable.refresh();
+        } else if (update.status() != ReportJobService.Status.RUNNING) {
+            // A new job, or one not in the latest ten; the reload runs off the FX thread
+            loadRecentReports();
         }
 
-        query.append("GROUP BY c.club_name ORDER BY attendance_rate DESC");
-
-        return query.toString();
+        if (update.status() == ReportJobService.Status.COMPLETED) {
+            showAlert("Success", "Report \"" + update.reportName() + "\" is ready" +
+                    (update.cached() ? " (data unchanged since it was last generated)." : "."));
+        } else if (update.status() == ReportJobService.Status.FAILED) {
+            showAlert("Error", "Failed to generate report \"" + update.reportName() + "\": " + update.error());
+        }
     }
 
-    private void setQueryParameters(PreparedStatement stmt, String timePeriod, String club) throws SQLException {
-        LocalDate[] dateRange = calculateDateRange(timePeriod);
-        int paramIndex = 1;
-
-        // Set school_id (UUID)
-        stmt.setObject(paramIndex++, SessionManager.getCurrentSchoolId(), Types.OTHER);
-
-        // Set date range
-        stmt.setDate(paramIndex++, Date.valueOf(dateRange[0]));
-        stmt.setDate(paramIndex++, Date.valueOf(dateRange[1]));
-
-        // Set club_id if specified (UUID)
-        if (club != null && !club.equals("All Clubs")) {
-            UUID clubId = clubMap.get(club);
-            if (clubId != null) {
-                stmt.setObject(paramIndex, clubId, Types.OTHER);
-            }
-        }
+    private static String statusLabel(ReportJobService.Status status) {
+        String name = status.name();
+        return name.charAt(0) + name.substring(1).toLowerCase();
     }
 
     private LocalDate[] calculateDateRange(String timePeriod) {
@@ -385,219 +396,241 @@ public class ReportsCoordinatorController implements Initializable {
         return new LocalDate[]{startDate, endDate};
     }
 
-    private void generateClubPerformanceReport(String timePeriod, String club, String format) {
-        System.out.println("Generating Club Performance Report...");
+    @FXML
+    private void showAnalytics() {
+        analyticsSection.setVisible(true);
+        initializeCharts(); // Initialize charts when analytics section is shown
+        loadAnalyticsData();
     }
 
-    private void generateEnrollmentReport(String timePeriod, String club, String format) {
-        System.out.println("Generating Enrollment Report...");
-    }
+    /**
+     * Loads every analytics panel at once on the reporting query pool. Each
+     * panel is drawn as soon as its own query returns, so the view takes as long
+     * as the slowest panel. Starting a new load cancels the previous one; its
+     * results are dropped if they still arrive.
+     */
+    private void loadAnalyticsData() {
+        cancelAnalyticsLoads();
+        int generation = ++analyticsGeneration;
 
-    private void generateTeacherReport(String timePeriod, String club, String format) {
-        System.out.println("Generating Teacher Engagement Report...");
+        // Captured here: the panels query on pool threads, which have no session
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        if (schoolId == null || userId == null) {
+            return;
+        }
+        LocalDate[] range = analyticsDateRange();
+        LocalDate from = range[0];
+        LocalDate to = range[1];
+
+        loadPanel(generation, schoolId, userId, "overall metrics",
+                conn -> queryOverallMetrics(conn, schoolId, from, to), this::showOverallMetrics);
+
+        if (attendanceTrendChart != null) {
+            int targetPoints = TrendSeries.targetPoints(attendanceTrendChart);
+            TrendSeries.Bucket bucket = TrendSeries.Bucket.forRange(from, to, targetPoints);
+            loadPanel(generation, schoolId, userId, "attendance trend",
+                    conn -> TrendSeries.downsample(queryAttendanceTrend(conn, schoolId, from, to, bucket), targetPoints),
+                    points -> showAttendanceTrend(points, bucket.labels(from, to)));
+        }
+        if (clubPerformanceChart != null) {
+            loadPanel(generation, schoolId, userId, "club performance",
+                    conn -> queryClubPerformance(conn, schoolId, from, to),
+                    data -> showSeries(clubPerformanceChart, "Attendance Rate", data));
+        }
+        if (sessionDayChart != null) {
+            loadPanel(generation, schoolId, userId, "session days",
+                    conn -> querySessionDays(conn, schoolId),
+                    data -> sessionDayChart.getData().setAll(data));
+        }
+        if (teacherEngagementChart != null) {
+            loadPanel(generation, schoolId, userId, "teacher engagement",
+                    conn -> queryTeacherEngagement(conn, schoolId, from, to),
+                    data -> showSeries(teacherEngagementChart, "Sessions Conducted", data));
+        }
     }
 
-    private void generateSessionReport(String timePeriod, String club, String format) {
-        System.out.println("Generating Session Frequency Report...");
+    private interface PanelQuery<T> {
+        T run(Connection conn) throws SQLException;
     }
 
-    private void generateComprehensiveReport(String timePeriod, String club, String format) {
-        System.out.println("Generating Comprehensive Report...");
+    private <T> void loadPanel(int generation, UUID schoolId, UUID userId, String panel,
+                               PanelQuery<T> query, Consumer<T> show) {
+        analyticsLoads.add(ReportJobService.getInstance().submitQuery(() -> {
+            try (Connection conn = DatabaseConnector.getConnection()) {
+                TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+                T data = query.run(conn);
+                Platform.runLater(() -> {
+                    if (generation == analyticsGeneration) {
+                        show.accept(data);
+                    }
+                });
+            } catch (SQLException e) {
+                if (generation == analyticsGeneration) {
+                    System.err.println("Error loading " + panel + ": " + e.getMessage());
+                }
+            }
+            return null;
+        }));
     }
 
-    private void saveReportRecord(String reportType, String timePeriod, String club, String format) {
-        String query = "INSERT INTO reports (report_name, report_type, format, school_id, generated_by, start_date, end_date) " +
-                "VALUES (?, ?::report_type, ?::report_format, ?, ?, ?, ?)";
-
-        LocalDate[] dateRange = calculateDateRange(timePeriod);
-        String reportName = reportType + " - " + timePeriod +
-                (club != null && !club.equals("All Clubs") ? " - " + club : "");
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setString(1, reportName);
-            stmt.setString(2, mapReportType(reportType));
-            stmt.setString(3, format.toLowerCase()); // Changed to lowercase
-            stmt.setObject(4, SessionManager.getCurrentSchoolId(), Types.OTHER);
-            stmt.setObject(5, SessionManager.getCurrentUserId(), Types.OTHER);
-            stmt.setDate(6, Date.valueOf(dateRange[0]));
-            stmt.setDate(7, Date.valueOf(dateRange[1]));
-
-            stmt.executeUpdate();
-
-        } catch (SQLException e) {
-            System.err.println("Error saving report record: " + e.getMessage());
-            e.printStackTrace();
+    private void cancelAnalyticsLoads() {
+        for (Future<?> load : analyticsLoads) {
+            load.cancel(true);
         }
+        analyticsLoads.clear();
     }
 
-    private String mapReportType(String reportType) {
-        switch (reportType) {
-            case "Attendance Summary": return "weekly";
-            case "Club Performance": return "monthly";
-            case "Learner Enrollment": return "termly";
-            case "Teacher Engagement": return "monthly";
-            case "Session Frequency": return "weekly";
-            case "Comprehensive Report": return "annual";
-            default: return "monthly";
+    // Analytics follow the selected period, or the last 30 days until one is chosen
+    private LocalDate[] analyticsDateRange() {
+        String timePeriod = timePeriodCombo.getValue();
+        if (timePeriod != null) {
+            try {
+                return calculateDateRange(timePeriod);
+            } catch (IllegalArgumentException e) {
+                // Custom range without both dates yet
+            }
         }
+        LocalDate endDate = LocalDate.now();
+        return new LocalDate[]{endDate.minusDays(30), endDate};
     }
 
-    @FXML
-    private void showAnalytics() {
-        analyticsSection.setVisible(true);
-        initializeCharts(); // Initialize charts when analytics section is shown
-        loadAnalyticsData();
-    }
-
-    private void loadAnalyticsData() {
-        loadOverallMetrics();
-        loadAttendanceTrendChart();
-        loadClubPerformanceChart();
-        loadSessionDayChart();
-        loadTeacherEngagementChart();
-    }
-
-    private void loadOverallMetrics() {
-        String query =
-                "SELECT " +
-                        "(SELECT COUNT(*) FROM clubs WHERE school_id = ? AND is_active = true) as active_clubs, " +
-                        "(SELECT COUNT(*) FROM club_enrollments WHERE school_id = ? AND is_active = true) as enrolled_learners, " +
-                        "(SELECT ROUND(AVG(CASE WHEN ar.status = 'present' THEN 1 ELSE 0 END) * 100, 2) " +
-                        " FROM attendance_records ar " +
-                        " JOIN attendance_sessions s ON ar.session_id = s.session_id " +
-                        " WHERE s.school_id = ? AND s.session_date >= CURRENT_DATE - INTERVAL '30 days') as attendance_rate";
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            UUID schoolId = SessionManager.getCurrentSchoolId();
+    private record OverallMetrics(int activeClubs, int enrolledLearners, Double attendanceRate, Double previousRate) {}
+
+    // The previous rate covers the same number of days just before the period
+    private OverallMetrics queryOverallMetrics(Connection conn, UUID schoolId, LocalDate from, LocalDate to)
+            throws SQLException {
+        String query = """
+                SELECT (SELECT COUNT(*) FROM clubs WHERE school_id = ? AND is_active = true) AS active_clubs,
+                       (SELECT COUNT(*) FROM club_enrollments WHERE school_id = ? AND is_active = true) AS enrolled_learners,
+                       ROUND(AVG(CASE WHEN ar.status = 'present' THEN 1 ELSE 0 END)
+                             FILTER (WHERE s.session_date >= ?) * 100, 2) AS attendance_rate,
+                       ROUND(AVG(CASE WHEN ar.status = 'present' THEN 1 ELSE 0 END)
+                             FILTER (WHERE s.session_date < ?) * 100, 2) AS previous_rate
+                FROM attendance_records ar
+                JOIN attendance_sessions s ON ar.session_id = s.session_id
+                WHERE s.school_id = ? AND s.session_date BETWEEN ? AND ?
+                """;
+
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setObject(1, schoolId, Types.OTHER);
             stmt.setObject(2, schoolId, Types.OTHER);
-            stmt.setObject(3, schoolId, Types.OTHER);
-
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                activeClubsLabel.setText(String.valueOf(rs.getInt("active_clubs")));
-                enrolledLearnersLabel.setText(String.valueOf(rs.getInt("enrolled_learners")));
-
-                double attendanceRate = rs.getDouble("attendance_rate");
-                if (!rs.wasNull()) {
-                    overallAttendanceLabel.setText(String.format("%.1f%%", attendanceRate));
-
-                    // Simple trend calculation
-                    double previousRate = calculatePreviousPeriodAttendance();
-                    double trend = attendanceRate - previousRate;
-                    String trendText = String.format("%s %.1f%%",
-                            trend >= 0 ? "↑" : "↓", Math.abs(trend));
-                    attendanceTrendLabel.setText(trendText);
-                    attendanceTrendLabel.setStyle(trend >= 0 ?
-                            "-fx-text-fill: #27ae60;" : "-fx-text-fill: #e74c3c;");
-                } else {
-                    overallAttendanceLabel.setText("N/A");
-                    attendanceTrendLabel.setText("No data");
+            stmt.setDate(3, Date.valueOf(from));
+            stmt.setDate(4, Date.valueOf(from));
+            stmt.setObject(5, schoolId, Types.OTHER);
+            stmt.setDate(6, Date.valueOf(from.minusDays(days)));
+            stmt.setDate(7, Date.valueOf(to));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return new OverallMetrics(0, 0, null, null);
                 }
+                return new OverallMetrics(rs.getInt("active_clubs"), rs.getInt("enrolled_learners"),
+                        rs.getObject("attendance_rate", Double.class),
+                        rs.getObject("previous_rate", Double.class));
             }
-
-        } catch (SQLException e) {
-            System.err.println("Error loading overall metrics: " + e.getMessage());
         }
     }
 
-    private double calculatePreviousPeriodAttendance() {
-        // Simplified implementation
-        return 75.0;
-    }
-
-    private void loadAttendanceTrendChart() {
-        if (attendanceTrendChart == null) return;
+    private void showOverallMetrics(OverallMetrics metrics) {
+        activeClubsLabel.setText(String.valueOf(metrics.activeClubs()));
+        enrolledLearnersLabel.setText(String.valueOf(metrics.enrolledLearners()));
 
-        attendanceTrendChart.getData().clear();
-
-        String query =
-                "SELECT DATE(s.session_date) as session_day, " +
-                        "ROUND(AVG(CASE WHEN ar.status = 'present' THEN 1 ELSE 0 END) * 100, 2) as rate " +
-                        "FROM attendance_sessions s " +
-                        "LEFT JOIN attendance_records ar ON s.session_id = ar.session_id " +
-                        "WHERE s.school_id = ? AND s.session_date >= CURRENT_DATE - INTERVAL '30 days' " +
-                        "GROUP BY session_day ORDER BY session_day";
-
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName("Attendance Rate");
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setObject(1, SessionManager.getCurrentSchoolId(), Types.OTHER);
-            ResultSet rs = stmt.executeQuery();
+        if (metrics.attendanceRate() == null) {
+            overallAttendanceLabel.setText("N/A");
+            attendanceTrendLabel.setText("No data");
+            attendanceTrendLabel.setStyle("");
+            return;
+        }
 
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd");
+        overallAttendanceLabel.setText(String.format("%.1f%%", metrics.attendanceRate()));
+        if (metrics.previousRate() == null) {
+            attendanceTrendLabel.setText("No earlier data");
+            attendanceTrendLabel.setStyle("");
+            return;
+        }
 
-            while (rs.next()) {
-                LocalDate date = rs.getDate("session_day").toLocalDate();
-                double rate = rs.getDouble("rate");
+        double trend = metrics.attendanceRate() - metrics.previousRate();
+        String trendText = String.format("%s %.1f%%",
+                trend >= 0 ? "↑" : "↓", Math.abs(trend));
+        attendanceTrendLabel.setText(trendText);
+        attendanceTrendLabel.setStyle(trend >= 0 ?
+                "-fx-text-fill: #27ae60;" : "-fx-text-fill: #e74c3c;");
+    }
 
-                if (!rs.wasNull()) {
-                    series.getData().add(new XYChart.Data<>(
-                            date.format(formatter), rate
-                    ));
+    // Bucket size is picked from the range, so long ranges come back as weeks or months
+    private List<TrendSeries.Point> queryAttendanceTrend(Connection conn, UUID schoolId, LocalDate from,
+                                                         LocalDate to, TrendSeries.Bucket bucket) throws SQLException {
+        String query = """
+                SELECT date_trunc('%s', s.session_date::timestamp)::date AS bucket,
+                       COUNT(*) FILTER (WHERE ar.status = 'present') * 100.0 / NULLIF(COUNT(ar.record_id), 0) AS rate
+                FROM attendance_sessions s
+                LEFT JOIN attendance_records ar ON s.session_id = ar.session_id
+                WHERE s.school_id = ? AND s.session_date BETWEEN ? AND ?
+                GROUP BY bucket
+                ORDER BY bucket
+                """.formatted(bucket.sqlField());
+
+        List<TrendSeries.Point> points = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setObject(1, schoolId, Types.OTHER);
+            stmt.setDate(2, Date.valueOf(from));
+            stmt.setDate(3, Date.valueOf(to));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    double rate = rs.getDouble("rate");
+                    if (!rs.wasNull()) {
+                        points.add(new TrendSeries.Point(rs.getDate("bucket").toLocalDate(), rate));
+                    }
                 }
             }
-
-            attendanceTrendChart.getData().add(series);
-
-        } catch (SQLException e) {
-            System.err.println("Error loading attendance trend: " + e.getMessage());
         }
+        return points;
     }
 
-    private void loadClubPerformanceChart() {
-        if (clubPerformanceChart == null) return;
-
-        clubPerformanceChart.getData().clear();
+    private void showAttendanceTrend(List<TrendSeries.Point> points, Function<LocalDate, String> labels) {
+        attendanceTrendChart.getData().clear();
+        // Symbols are a node per point; a dense line reads fine without them
+        attendanceTrendChart.setCreateSymbols(points.size() <= 60);
+        attendanceTrendChart.getData().add(TrendSeries.toSeries("Attendance Rate", points, labels));
+    }
 
+    private List<XYChart.Data<String, Number>> queryClubPerformance(Connection conn, UUID schoolId,
+                                                                    LocalDate from, LocalDate to) throws SQLException {
         String query =
                 "SELECT c.club_name, " +
                         "ROUND(AVG(CASE WHEN ar.status = 'present' THEN 1 ELSE 0 END) * 100, 2) as attendance_rate " +
                         "FROM clubs c " +
-                        "LEFT JOIN attendance_sessions s ON c.club_id = s.club_id AND s.session_date >= CURRENT_DATE - INTERVAL '30 days' " +
+                        "LEFT JOIN attendance_sessions s ON c.club_id = s.club_id AND s.session_date BETWEEN ? AND ? " +
                         "LEFT JOIN attendance_records ar ON s.session_id = ar.session_id " +
                         "WHERE c.school_id = ? AND c.is_active = true " +
                         "GROUP BY c.club_id, c.club_name " +
                         "ORDER BY attendance_rate DESC NULLS LAST " +
                         "LIMIT 10";
 
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName("Attendance Rate");
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+        List<XYChart.Data<String, Number>> data = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            stmt.setObject(3, schoolId, Types.OTHER);
 
-            stmt.setObject(1, SessionManager.getCurrentSchoolId(), Types.OTHER);
-            ResultSet rs = stmt.executeQuery();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String clubName = rs.getString("club_name");
+                    double rate = rs.getDouble("attendance_rate");
 
-            while (rs.next()) {
-                String clubName = rs.getString("club_name");
-                double rate = rs.getDouble("attendance_rate");
-
-                if (!rs.wasNull()) {
-                    series.getData().add(new XYChart.Data<>(clubName, rate));
+                    if (!rs.wasNull()) {
+                        data.add(new XYChart.Data<>(clubName, rate));
+                    }
                 }
             }
-
-            clubPerformanceChart.getData().add(series);
-
-        } catch (SQLException e) {
-            System.err.println("Error loading club performance: " + e.getMessage());
         }
+        return data;
     }
 
-    private void loadSessionDayChart() {
-        if (sessionDayChart == null) return;
-
-        sessionDayChart.getData().clear();
-
+    private List<PieChart.Data> querySessionDays(Connection conn, UUID schoolId) throws SQLException {
         String query =
                 "SELECT cs.meeting_day, COUNT(*) as session_count " +
                         "FROM club_schedules cs " +
@@ -606,60 +639,58 @@ public class ReportsCoordinatorController implements Initializable {
                         "GROUP BY cs.meeting_day " +
                         "ORDER BY session_count DESC";
 
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setObject(1, SessionManager.getCurrentSchoolId(), Types.OTHER);
-            ResultSet rs = stmt.executeQuery();
+        List<PieChart.Data> data = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setObject(1, schoolId, Types.OTHER);
 
-            while (rs.next()) {
-                String day = rs.getString("meeting_day");
-                int count = rs.getInt("session_count");
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String day = rs.getString("meeting_day");
+                    int count = rs.getInt("session_count");
 
-                sessionDayChart.getData().add(new PieChart.Data(day + " (" + count + ")", count));
+                    data.add(new PieChart.Data(day + " (" + count + ")", count));
+                }
             }
-
-        } catch (SQLException e) {
-            System.err.println("Error loading session day chart: " + e.getMessage());
         }
+        return data;
     }
 
-    private void loadTeacherEngagementChart() {
-        if (teacherEngagementChart == null) return;
-
-        teacherEngagementChart.getData().clear();
-
+    private List<XYChart.Data<String, Number>> queryTeacherEngagement(Connection conn, UUID schoolId,
+                                                                      LocalDate from, LocalDate to) throws SQLException {
         String query =
                 "SELECT u.full_name, COUNT(DISTINCT s.session_id) as sessions_conducted " +
                         "FROM users u " +
                         "JOIN club_teachers ct ON u.user_id = ct.teacher_id " +
-                        "LEFT JOIN attendance_sessions s ON ct.club_id = s.club_id AND s.session_date >= CURRENT_DATE - INTERVAL '30 days' " +
+                        "LEFT JOIN attendance_sessions s ON ct.club_id = s.club_id AND s.session_date BETWEEN ? AND ? " +
                         "WHERE u.school_id = ? AND u.role = 'teacher' AND u.is_active = true " +
                         "GROUP BY u.user_id, u.full_name " +
                         "ORDER BY sessions_conducted DESC " +
                         "LIMIT 8";
 
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName("Sessions Conducted");
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+        List<XYChart.Data<String, Number>> data = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            stmt.setObject(3, schoolId, Types.OTHER);
 
-            stmt.setObject(1, SessionManager.getCurrentSchoolId(), Types.OTHER);
-            ResultSet rs = stmt.executeQuery();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String teacherName = rs.getString("full_name");
+                    int sessions = rs.getInt("sessions_conducted");
 
-            while (rs.next()) {
-                String teacherName = rs.getString("full_name");
-                int sessions = rs.getInt("sessions_conducted");
-
-                series.getData().add(new XYChart.Data<>(teacherName, sessions));
+                    data.add(new XYChart.Data<>(teacherName, sessions));
+                }
             }
-
-            teacherEngagementChart.getData().add(series);
-
-        } catch (SQLException e) {
-            System.err.println("Error loading teacher engagement: " + e.getMessage());
         }
+        return data;
+    }
+
+    private static void showSeries(XYChart<String, Number> chart, String name,
+                                   List<XYChart.Data<String, Number>> data) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        series.getData().setAll(data);
+        chart.getData().setAll(List.of(series));
     }
 
     @FXML
@@ -675,11 +706,38 @@ public class ReportsCoordinatorController implements Initializable {
         } else {
             dateRangeBox.setVisible(false);
         }
+        if (analyticsSection.isVisible()) {
+            loadAnalyticsData();
+        }
     }
 
     private void downloadReport(Report report) {
-        showAlert("Download", "Downloading report: " + report.getName());
-        // Implementation for downloading the report file
+        String filePath = report.getFilePath();
+        if (filePath == null) {
+            showAlert("Download", "Report \"" + report.getName() + "\" is not available: " + report.getStatus() + ".");
+            return;
+        }
+
+        Path source = Paths.get(filePath);
+        if (!Files.isRegularFile(source)) {
+            showAlert("Download", "The file for this report is no longer available. Please generate it again.");
+            return;
+        }
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Report");
+        fileChooser.setInitialFileName(source.getFileName().toString());
+        File target = fileChooser.showSaveDialog(reportsTable.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+
+        try {
+            Files.copy(source, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            showAlert("Download", "Report saved to " + target.getAbsolutePath());
+        } catch (IOException e) {
+            showAlert("Error", "Failed to save report: " + e.getMessage());
+        }
     }
 
     private void deleteReport(Report report) {
@@ -690,21 +748,27 @@ public class ReportsCoordinatorController implements Initializable {
 
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                // Delete from database
-                String query = "DELETE FROM reports WHERE report_name = ? AND school_id = ?";
-                try (Connection conn = DatabaseConnector.getConnection();
-                     PreparedStatement stmt = conn.prepareStatement(query)) {
-
-                    stmt.setString(1, report.getName());
-                    stmt.setObject(2, SessionManager.getCurrentSchoolId(), Types.OTHER);
-                    stmt.executeUpdate();
-
-                    loadRecentReports();
-                    showAlert("Success", "Report deleted successfully!");
-
-                } catch (SQLException e) {
-                    showAlert("Error", "Failed to delete report: " + e.getMessage());
+                UUID schoolId = SessionManager.getCurrentSchoolId();
+                UUID userId = SessionManager.getCurrentUserId();
+                if (report.getReportId() == null || schoolId == null || userId == null) {
+                    showAlert("Error", "Failed to delete report: no active session.");
+                    return;
                 }
+
+                // Cancels a running job, deletes the row and its file in REPORTS_DIR
+                ReportJobService.getInstance().submitQuery(() -> {
+                    try {
+                        ReportJobService.getInstance().delete(report.getReportId(), schoolId, userId);
+                        Platform.runLater(() -> {
+                            recentReports.remove(report);
+                            loadRecentReports();
+                            showAlert("Success", "Report deleted successfully!");
+                        });
+                    } catch (SQLException | IOException e) {
+                        Platform.runLater(() -> showAlert("Error", "Failed to delete report: " + e.getMessage()));
+                    }
+                    return null;
+                });
             }
         });
     }
@@ -1,14 +1,15 @@
 package com.cms.clubmanagementsystem.controller;
 
 import com.cms.clubmanagementsystem.model.Learner;
+import com.cms.clubmanagementsystem.service.StudentService;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.EventBus;
+import com.cms.clubmanagementsystem.utils.EventTypes;
+import com.cms.clubmanagementsystem.utils.PagedTableSource;
 import com.cms.clubmanagementsystem.utils.SessionManager;
 import com.cms.clubmanagementsystem.utils.EnvLoader;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
@@ -17,15 +18,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.time.ZoneId;
-import java.util.Comparator;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.UUID;
-import javafx.beans.property.SimpleStringProperty;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import javafx.util.Duration;
 
 // Imports for Excel functionality
 import com.cms.clubmanagementsystem.service.LearnerService;
@@ -41,7 +39,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
-public class StudentListController implements Initializable {
+public class StudentListController implements Initializable, AsyncScreen {
 
     private static final Logger logger = LoggerFactory.getLogger(StudentListController.class);
 
@@ -55,14 +53,26 @@ public class StudentListController implements Initializable {
     @FXML private Button refreshButton;
     @FXML private Button refreshExcelButton;
 
-    private ObservableList<Learner> learnerList;
+    // Rows are fetched a page at a time as the table scrolls; search and sort run in the query
+    private PagedTableSource<String, Learner> learnerSource;
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(300));
+    private final StudentService studentService = new StudentService();
     private LearnerService learnerService;
     private UUID currentSchoolId;
+    private UUID currentUserId;
+    private final CompletableFuture<Void> initialDataShown = new CompletableFuture<>();
     private String excelFilePath;
 
+    @Override
+    public CompletionStage<Void> initialDataShown() {
+        return initialDataShown;
+    }
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         currentSchoolId = SessionManager.getCurrentSchoolId();
+        // Pages load on the student-list-pages threads, which have no session of their own
+        currentUserId = SessionManager.getCurrentUserId();
 
         // Load Excel file path from environment
         excelFilePath = EnvLoader.get("EXCEL_FILE_PATH");
@@ -90,8 +100,50 @@ public class StudentListController implements Initializable {
         }
 
         setupTableColumns();
-        loadStudents();
+        setupLearnerSource();
         setupSearchFilter();
+        loadStudents();
+    }
+
+    private void setupLearnerSource() {
+        learnerSource = new PagedTableSource<>("student-list", new PagedTableSource.PageLoader<>() {
+            @Override
+            public int count(String search) throws Exception {
+                return studentService.countStudents(currentSchoolId, currentUserId, search);
+            }
+
+            @Override
+            public java.util.List<Learner> load(String search, java.util.List<PagedTableSource.SortKey> sort,
+                                                int offset, int limit) throws Exception {
+                return studentService.fetchStudentPage(currentSchoolId, currentUserId, search, sort, offset, limit);
+            }
+        }, "");
+        learnerSource.setOnRefreshed(count -> {
+            if (count == 0) {
+                showNoDataPlaceholder();
+                initialDataShown.complete(null);
+            }
+        });
+        learnerSource.setOnPageLoaded(() -> initialDataShown.complete(null));
+        learnerSource.setOnFailed(e -> {
+            initialDataShown.completeExceptionally(e);
+            showError("Failed to load students. Please check your database connection.");
+        });
+        learnerSource.bindSorting(studentTable, Map.of(
+                colAdmissionNo, "admissionNumber",
+                colFullName, "fullName",
+                colGrade, "gradeName",
+                colGender, "gender"));
+
+        studentTable.setItems(learnerSource);
+        studentTable.getSortOrder().setAll(List.of(colGrade));
+
+        // Webhook and Excel imports announce learner changes for the school
+        EventBus.subscribe(EventTypes.LEARNERS_CHANGED, EventBus.Delivery.FX, schoolId -> {
+            if (schoolId == null || schoolId.equals(currentSchoolId)) {
+                learnerSource.refresh();
+            }
+        }).bindTo(studentTable);
     }
 
     private void setupButtonPermissions() {
@@ -142,17 +194,7 @@ public class StudentListController implements Initializable {
     }
 
     private void loadStudents() {
-        learnerList = loadAllStudentsFromDatabase();
-
-        learnerList.sort(Comparator
-                .comparing(Learner::getGradeName)
-                .thenComparing(Learner::getFullName));
-
-        studentTable.setItems(learnerList);
-
-        if (learnerList.isEmpty()) {
-            showNoDataPlaceholder();
-        }
+        learnerSource.refresh();
     }
 
     private void showNoDataPlaceholder() {
@@ -167,36 +209,23 @@ public class StudentListController implements Initializable {
     }
 
     private void setupSearchFilter() {
-        searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            FilteredList<Learner> filteredData = createSearchFilter(newValue);
-            SortedList<Learner> sortedData = new SortedList<>(filteredData);
-
-            sortedData.setComparator(Comparator
-                    .comparing(Learner::getGradeName)
-                    .thenComparing(Learner::getFullName));
-
-            studentTable.setItems(sortedData);
-
-            studentTable.getSortOrder().setAll(colGrade);
-            studentTable.sort();
-        });
+        searchDebounce.setOnFinished(e -> learnerSource.setFilter(searchField.getText().trim()));
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> searchDebounce.playFromStart());
     }
 
     @FXML
     private void handleSearch() {
-        String searchText = searchField.getText();
-        if (searchText.isEmpty()) {
-            loadStudents();
-        }
+        searchDebounce.stop();
+        learnerSource.setFilter(searchField.getText().trim());
     }
 
     @FXML
     private void handleRefresh() {
-        loadStudents();
         searchField.clear();
-
+        searchDebounce.stop();
+        learnerSource.setFilter("");
         studentTable.getSortOrder().setAll(colGrade);
-        studentTable.sort();
+        loadStudents();
     }
 
     @FXML
@@ -263,7 +292,7 @@ public class StudentListController implements Initializable {
 
             importTask.setOnSucceeded(e -> {
                 progressDialog.close();
-                loadStudents();
+                EventBus.publish(EventTypes.LEARNERS_CHANGED, currentSchoolId);
                 showAlert("Import Complete", "Successfully imported data from Excel file.");
             });
 
@@ -603,71 +632,6 @@ public class StudentListController implements Initializable {
         }
     }
 
-    /**
-     * Search and Filter functionality
-     */
-    public FilteredList<Learner> createSearchFilter(String searchText) {
-        ObservableList<Learner> allLearners = loadAllStudentsFromDatabase();
-        FilteredList<Learner> filteredData = new FilteredList<>(allLearners, p -> true);
-
-        if (searchText != null && !searchText.isEmpty()) {
-            String lowerCaseFilter = searchText.toLowerCase();
-            filteredData.setPredicate(learner -> {
-                return learner.getAdmissionNumber().toLowerCase().contains(lowerCaseFilter) ||
-                        learner.getFullName().toLowerCase().contains(lowerCaseFilter) ||
-                        (learner.getGradeName() != null &&
-                                learner.getGradeName().toLowerCase().contains(lowerCaseFilter)) ||
-                        (learner.getGender() != null &&
-                                learner.getGender().toLowerCase().contains(lowerCaseFilter));
-            });
-        }
-
-        return filteredData;
-    }
-
-    /**
-     * Load all students from database
-     */
-    public ObservableList<Learner> loadAllStudentsFromDatabase() {
-        ObservableList<Learner> learners = FXCollections.observableArrayList();
-
-        String query = "SELECT l.learner_id, l.admission_number, l.full_name, " +
-                "l.grade_id, l.school_id, l.date_joined_school, " +
-                "l.created_at, l.gender, g.grade_name " +
-                "FROM learners l " +
-                "LEFT JOIN grades g ON l.grade_id = g.grade_id " +
-                "WHERE l.school_id = ? " +
-                "ORDER BY l.full_name";
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(query)) {
-
-            pstmt.setObject(1, currentSchoolId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Learner learner = new Learner(
-                        (UUID) rs.getObject("learner_id"),
-                        rs.getString("admission_number"),
-                        rs.getString("full_name"),
-                        (UUID) rs.getObject("grade_id"),
-                        rs.getString("grade_name"),
-                        (UUID) rs.getObject("school_id"),
-                        rs.getDate("date_joined_school").toLocalDate(),
-                        rs.getTimestamp("created_at") != null ?
-                                rs.getTimestamp("created_at").toInstant().atZone(ZoneId.systemDefault()) : null,
-                        rs.getString("gender")
-                );
-                learners.add(learner);
-            }
-
-        } catch (SQLException e) {
-            showError("Failed to load students. Please check your database connection.");
-        }
-
-        return learners;
-    }
-
     private void showError(String message) {
         Platform.runLater(() -> {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -26,6 +26,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.UUID;
 
@@ -47,6 +48,7 @@ public class TeacherDashboardController implements Initializable {
     @FXML private Tab learnersTab;
 
     private UUID assignedClubId;
+    private EventBus.Subscription enrollmentEvents;
     private String assignedClubName;
     private int selectedYear; // Stores the user-selected year
     private int selectedTerm; // Stores the user-selected term
@@ -167,38 +169,24 @@ public class TeacherDashboardController implements Initializable {
     }
 
     private void setupEventListeners() {
-        EventBus.subscribe(EventTypes.ENROLLMENT_ADDED, this::handleEnrollmentChanged);
-        EventBus.subscribe(EventTypes.ENROLLMENT_WITHDRAWN, this::handleEnrollmentChanged);
-        EventBus.subscribe(EventTypes.ENROLLMENT_CHANGED, this::handleEnrollmentChanged);
-        EventBus.subscribe(EventTypes.CLUB_STATS_UPDATED, this::handleEnrollmentChanged);
+        // Enrollment and attendance events are merged into one statistics refresh per burst
+        enrollmentEvents = EventBus.subscribeCoalesced(java.time.Duration.ofMillis(300), EventBus.Delivery.BACKGROUND,
+                this::handleEnrollmentChanged,
+                EventTypes.ENROLLMENT_ADDED, EventTypes.ENROLLMENT_WITHDRAWN,
+                EventTypes.ENROLLMENT_CHANGED, EventTypes.CLUB_STATS_UPDATED);
         logger.info("TeacherDashboardController subscribed to enrollment events");
     }
 
+    // Cancels only this dashboard's subscription when it leaves the screen (window
+    // closed or scene replaced on logout); other views keep theirs
     private void setupCleanupListener() {
-        welcomeLabel.sceneProperty().addListener((observable, oldScene, newScene) -> {
-            if (newScene != null) {
-                newScene.windowProperty().addListener((windowObs, oldWindow, newWindow) -> {
-                    if (newWindow != null) {
-                        newWindow.setOnCloseRequest(event -> cleanupEventListeners());
-                    }
-                });
-                if (oldScene != null) {
-                    cleanupEventListeners();
-                }
-            }
-        });
-    }
-
-    private void cleanupEventListeners() {
-        logger.info("Cleaning up event listeners for TeacherDashboardController");
-        EventBus.unsubscribe(EventTypes.ENROLLMENT_ADDED);
-        EventBus.unsubscribe(EventTypes.ENROLLMENT_WITHDRAWN);
-        EventBus.unsubscribe(EventTypes.ENROLLMENT_CHANGED);
-        EventBus.unsubscribe(EventTypes.CLUB_STATS_UPDATED);
+        enrollmentEvents.bindTo(welcomeLabel);
     }
 
-    private void handleEnrollmentChanged(Object data) {
-        logger.info("Enrollment change detected with data: {}, refreshing dashboard", data);
+    // Runs on the bus's background lane; loadClubStatistics queries the database
+    // and updates labels through Platform.runLater
+    private void handleEnrollmentChanged(List<EventBus.Event> events) {
+        logger.info("{} enrollment/club events received, refreshing dashboard", events.size());
         loadClubStatistics();
     }
 
@@ -1,5 +1,8 @@
 package com.cms.clubmanagementsystem.controller;
 
+import com.cms.clubmanagementsystem.service.StaffRosterService;
+import com.cms.clubmanagementsystem.service.UserAvailabilityIndex;
+import com.cms.clubmanagementsystem.utils.AsyncFieldCheck;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
 import com.cms.clubmanagementsystem.utils.SessionManager;
 import com.google.i18n.phonenumbers.NumberParseException;
@@ -9,6 +12,7 @@ import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
@@ -25,6 +29,9 @@ import java.security.SecureRandom;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -32,7 +39,7 @@ import javafx.scene.control.Tooltip;
 import javafx.scene.control.ListView;
 import javafx.scene.control.SelectionMode;
 
-public class TeacherManagementController implements Initializable {
+public class TeacherManagementController implements Initializable, AsyncScreen {
 
     // UI Components
     @FXML private TableView<Teacher> teachersTable;
@@ -50,6 +57,9 @@ public class TeacherManagementController implements Initializable {
 
     // Data collections
     private ObservableList<Teacher> teachers = FXCollections.observableArrayList();
+    private final StaffRosterService rosterService = new StaffRosterService();
+    private long teacherLoadGeneration;
+    private final CompletableFuture<Void> initialDataShown = new CompletableFuture<>();
     private ObservableList<String> clubs = FXCollections.observableArrayList();
 
     // Grade-related variables
@@ -60,6 +70,11 @@ public class TeacherManagementController implements Initializable {
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-.]+@([\\w-]+\\.)+[\\w-]{2,4}$");
     private static final String PHONE_FORMAT_HINT = "+254712345678";
 
+    @Override
+    public CompletionStage<Void> initialDataShown() {
+        return initialDataShown;
+    }
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Check if user has at least coordinator access
@@ -77,6 +92,8 @@ public class TeacherManagementController implements Initializable {
 
         setupTable();
         loadData();
+        // Warm the username/email index so the create form's checks don't wait on it
+        UserAvailabilityIndex.getInstance().preload(SessionManager.getCurrentSchoolId(), SessionManager.getCurrentUserId());
         updateUIForPermissions();
         addPermissionStatusIndicator();
     }
@@ -138,73 +155,38 @@ public class TeacherManagementController implements Initializable {
 
     // ===== DATA LOADING METHODS =====
 
-    // Update the loadTeachers method to load grade information
+    // Loads the roster in one query on a background thread; the table is filled when it returns
     private void loadTeachers() {
-        teachers.clear();
-        String sql = """
-    SELECT u.user_id, u.username, u.full_name, u.email, u.phone, 
-           u.is_active, c.club_name, u.created_at, c.club_id
-    FROM users u
-    LEFT JOIN club_teachers ct ON u.user_id = ct.teacher_id
-    LEFT JOIN clubs c ON ct.club_id = c.club_id
-    WHERE u.school_id = ? 
-    AND u.role = 'teacher'
-    ORDER BY u.full_name
-    """;
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setObject(1, SessionManager.getCurrentSchoolId());
-            ResultSet rs = stmt.executeQuery();
+        // The loader thread has no session, so the tenant is captured here
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        long generation = ++teacherLoadGeneration;
 
-            while (rs.next()) {
-                Teacher teacher = new Teacher(
-                        (UUID) rs.getObject("user_id"),
-                        rs.getString("username"),
-                        rs.getString("full_name"),
-                        rs.getString("email"),
-                        rs.getString("phone"),
-                        rs.getBoolean("is_active"),
-                        rs.getString("club_name"),
-                        rs.getTimestamp("created_at"),
-                        (UUID) rs.getObject("club_id")
-                );
-
-                // Load assigned grades for this teacher
-                loadTeacherGrades(teacher);
-                teachers.add(teacher);
+        Task<List<StaffRosterService.TeacherEntry>> loadTask = new Task<>() {
+            @Override
+            protected List<StaffRosterService.TeacherEntry> call() throws Exception {
+                return rosterService.loadTeachers(schoolId, userId);
             }
+        };
 
+        loadTask.setOnSucceeded(e -> {
+            if (generation != teacherLoadGeneration) {
+                return; // A newer reload is in flight
+            }
+            teachers.setAll(loadTask.getValue().stream().map(Teacher::new).toList());
             teachersTable.setItems(teachers);
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Failed to load teachers: " + e.getMessage());
-        }
-    }
-
-    // Method to load grades for a specific teacher
-    private void loadTeacherGrades(Teacher teacher) {
-        String sql = """
-        SELECT g.grade_name 
-        FROM teacher_grades tg
-        JOIN grades g ON tg.grade_id = g.grade_id
-        WHERE tg.teacher_id = ? AND tg.school_id = ?
-        ORDER BY g.grade_name
-    """;
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            initialDataShown.complete(null);
+        });
 
-            stmt.setObject(1, teacher.getId());
-            stmt.setObject(2, SessionManager.getCurrentSchoolId());
-            ResultSet rs = stmt.executeQuery();
+        loadTask.setOnFailed(e -> {
+            initialDataShown.completeExceptionally(loadTask.getException());
+            showAlert(Alert.AlertType.ERROR, "Error",
+                    "Failed to load teachers: " + loadTask.getException().getMessage());
+        });
 
-            while (rs.next()) {
-                teacher.getAssignedGrades().add(rs.getString("grade_name"));
-            }
-        } catch (SQLException e) {
-            // Log error
-        }
+        Thread thread = new Thread(loadTask, "teacher-roster-loader");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void loadClubs() {
@@ -447,6 +429,16 @@ public class TeacherManagementController implements Initializable {
 
         createButtonNode.setDisable(true);
 
+        // Availability is checked off the FX thread once typing pauses; results re-run validation
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        UserAvailabilityIndex availability = UserAvailabilityIndex.getInstance();
+        AtomicReference<ChangeListener<String>> listener = new AtomicReference<>();
+        AsyncFieldCheck emailCheck = new AsyncFieldCheck(
+                email -> availability.isEmailAvailable(schoolId, userId, email), () -> listener.get().changed(null, null, null));
+        AsyncFieldCheck usernameCheck = new AsyncFieldCheck(
+                username -> availability.isUsernameAvailable(schoolId, userId, username), () -> listener.get().changed(null, null, null));
+
         ChangeListener<String> validationListener = (observable, oldValue, newValue) -> {
             boolean isValid = validateCreateForm(
                     fullNameField.getText().trim(),
@@ -458,10 +450,13 @@ public class TeacherManagementController implements Initializable {
                     emailError,
                     usernameError,
                     phoneError,
-                    clubError
+                    clubError,
+                    emailCheck,
+                    usernameCheck
             );
             createButtonNode.setDisable(!isValid);
         };
+        listener.set(validationListener);
 
         fullNameField.textProperty().addListener(validationListener);
         emailField.textProperty().addListener(validationListener);
@@ -507,6 +502,16 @@ public class TeacherManagementController implements Initializable {
     private boolean createTeacher(String fullName, String email, String username, String tempPassword,
                                   String phone, UUID clubId, List<UUID> gradeIds) {
 
+        // The form's checks use the in-memory index; confirm against the database before creating
+        if (!isUsernameAvailable(username)) {
+            showAlert(Alert.AlertType.ERROR, "Error", "Username already exists");
+            return false;
+        }
+        if (!isEmailAvailable(email)) {
+            showAlert(Alert.AlertType.ERROR, "Error", "Email already exists");
+            return false;
+        }
+
         Connection conn = null;
         try {
             conn = DatabaseConnector.getConnection();
@@ -534,6 +539,7 @@ public class TeacherManagementController implements Initializable {
                         }
 
                         conn.commit();
+                        UserAvailabilityIndex.getInstance().recordUser(SessionManager.getCurrentSchoolId(), username, email);
                         loadTeachers();
                         showAlert(Alert.AlertType.INFORMATION, "Success",
                                 "Teacher created successfully and assigned to club!" +
@@ -587,8 +593,10 @@ public class TeacherManagementController implements Initializable {
 
         Dialog<TeacherUpdateData> dialog = createUpdateDialog(selectedTeacher);
         dialog.showAndWait().ifPresent(updateData -> {
-            boolean success = updateTeacher(updateData);
+            boolean success = updateTeacher(updateData, selectedTeacher);
             if (success) {
+                UserAvailabilityIndex.getInstance().recordEmailChange(
+                        SessionManager.getCurrentSchoolId(), selectedTeacher.getEmail(), updateData.email());
                 showAlert(Alert.AlertType.INFORMATION, "Success",
                         "Teacher details updated successfully!");
                 loadTeachers();
@@ -664,8 +672,7 @@ public class TeacherManagementController implements Initializable {
         clearGradesButton.setOnAction(e -> gradesListView.getSelectionModel().clearSelection());
 
         // Load currently assigned grades and sort them
-        List<String> currentGrades = getTeacherGrades(selectedTeacher.getId());
-        Collections.sort(currentGrades);
+        List<String> currentGrades = selectedTeacher.getAssignedGrades();
 
         for (String grade : currentGrades) {
             if (grades.contains(grade)) {
@@ -700,33 +707,6 @@ public class TeacherManagementController implements Initializable {
         return components;
     }
 
-    // Method to get teacher's current grades
-    private List<String> getTeacherGrades(UUID teacherId) {
-        List<String> teacherGrades = new ArrayList<>();
-        String sql = """
-        SELECT g.grade_name 
-        FROM teacher_grades tg
-        JOIN grades g ON tg.grade_id = g.grade_id
-        WHERE tg.teacher_id = ? AND tg.school_id = ?
-        ORDER BY g.grade_name
-    """;
-
-        try (Connection conn = DatabaseConnector.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setObject(1, teacherId);
-            stmt.setObject(2, SessionManager.getCurrentSchoolId());
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                teacherGrades.add(rs.getString("grade_name"));
-            }
-        } catch (SQLException e) {
-            // Log error
-        }
-        return teacherGrades;
-    }
-
     private void setupUpdateFormValidation(Map<String, Object> components, Node updateButtonNode, Teacher selectedTeacher) {
         // Extract components from the map
         TextField fullNameField = (TextField) components.get("fullNameField");
@@ -740,6 +720,13 @@ public class TeacherManagementController implements Initializable {
 
         updateButtonNode.setDisable(true);
 
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        UUID userId = SessionManager.getCurrentUserId();
+        AtomicReference<ChangeListener<String>> listener = new AtomicReference<>();
+        AsyncFieldCheck emailCheck = new AsyncFieldCheck(
+                email -> UserAvailabilityIndex.getInstance().isEmailAvailable(schoolId, userId, email),
+                () -> listener.get().changed(null, null, null));
+
         ChangeListener<String> validationListener = (observable, oldValue, newValue) -> {
             boolean isValid = validateUpdateForm(
                     selectedTeacher,
@@ -750,10 +737,12 @@ public class TeacherManagementController implements Initializable {
                     fullNameError,
                     emailError,
                     phoneError,
-                    clubError
+                    clubError,
+                    emailCheck
             );
             updateButtonNode.setDisable(!isValid);
         };
+        listener.set(validationListener);
 
         fullNameField.textProperty().addListener(validationListener);
         emailField.textProperty().addListener(validationListener);
@@ -805,7 +794,13 @@ public class TeacherManagementController implements Initializable {
         }
     }
 
-    private boolean updateTeacher(TeacherUpdateData updateData) {
+    private boolean updateTeacher(TeacherUpdateData updateData, Teacher selectedTeacher) {
+        if (!updateData.email().equalsIgnoreCase(selectedTeacher.getEmail())
+                && !isEmailAvailableForUpdate(updateData.email(), updateData.teacherId())) {
+            showAlert(Alert.AlertType.ERROR, "Error", "Email already exists");
+            return false;
+        }
+
         Connection conn = null;
         try {
             conn = DatabaseConnector.getConnection();
@@ -866,13 +861,14 @@ public class TeacherManagementController implements Initializable {
 
     private boolean validateCreateForm(String fullName, String email, String username, String phone, String club,
                                        Label fullNameError, Label emailError, Label usernameError,
-                                       Label phoneError, Label clubError) {
+                                       Label phoneError, Label clubError,
+                                       AsyncFieldCheck emailCheck, AsyncFieldCheck usernameCheck) {
 
         boolean isValid = true;
 
         isValid &= validateFullName(fullName, fullNameError);
-        isValid &= validateEmail(email, emailError);
-        isValid &= validateUsername(username, usernameError);
+        isValid &= validateEmail(email, emailError, emailCheck);
+        isValid &= validateUsername(username, usernameError, usernameCheck);
         isValid &= validatePhone(phone, phoneError);
         isValid &= validateClub(club, clubError);
 
@@ -881,12 +877,13 @@ public class TeacherManagementController implements Initializable {
 
     private boolean validateUpdateForm(Teacher selectedTeacher, String fullName, String email,
                                        String phone, String club, Label fullNameError,
-                                       Label emailError, Label phoneError, Label clubError) {
+                                       Label emailError, Label phoneError, Label clubError,
+                                       AsyncFieldCheck emailCheck) {
 
         boolean isValid = true;
 
         isValid &= validateFullName(fullName, fullNameError);
-        isValid &= validateEmailForUpdate(email, selectedTeacher, emailError);
+        isValid &= validateEmailForUpdate(email, selectedTeacher, emailError, emailCheck);
         isValid &= validatePhone(phone, phoneError);
         isValid &= validateClub(club, clubError);
 
@@ -906,52 +903,72 @@ public class TeacherManagementController implements Initializable {
         }
     }
 
-    private boolean validateEmail(String email, Label errorLabel) {
+    private boolean validateEmail(String email, Label errorLabel, AsyncFieldCheck availabilityCheck) {
         if (email.isEmpty()) {
+            availabilityCheck.cancel();
             errorLabel.setText("Email is required");
             return false;
         } else if (!EMAIL_PATTERN.matcher(email).matches()) {
+            availabilityCheck.cancel();
             errorLabel.setText("Invalid email format");
             return false;
-        } else if (!isEmailAvailable(email)) {
-            errorLabel.setText("Email already exists");
-            return false;
         } else {
-            errorLabel.setText("");
-            return true;
+            return showAvailability(availabilityCheck.check(email), "Email already exists", errorLabel);
         }
     }
 
-    private boolean validateEmailForUpdate(String email, Teacher selectedTeacher, Label errorLabel) {
+    private boolean validateEmailForUpdate(String email, Teacher selectedTeacher, Label errorLabel,
+                                           AsyncFieldCheck availabilityCheck) {
         if (email.isEmpty()) {
+            availabilityCheck.cancel();
             errorLabel.setText("Email is required");
             return false;
         } else if (!EMAIL_PATTERN.matcher(email).matches()) {
+            availabilityCheck.cancel();
             errorLabel.setText("Invalid email format");
             return false;
-        } else if (!email.equalsIgnoreCase(selectedTeacher.getEmail()) &&
-                !isEmailAvailableForUpdate(email, selectedTeacher.getId())) {
-            errorLabel.setText("Email already exists");
-            return false;
-        } else {
+        } else if (email.equalsIgnoreCase(selectedTeacher.getEmail())) {
+            availabilityCheck.cancel();
             errorLabel.setText("");
             return true;
+        } else {
+            return showAvailability(availabilityCheck.check(email), "Email already exists", errorLabel);
         }
     }
 
-    private boolean validateUsername(String username, Label errorLabel) {
+    private boolean validateUsername(String username, Label errorLabel, AsyncFieldCheck availabilityCheck) {
         if (username.isEmpty()) {
+            availabilityCheck.cancel();
             errorLabel.setText("Username is required");
             return false;
         } else if (username.length() < 3) {
+            availabilityCheck.cancel();
             errorLabel.setText("Username must be at least 3 characters");
             return false;
-        } else if (!isUsernameAvailable(username)) {
-            errorLabel.setText("Username already exists");
-            return false;
         } else {
-            errorLabel.setText("");
-            return true;
+            return showAvailability(availabilityCheck.check(username), "Username already exists", errorLabel);
+        }
+    }
+
+    // Submit stays disabled until the check is back; a failed lookup doesn't block since submit re-checks
+    private boolean showAvailability(AsyncFieldCheck.Result result, String takenMessage, Label errorLabel) {
+        switch (result) {
+            case PENDING -> {
+                errorLabel.setText("Checking availability...");
+                return false;
+            }
+            case FAILED -> {
+                errorLabel.setText(takenMessage);
+                return false;
+            }
+            case ERROR -> {
+                errorLabel.setText("Could not verify availability");
+                return true;
+            }
+            default -> {
+                errorLabel.setText("");
+                return true;
+            }
         }
     }
 
@@ -1313,10 +1330,23 @@ public class TeacherManagementController implements Initializable {
             this.clubName = clubName;
             this.createdAt = createdAt;
             this.clubId = clubId;
-            this.assignedGrades = new ArrayList<>();
+            this.assignedGrades = List.of();
+        }
+
+        public Teacher(StaffRosterService.TeacherEntry entry) {
+            this.id = entry.userId();
+            this.username = entry.username();
+            this.fullName = entry.fullName();
+            this.email = entry.email();
+            this.phone = entry.phone();
+            this.isActive = entry.active();
+            this.clubName = entry.clubName();
+            this.createdAt = entry.createdAt();
+            this.clubId = entry.clubId();
+            this.assignedGrades = entry.grades();
         }
 
-        // Method to get assigned grades
+        // Assigned grade names, sorted; empty means all grades
         public List<String> getAssignedGrades() {
             return assignedGrades;
         }
@@ -1326,10 +1356,7 @@ public class TeacherManagementController implements Initializable {
             if (assignedGrades.isEmpty()) {
                 return "All Grades";
             }
-            // Sort the grades alphabetically before displaying
-            List<String> sortedGrades = new ArrayList<>(assignedGrades);
-            Collections.sort(sortedGrades);
-            return String.join(", ", sortedGrades);
+            return String.join(", ", assignedGrades);
         }
 
         public UUID getClubId() { return clubId; }
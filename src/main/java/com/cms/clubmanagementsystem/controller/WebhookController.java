@@ -2,6 +2,8 @@ package com.cms.clubmanagementsystem.controller;
 
 import com.cms.clubmanagementsystem.service.WebhookService;
 import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.EventBus;
+import com.cms.clubmanagementsystem.utils.EventTypes;
 import com.cms.clubmanagementsystem.utils.NotificationUtil;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -15,14 +17,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.prefs.Preferences;
 
 public class WebhookController implements Initializable {
     private static final Logger logger = LoggerFactory.getLogger(WebhookController.class);
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final int MAX_TABLE_EVENTS = 100;
 
     private final WebhookService webhookService;
     private final ObservableList<WebhookEvent> webhookEvents = FXCollections.observableArrayList();
@@ -55,6 +62,9 @@ public class WebhookController implements Initializable {
         loadSavedSettings();
         updateStatusLabels();
         setupAdvancedSettingsToggle();
+        // A burst of webhooks becomes one table update and one notification
+        EventBus.subscribeCoalesced(Duration.ofMillis(250), EventBus.Delivery.FX,
+                this::showReceivedWebhooks, EventTypes.WEBHOOK_RECEIVED).bindTo(eventsTable);
     }
 
     private void setupTableColumns() {
@@ -188,33 +198,36 @@ public class WebhookController implements Initializable {
         hmacStatusLabel.setStyle(hmacEnabled ? "-fx-text-fill: green;" : "-fx-text-fill: red;");
     }
 
-    public void addIncomingWebhookEvent(String eventType, String studentId) {
-        addEventToTable(eventType, studentId, "Received");
-    }
-
     private void addEventToTable(String eventType, String studentId, String status) {
-        Platform.runLater(() -> {
-            WebhookEvent event = new WebhookEvent(
-                    LocalDateTime.now().format(TIME_FORMATTER),
-                    eventType,
-                    studentId,
-                    status
-            );
+        Platform.runLater(() -> addEventsToTable(List.of(new WebhookEvent(
+                LocalDateTime.now().format(TIME_FORMATTER), eventType, studentId, status))));
+    }
 
-            webhookEvents.add(0, event); // Add to beginning of list
+    // Newest first; called on the FX thread
+    private void addEventsToTable(List<WebhookEvent> events) {
+        List<WebhookEvent> newestFirst = new ArrayList<>(events);
+        Collections.reverse(newestFirst);
+        webhookEvents.addAll(0, newestFirst.subList(0, Math.min(newestFirst.size(), MAX_TABLE_EVENTS)));
 
-            // Limit to 100 events to prevent memory issues
-            if (webhookEvents.size() > 100) {
-                webhookEvents.remove(webhookEvents.size() - 1);
-            }
-        });
+        // Limit to 100 events to prevent memory issues
+        if (webhookEvents.size() > MAX_TABLE_EVENTS) {
+            webhookEvents.remove(MAX_TABLE_EVENTS, webhookEvents.size());
+        }
     }
 
-    // Method to be called from Main class when webhooks are received
-    public void onWebhookReceived(String eventType, String admissionNumber) {
-        addIncomingWebhookEvent(eventType, admissionNumber);
-        NotificationUtil.showNotification("Webhook Received",
-                "Event: " + eventType + ", Student: " + admissionNumber);
+    private void showReceivedWebhooks(List<EventBus.Event> burst) {
+        String time = LocalDateTime.now().format(TIME_FORMATTER);
+        List<WebhookEvent> events = new ArrayList<>(burst.size());
+        for (EventBus.Event event : burst) {
+            WebhookService.ReceivedEvent received = (WebhookService.ReceivedEvent) event.data();
+            events.add(new WebhookEvent(time, received.eventType(), received.admissionNumber(), "Received"));
+        }
+        addEventsToTable(events);
+
+        WebhookEvent latest = events.get(events.size() - 1);
+        NotificationUtil.showNotification("Webhook Received", events.size() == 1
+                ? "Event: " + latest.getEventType() + ", Student: " + latest.getStudentId()
+                : events.size() + " events received, latest: " + latest.getEventType() + " for " + latest.getStudentId());
     }
 
     // Model class for table events
@@ -1,9 +1,15 @@
 package com.cms.clubmanagementsystem.model;
 
+import com.cms.clubmanagementsystem.utils.StringPool;
+
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.UUID;
 
+/**
+ * Grade name and gender repeat across every learner in a school, so they are
+ * pooled rather than stored as a fresh string per row.
+ */
 public class Learner {
     private UUID learnerId;
     private String admissionNumber;
@@ -26,11 +32,11 @@ public class Learner {
         this.admissionNumber = admissionNumber;
         this.fullName = fullName;
         this.gradeId = gradeId;
-        this.gradeName = gradeName;
+        this.gradeName = StringPool.intern(gradeName);
         this.schoolId = schoolId;
         this.dateJoinedSchool = dateJoinedSchool;
         this.createdAt = createdAt;
-        this.gender = gender;
+        this.gender = StringPool.intern(gender);
     }
 
     // Constructor for Excel import (without UUID)
@@ -40,11 +46,11 @@ public class Learner {
         this.admissionNumber = admissionNumber;
         this.fullName = fullName;
         this.gradeId = gradeId;
-        this.gradeName = gradeName;
+        this.gradeName = StringPool.intern(gradeName);
         this.schoolId = schoolId;
         this.dateJoinedSchool = dateJoinedSchool;
         this.createdAt = ZonedDateTime.now();
-        this.gender = gender;
+        this.gender = StringPool.intern(gender);
     }
 
     // Getters and Setters
@@ -61,7 +67,7 @@ public class Learner {
     public void setGradeId(UUID gradeId) { this.gradeId = gradeId; }
 
     public String getGradeName() { return gradeName; }
-    public void setGradeName(String gradeName) { this.gradeName = gradeName; }
+    public void setGradeName(String gradeName) { this.gradeName = StringPool.intern(gradeName); }
 
     public UUID getSchoolId() { return schoolId; }
     public void setSchoolId(UUID schoolId) { this.schoolId = schoolId; }
@@ -73,7 +79,7 @@ public class Learner {
     public void setCreatedAt(ZonedDateTime createdAt) { this.createdAt = createdAt; }
 
     public String getGender() { return gender; }
-    public void setGender(String gender) { this.gender = gender; }
+    public void setGender(String gender) { this.gender = StringPool.intern(gender); }
 
     @Override
     public String toString() {
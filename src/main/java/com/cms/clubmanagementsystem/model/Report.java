@@ -2,8 +2,12 @@ package com.cms.clubmanagementsystem.model;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.UUID;
 
 public class Report {
+    private UUID reportId;
+    private String status;
+    private String filePath;
     private String name;
     private String type;
     private LocalDateTime generatedAt;
@@ -16,11 +20,26 @@ public class Report {
         this.format = format;
     }
 
+    public Report(UUID reportId, String name, String type, LocalDateTime generatedAt, String format,
+                  String status, String filePath) {
+        this(name, type, generatedAt, format);
+        this.reportId = reportId;
+        this.status = status;
+        this.filePath = filePath;
+    }
+
     // Getters - these must match the PropertyValueFactory names in FXML
     public String getName() { return name; }
     public String getType() { return type; }
     public LocalDateTime getGeneratedAt() { return generatedAt; }
     public String getFormat() { return format; }
+    public UUID getReportId() { return reportId; }
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    // Status text is updated in place while a report job runs
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
 
     // Formatted getters for table display
     public String getFormattedDate() {
@@ -0,0 +1,390 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.EventBus;
+import com.cms.clubmanagementsystem.utils.EventTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-club attendance index over a date window (normally a term).
+ *
+ * The club's sessions in the window are numbered in date order, and each
+ * learner gets one bitmap per status with a bit set for every session they were
+ * marked in with that status. Rates, streaks, monthly breakdowns and date-range
+ * filters are then bit operations on a few words per learner instead of
+ * rescans of row objects. Indexes are cached and dropped when attendance for
+ * the club changes on this device, or after ATTENDANCE_INDEX_TTL_SECONDS to pick
+ * up changes made elsewhere.
+ */
+public class AttendanceBitmapIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceBitmapIndex.class);
+
+    private static final int MAX_CACHED_INDEXES = 32;
+
+    private static final String LOAD_SQL = """
+        SELECT asess.session_id, asess.session_date, ar.learner_id, ar.status
+        FROM attendance_sessions asess
+        LEFT JOIN attendance_records ar ON ar.session_id = asess.session_id
+        WHERE asess.club_id = ? AND asess.school_id = ?
+        AND asess.session_date >= ? AND asess.session_date <= ?
+        ORDER BY asess.session_date, asess.start_time, asess.session_id
+        """;
+
+    private static AttendanceBitmapIndex instance;
+
+    private record Key(UUID schoolId, UUID clubId, LocalDate from, LocalDate to) {}
+
+    private record Cached(ClubIndex index, long loadedAt) {}
+
+    public record Counts(int present, int absent, int late) {
+        public static final Counts EMPTY = new Counts(0, 0, 0);
+
+        public int recorded() {
+            return present + absent + late;
+        }
+
+        /**
+         * Present sessions as a percentage of recorded ones, 0 when none were recorded.
+         */
+        public double rate() {
+            return recorded() > 0 ? (double) present / recorded() * 100 : 0;
+        }
+    }
+
+    private final long ttlMillis;
+    private final Map<Key, Cached> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+            return size() > MAX_CACHED_INDEXES;
+        }
+    };
+
+    private AttendanceBitmapIndex() {
+        ttlMillis = Long.parseLong(EnvLoader.get("ATTENDANCE_INDEX_TTL_SECONDS", "300")) * 1000;
+        // Attendance saves and enrolment changes publish the affected club, or null when unknown
+        EventBus.subscribe(EventTypes.CLUB_STATS_UPDATED, this::invalidate);
+    }
+
+    public static synchronized AttendanceBitmapIndex getInstance() {
+        if (instance == null) {
+            instance = new AttendanceBitmapIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the index for the club's sessions between the dates (inclusive),
+     * loading it on the given connection when it isn't cached.
+     */
+    public ClubIndex forClub(Connection conn, UUID schoolId, UUID clubId,
+                             LocalDate from, LocalDate to) throws SQLException {
+        Key key = new Key(schoolId, clubId, from, to);
+        synchronized (cache) {
+            Cached cached = cache.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.loadedAt() < ttlMillis) {
+                return cached.index();
+            }
+        }
+
+        ClubIndex index = load(conn, key);
+        synchronized (cache) {
+            cache.put(key, new Cached(index, System.currentTimeMillis()));
+        }
+        return index;
+    }
+
+    /**
+     * Index for a school term: term 1 is January to April, term 2 May to August
+     * and term 3 September to December, as on the attendance screens.
+     */
+    public ClubIndex forTerm(Connection conn, UUID schoolId, UUID clubId, int year, int term) throws SQLException {
+        int firstMonth = (Math.max(1, Math.min(3, term)) - 1) * 4 + 1;
+        YearMonth start = YearMonth.of(year, firstMonth);
+        return forClub(conn, schoolId, clubId, start.atDay(1), start.plusMonths(3).atEndOfMonth());
+    }
+
+    public void invalidate(UUID clubId) {
+        synchronized (cache) {
+            if (clubId == null) {
+                cache.clear();
+            } else {
+                cache.keySet().removeIf(key -> key.clubId().equals(clubId));
+            }
+        }
+    }
+
+    private ClubIndex load(Connection conn, Key key) throws SQLException {
+        long start = System.nanoTime();
+        List<UUID> sessionIds = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+        Map<UUID, LearnerBits> learners = new HashMap<>();
+
+        try (PreparedStatement ps = conn.prepareStatement(LOAD_SQL)) {
+            ps.setObject(1, key.clubId());
+            ps.setObject(2, key.schoolId());
+            ps.setObject(3, key.from());
+            ps.setObject(4, key.to());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                UUID currentSession = null;
+                while (rs.next()) {
+                    UUID sessionId = (UUID) rs.getObject("session_id");
+                    if (!sessionId.equals(currentSession)) {
+                        currentSession = sessionId;
+                        sessionIds.add(sessionId);
+                        dates.add(rs.getDate("session_date").toLocalDate());
+                    }
+                    UUID learnerId = (UUID) rs.getObject("learner_id");
+                    if (learnerId != null) {
+                        learners.computeIfAbsent(learnerId, id -> new LearnerBits())
+                                .set(sessionIds.size() - 1, rs.getString("status"));
+                    }
+                }
+            }
+        }
+
+        overlayPendingMarks(sessionIds, learners);
+
+        ClubIndex index = new ClubIndex(sessionIds, dates, learners);
+        logger.debug("Built attendance index for club {} ({} to {}): {} sessions, {} learners in {} ms",
+                key.clubId(), key.from(), key.to(), sessionIds.size(), learners.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    // Marks saved on this device but not yet synced replace what the database returned
+    private void overlayPendingMarks(List<UUID> sessionIds, Map<UUID, LearnerBits> learners) {
+        AttendanceJournal journal;
+        try {
+            journal = AttendanceJournal.getInstance();
+        } catch (Exception e) {
+            logger.debug("Attendance journal unavailable, indexing database marks only: {}", e.getMessage());
+            return;
+        }
+        if (journal.pendingCount() == 0) {
+            return;
+        }
+        for (int i = 0; i < sessionIds.size(); i++) {
+            for (Map.Entry<UUID, String> mark : journal.pendingMarks(sessionIds.get(i)).entrySet()) {
+                learners.computeIfAbsent(mark.getKey(), id -> new LearnerBits()).set(i, mark.getValue());
+            }
+        }
+    }
+
+    private static final class LearnerBits {
+        private final BitSet present = new BitSet();
+        private final BitSet absent = new BitSet();
+        private final BitSet late = new BitSet();
+
+        void set(int session, String status) {
+            present.clear(session);
+            absent.clear(session);
+            late.clear(session);
+            BitSet bits = bitsFor(status);
+            if (bits != null) {
+                bits.set(session);
+            }
+        }
+
+        BitSet bitsFor(String status) {
+            if (status == null) return null;
+            return switch (status.toLowerCase()) {
+                case "present" -> present;
+                case "absent" -> absent;
+                case "late" -> late;
+                default -> null;
+            };
+        }
+
+        BitSet recorded() {
+            BitSet all = (BitSet) present.clone();
+            all.or(absent);
+            all.or(late);
+            return all;
+        }
+    }
+
+    /**
+     * An immutable snapshot of one club's attendance over the window. Masks are
+     * sets of session positions; callers get them from {@link #range} and may
+     * combine them freely since every method copies before modifying.
+     */
+    public static final class ClubIndex {
+        private final List<UUID> sessionIds;
+        private final LocalDate[] dates;
+        private final Map<UUID, Integer> positions;
+        private final Map<UUID, LearnerBits> learners;
+
+        private ClubIndex(List<UUID> sessionIds, List<LocalDate> dates, Map<UUID, LearnerBits> learners) {
+            this.sessionIds = List.copyOf(sessionIds);
+            this.dates = dates.toArray(new LocalDate[0]);
+            this.learners = learners;
+            this.positions = new HashMap<>();
+            for (int i = 0; i < sessionIds.size(); i++) {
+                positions.put(sessionIds.get(i), i);
+            }
+        }
+
+        public int sessionCount() {
+            return dates.length;
+        }
+
+        /**
+         * Position of the session in date order, or -1 if it is outside the window.
+         */
+        public int positionOf(UUID sessionId) {
+            return positions.getOrDefault(sessionId, -1);
+        }
+
+        /**
+         * Sessions dated between the bounds inclusive; a null bound is open.
+         */
+        public BitSet range(LocalDate from, LocalDate to) {
+            int start = from == null ? 0 : firstOnOrAfter(from);
+            int end = to == null ? dates.length : firstOnOrAfter(to.plusDays(1));
+            BitSet mask = new BitSet(dates.length);
+            if (start < end) {
+                mask.set(start, end);
+            }
+            return mask;
+        }
+
+        private int firstOnOrAfter(LocalDate date) {
+            int low = 0;
+            int high = dates.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (dates[mid].isBefore(date)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Sessions in the mask where the learner has the status; all recorded
+         * sessions when status is null.
+         */
+        public BitSet sessionsWith(UUID learnerId, String status, BitSet mask) {
+            LearnerBits bits = learners.get(learnerId);
+            if (bits == null) {
+                return new BitSet();
+            }
+            BitSet source = status == null ? bits.recorded() : bits.bitsFor(status);
+            if (source == null) {
+                return new BitSet();
+            }
+            BitSet result = (BitSet) source.clone();
+            result.and(mask);
+            return result;
+        }
+
+        public Counts counts(UUID learnerId, BitSet mask) {
+            LearnerBits bits = learners.get(learnerId);
+            return bits == null ? Counts.EMPTY : countsOf(bits, mask);
+        }
+
+        /**
+         * Counts for every learner with at least one mark in the window.
+         */
+        public Map<UUID, Counts> countsByLearner(BitSet mask) {
+            Map<UUID, Counts> counts = new HashMap<>();
+            learners.forEach((learnerId, bits) -> counts.put(learnerId, countsOf(bits, mask)));
+            return Collections.unmodifiableMap(counts);
+        }
+
+        private static Counts countsOf(LearnerBits bits, BitSet mask) {
+            return new Counts(intersectionSize(bits.present, mask),
+                    intersectionSize(bits.absent, mask), intersectionSize(bits.late, mask));
+        }
+
+        private static int intersectionSize(BitSet bits, BitSet mask) {
+            BitSet both = (BitSet) bits.clone();
+            both.and(mask);
+            return both.cardinality();
+        }
+
+        /**
+         * Counts per calendar month in date order, for months with a session in the mask.
+         */
+        public Map<YearMonth, Counts> monthly(UUID learnerId, BitSet mask) {
+            Map<YearMonth, Counts> months = new LinkedHashMap<>();
+            LearnerBits bits = learners.get(learnerId);
+            int i = mask.nextSetBit(0);
+            while (i >= 0 && i < dates.length) {
+                YearMonth month = YearMonth.from(dates[i]);
+                BitSet monthMask = range(month.atDay(1), month.atEndOfMonth());
+                monthMask.and(mask);
+                months.put(month, bits == null ? Counts.EMPTY : countsOf(bits, monthMask));
+                i = mask.nextSetBit(monthMask.length());
+            }
+            return months;
+        }
+
+        /**
+         * Longest run of consecutive present marks among the learner's recorded
+         * sessions in the mask. Sessions the learner wasn't marked in don't break a run.
+         */
+        public int longestPresentStreak(UUID learnerId, BitSet mask) {
+            LearnerBits bits = learners.get(learnerId);
+            if (bits == null) {
+                return 0;
+            }
+            BitSet recorded = bits.recorded();
+            recorded.and(mask);
+            int longest = 0;
+            int run = 0;
+            for (int i = recorded.nextSetBit(0); i >= 0; i = recorded.nextSetBit(i + 1)) {
+                run = bits.present.get(i) ? run + 1 : 0;
+                longest = Math.max(longest, run);
+            }
+            return longest;
+        }
+
+        /**
+         * Consecutive present marks ending at the learner's latest recorded session in the mask.
+         */
+        public int currentPresentStreak(UUID learnerId, BitSet mask) {
+            LearnerBits bits = learners.get(learnerId);
+            if (bits == null) {
+                return 0;
+            }
+            BitSet recorded = bits.recorded();
+            recorded.and(mask);
+            int run = 0;
+            for (int i = recorded.previousSetBit(recorded.length() - 1); i >= 0; i = recorded.previousSetBit(i - 1)) {
+                if (!bits.present.get(i)) {
+                    break;
+                }
+                run++;
+            }
+            return run;
+        }
+
+        public LocalDate dateOf(int position) {
+            return dates[position];
+        }
+
+        public UUID sessionIdOf(int position) {
+            return sessionIds.get(position);
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.utils.EnvLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Local write-ahead journal for attendance captured on this device.
+ *
+ * Session creation and attendance marks are appended to a file and forced to
+ * disk before the UI reports them saved, so marking never waits on the
+ * database. {@link AttendanceSyncService} replays pending entries to PostgreSQL
+ * and acknowledges them; acknowledged entries are dropped once the whole file
+ * has been synced. Until then, pending entries are kept in memory so screens
+ * can overlay them on what the database returns.
+ *
+ * Record layout: {@code [int length][int crc32][payload]}, where the payload is
+ * the entry's fields separated by {@code '\0'} in UTF-8.
+ *
+ * Two side files live next to the log. {@code sessions.map} remembers which
+ * stored session each offline-created session was merged into, so marks taken
+ * against the offline ID still land after a restart. {@code quarantine.log}
+ * holds entries the database kept rejecting, in the same record layout, so they
+ * stop blocking the rest of the journal without being thrown away. The
+ * {@code rosters} folder keeps the last learner list loaded per club and term,
+ * so attendance can be marked offline after a restart.
+ */
+public class AttendanceJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceJournal.class);
+
+    private static final String LOG_FILE = "attendance.log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "journal.lock";
+    private static final String SESSION_MAP_FILE = "sessions.map";
+    private static final String QUARANTINE_FILE = "quarantine.log";
+    private static final String ROSTER_DIR = "rosters";
+    private static final int HEADER_BYTES = 8;
+    private static final long COMPACT_THRESHOLD_BYTES = 1024 * 1024;
+
+    private static AttendanceJournal instance;
+
+    /**
+     * Something recorded on this device that still has to reach the database.
+     */
+    public sealed interface Entry permits SessionEntry, MarkEntry {
+        UUID schoolId();
+
+        UUID userId();
+    }
+
+    public record SessionEntry(UUID sessionId, UUID clubId, UUID schoolId, LocalDate sessionDate,
+                               LocalTime startTime, LocalTime endTime, UUID createdBy) implements Entry {
+        @Override
+        public UUID userId() {
+            return createdBy;
+        }
+    }
+
+    public record MarkEntry(UUID sessionId, UUID learnerId, UUID schoolId, String status,
+                            UUID markedBy, Instant markedAt) implements Entry {
+        @Override
+        public UUID userId() {
+            return markedBy;
+        }
+    }
+
+    /**
+     * A pending entry; {@code position} is the journal offset just past it and is
+     * what {@link #acknowledge} takes.
+     */
+    public record Pending(long position, Entry entry) {}
+
+    /**
+     * A learner on a club's roster, as last loaded from the database.
+     */
+    public record RosterLearner(UUID learnerId, String fullName, String grade) {}
+
+    private final Path directory;
+    private final List<Pending> pending = new ArrayList<>();
+    private final Map<UUID, UUID> sessionRemap = new HashMap<>();
+    private int quarantined;
+    private FileChannel lockChannel;
+    private FileLock directoryLock;
+    private FileChannel log;
+    private FileChannel checkpointChannel;
+    private long writePosition;
+    private long acknowledged;
+    private boolean closed;
+
+    private AttendanceJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the journal in ATTENDANCE_JOURNAL_DIR, opening it on first use.
+     */
+    public static synchronized AttendanceJournal getInstance() throws IOException {
+        if (instance == null) {
+            Path directory = Paths.get(EnvLoader.get("ATTENDANCE_JOURNAL_DIR", "data/attendance-journal"));
+            instance = open(directory);
+        }
+        return instance;
+    }
+
+    public static AttendanceJournal open(Path directory) throws IOException {
+        AttendanceJournal journal = new AttendanceJournal(directory);
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.releaseFiles();
+            throw e;
+        }
+        return journal;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        directoryLock = lockChannel.tryLock();
+        if (directoryLock == null) {
+            throw new IOException("Attendance journal is already in use: " + directory);
+        }
+
+        checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        acknowledged = readCheckpoint();
+        if (acknowledged > log.size()) {
+            // The log was compacted but the checkpoint reset didn't make it to disk
+            acknowledged = 0;
+            writeCheckpoint(0);
+        }
+
+        long position = acknowledged;
+        while (true) {
+            Entry entry = readEntry(position);
+            if (entry == null) {
+                break;
+            }
+            position += HEADER_BYTES + payloadLength(position);
+            pending.add(new Pending(position, entry));
+        }
+
+        if (position < log.size()) {
+            logger.warn("Discarding {} bytes of incomplete attendance journal data", log.size() - position);
+            log.truncate(position);
+            log.force(true);
+        }
+        writePosition = position;
+
+        if (!pending.isEmpty()) {
+            logger.info("Attendance journal recovered {} unsynced entries from {}", pending.size(), directory);
+        }
+
+        Path sessionMap = directory.resolve(SESSION_MAP_FILE);
+        if (Files.exists(sessionMap)) {
+            for (String line : Files.readAllLines(sessionMap, StandardCharsets.UTF_8)) {
+                String[] ids = line.split(" ");
+                if (ids.length == 2) {
+                    sessionRemap.put(UUID.fromString(ids[0]), UUID.fromString(ids[1]));
+                }
+            }
+        }
+        quarantined = countRecords(directory.resolve(QUARANTINE_FILE));
+        if (quarantined > 0) {
+            logger.warn("Attendance journal has {} quarantined entries in {}", quarantined, directory);
+        }
+    }
+
+    private static int countRecords(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            long position = 0;
+            while (position + HEADER_BYTES <= channel.size()) {
+                header.clear();
+                channel.read(header, position);
+                position += HEADER_BYTES + header.flip().getInt();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int payloadLength(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        log.read(header, position);
+        return header.flip().getInt();
+    }
+
+    /**
+     * Reads the entry at the position, or returns null if there is no complete,
+     * intact record there.
+     */
+    private Entry readEntry(long position) throws IOException {
+        if (position + HEADER_BYTES > log.size()) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        log.read(header, position);
+        header.flip();
+        int length = header.getInt();
+        int crc = header.getInt();
+        if (length <= 0 || position + HEADER_BYTES + length > log.size()) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        log.read(payload, position + HEADER_BYTES);
+        CRC32 check = new CRC32();
+        check.update(payload.array());
+        if ((int) check.getValue() != crc) {
+            return null;
+        }
+
+        try {
+            return decode(new String(payload.array(), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            logger.warn("Unreadable attendance journal entry at {}", position, e);
+            return null;
+        }
+    }
+
+    /**
+     * Appends the entries and forces them to disk before returning.
+     */
+    public synchronized void append(List<? extends Entry> entries) throws IOException {
+        if (closed) {
+            throw new IOException("Attendance journal is closed");
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        int total = 0;
+        for (Entry entry : entries) {
+            byte[] payload = encode(entry).getBytes(StandardCharsets.UTF_8);
+            payloads.add(payload);
+            total += HEADER_BYTES + payload.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (byte[] payload : payloads) {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buffer.flip();
+
+        long position = writePosition;
+        while (buffer.hasRemaining()) {
+            position += log.write(buffer, position);
+        }
+        log.force(false);
+
+        long entryEnd = writePosition;
+        for (int i = 0; i < entries.size(); i++) {
+            entryEnd += HEADER_BYTES + payloads.get(i).length;
+            pending.add(new Pending(entryEnd, entries.get(i)));
+        }
+        writePosition = position;
+    }
+
+    /**
+     * Returns up to {@code max} unsynced entries, oldest first.
+     */
+    public synchronized List<Pending> pending(int max) {
+        return List.copyOf(pending.subList(0, Math.min(max, pending.size())));
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Marks everything up to the position as synced. Once nothing is pending and
+     * the file has grown past the threshold it is truncated.
+     */
+    public synchronized void acknowledge(long position) throws IOException {
+        if (closed || position <= acknowledged) {
+            return;
+        }
+        pending.removeIf(p -> p.position() <= position);
+        acknowledged = position;
+
+        if (pending.isEmpty() && writePosition >= COMPACT_THRESHOLD_BYTES) {
+            log.truncate(0);
+            log.force(true);
+            writePosition = 0;
+            acknowledged = 0;
+        }
+        writeCheckpoint(acknowledged);
+    }
+
+    /**
+     * The stored session a journaled session was merged into, or the ID itself
+     * if it was never merged.
+     */
+    public synchronized UUID storedSessionId(UUID sessionId) {
+        return sessionRemap.getOrDefault(sessionId, sessionId);
+    }
+
+    /**
+     * Remembers, on disk, that journaled sessions were merged into stored ones.
+     */
+    public synchronized void recordSessionRemap(Map<UUID, UUID> remap) throws IOException {
+        Map<UUID, UUID> added = new LinkedHashMap<>();
+        remap.forEach((journaled, stored) -> {
+            if (!stored.equals(sessionRemap.get(journaled))) {
+                added.put(journaled, stored);
+            }
+        });
+        if (added.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        added.forEach((journaled, stored) -> lines.append(journaled).append(' ').append(stored).append('\n'));
+        appendAndForce(directory.resolve(SESSION_MAP_FILE), lines.toString().getBytes(StandardCharsets.UTF_8));
+        sessionRemap.putAll(added);
+    }
+
+    /**
+     * Moves the oldest pending entry to the quarantine file and acknowledges it,
+     * for an entry the database keeps rejecting.
+     */
+    public synchronized void quarantine(Pending entry) throws IOException {
+        if (pending.isEmpty() || !pending.get(0).equals(entry)) {
+            throw new IllegalStateException("Only the oldest pending entry can be quarantined");
+        }
+        byte[] payload = encode(entry.entry()).getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        appendAndForce(directory.resolve(QUARANTINE_FILE), record.array());
+        quarantined++;
+        acknowledge(entry.position());
+    }
+
+    public synchronized int quarantinedCount() {
+        return quarantined;
+    }
+
+    /**
+     * Replaces the stored roster for the club and term. Written to a temporary
+     * file and moved into place, so a crash leaves the previous roster intact.
+     */
+    public synchronized void saveRoster(UUID clubId, int academicYear, int termNumber,
+                                        List<RosterLearner> learners) throws IOException {
+        Path rosters = Files.createDirectories(directory.resolve(ROSTER_DIR));
+        Path target = rosters.resolve(rosterFileName(clubId, academicYear, termNumber));
+        Path temp = rosters.resolve(target.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>(learners.size());
+        for (RosterLearner learner : learners) {
+            lines.add(String.join("\0", learner.learnerId().toString(),
+                    nullToEmpty(learner.fullName()), nullToEmpty(learner.grade())));
+        }
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The last roster saved for the club and term, or an empty list if none was.
+     */
+    public synchronized List<RosterLearner> roster(UUID clubId, int academicYear, int termNumber) throws IOException {
+        Path file = directory.resolve(ROSTER_DIR).resolve(rosterFileName(clubId, academicYear, termNumber));
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        List<RosterLearner> learners = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\0", -1);
+            if (fields.length == 3) {
+                learners.add(new RosterLearner(UUID.fromString(fields[0]), fields[1], fields[2]));
+            }
+        }
+        return learners;
+    }
+
+    private static String rosterFileName(UUID clubId, int academicYear, int termNumber) {
+        return clubId + "-" + academicYear + "-" + termNumber + ".roster";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static void appendAndForce(Path file, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Sessions created on this device for the club and date that are not synced yet.
+     */
+    public synchronized List<SessionEntry> pendingSessions(UUID clubId, LocalDate date) {
+        List<SessionEntry> sessions = new ArrayList<>();
+        for (Pending p : pending) {
+            if (p.entry() instanceof SessionEntry session
+                    && session.clubId().equals(clubId) && session.sessionDate().equals(date)) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Latest unsynced status per learner for the session.
+     */
+    public synchronized Map<UUID, String> pendingMarks(UUID sessionId) {
+        Map<UUID, String> marks = new LinkedHashMap<>();
+        for (Pending p : pending) {
+            if (p.entry() instanceof MarkEntry mark && mark.sessionId().equals(sessionId)) {
+                marks.put(mark.learnerId(), mark.status());
+            }
+        }
+        return marks;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    private static String encode(Entry entry) {
+        return switch (entry) {
+            case SessionEntry s -> String.join("\0", "S", s.sessionId().toString(), s.clubId().toString(),
+                    s.schoolId().toString(), s.sessionDate().toString(), s.startTime().toString(),
+                    s.endTime().toString(), s.createdBy().toString());
+            case MarkEntry m -> String.join("\0", "M", m.sessionId().toString(), m.learnerId().toString(),
+                    m.schoolId().toString(), m.status(), m.markedBy().toString(), m.markedAt().toString());
+        };
+    }
+
+    private static Entry decode(String payload) {
+        String[] f = payload.split("\0", -1);
+        return switch (f[0]) {
+            case "S" -> new SessionEntry(UUID.fromString(f[1]), UUID.fromString(f[2]), UUID.fromString(f[3]),
+                    LocalDate.parse(f[4]), LocalTime.parse(f[5]), LocalTime.parse(f[6]), UUID.fromString(f[7]));
+            case "M" -> new MarkEntry(UUID.fromString(f[1]), UUID.fromString(f[2]), UUID.fromString(f[3]),
+                    f[4], UUID.fromString(f[5]), Instant.parse(f[6]));
+            default -> throw new IllegalArgumentException("Unknown attendance journal entry type: " + f[0]);
+        };
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        int read = checkpointChannel.read(buffer, 0);
+        return read == Long.BYTES ? buffer.flip().getLong() : 0L;
+    }
+
+    private void writeCheckpoint(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(position).flip();
+        while (buffer.hasRemaining()) {
+            checkpointChannel.write(buffer, buffer.position());
+        }
+        checkpointChannel.force(false);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (AttendanceJournal.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+        releaseFiles();
+        logger.info("Attendance journal closed with {} unsynced entries", pending.size());
+    }
+
+    private void releaseFiles() {
+        try {
+            if (log != null) {
+                log.close();
+            }
+            if (checkpointChannel != null) {
+                checkpointChannel.close();
+            }
+            if (directoryLock != null) {
+                directoryLock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Error releasing attendance journal files", e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.cms.clubmanagementsystem.service;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes attendance marks in one statement. The marks are sent as parallel
+ * arrays and expanded with unnest into a single upsert, so the cost is one
+ * round trip however many learners are involved.
+ *
+ * Conflicts on (session_id, learner_id) are resolved by marked_at: a mark only
+ * replaces a stored one that is not newer, so replaying marks captured offline
+ * can't undo a later change made on another device.
+ */
+public class AttendanceSaveService {
+
+    public enum Outcome { INSERTED, UPDATED }
+
+    public record Mark(UUID sessionId, UUID learnerId, String status, UUID markedBy, Instant markedAt) {}
+
+    public record Key(UUID sessionId, UUID learnerId) {}
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO attendance_records (record_id, session_id, learner_id, school_id, status, marked_by, marked_at)
+        SELECT gen_random_uuid(), r.session_id, r.learner_id, ?, r.status::attendance_status, r.marked_by, r.marked_at
+        FROM unnest(?::uuid[], ?::uuid[], ?::text[], ?::uuid[], ?::timestamptz[])
+             AS r(session_id, learner_id, status, marked_by, marked_at)
+        JOIN attendance_sessions asess ON asess.session_id = r.session_id
+        ON CONFLICT (session_id, learner_id)
+        DO UPDATE SET status = EXCLUDED.status, marked_by = EXCLUDED.marked_by, marked_at = EXCLUDED.marked_at
+        WHERE attendance_records.marked_at IS NULL OR attendance_records.marked_at <= EXCLUDED.marked_at
+        RETURNING session_id, learner_id, (xmax = 0) AS inserted
+        """;
+
+    private static final String STORED_MARKS_SQL = """
+        SELECT ar.session_id, ar.learner_id, ar.marked_at
+        FROM unnest(?::uuid[], ?::uuid[]) AS k(session_id, learner_id)
+        JOIN attendance_records ar ON ar.session_id = k.session_id AND ar.learner_id = k.learner_id
+        """;
+
+    /**
+     * Upserts the marks and returns what happened to each one. Marks missing from
+     * the result were not applied, either because a newer mark is stored or
+     * because their session does not exist. Each (session, learner) pair may
+     * appear only once.
+     */
+    public Map<Key, Outcome> save(Connection conn, UUID schoolId, List<Mark> marks) throws SQLException {
+        Map<Key, Outcome> outcomes = new LinkedHashMap<>();
+        if (marks.isEmpty()) {
+            return outcomes;
+        }
+
+        int n = marks.size();
+        UUID[] sessionIds = new UUID[n];
+        UUID[] learnerIds = new UUID[n];
+        String[] statuses = new String[n];
+        UUID[] markedBy = new UUID[n];
+        String[] markedAt = new String[n];
+        for (int i = 0; i < n; i++) {
+            Mark mark = marks.get(i);
+            sessionIds[i] = mark.sessionId();
+            learnerIds[i] = mark.learnerId();
+            statuses[i] = mark.status();
+            markedBy[i] = mark.markedBy();
+            markedAt[i] = mark.markedAt().toString();
+        }
+
+        Array[] arrays = {
+                conn.createArrayOf("uuid", sessionIds),
+                conn.createArrayOf("uuid", learnerIds),
+                conn.createArrayOf("text", statuses),
+                conn.createArrayOf("uuid", markedBy),
+                conn.createArrayOf("text", markedAt)
+        };
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL)) {
+            ps.setObject(1, schoolId);
+            for (int i = 0; i < arrays.length; i++) {
+                ps.setArray(i + 2, arrays[i]);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    outcomes.put(new Key((UUID) rs.getObject("session_id"), (UUID) rs.getObject("learner_id")),
+                            rs.getBoolean("inserted") ? Outcome.INSERTED : Outcome.UPDATED);
+                }
+            }
+        } finally {
+            for (Array array : arrays) {
+                array.free();
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * When each of the given marks was last recorded in the database. Pairs with
+     * no stored record are left out, as are records without a marked_at.
+     */
+    public Map<Key, Instant> storedMarkTimes(Connection conn, List<Key> keys) throws SQLException {
+        Map<Key, Instant> stored = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return stored;
+        }
+        Array sessionIds = conn.createArrayOf("uuid", keys.stream().map(Key::sessionId).toArray());
+        Array learnerIds = conn.createArrayOf("uuid", keys.stream().map(Key::learnerId).toArray());
+        try (PreparedStatement ps = conn.prepareStatement(STORED_MARKS_SQL)) {
+            ps.setArray(1, sessionIds);
+            ps.setArray(2, learnerIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp markedAt = rs.getTimestamp("marked_at");
+                    if (markedAt != null) {
+                        stored.put(new Key((UUID) rs.getObject("session_id"), (UUID) rs.getObject("learner_id")),
+                                markedAt.toInstant());
+                    }
+                }
+            }
+        } finally {
+            sessionIds.free();
+            learnerIds.free();
+        }
+        return stored;
+    }
+}
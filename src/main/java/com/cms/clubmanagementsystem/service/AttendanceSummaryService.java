@@ -0,0 +1,170 @@
+package com.cms.clubmanagementsystem.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Computes per-club attendance counts for up to three date windows (typically
+ * the day, month to date and term to date) in one query.
+ *
+ * Sessions are scanned once over the union of the windows with a plain range
+ * on session_date, and each window is a FILTER on the same aggregate. Teacher,
+ * schedule and enrolment figures are pre-aggregated per club so they can't
+ * multiply the attendance counts.
+ */
+public class AttendanceSummaryService {
+
+    /**
+     * Half-open date range [from, to).
+     */
+    public record Window(LocalDate from, LocalDate to) {
+        public static Window day(LocalDate date) {
+            return new Window(date, date.plusDays(1));
+        }
+
+        public static Window through(LocalDate from, LocalDate lastDay) {
+            return new Window(from, lastDay.plusDays(1));
+        }
+    }
+
+    public record Counts(int present, int absent) {
+        public int total() {
+            return present + absent;
+        }
+    }
+
+    /**
+     * One active club. Counts for a window that was not requested are zero;
+     * {@code hadSessionInDay} is true when the club had a session in the day window.
+     */
+    public record ClubSummary(UUID clubId, String clubName, String teacherName, String sessionTime,
+                              int totalLearners, boolean hadSessionInDay,
+                              Counts day, Counts month, Counts term) {}
+
+    private static final String SUMMARY_SQL = """
+        WITH teachers AS (
+            SELECT ct.club_id, string_agg(u.full_name, ', ' ORDER BY u.full_name) AS teacher_name
+            FROM club_teachers ct
+            JOIN users u ON ct.teacher_id = u.user_id
+            WHERE ct.school_id = ?
+            GROUP BY ct.club_id
+        ),
+        schedules AS (
+            SELECT cs.club_id,
+                   string_agg(CONCAT(cs.start_time, ' - ', cs.end_time), ', ' ORDER BY cs.start_time) AS session_time
+            FROM club_schedules cs
+            WHERE cs.school_id = ? AND cs.is_active = true
+            GROUP BY cs.club_id
+        ),
+        learners AS (
+            SELECT cl.club_id, COUNT(*) AS total_learners
+            FROM club_learners cl
+            WHERE cl.school_id = ? AND cl.is_active = true
+            GROUP BY cl.club_id
+        ),
+        attendance AS (
+            SELECT asess.club_id,
+                   bool_or(asess.session_date >= ?::date AND asess.session_date < ?::date) AS day_session,
+                   COUNT(*) FILTER (WHERE asess.session_date >= ?::date AND asess.session_date < ?::date
+                                    AND ar.status = 'present') AS day_present,
+                   COUNT(*) FILTER (WHERE asess.session_date >= ?::date AND asess.session_date < ?::date
+                                    AND ar.status IN ('absent', 'late')) AS day_absent,
+                   COUNT(*) FILTER (WHERE asess.session_date >= ?::date AND asess.session_date < ?::date
+                                    AND ar.status = 'present') AS month_present,
+                   COUNT(*) FILTER (WHERE asess.session_date >= ?::date AND asess.session_date < ?::date
+                                    AND ar.status IN ('absent', 'late')) AS month_absent,
+                   COUNT(*) FILTER (WHERE asess.session_date >= ?::date AND asess.session_date < ?::date
+                                    AND ar.status = 'present') AS term_present,
+                   COUNT(*) FILTER (WHERE asess.session_date >= ?::date AND asess.session_date < ?::date
+                                    AND ar.status IN ('absent', 'late')) AS term_absent
+            FROM attendance_sessions asess
+            LEFT JOIN attendance_records ar ON asess.session_id = ar.session_id AND ar.school_id = ?
+            WHERE asess.school_id = ?
+            AND asess.session_date >= ? AND asess.session_date < ?
+            GROUP BY asess.club_id
+        )
+        SELECT c.club_id, c.club_name, t.teacher_name, s.session_time,
+               COALESCE(l.total_learners, 0) AS total_learners,
+               COALESCE(a.day_session, false) AS day_session,
+               COALESCE(a.day_present, 0) AS day_present, COALESCE(a.day_absent, 0) AS day_absent,
+               COALESCE(a.month_present, 0) AS month_present, COALESCE(a.month_absent, 0) AS month_absent,
+               COALESCE(a.term_present, 0) AS term_present, COALESCE(a.term_absent, 0) AS term_absent
+        FROM clubs c
+        LEFT JOIN teachers t ON t.club_id = c.club_id
+        LEFT JOIN schedules s ON s.club_id = c.club_id
+        LEFT JOIN learners l ON l.club_id = c.club_id
+        LEFT JOIN attendance a ON a.club_id = c.club_id
+        WHERE c.school_id = ? AND c.is_active = true
+        ORDER BY c.club_name
+        """;
+
+    /**
+     * Returns every active club in the school with its counts for each window.
+     * Any window may be null, but at least one must be given.
+     */
+    public List<ClubSummary> summarize(Connection conn, UUID schoolId,
+                                       Window day, Window month, Window term) throws SQLException {
+        LocalDate scanFrom = null;
+        LocalDate scanTo = null;
+        for (Window window : new Window[]{day, month, term}) {
+            if (window != null) {
+                scanFrom = scanFrom == null || window.from().isBefore(scanFrom) ? window.from() : scanFrom;
+                scanTo = scanTo == null || window.to().isAfter(scanTo) ? window.to() : scanTo;
+            }
+        }
+        if (scanFrom == null) {
+            throw new IllegalArgumentException("At least one window is required");
+        }
+
+        List<ClubSummary> summaries = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(SUMMARY_SQL)) {
+            int i = 1;
+            stmt.setObject(i++, schoolId);
+            stmt.setObject(i++, schoolId);
+            stmt.setObject(i++, schoolId);
+            i = bindWindow(stmt, i, day);
+            i = bindWindow(stmt, i, day);
+            i = bindWindow(stmt, i, day);
+            i = bindWindow(stmt, i, month);
+            i = bindWindow(stmt, i, month);
+            i = bindWindow(stmt, i, term);
+            i = bindWindow(stmt, i, term);
+            stmt.setObject(i++, schoolId);
+            stmt.setObject(i++, schoolId);
+            stmt.setObject(i++, scanFrom);
+            stmt.setObject(i++, scanTo);
+            stmt.setObject(i, schoolId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(new ClubSummary(
+                            (UUID) rs.getObject("club_id"),
+                            rs.getString("club_name"),
+                            rs.getString("teacher_name"),
+                            rs.getString("session_time"),
+                            rs.getInt("total_learners"),
+                            rs.getBoolean("day_session"),
+                            new Counts(rs.getInt("day_present"), rs.getInt("day_absent")),
+                            new Counts(rs.getInt("month_present"), rs.getInt("month_absent")),
+                            new Counts(rs.getInt("term_present"), rs.getInt("term_absent"))
+                    ));
+                }
+            }
+        }
+        return summaries;
+    }
+
+    // A missing window binds NULL bounds, which makes its FILTER match nothing
+    private static int bindWindow(PreparedStatement stmt, int index, Window window) throws SQLException {
+        stmt.setObject(index, window != null ? window.from() : null, Types.DATE);
+        stmt.setObject(index + 1, window != null ? window.to() : null, Types.DATE);
+        return index + 2;
+    }
+}
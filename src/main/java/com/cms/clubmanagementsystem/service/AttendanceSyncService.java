@@ -0,0 +1,531 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.service.AttendanceJournal.MarkEntry;
+import com.cms.clubmanagementsystem.service.AttendanceJournal.Pending;
+import com.cms.clubmanagementsystem.service.AttendanceJournal.SessionEntry;
+import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.EventBus;
+import com.cms.clubmanagementsystem.utils.EventTypes;
+import com.cms.clubmanagementsystem.utils.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Replays the {@link AttendanceJournal} to PostgreSQL in the background.
+ *
+ * Pending entries are sent in batches, one transaction per batch: sessions
+ * first, then marks through {@link AttendanceSaveService}, which resolves
+ * conflicts on (session_id, learner_id) by marked_at. A batch is acknowledged
+ * in the journal only after it commits, so replays are idempotent. While the
+ * database is unreachable the syncer backs off and retries.
+ *
+ * A batch commits only if every mark in it was applied or lost to a newer
+ * stored mark. When the database keeps rejecting a batch, it is retried one
+ * entry at a time up to the failing range, and an entry that still fails is
+ * moved to the journal's quarantine file so the entries behind it can sync.
+ *
+ * Every state change is published on {@link EventTypes#ATTENDANCE_SYNC_STATUS}.
+ */
+public class AttendanceSyncService {
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceSyncService.class);
+    private static final AttendanceSyncService instance = new AttendanceSyncService();
+
+    private static final int BATCH_SIZE = 500;
+    private static final long MIN_BACKOFF_MS = 5_000;
+    private static final long MAX_BACKOFF_MS = 120_000;
+    // Rejections of the same batch before retrying entry by entry, and of a single entry before quarantining it
+    private static final int ISOLATE_AFTER_REJECTIONS = 3;
+    private static final int QUARANTINE_AFTER_REJECTIONS = 3;
+
+    public enum State {
+        /** Everything captured on this device is in the database. */
+        SYNCED,
+        /** Entries are waiting for the next sync. */
+        PENDING,
+        SYNCING,
+        /** The database could not be reached; entries are kept locally. */
+        OFFLINE,
+        /** The database rejected a batch; it is retried with backoff. */
+        ERROR
+    }
+
+    public record Status(State state, int pendingEntries, int quarantinedEntries, Instant lastSyncedAt,
+                         String lastError) {}
+
+    private final AttendanceSaveService saveService = new AttendanceSaveService();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wake = lock.newCondition();
+    private final long intervalMs;
+    private final long connectTimeoutMs;
+    // Connections for screens are opened here so a dead database can't hold the FX thread for the pool timeout
+    private final ExecutorService connector = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "Attendance-Connect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Status status = new Status(State.SYNCED, 0, 0, null, null);
+    private boolean syncRequested;
+    // Only touched by the sync thread
+    private long rejectedPosition = -1;
+    private int rejections;
+    private long isolateThrough = -1;
+    private boolean running;
+    private Thread syncThread;
+
+    private AttendanceSyncService() {
+        this.intervalMs = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(EnvLoader.get("ATTENDANCE_SYNC_INTERVAL_SECONDS", "30")));
+        this.connectTimeoutMs = Long.parseLong(EnvLoader.get("ATTENDANCE_CONNECT_TIMEOUT_MS", "3000"));
+    }
+
+    public static AttendanceSyncService getInstance() {
+        return instance;
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+            syncRequested = true;
+        } finally {
+            lock.unlock();
+        }
+        syncThread = new Thread(this::syncLoop, "Attendance-Sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        logger.info("Attendance sync started");
+    }
+
+    public void stop() {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            wake.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            AttendanceJournal.getInstance().close();
+        } catch (IOException e) {
+            logger.debug("Attendance journal was not open", e);
+        }
+        logger.info("Attendance sync stopped");
+    }
+
+    /**
+     * Asks for a sync as soon as possible, e.g. right after something was journaled.
+     * Also cuts short the backoff when the database was unreachable.
+     */
+    public void requestSync() {
+        lock.lock();
+        try {
+            syncRequested = true;
+            wake.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * True while the last attempt failed to reach the database, so screens can
+     * skip queries that would only wait for the pool's connection timeout.
+     */
+    public boolean isOffline() {
+        return status.state() == State.OFFLINE;
+    }
+
+    /**
+     * Opens a tenant-scoped connection for an attendance screen, giving up after
+     * ATTENDANCE_CONNECT_TIMEOUT_MS rather than the pool's connection timeout.
+     * Fails at once while offline. A timeout marks the syncer offline, so the
+     * next screen skips the database until a sync gets through.
+     */
+    public Connection connect(UUID schoolId, UUID userId) throws SQLException {
+        if (isOffline()) {
+            throw new SQLTransientConnectionException("Attendance database is offline");
+        }
+        Future<Connection> opening = connector.submit(() -> {
+            Connection conn = DatabaseConnector.getConnection();
+            if (schoolId != null && userId != null) {
+                try {
+                    TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+                } catch (SQLException e) {
+                    conn.close();
+                    throw e;
+                }
+            }
+            return conn;
+        });
+        try {
+            return opening.get(connectTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The pool may still hand the connection out later; give it straight back
+            connector.execute(() -> {
+                try {
+                    opening.get().close();
+                } catch (Exception ignored) {
+                    // Never opened
+                }
+            });
+            String message = "Database did not answer within " + connectTimeoutMs + " ms";
+            publish(State.OFFLINE, status.lastSyncedAt(), message);
+            requestSync();
+            throw new SQLTransientConnectionException(message);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isConnectionFailure(cause)) {
+                publish(State.OFFLINE, status.lastSyncedAt(), cause.getMessage());
+                requestSync();
+            }
+            if (cause instanceof SQLException sql) {
+                throw sql;
+            }
+            throw new SQLException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while connecting", e);
+        }
+    }
+
+    private void syncLoop() {
+        long backoffMs = 0;
+        while (true) {
+            lock.lock();
+            try {
+                long waitMs = backoffMs > 0 ? backoffMs : intervalMs;
+                long deadline = System.currentTimeMillis() + waitMs;
+                while (running && !syncRequested) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    wake.await(remaining, TimeUnit.MILLISECONDS);
+                }
+                if (!running) {
+                    return;
+                }
+                syncRequested = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                syncPending();
+                backoffMs = 0;
+            } catch (SQLException | RuntimeException e) {
+                boolean unreachable = isConnectionFailure(e);
+                backoffMs = Math.min(MAX_BACKOFF_MS, Math.max(MIN_BACKOFF_MS, backoffMs * 2));
+                logger.warn("Attendance sync failed ({}), retrying in {}s: {}",
+                        unreachable ? "offline" : "rejected", backoffMs / 1000, e.getMessage());
+                publish(unreachable ? State.OFFLINE : State.ERROR, status.lastSyncedAt(), e.getMessage());
+            } catch (IOException e) {
+                backoffMs = MAX_BACKOFF_MS;
+                logger.error("Attendance journal unavailable", e);
+                publish(State.ERROR, status.lastSyncedAt(), e.getMessage());
+            }
+        }
+    }
+
+    private void syncPending() throws IOException, SQLException {
+        AttendanceJournal journal = AttendanceJournal.getInstance();
+        Instant lastSynced = status.lastSyncedAt();
+        while (running) {
+            List<Pending> batch = journal.pending(1);
+            if (batch.isEmpty()) {
+                publish(State.SYNCED, lastSynced, null);
+                return;
+            }
+            if (batch.get(0).position() > isolateThrough) {
+                batch = journal.pending(BATCH_SIZE);
+            }
+            publish(State.SYNCING, lastSynced, null);
+            Map<UUID, UUID> remapped;
+            try {
+                remapped = syncBatch(journal, batch);
+            } catch (SQLException | RuntimeException e) {
+                if (isConnectionFailure(e) || !rejected(journal, batch, e)) {
+                    throw e;
+                }
+                continue;
+            }
+            journal.recordSessionRemap(remapped);
+            journal.acknowledge(batch.get(batch.size() - 1).position());
+            rejectedPosition = -1;
+            rejections = 0;
+            lastSynced = Instant.now();
+        }
+        publish(journal.pendingCount() > 0 ? State.PENDING : State.SYNCED, lastSynced, null);
+    }
+
+    /**
+     * Counts a rejection of the batch. Repeated rejections switch to one entry
+     * per batch up to the end of the rejected batch; a single entry rejected
+     * repeatedly is quarantined. Returns true if the entry was quarantined and
+     * syncing can carry on.
+     */
+    private boolean rejected(AttendanceJournal journal, List<Pending> batch, Exception e) throws IOException {
+        long head = batch.get(0).position();
+        if (head != rejectedPosition) {
+            rejectedPosition = head;
+            rejections = 0;
+        }
+        rejections++;
+        if (batch.size() > 1) {
+            if (rejections >= ISOLATE_AFTER_REJECTIONS) {
+                isolateThrough = batch.get(batch.size() - 1).position();
+                rejections = 0;
+                logger.warn("Attendance batch rejected {} times, retrying its entries one at a time", ISOLATE_AFTER_REJECTIONS);
+            }
+            return false;
+        }
+        if (rejections < QUARANTINE_AFTER_REJECTIONS) {
+            return false;
+        }
+        journal.quarantine(batch.get(0));
+        rejectedPosition = -1;
+        rejections = 0;
+        logger.error("Quarantined attendance journal entry {} after {} rejections: {}",
+                batch.get(0).entry(), QUARANTINE_AFTER_REJECTIONS, e.getMessage());
+        return true;
+    }
+
+    /**
+     * Sends one batch in a transaction and returns the journaled session IDs that
+     * were merged into stored sessions, to be remembered once it commits.
+     */
+    private Map<UUID, UUID> syncBatch(AttendanceJournal journal, List<Pending> batch) throws SQLException {
+        // Rows are tenant-scoped, and the journal may hold entries from more than one school
+        Map<UUID, List<AttendanceJournal.Entry>> bySchool = new LinkedHashMap<>();
+        for (Pending p : batch) {
+            bySchool.computeIfAbsent(p.entry().schoolId(), k -> new ArrayList<>()).add(p.entry());
+        }
+
+        Map<UUID, UUID> remapped = new LinkedHashMap<>();
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<UUID, List<AttendanceJournal.Entry>> school : bySchool.entrySet()) {
+                    remapped.putAll(syncSchool(conn, journal, school.getKey(), school.getValue()));
+                }
+                conn.commit();
+                return remapped;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private Map<UUID, UUID> syncSchool(Connection conn, AttendanceJournal journal, UUID schoolId,
+                                       List<AttendanceJournal.Entry> entries) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT set_config('app.current_school_id', ?, true), set_config('app.current_user_id', ?, true)")) {
+            ps.setString(1, schoolId.toString());
+            ps.setString(2, entries.get(0).userId().toString());
+            ps.execute();
+        }
+
+        List<SessionEntry> sessions = new ArrayList<>();
+        List<MarkEntry> markEntries = new ArrayList<>();
+        for (AttendanceJournal.Entry entry : entries) {
+            switch (entry) {
+                case SessionEntry session -> sessions.add(session);
+                case MarkEntry mark -> markEntries.add(mark);
+            }
+        }
+
+        Map<UUID, UUID> remapped = insertSessions(conn, schoolId, sessions);
+
+        // Only the latest mark per learner and session is sent; one upsert can't touch a row twice
+        Map<AttendanceSaveService.Key, AttendanceSaveService.Mark> marks = new LinkedHashMap<>();
+        for (MarkEntry mark : markEntries) {
+            // Sessions merged in an earlier batch, possibly before a restart, are remembered by the journal
+            UUID sessionId = remapped.getOrDefault(mark.sessionId(), journal.storedSessionId(mark.sessionId()));
+            marks.merge(new AttendanceSaveService.Key(sessionId, mark.learnerId()),
+                    new AttendanceSaveService.Mark(sessionId, mark.learnerId(), mark.status(),
+                            mark.markedBy(), mark.markedAt()),
+                    (older, newer) -> newer.markedAt().isBefore(older.markedAt()) ? older : newer);
+        }
+
+        Map<AttendanceSaveService.Key, AttendanceSaveService.Outcome> outcomes =
+                saveService.save(conn, schoolId, new ArrayList<>(marks.values()));
+
+        // A mark the upsert skipped is fine only if a newer one is stored; anything else would be lost on ack
+        List<AttendanceSaveService.Key> skipped = marks.keySet().stream()
+                .filter(key -> !outcomes.containsKey(key))
+                .toList();
+        Map<AttendanceSaveService.Key, Instant> stored = saveService.storedMarkTimes(conn, skipped);
+        List<AttendanceSaveService.Key> lost = skipped.stream()
+                .filter(key -> stored.get(key) == null || stored.get(key).isBefore(marks.get(key).markedAt()))
+                .toList();
+        if (!lost.isEmpty()) {
+            throw new SQLException(lost.size() + " attendance mark(s) could not be applied, e.g. learner "
+                    + lost.get(0).learnerId() + " in session " + lost.get(0).sessionId());
+        }
+
+        logger.info("Synced attendance for school {}: {} sessions ({} merged into existing), {} marks applied, {} superseded",
+                schoolId, sessions.size(), remapped.size(), outcomes.size(), skipped.size());
+        return remapped;
+    }
+
+    /**
+     * Inserts sessions created offline. A club has one session per date, so when
+     * another device already created one, marks are redirected to it; the
+     * returned map takes journaled session IDs to the stored ones.
+     */
+    private Map<UUID, UUID> insertSessions(Connection conn, UUID schoolId, List<SessionEntry> sessions) throws SQLException {
+        Map<UUID, UUID> remapped = new LinkedHashMap<>();
+        if (sessions.isEmpty()) {
+            return remapped;
+        }
+        String sql = """
+            WITH journaled AS (
+                SELECT * FROM unnest(?::uuid[], ?::uuid[], ?::text[], ?::text[], ?::text[], ?::uuid[])
+                     AS s(session_id, club_id, session_date, start_time, end_time, created_by)
+            ),
+            inserted AS (
+                INSERT INTO attendance_sessions (session_id, club_id, session_date, start_time, end_time, created_by, school_id)
+                SELECT j.session_id, j.club_id, j.session_date::date, j.start_time::time, j.end_time::time, j.created_by, ?
+                FROM journaled j
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM attendance_sessions a
+                    WHERE a.club_id = j.club_id AND a.session_date = j.session_date::date
+                )
+                ON CONFLICT DO NOTHING
+                RETURNING session_id
+            )
+            SELECT j.session_id AS journaled_id, a.session_id AS stored_id
+            FROM journaled j
+            JOIN attendance_sessions a ON a.club_id = j.club_id AND a.session_date = j.session_date::date
+            WHERE a.session_id <> j.session_id
+            AND j.session_id NOT IN (SELECT session_id FROM inserted)
+            """;
+
+        int n = sessions.size();
+        UUID[] sessionIds = new UUID[n];
+        UUID[] clubIds = new UUID[n];
+        String[] dates = new String[n];
+        String[] starts = new String[n];
+        String[] ends = new String[n];
+        UUID[] createdBy = new UUID[n];
+        for (int i = 0; i < n; i++) {
+            SessionEntry session = sessions.get(i);
+            sessionIds[i] = session.sessionId();
+            clubIds[i] = session.clubId();
+            dates[i] = session.sessionDate().toString();
+            starts[i] = session.startTime().toString();
+            ends[i] = session.endTime().toString();
+            createdBy[i] = session.createdBy();
+        }
+
+        Array[] arrays = {
+                conn.createArrayOf("uuid", sessionIds),
+                conn.createArrayOf("uuid", clubIds),
+                conn.createArrayOf("text", dates),
+                conn.createArrayOf("text", starts),
+                conn.createArrayOf("text", ends),
+                conn.createArrayOf("uuid", createdBy)
+        };
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < arrays.length; i++) {
+                ps.setArray(i + 1, arrays[i]);
+            }
+            ps.setObject(arrays.length + 1, schoolId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    remapped.putIfAbsent((UUID) rs.getObject("journaled_id"), (UUID) rs.getObject("stored_id"));
+                }
+            }
+            return remapped;
+        } finally {
+            for (Array array : arrays) {
+                array.free();
+            }
+        }
+    }
+
+    // Pool timeouts and SQLState class 08 mean the server couldn't be reached
+    private static boolean isConnectionFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientConnectionException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void publish(State state, Instant lastSyncedAt, String error) {
+        int pendingEntries;
+        int quarantinedEntries;
+        try {
+            AttendanceJournal journal = AttendanceJournal.getInstance();
+            pendingEntries = journal.pendingCount();
+            quarantinedEntries = journal.quarantinedCount();
+        } catch (IOException e) {
+            pendingEntries = status.pendingEntries();
+            quarantinedEntries = status.quarantinedEntries();
+        }
+        Status next = new Status(state, pendingEntries, quarantinedEntries, lastSyncedAt, error);
+        if (!next.equals(status)) {
+            status = next;
+            EventBus.publish(EventTypes.ATTENDANCE_SYNC_STATUS, next);
+        }
+    }
+
+    /**
+     * Publishes the current pending count after entries were journaled outside the syncer.
+     */
+    public void journalChanged() {
+        State state = status.state() == State.OFFLINE || status.state() == State.ERROR
+                ? status.state() : State.PENDING;
+        publish(state, status.lastSyncedAt(), status.lastError());
+        requestSync();
+    }
+}
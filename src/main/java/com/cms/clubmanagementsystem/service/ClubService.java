@@ -545,9 +545,15 @@ public class ClubService {
         }
     }
 
+    /**
+     * Name and description are plain strings until something binds to them; the
+     * properties are only created when asked for.
+     */
     public static class Club {
-        private final StringProperty clubName = new SimpleStringProperty();
-        private final StringProperty description = new SimpleStringProperty();
+        private String clubName;
+        private String description;
+        private StringProperty clubNameProperty;
+        private StringProperty descriptionProperty;
         private UUID clubId;
         private UUID schoolId;
         private boolean isActive;
@@ -571,13 +577,37 @@ public class ClubService {
         }
 
         // Standard getters and setters
-        public String getClubName() { return clubName.get(); }
-        public void setClubName(String clubName) { this.clubName.set(clubName); }
-        public StringProperty clubNameProperty() { return clubName; }
+        public String getClubName() { return clubNameProperty != null ? clubNameProperty.get() : clubName; }
+        public void setClubName(String clubName) {
+            if (clubNameProperty != null) {
+                clubNameProperty.set(clubName);
+            } else {
+                this.clubName = clubName;
+            }
+        }
+        public StringProperty clubNameProperty() {
+            if (clubNameProperty == null) {
+                clubNameProperty = new SimpleStringProperty(this, "clubName", clubName);
+                clubName = null;
+            }
+            return clubNameProperty;
+        }
 
-        public String getDescription() { return description.get(); }
-        public void setDescription(String description) { this.description.set(description); }
-        public StringProperty descriptionProperty() { return description; }
+        public String getDescription() { return descriptionProperty != null ? descriptionProperty.get() : description; }
+        public void setDescription(String description) {
+            if (descriptionProperty != null) {
+                descriptionProperty.set(description);
+            } else {
+                this.description = description;
+            }
+        }
+        public StringProperty descriptionProperty() {
+            if (descriptionProperty == null) {
+                descriptionProperty = new SimpleStringProperty(this, "description", description);
+                description = null;
+            }
+            return descriptionProperty;
+        }
 
         public UUID getClubId() { return clubId; }
         public void setClubId(UUID clubId) { this.clubId = clubId; }
@@ -0,0 +1,509 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.service.ReportService.ReportRequest;
+import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.StreamingExport;
+import com.itextpdf.kernel.colors.DeviceGray;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the comprehensive report: a school summary with one row per club,
+ * followed by a section for each club with its session days and teachers.
+ *
+ * The clubs are split recursively into batches on a fork/join pool. Each batch
+ * fetches the figures for all of its clubs with three set-based queries on its
+ * own connection and lays out their PDF sections, so the cost grows with the
+ * number of batches running side by side rather than with the number of clubs.
+ * Across all running reports at most {@code REPORT_DB_CONNECTIONS} batch
+ * connections are open at once, which leaves the rest of the pool to the UI.
+ * The sections are then written in club order into one PDF or workbook.
+ *
+ * One instance per report; interrupting the generating thread sets a flag
+ * that stops the remaining batches, and deletes the partial file.
+ */
+final class ComprehensiveReport {
+    private static final Logger logger = LoggerFactory.getLogger(ComprehensiveReport.class);
+
+    private static final int CONNECTION_BUDGET = Math.max(1,
+            Integer.parseInt(EnvLoader.get("REPORT_DB_CONNECTIONS", "4")));
+    private static final int BATCH_SIZE = Math.max(1,
+            Integer.parseInt(EnvLoader.get("REPORT_CLUB_BATCH", "10")));
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final Semaphore CONNECTIONS = new Semaphore(CONNECTION_BUDGET, true);
+
+    // No point in more workers than connections, since every batch needs one
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Math.min(Runtime.getRuntime().availableProcessors(), CONNECTION_BUDGET),
+            pool -> {
+                var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("report-section-" + THREAD_COUNT.incrementAndGet());
+                return thread;
+            }, null, false);
+
+    private static final List<String> SUMMARY_HEADERS = List.of("Club", "Enrolled", "Sessions",
+            "Learners Marked", "Present", "Absent", "Late", "Attendance Rate (%)");
+    private static final List<String> SESSION_DAY_HEADERS = List.of("Club", "Day", "Sessions");
+    private static final List<String> TEACHER_HEADERS = List.of("Club", "Teacher", "Sessions Conducted");
+
+    private static final String CLUBS_SQL = """
+            SELECT club_id, club_name
+            FROM clubs
+            WHERE school_id = ? AND is_active = true %s
+            ORDER BY club_name, club_id
+            """;
+
+    // Each batch query takes the batch's club ids, then the period
+    private static final String OVERVIEW_SQL = """
+            WITH p AS (SELECT ?::uuid[] AS club_ids, ?::date AS from_date, ?::date AS to_date)
+            SELECT c.club_id,
+                   (SELECT COUNT(*) FROM club_enrollments ce
+                    WHERE ce.club_id = c.club_id AND ce.is_active) AS enrolled,
+                   COUNT(DISTINCT s.session_id) AS sessions_held,
+                   COUNT(DISTINCT ar.learner_id) AS learners_marked,
+                   COUNT(ar.record_id) AS total_records,
+                   COUNT(ar.record_id) FILTER (WHERE ar.status = 'present') AS present_count,
+                   COUNT(ar.record_id) FILTER (WHERE ar.status = 'absent') AS absent_count,
+                   COUNT(ar.record_id) FILTER (WHERE ar.status = 'late') AS late_count
+            FROM p
+            JOIN clubs c ON c.club_id = ANY(p.club_ids)
+            LEFT JOIN attendance_sessions s ON s.club_id = c.club_id AND s.session_date BETWEEN p.from_date AND p.to_date
+            LEFT JOIN attendance_records ar ON ar.session_id = s.session_id
+            GROUP BY c.club_id
+            """;
+
+    private static final String SESSION_DAYS_SQL = """
+            WITH p AS (SELECT ?::uuid[] AS club_ids, ?::date AS from_date, ?::date AS to_date)
+            SELECT s.club_id,
+                   TRIM(TO_CHAR(s.session_date, 'Day')) AS session_day,
+                   COUNT(*) AS sessions
+            FROM p
+            JOIN attendance_sessions s ON s.club_id = ANY(p.club_ids) AND s.session_date BETWEEN p.from_date AND p.to_date
+            GROUP BY s.club_id, EXTRACT(ISODOW FROM s.session_date), TRIM(TO_CHAR(s.session_date, 'Day'))
+            ORDER BY s.club_id, EXTRACT(ISODOW FROM s.session_date)
+            """;
+
+    private static final String TEACHERS_SQL = """
+            WITH p AS (SELECT ?::uuid[] AS club_ids, ?::date AS from_date, ?::date AS to_date)
+            SELECT ct.club_id,
+                   u.full_name,
+                   COUNT(DISTINCT s.session_id) AS sessions_conducted
+            FROM p
+            JOIN club_teachers ct ON ct.club_id = ANY(p.club_ids)
+            JOIN users u ON u.user_id = ct.teacher_id AND u.is_active = true
+            LEFT JOIN attendance_sessions s ON s.club_id = ct.club_id AND s.session_date BETWEEN p.from_date AND p.to_date
+            GROUP BY ct.club_id, u.user_id, u.full_name
+            ORDER BY ct.club_id, sessions_conducted DESC, u.full_name
+            """;
+
+    private record Club(UUID clubId, String clubName) {}
+
+    /**
+     * One club's figures. {@code pdf} is its laid-out section, or null for Excel.
+     */
+    private record Section(Club club, long enrolled, long sessions, long learnersMarked,
+                           long records, long present, long absent, long late,
+                           List<String[]> sessionDays, List<String[]> teachers, Div pdf) {
+
+        String attendanceRate() {
+            return records == 0 ? "" : String.format("%.2f", present * 100.0 / records);
+        }
+
+        String[] summaryRow() {
+            return new String[]{club.clubName(), String.valueOf(enrolled), String.valueOf(sessions),
+                    String.valueOf(learnersMarked), String.valueOf(present), String.valueOf(absent),
+                    String.valueOf(late), attendanceRate()};
+        }
+    }
+
+    private final ReportRequest request;
+    private final StreamingExport.Progress progress;
+    private final AtomicLong clubsDone = new AtomicLong();
+    // ForkJoin workers are never interrupted, so batches poll this to stop
+    private volatile boolean cancelled;
+    private int totalClubs;
+
+    ComprehensiveReport(ReportRequest request, StreamingExport.Progress progress) {
+        this.request = request;
+        this.progress = progress != null ? progress : (done, total) -> {};
+    }
+
+    /**
+     * Writes the report to {@code file} and returns the number of clubs in it.
+     * {@code conn} is only used to list the clubs; the batches use their own
+     * connections.
+     */
+    long generate(Connection conn, File file) throws SQLException, IOException {
+        List<Club> clubs = loadClubs(conn);
+        totalClubs = clubs.size();
+        long started = System.nanoTime();
+
+        ForkJoinTask<List<Section>> task = POOL.submit(new SectionTask(clubs));
+        List<Section> sections;
+        try {
+            sections = task.get();
+        } catch (InterruptedException e) {
+            // cancel() doesn't interrupt ForkJoin workers: running batches stop at their
+            // next cancelled check, queued ones are dropped
+            cancelled = true;
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Report cancelled after " + clubsDone.get() + " clubs");
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+        logger.debug("Loaded {} club sections in {} ms", sections.size(), (System.nanoTime() - started) / 1_000_000);
+
+        boolean complete = false;
+        try {
+            if (request.exportFormat() == StreamingExport.Format.XLSX) {
+                writeWorkbook(sections, file);
+            } else {
+                writePdf(sections, file);
+            }
+            complete = true;
+        } finally {
+            if (!complete && file.exists() && !file.delete()) {
+                logger.warn("Could not delete partial report {}", file.getAbsolutePath());
+            }
+        }
+        return sections.size();
+    }
+
+    private List<Club> loadClubs(Connection conn) throws SQLException {
+        String sql = CLUBS_SQL.formatted(request.clubId() != null ? "AND club_id = ?" : "");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setObject(1, request.schoolId());
+            if (request.clubId() != null) {
+                ps.setObject(2, request.clubId());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Club> clubs = new ArrayList<>();
+                while (rs.next()) {
+                    clubs.add(new Club((UUID) rs.getObject("club_id"), rs.getString("club_name")));
+                }
+                return clubs;
+            }
+        }
+    }
+
+    /**
+     * Splits the clubs in half until a batch is small enough to query on one
+     * connection. Results keep the input order.
+     */
+    private final class SectionTask extends RecursiveTask<List<Section>> {
+        private static final long serialVersionUID = 1L;
+        // Tasks are never serialized; sublists of the club list aren't serializable anyway
+        private final transient List<Club> clubs;
+
+        SectionTask(List<Club> clubs) {
+            this.clubs = clubs;
+        }
+
+        @Override
+        protected List<Section> compute() {
+            if (clubs.size() <= BATCH_SIZE) {
+                return loadBatch(clubs);
+            }
+            int mid = clubs.size() / 2;
+            SectionTask left = new SectionTask(clubs.subList(0, mid));
+            SectionTask right = new SectionTask(clubs.subList(mid, clubs.size()));
+            left.fork();
+            List<Section> rightSections = right.compute();
+            List<Section> sections = new ArrayList<>(left.join());
+            sections.addAll(rightSections);
+            return sections;
+        }
+    }
+
+    private List<Section> loadBatch(List<Club> clubs) {
+        if (clubs.isEmpty()) {
+            return List.of();
+        }
+        checkCancelled();
+        try {
+            CONNECTIONS.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Report cancelled");
+        }
+        try (Connection conn = request.connect()) {
+            checkCancelled();
+            List<Section> sections = querySections(conn, clubs);
+            progress.update(clubsDone.addAndGet(clubs.size()), totalClubs);
+            return sections;
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        } finally {
+            CONNECTIONS.release();
+        }
+    }
+
+    private List<Section> querySections(Connection conn, List<Club> clubs) throws SQLException {
+        UUID[] ids = clubs.stream().map(Club::clubId).toArray(UUID[]::new);
+        Array clubIds = conn.createArrayOf("uuid", ids);
+        try {
+            Map<UUID, long[]> overview = new HashMap<>();
+            try (PreparedStatement ps = prepare(conn, OVERVIEW_SQL, clubIds);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    overview.put((UUID) rs.getObject("club_id"), new long[]{
+                            rs.getLong("enrolled"), rs.getLong("sessions_held"), rs.getLong("learners_marked"),
+                            rs.getLong("total_records"), rs.getLong("present_count"), rs.getLong("absent_count"), rs.getLong("late_count")});
+                }
+            }
+
+            Map<UUID, List<String[]>> sessionDays = new HashMap<>();
+            try (PreparedStatement ps = prepare(conn, SESSION_DAYS_SQL, clubIds);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sessionDays.computeIfAbsent((UUID) rs.getObject("club_id"), id -> new ArrayList<>())
+                            .add(new String[]{rs.getString("session_day"), rs.getString("sessions")});
+                }
+            }
+
+            Map<UUID, List<String[]>> teachers = new HashMap<>();
+            try (PreparedStatement ps = prepare(conn, TEACHERS_SQL, clubIds);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    teachers.computeIfAbsent((UUID) rs.getObject("club_id"), id -> new ArrayList<>())
+                            .add(new String[]{rs.getString("full_name"), rs.getString("sessions_conducted")});
+                }
+            }
+
+            boolean pdf = request.exportFormat() != StreamingExport.Format.XLSX;
+            List<Section> sections = new ArrayList<>(clubs.size());
+            for (Club club : clubs) {
+                long[] figures = overview.getOrDefault(club.clubId(), new long[7]);
+                List<String[]> days = sessionDays.getOrDefault(club.clubId(), List.of());
+                List<String[]> clubTeachers = teachers.getOrDefault(club.clubId(), List.of());
+                Section section = new Section(club, figures[0], figures[1], figures[2], figures[3], figures[4],
+                        figures[5], figures[6], days, clubTeachers, null);
+                sections.add(pdf ? withPdf(section) : section);
+            }
+            return sections;
+        } finally {
+            clubIds.free();
+        }
+    }
+
+    private PreparedStatement prepare(Connection conn, String sql, Array clubIds) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql);
+        ps.setArray(1, clubIds);
+        ps.setDate(2, Date.valueOf(request.startDate()));
+        ps.setDate(3, Date.valueOf(request.endDate()));
+        return ps;
+    }
+
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Report cancelled");
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) throws SQLException {
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof SQLException sql) {
+            throw sql;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException("Report section failed", cause);
+    }
+
+    // PDF
+
+    private static Section withPdf(Section section) {
+        Div div = new Div().setKeepTogether(true).setMarginTop(14);
+        div.add(new Paragraph(section.club().clubName()).setFontSize(13).setBold());
+
+        String rate = section.attendanceRate();
+        div.add(new Paragraph(String.format(
+                "Enrolled: %d   Sessions: %d   Learners marked: %d   Present: %d   Absent: %d   Late: %d   Attendance: %s",
+                section.enrolled(), section.sessions(), section.learnersMarked(), section.present(),
+                section.absent(), section.late(), rate.isEmpty() ? "-" : rate + "%"))
+                .setFontSize(9)
+                .setFontColor(DeviceGray.GRAY));
+
+        if (!section.sessionDays().isEmpty()) {
+            div.add(table(SESSION_DAY_HEADERS.subList(1, SESSION_DAY_HEADERS.size()), section.sessionDays(),
+                    new float[]{3, 1}));
+        }
+        if (!section.teachers().isEmpty()) {
+            div.add(table(TEACHER_HEADERS.subList(1, TEACHER_HEADERS.size()), section.teachers(),
+                    new float[]{3, 1}));
+        }
+        return new Section(section.club(), section.enrolled(), section.sessions(), section.learnersMarked(),
+                section.records(), section.present(), section.absent(), section.late(), section.sessionDays(), section.teachers(), div);
+    }
+
+    private static Table table(List<String> headers, List<String[]> rows, float[] widths) {
+        Table table = new Table(UnitValue.createPercentArray(widths));
+        table.setWidth(UnitValue.createPercentValue(60)).setMarginTop(6);
+        for (String header : headers) {
+            table.addHeaderCell(new com.itextpdf.layout.element.Cell()
+                    .add(new Paragraph(header))
+                    .setBold()
+                    .setFontSize(9)
+                    .setBackgroundColor(new DeviceRgb(52, 152, 219))
+                    .setFontColor(DeviceGray.WHITE)
+                    .setTextAlignment(TextAlignment.CENTER));
+        }
+        for (String[] row : rows) {
+            for (String value : row) {
+                table.addCell(new com.itextpdf.layout.element.Cell()
+                        .add(new Paragraph(value != null ? value : ""))
+                        .setPadding(3)
+                        .setFontSize(9));
+            }
+        }
+        return table;
+    }
+
+    private void writePdf(List<Section> sections, File file) throws IOException {
+        // Closing the document closes the PDF and its writer
+        try (Document document = new Document(new PdfDocument(new PdfWriter(file.getAbsolutePath())),
+                PageSize.A4.rotate())) {
+            document.add(new Paragraph(request.displayName())
+                    .setFontSize(18)
+                    .setBold()
+                    .setTextAlignment(TextAlignment.CENTER));
+            document.add(new Paragraph(request.startDate() + " to " + request.endDate())
+                    .setFontSize(10)
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setFontColor(DeviceGray.GRAY));
+
+            document.add(new Paragraph("School Summary").setFontSize(14).setBold());
+            List<String[]> summary = new ArrayList<>(sections.size());
+            for (Section section : sections) {
+                summary.add(section.summaryRow());
+            }
+            document.add(table(SUMMARY_HEADERS, summary, new float[]{4, 1, 1, 1, 1, 1, 1, 2})
+                    .setWidth(UnitValue.createPercentValue(100)));
+
+            document.add(new Paragraph("Clubs").setFontSize(14).setBold().setMarginTop(18));
+            for (Section section : sections) {
+                document.add(section.pdf());
+            }
+        }
+    }
+
+    // Excel
+
+    private void writeWorkbook(List<Section> sections, File file) throws IOException {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            workbook.setCompressTempFiles(true);
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font font = workbook.createFont();
+            font.setBold(true);
+            font.setColor(IndexedColors.WHITE.getIndex());
+            headerStyle.setFont(font);
+            headerStyle.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            setThinBorders(headerStyle);
+            CellStyle dataStyle = workbook.createCellStyle();
+            setThinBorders(dataStyle);
+
+            List<String[]> summary = new ArrayList<>(sections.size());
+            List<String[]> sessionDays = new ArrayList<>();
+            List<String[]> teachers = new ArrayList<>();
+            for (Section section : sections) {
+                String clubName = section.club().clubName();
+                summary.add(section.summaryRow());
+                for (String[] day : section.sessionDays()) {
+                    sessionDays.add(new String[]{clubName, day[0], day[1]});
+                }
+                for (String[] teacher : section.teachers()) {
+                    teachers.add(new String[]{clubName, teacher[0], teacher[1]});
+                }
+            }
+
+            writeSheet(workbook.createSheet("Summary"), SUMMARY_HEADERS, new int[]{32, 10, 10, 16, 10, 10, 10, 20},
+                    summary, headerStyle, dataStyle);
+            writeSheet(workbook.createSheet("Session Days"), SESSION_DAY_HEADERS, new int[]{32, 14, 10},
+                    sessionDays, headerStyle, dataStyle);
+            writeSheet(workbook.createSheet("Teachers"), TEACHER_HEADERS, new int[]{32, 32, 20},
+                    teachers, headerStyle, dataStyle);
+
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+    }
+
+    private static void writeSheet(Sheet sheet, List<String> headers, int[] widths, List<String[]> rows,
+                                   CellStyle headerStyle, CellStyle dataStyle) {
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < headers.size(); i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(headers.get(i));
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+        sheet.createFreezePane(0, 1);
+
+        int rowNum = 1;
+        for (String[] values : rows) {
+            Row row = sheet.createRow(rowNum++);
+            for (int i = 0; i < values.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(values[i] != null ? values[i] : "");
+                cell.setCellStyle(dataStyle);
+            }
+        }
+    }
+
+    private static void setThinBorders(CellStyle style) {
+        style.setBorderBottom(BorderStyle.THIN);
+        style.setBorderTop(BorderStyle.THIN);
+        style.setBorderLeft(BorderStyle.THIN);
+        style.setBorderRight(BorderStyle.THIN);
+    }
+}
@@ -2,7 +2,10 @@ package com.cms.clubmanagementsystem.service;
 
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
 import com.cms.clubmanagementsystem.utils.SessionManager;
+import com.cms.clubmanagementsystem.utils.StreamingExport;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +16,23 @@ import org.slf4j.LoggerFactory;
 public class EnrollmentService {
     private static final Logger logger = LoggerFactory.getLogger(EnrollmentService.class);
 
+    private static final String CLUB_ENROLLMENTS_SQL = """
+            SELECT ce.enrollment_id, ce.learner_id, ce.club_id, ce.term_number, 
+                   ce.academic_year, ce.enrollment_date, ce.updated_at, ce.is_active, 
+                   ce.coordinator_id, l.full_name as learner_name, 
+                   l.admission_number, g.grade_name, l.gender, c.club_name
+            FROM club_enrollments ce
+            JOIN learners l ON ce.learner_id = l.learner_id AND ce.school_id = l.school_id
+            JOIN grades g ON l.grade_id = g.grade_id AND l.school_id = g.school_id
+            JOIN clubs c ON ce.club_id = c.club_id AND ce.school_id = c.school_id
+            WHERE ce.club_id = ? 
+            AND ce.term_number = ? 
+            AND ce.academic_year = ?
+            AND ce.school_id = ?
+            AND ce.is_active = true
+            ORDER BY l.full_name
+            """;
+
     public static class Enrollment {
         private UUID enrollmentId;
         private UUID learnerId;
@@ -281,24 +301,7 @@ public class EnrollmentService {
                                                  int termNumber, int academicYear) throws SQLException {
         List<Enrollment> enrollments = new ArrayList<>();
 
-        String sql = """
-            SELECT ce.enrollment_id, ce.learner_id, ce.club_id, ce.term_number, 
-                   ce.academic_year, ce.enrollment_date, ce.updated_at, ce.is_active, 
-                   ce.coordinator_id, l.full_name as learner_name, 
-                   l.admission_number, g.grade_name, l.gender, c.club_name
-            FROM club_enrollments ce
-            JOIN learners l ON ce.learner_id = l.learner_id AND ce.school_id = l.school_id
-            JOIN grades g ON l.grade_id = g.grade_id AND l.school_id = g.school_id
-            JOIN clubs c ON ce.club_id = c.club_id AND ce.school_id = c.school_id
-            WHERE ce.club_id = ? 
-            AND ce.term_number = ? 
-            AND ce.academic_year = ?
-            AND ce.school_id = ?
-            AND ce.is_active = true
-            ORDER BY l.full_name
-            """;
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(CLUB_ENROLLMENTS_SQL)) {
             stmt.setObject(1, clubId);
             stmt.setInt(2, termNumber);
             stmt.setInt(3, academicYear);
@@ -328,6 +331,44 @@ public class EnrollmentService {
         return enrollments;
     }
 
+    /**
+     * Streams the same rows as {@link #getEnrollmentsByClub} into an export file
+     * without loading them first. Usually called off the FX thread, where there is
+     * no session, so the school is passed in.
+     *
+     * @return number of enrollments written
+     */
+    public long exportEnrollmentsByClub(Connection conn, UUID schoolId, UUID clubId, int termNumber,
+                                        int academicYear, File file) throws SQLException, IOException {
+        return StreamingExport.query(CLUB_ENROLLMENTS_SQL)
+                .bind(stmt -> {
+                    stmt.setObject(1, clubId);
+                    stmt.setInt(2, termNumber);
+                    stmt.setInt(3, academicYear);
+                    stmt.setObject(4, schoolId);
+                })
+                .headers(List.of("Admission Number", "Learner Name", "Club Name", "Grade", "Gender",
+                        "Term", "Academic Year", "Status", "Enrollment Date", "Last Updated"))
+                .rows(rs -> new String[]{
+                        rs.getString("admission_number"),
+                        rs.getString("learner_name"),
+                        rs.getString("club_name"),
+                        rs.getString("grade_name"),
+                        rs.getString("gender"),
+                        String.valueOf(rs.getInt("term_number")),
+                        String.valueOf(rs.getInt("academic_year")),
+                        rs.getBoolean("is_active") ? "Active" : "Withdrawn",
+                        formatTimestamp(rs.getTimestamp("enrollment_date")),
+                        formatTimestamp(rs.getTimestamp("updated_at"))
+                })
+                .sheetName("Enrollments")
+                .writeTo(conn, file, StreamingExport.Format.forFile(file));
+    }
+
+    private static String formatTimestamp(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : "N/A";
+    }
+
     public boolean withdrawEnrollment(Connection conn, UUID enrollmentId, UUID teacherId) throws SQLException {
         logger.info("Attempting to withdraw enrollment {} by teacher {}", enrollmentId, teacherId);
 
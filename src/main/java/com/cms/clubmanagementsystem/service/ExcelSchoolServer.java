@@ -1,6 +1,8 @@
 package com.cms.clubmanagementsystem.service;
 
 import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.HmacSignatureVerifier;
+import com.cms.clubmanagementsystem.utils.JfrEvents;
 import com.cms.clubmanagementsystem.utils.NotificationUtil;
 import com.cms.clubmanagementsystem.utils.SessionManager;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
@@ -11,8 +13,6 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.FileInputStream;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
@@ -24,8 +24,6 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.FileTime;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
@@ -56,6 +54,7 @@ public class ExcelSchoolServer {
     private final String webhookUrl;
     private final String apiKey;
     private final String hmacSecret;
+    private final HmacSignatureVerifier signer;
     private final ScheduledExecutorService scheduler;
     private final HttpClient httpClient;
     private final LearnerService learnerService;
@@ -74,6 +73,7 @@ public class ExcelSchoolServer {
         loadEnvironmentVariables();
 
         this.hmacSecret = EnvLoader.get("WEBHOOK_HMAC_SECRET");
+        this.signer = hmacSecret != null && !hmacSecret.trim().isEmpty() ? new HmacSignatureVerifier(hmacSecret) : null;
         this.scheduler = Executors.newSingleThreadScheduledExecutor(this::createDaemonThread);
         this.httpClient = createHttpClient();
 
@@ -210,7 +210,11 @@ public class ExcelSchoolServer {
             }
 
             logger.info("File changed detected, reading Excel data...");
+            JfrEvents.ExcelSyncCycle syncEvent = new JfrEvents.ExcelSyncCycle();
+            syncEvent.begin();
+            long parseStart = System.nanoTime();
             Map<String, LearnerRecord> newLearners = readExcelFileWithRetry();
+            syncEvent.parseTime = System.nanoTime() - parseStart;
 
             // Update state only after successful read
             lastModifiedTime.set(currentModifiedTime.toMillis());
@@ -221,10 +225,17 @@ public class ExcelSchoolServer {
                 logger.debug("Sample records: {}", newLearners.values().stream().limit(3).toList());
             }
 
-            detectChanges(newLearners);
+            long diffStart = System.nanoTime();
+            detectChanges(newLearners, syncEvent);
+            // detectChanges records the database phase; the rest of its time is the diff
+            syncEvent.diffTime = System.nanoTime() - diffStart - syncEvent.dbTime;
             currentLearners.clear();
             currentLearners.putAll(newLearners);
 
+            syncEvent.learners = newLearners.size();
+            syncEvent.fileSize = currentSize;
+            syncEvent.commit();
+
             logger.info("Successfully processed {} learners from Excel", currentLearners.size());
 
         } catch (IOException e) {
@@ -486,7 +497,7 @@ public class ExcelSchoolServer {
         }
     }
 
-    private void detectChanges(Map<String, LearnerRecord> newLearners) {
+    private void detectChanges(Map<String, LearnerRecord> newLearners, JfrEvents.ExcelSyncCycle syncEvent) {
         List<LearnerRecord> changes = new ArrayList<>();
         Set<String> processed = new HashSet<>();
         Set<String> duplicateAdmissionNumbers = new HashSet<>(); // Track duplicates
@@ -552,9 +563,12 @@ public class ExcelSchoolServer {
                 newCount, updatedCount, removedCount, duplicateAdmissionNumbers.size(), skippedCount);
 
         // Process changes in database
+        syncEvent.changes = changes.size() + removedCount;
         if (!changes.isEmpty()) {
             logger.info("Processing {} changes in database", changes.size());
+            long dbStart = System.nanoTime();
             processChangesInDatabase(changes);
+            syncEvent.dbTime = System.nanoTime() - dbStart;
         } else {
             logger.info("No database changes to process");
         }
@@ -755,9 +769,9 @@ public class ExcelSchoolServer {
 
         try {
             JsonObject payload = createWebhookPayload(eventType, admissionNumber, learner);
-            String payloadString = payload.toString();
+            byte[] payloadBytes = payload.toString().getBytes(StandardCharsets.UTF_8);
 
-            HttpRequest request = buildWebhookRequest(payloadString);
+            HttpRequest request = buildWebhookRequest(payloadBytes);
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
@@ -790,7 +804,7 @@ public class ExcelSchoolServer {
         return payload;
     }
 
-    private HttpRequest buildWebhookRequest(String payloadString) {
+    private HttpRequest buildWebhookRequest(byte[] payloadBytes) {
         HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(webhookUrl))
                 .header("Content-Type", "application/json")
@@ -798,37 +812,16 @@ public class ExcelSchoolServer {
                 .header("User-Agent", "Excel-School-Server/1.0")
                 .header("X-Event-Source", "excel-file")
                 .timeout(HTTP_TIMEOUT)
-                .POST(HttpRequest.BodyPublishers.ofString(payloadString));
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payloadBytes));
 
-        if (hmacSecret != null && !hmacSecret.trim().isEmpty()) {
-            String signature = calculateHmacSignature(payloadString, hmacSecret);
-            builder.header("X-Hub-Signature-256", signature);
+        // Sign exactly the bytes that are sent
+        if (signer != null) {
+            builder.header("X-Hub-Signature-256", signer.sign(payloadBytes));
         }
 
         return builder.build();
     }
 
-    private String calculateHmacSignature(String data, String key) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKeySpec);
-            byte[] hmacData = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return "sha256=" + bytesToHex(hmacData);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            logger.error("Error calculating HMAC signature", e);
-            return "";
-        }
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
-    }
-
     // Retry mechanisms
     private Map<String, LearnerRecord> readExcelFileWithRetry() throws IOException {
         for (int attempt = 1; attempt <= MAX_FILE_READ_RETRIES; attempt++) {
@@ -0,0 +1,371 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.service.ReportService.ReportRequest;
+import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.EventBus;
+import com.cms.clubmanagementsystem.utils.EventTypes;
+import com.cms.clubmanagementsystem.utils.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs coordinator reports as background jobs.
+ *
+ * A job is recorded in the reports table as soon as it is queued and its status
+ * (queued, running, completed, failed, cancelled), output file and parameter
+ * hash are kept up to date there, so the report history survives restarts.
+ * Jobs run on a small bounded pool; when the queue is full new jobs are refused
+ * rather than piling up.
+ *
+ * Before generating, a job hashes its parameters together with a fingerprint of
+ * the underlying data. If a completed report with the same hash still has its
+ * file, that file is reused and nothing is regenerated.
+ *
+ * Every change is published on {@link EventTypes#REPORT_JOB_UPDATED}.
+ *
+ * Short interactive reporting queries, such as the analytics panels, run on a
+ * separate small pool ({@link #submitQuery}) so they never wait behind a long
+ * report.
+ */
+public class ReportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+    private static final ReportJobService instance = new ReportJobService();
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public String dbValue() {
+            return name().toLowerCase();
+        }
+
+        public static Status fromDb(String value) {
+            return value == null ? COMPLETED : valueOf(value.toUpperCase());
+        }
+    }
+
+    /**
+     * Snapshot of a job, as published to listeners. {@code rowsWritten} counts
+     * rows written so far while running.
+     */
+    public record JobUpdate(UUID reportId, String reportName, Status status, long rowsWritten,
+                            String filePath, String error, boolean cached) {}
+
+    private static final class Job {
+        final UUID reportId;
+        final ReportRequest request;
+        volatile Status status = Status.QUEUED;
+        volatile Future<?> future;
+
+        Job(UUID reportId, ReportRequest request) {
+            this.reportId = reportId;
+            this.request = request;
+        }
+    }
+
+    private static final String INSERT_SQL = """
+            INSERT INTO reports (report_id, report_name, report_type, format, school_id, generated_by,
+                                 start_date, end_date, status)
+            VALUES (?, ?, ?::report_type, ?::report_format, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE reports
+            SET status = ?, file_path = ?, params_hash = ?, error_message = ?,
+                generated_at = CASE WHEN ? THEN now() ELSE generated_at END
+            WHERE report_id = ?
+            """;
+
+    private static final String DELETE_SQL =
+            "DELETE FROM reports WHERE report_id = ? AND school_id = ? RETURNING file_path";
+
+    // Cache hits point new rows at an earlier report's file, so a file can outlive its first row
+    private static final String FILE_IN_USE_SQL = "SELECT 1 FROM reports WHERE file_path = ? LIMIT 1";
+
+    private static final String FIND_CACHED_SQL = """
+            SELECT file_path FROM reports
+            WHERE school_id = ? AND params_hash = ? AND status = 'completed' AND file_path IS NOT NULL
+            ORDER BY generated_at DESC
+            """;
+
+    private final ReportService reportService = new ReportService();
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor queryExecutor;
+    private final Path outputDirectory;
+
+    private ReportJobService() {
+        int workers = Integer.parseInt(EnvLoader.get("REPORT_WORKERS", "2"));
+        int queueCapacity = Integer.parseInt(EnvLoader.get("REPORT_QUEUE_CAPACITY", "20"));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "report-worker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        int queryThreads = Integer.parseInt(EnvLoader.get("REPORT_QUERY_THREADS", "4"));
+        AtomicInteger queryThreadCount = new AtomicInteger();
+        this.queryExecutor = new ThreadPoolExecutor(queryThreads, queryThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "report-query-" + queryThreadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.queryExecutor.allowCoreThreadTimeOut(true);
+        this.outputDirectory = Paths.get(EnvLoader.get("REPORTS_DIR", "data/reports"));
+    }
+
+    public static ReportJobService getInstance() {
+        return instance;
+    }
+
+    /**
+     * Records the job as queued and hands it to the pool.
+     *
+     * @return the new report's id
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public UUID submit(ReportRequest request) throws SQLException {
+        Job job = new Job(UUID.randomUUID(), request);
+        insertJob(job);
+        jobs.put(job.reportId, job);
+        publish(job, 0, null, null, false);
+        try {
+            job.future = executor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.reportId);
+            finish(job, Status.FAILED, null, null, "Too many reports queued", false);
+            throw e;
+        }
+        return job.reportId;
+    }
+
+    /**
+     * Cancels a queued or running job. Returns false if the job is not active
+     * in this session.
+     */
+    public boolean cancel(UUID reportId) {
+        Job job = jobs.get(reportId);
+        if (job == null || job.future == null) {
+            return false;
+        }
+        job.future.cancel(true);
+        if (job.status == Status.QUEUED) {
+            // Never started, so the worker won't record the cancellation itself
+            jobs.remove(reportId);
+            finish(job, Status.CANCELLED, null, null, null, false);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the report if it is still active, deletes its row and removes its
+     * file from REPORTS_DIR unless another report reuses it. Does JDBC and file
+     * work, so call it off the FX thread.
+     */
+    public void delete(UUID reportId, UUID schoolId, UUID userId) throws SQLException, IOException {
+        cancel(reportId);
+
+        String filePath = null;
+        try (Connection conn = DatabaseConnector.getConnection()) {
+            TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+            try (PreparedStatement ps = conn.prepareStatement(DELETE_SQL)) {
+                ps.setObject(1, reportId);
+                ps.setObject(2, schoolId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        filePath = rs.getString("file_path");
+                    }
+                }
+            }
+            if (filePath == null) {
+                return;
+            }
+            try (PreparedStatement ps = conn.prepareStatement(FILE_IN_USE_SQL)) {
+                ps.setString(1, filePath);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        Path file = Paths.get(filePath).toAbsolutePath().normalize();
+        if (!file.startsWith(outputDirectory.toAbsolutePath().normalize())) {
+            logger.warn("Not deleting report file outside {}: {}", outputDirectory, file);
+            return;
+        }
+        Files.deleteIfExists(file);
+        logger.info("Deleted report file {}", file);
+    }
+
+    public boolean isActive(UUID reportId) {
+        return jobs.containsKey(reportId);
+    }
+
+    /**
+     * Runs a short reporting query on the query pool. Cancelling the returned
+     * future with interruption stops it if it hasn't started yet.
+     */
+    public <T> Future<T> submitQuery(Callable<T> query) {
+        return queryExecutor.submit(query);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        queryExecutor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        if (job.future != null && job.future.isCancelled()) {
+            return;
+        }
+        job.status = Status.RUNNING;
+        updateStatus(job, Status.RUNNING);
+        publish(job, 0, null, null, false);
+
+        ReportRequest request = job.request;
+        File file = null;
+        boolean completed = false;
+        try (Connection conn = request.connect()) {
+            String hash = ReportService.parametersHash(request, reportService.dataVersion(conn, request));
+
+            String cachedPath = findCached(conn, request, hash);
+            if (cachedPath != null) {
+                logger.info("Report {} unchanged since last run, reusing {}", request.displayName(), cachedPath);
+                finish(job, Status.COMPLETED, cachedPath, hash, null, true);
+                return;
+            }
+
+            Files.createDirectories(outputDirectory);
+            file = outputDirectory.resolve(fileName(job)).toFile();
+            long rows = reportService.generate(conn, request, file,
+                    (done, total) -> publish(job, done, null, null, false));
+
+            logger.info("Generated report {} ({} rows) at {}", request.displayName(), rows, file.getAbsolutePath());
+            completed = true;
+            finish(job, Status.COMPLETED, file.getAbsolutePath(), hash, null, false);
+        } catch (CancellationException e) {
+            logger.info("Report {} cancelled", request.displayName());
+            finish(job, Status.CANCELLED, null, null, null, false);
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                finish(job, Status.CANCELLED, null, null, null, false);
+            } else {
+                logger.error("Report {} failed: {}", request.displayName(), e.getMessage(), e);
+                finish(job, Status.FAILED, null, null, e.getMessage(), false);
+            }
+        } finally {
+            jobs.remove(job.reportId);
+            // Cancelled or failed: nothing points at the partial file
+            if (!completed && file != null && file.exists() && !file.delete()) {
+                logger.warn("Could not remove partial report file {}", file);
+            }
+        }
+    }
+
+    private String findCached(Connection conn, ReportRequest request, String hash) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(FIND_CACHED_SQL)) {
+            ps.setObject(1, request.schoolId());
+            ps.setString(2, hash);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String path = rs.getString("file_path");
+                    if (Files.isRegularFile(Paths.get(path))) {
+                        return path;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private String fileName(Job job) {
+        String base = job.request.displayName().replaceAll("[^A-Za-z0-9]+", "_");
+        return base + "_" + job.reportId + "." + job.request.exportFormat().extension();
+    }
+
+    private void insertJob(Job job) throws SQLException {
+        ReportRequest request = job.request;
+        try (Connection conn = request.connect();
+             PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            ps.setObject(1, job.reportId);
+            ps.setString(2, request.displayName());
+            ps.setString(3, reportTypeValue(request.reportType()));
+            ps.setString(4, request.format().toLowerCase());
+            ps.setObject(5, request.schoolId());
+            ps.setObject(6, request.userId());
+            ps.setDate(7, Date.valueOf(request.startDate()));
+            ps.setDate(8, Date.valueOf(request.endDate()));
+            ps.setString(9, Status.QUEUED.dbValue());
+            ps.executeUpdate();
+        }
+    }
+
+    private void updateStatus(Job job, Status status) {
+        writeStatus(job, status, null, null, null);
+    }
+
+    private void finish(Job job, Status status, String filePath, String hash, String error, boolean cached) {
+        job.status = status;
+        writeStatus(job, status, filePath, hash, error);
+        publish(job, 0, filePath, error, cached);
+    }
+
+    private void writeStatus(Job job, Status status, String filePath, String hash, String error) {
+        try (Connection conn = job.request.connect();
+             PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
+            ps.setString(1, status.dbValue());
+            ps.setString(2, filePath);
+            ps.setString(3, hash);
+            ps.setString(4, error);
+            ps.setBoolean(5, status == Status.COMPLETED);
+            ps.setObject(6, job.reportId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            logger.warn("Could not record status {} for report {}: {}", status, job.reportId, e.getMessage());
+        }
+    }
+
+    private void publish(Job job, long rowsWritten, String filePath, String error, boolean cached) {
+        EventBus.publish(EventTypes.REPORT_JOB_UPDATED, new JobUpdate(job.reportId, job.request.displayName(),
+                job.status, rowsWritten, filePath, error, cached));
+    }
+
+    // The report_type enum describes cadence rather than content
+    private static String reportTypeValue(String reportType) {
+        return switch (reportType) {
+            case ReportService.ATTENDANCE_SUMMARY, ReportService.SESSION_FREQUENCY -> "weekly";
+            case ReportService.LEARNER_ENROLLMENT -> "termly";
+            case ReportService.COMPREHENSIVE -> "annual";
+            default -> "monthly";
+        };
+    }
+}
@@ -0,0 +1,254 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.StreamingExport;
+import com.cms.clubmanagementsystem.utils.TenantContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds the coordinator reports. Each report type is one query over the
+ * requested period, optionally limited to one club, streamed to a PDF or
+ * Excel file through {@link StreamingExport}. The comprehensive report is
+ * assembled from per-club sections by {@link ComprehensiveReport}.
+ */
+public class ReportService {
+
+    public static final String ATTENDANCE_SUMMARY = "Attendance Summary";
+    public static final String CLUB_PERFORMANCE = "Club Performance";
+    public static final String LEARNER_ENROLLMENT = "Learner Enrollment";
+    public static final String TEACHER_ENGAGEMENT = "Teacher Engagement";
+    public static final String SESSION_FREQUENCY = "Session Frequency";
+    public static final String COMPREHENSIVE = "Comprehensive Report";
+
+    /**
+     * Everything that determines a report's content. {@code clubId} is null for
+     * all clubs.
+     */
+    public record ReportRequest(String reportType, String timePeriod, LocalDate startDate, LocalDate endDate,
+                                UUID clubId, String clubName, String format, UUID schoolId, UUID userId) {
+
+        public String displayName() {
+            return reportType + " - " + timePeriod + (clubId != null ? " - " + clubName : "");
+        }
+
+        /**
+         * A connection scoped to the requesting school and user. Reports run on
+         * worker threads, which have no session to take the tenant from.
+         */
+        Connection connect() throws SQLException {
+            Connection conn = DatabaseConnector.getConnection();
+            try {
+                TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+                return conn;
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+        }
+
+        public StreamingExport.Format exportFormat() {
+            return "Excel".equalsIgnoreCase(format) ? StreamingExport.Format.XLSX : StreamingExport.Format.PDF;
+        }
+    }
+
+    // Every query reads school and period from p, and takes the club as its last parameter when one is selected
+    private static final String PARAMS = "WITH p AS (SELECT ?::uuid AS school_id, ?::date AS from_date, ?::date AS to_date)\n";
+
+    private record Definition(String sql, String clubCondition, List<String> headers) {}
+
+    private static final Definition ATTENDANCE_SUMMARY_REPORT = new Definition(PARAMS + """
+            SELECT c.club_name,
+                   COUNT(ar.record_id) AS total_records,
+                   COUNT(*) FILTER (WHERE ar.status = 'present') AS present_count,
+                   ROUND(COUNT(*) FILTER (WHERE ar.status = 'present') * 100.0 / NULLIF(COUNT(ar.record_id), 0), 2) AS attendance_rate
+            FROM p
+            JOIN clubs c ON c.school_id = p.school_id
+            JOIN attendance_sessions s ON s.club_id = c.club_id AND s.session_date BETWEEN p.from_date AND p.to_date
+            JOIN attendance_records ar ON ar.session_id = s.session_id
+            WHERE true %s
+            GROUP BY c.club_name
+            ORDER BY attendance_rate DESC NULLS LAST
+            """, "AND c.club_id = ?",
+            List.of("Club", "Records", "Present", "Attendance Rate (%)"));
+
+    private static final Definition CLUB_PERFORMANCE_REPORT = new Definition(PARAMS + """
+            SELECT c.club_name,
+                   COUNT(DISTINCT s.session_id) AS sessions_held,
+                   COUNT(DISTINCT ar.learner_id) AS learners_marked,
+                   COUNT(*) FILTER (WHERE ar.status = 'present') AS present_count,
+                   COUNT(*) FILTER (WHERE ar.status = 'absent') AS absent_count,
+                   ROUND(COUNT(*) FILTER (WHERE ar.status = 'present') * 100.0 / NULLIF(COUNT(ar.record_id), 0), 2) AS attendance_rate
+            FROM p
+            JOIN clubs c ON c.school_id = p.school_id AND c.is_active = true
+            LEFT JOIN attendance_sessions s ON s.club_id = c.club_id AND s.session_date BETWEEN p.from_date AND p.to_date
+            LEFT JOIN attendance_records ar ON ar.session_id = s.session_id
+            WHERE true %s
+            GROUP BY c.club_id, c.club_name
+            ORDER BY attendance_rate DESC NULLS LAST, c.club_name
+            """, "AND c.club_id = ?",
+            List.of("Club", "Sessions", "Learners Marked", "Present", "Absent", "Attendance Rate (%)"));
+
+    private static final Definition LEARNER_ENROLLMENT_REPORT = new Definition(PARAMS + """
+            SELECT c.club_name,
+                   COUNT(ce.enrollment_id) FILTER (WHERE ce.is_active) AS active_enrollments,
+                   COUNT(ce.enrollment_id) FILTER (WHERE NOT ce.is_active) AS withdrawn,
+                   COUNT(ce.enrollment_id) FILTER (WHERE ce.enrollment_date::date BETWEEN p.from_date AND p.to_date) AS enrolled_in_period
+            FROM p
+            JOIN clubs c ON c.school_id = p.school_id AND c.is_active = true
+            LEFT JOIN club_enrollments ce ON ce.club_id = c.club_id AND ce.school_id = c.school_id
+            WHERE true %s
+            GROUP BY c.club_id, c.club_name
+            ORDER BY c.club_name
+            """, "AND c.club_id = ?",
+            List.of("Club", "Active", "Withdrawn", "Enrolled In Period"));
+
+    private static final Definition TEACHER_ENGAGEMENT_REPORT = new Definition(PARAMS + """
+            SELECT u.full_name,
+                   COUNT(DISTINCT ct.club_id) AS clubs,
+                   COUNT(DISTINCT s.session_id) AS sessions_conducted
+            FROM p
+            JOIN users u ON u.school_id = p.school_id AND u.role = 'teacher' AND u.is_active = true
+            JOIN club_teachers ct ON u.user_id = ct.teacher_id
+            LEFT JOIN attendance_sessions s ON ct.club_id = s.club_id AND s.session_date BETWEEN p.from_date AND p.to_date
+            WHERE true %s
+            GROUP BY u.user_id, u.full_name
+            ORDER BY sessions_conducted DESC, u.full_name
+            """, "AND ct.club_id = ?",
+            List.of("Teacher", "Clubs", "Sessions Conducted"));
+
+    private static final Definition SESSION_FREQUENCY_REPORT = new Definition(PARAMS + """
+            SELECT c.club_name,
+                   TRIM(TO_CHAR(s.session_date, 'Day')) AS session_day,
+                   COUNT(*) AS sessions
+            FROM p
+            JOIN clubs c ON c.school_id = p.school_id
+            JOIN attendance_sessions s ON s.club_id = c.club_id AND s.session_date BETWEEN p.from_date AND p.to_date
+            WHERE true %s
+            GROUP BY c.club_name, EXTRACT(ISODOW FROM s.session_date), TRIM(TO_CHAR(s.session_date, 'Day'))
+            ORDER BY c.club_name, EXTRACT(ISODOW FROM s.session_date)
+            """, "AND c.club_id = ?",
+            List.of("Club", "Day", "Sessions"));
+
+    // Changes whenever attendance, sessions, enrollments, clubs, teachers or their club
+    // assignments that a report could show change. Not every update bumps updated_at
+    // (e.g. activation toggles), so active counts are included too; club_teachers has no
+    // timestamp, so its rows are summed as hashes to catch one teacher replacing another
+    private static final String DATA_VERSION_SQL = """
+            SELECT concat_ws('|',
+                (SELECT COUNT(*) || ':' || COALESCE(MAX(ar.marked_at)::text, '')
+                 FROM attendance_records ar
+                 JOIN attendance_sessions s ON ar.session_id = s.session_id
+                 WHERE s.school_id = ? AND s.session_date BETWEEN ? AND ?),
+                (SELECT COUNT(*)::text
+                 FROM attendance_sessions s
+                 WHERE s.school_id = ? AND s.session_date BETWEEN ? AND ?),
+                (SELECT COUNT(*) || ':' || COALESCE(MAX(ce.updated_at)::text, '')
+                 FROM club_enrollments ce
+                 WHERE ce.school_id = ?),
+                (SELECT COUNT(*) || ':' || COUNT(*) FILTER (WHERE c.is_active) || ':' || COALESCE(MAX(c.updated_at)::text, '')
+                 FROM clubs c
+                 WHERE c.school_id = ?),
+                (SELECT COUNT(*) || ':' || COUNT(*) FILTER (WHERE u.is_active) || ':' || COALESCE(MAX(u.updated_at)::text, '')
+                 FROM users u
+                 WHERE u.school_id = ?),
+                (SELECT COUNT(*) || ':' || COALESCE(SUM(hashtext(ct.club_id::text || ct.teacher_id::text)::bigint), 0)
+                 FROM club_teachers ct
+                 WHERE ct.school_id = ?))
+            """;
+
+    /**
+     * Writes the report to {@code file} and returns the number of rows written.
+     */
+    public long generate(Connection conn, ReportRequest request, File file,
+                         StreamingExport.Progress progress) throws SQLException, IOException {
+        if (COMPREHENSIVE.equals(request.reportType())) {
+            return new ComprehensiveReport(request, progress).generate(conn, file);
+        }
+
+        Definition definition = definitionFor(request.reportType());
+        String sql = definition.sql().formatted(request.clubId() != null ? definition.clubCondition() : "");
+
+        return StreamingExport.query(sql)
+                .bind(ps -> {
+                    ps.setObject(1, request.schoolId());
+                    ps.setDate(2, Date.valueOf(request.startDate()));
+                    ps.setDate(3, Date.valueOf(request.endDate()));
+                    if (request.clubId() != null) {
+                        ps.setObject(4, request.clubId());
+                    }
+                })
+                .headers(definition.headers())
+                .sheetName(request.reportType())
+                .title(request.displayName(), request.startDate() + " to " + request.endDate())
+                .onProgress(progress)
+                .writeTo(conn, file, request.exportFormat());
+    }
+
+    private Definition definitionFor(String reportType) {
+        return switch (reportType) {
+            case ATTENDANCE_SUMMARY -> ATTENDANCE_SUMMARY_REPORT;
+            case CLUB_PERFORMANCE -> CLUB_PERFORMANCE_REPORT;
+            case LEARNER_ENROLLMENT -> LEARNER_ENROLLMENT_REPORT;
+            case TEACHER_ENGAGEMENT -> TEACHER_ENGAGEMENT_REPORT;
+            case SESSION_FREQUENCY -> SESSION_FREQUENCY_REPORT;
+            default -> throw new IllegalArgumentException("Unknown report type: " + reportType);
+        };
+    }
+
+    /**
+     * Fingerprint of the data behind reports for the request's school and period.
+     */
+    public String dataVersion(Connection conn, ReportRequest request) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(DATA_VERSION_SQL)) {
+            Date start = Date.valueOf(request.startDate());
+            Date end = Date.valueOf(request.endDate());
+            ps.setObject(1, request.schoolId());
+            ps.setDate(2, start);
+            ps.setDate(3, end);
+            ps.setObject(4, request.schoolId());
+            ps.setDate(5, start);
+            ps.setDate(6, end);
+            ps.setObject(7, request.schoolId());
+            ps.setObject(8, request.schoolId());
+            ps.setObject(9, request.schoolId());
+            ps.setObject(10, request.schoolId());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : "";
+            }
+        }
+    }
+
+    /**
+     * Cache key for a report: identical for requests that would produce the same file.
+     */
+    public static String parametersHash(ReportRequest request, String dataVersion) {
+        String key = String.join("\n",
+                request.reportType(),
+                request.format(),
+                String.valueOf(request.startDate()),
+                String.valueOf(request.endDate()),
+                String.valueOf(request.clubId()),
+                String.valueOf(request.schoolId()),
+                dataVersion);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
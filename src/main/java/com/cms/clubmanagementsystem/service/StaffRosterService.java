@@ -0,0 +1,141 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.TenantContext;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads the staff rosters shown on the teacher and coordinator management
+ * screens. Each roster is a single query: a teacher's club and grades are
+ * aggregated in SQL rather than fetched per row, so loading costs one round
+ * trip however many staff the school has.
+ *
+ * Methods block on the database and are meant to be called off the FX thread.
+ * Those threads have no session, so callers pass the school and user captured
+ * on the FX thread and they are set on the connection.
+ */
+public class StaffRosterService {
+
+    /**
+     * A teacher with their club assignment and grade names, sorted by name.
+     * {@code clubId} and {@code clubName} are null when unassigned; an empty
+     * grade list means all grades.
+     */
+    public record TeacherEntry(UUID userId, String username, String fullName, String email, String phone,
+                               boolean active, Timestamp createdAt, UUID clubId, String clubName,
+                               List<String> grades) {
+        public TeacherEntry {
+            grades = List.copyOf(grades);
+        }
+    }
+
+    public record CoordinatorEntry(UUID userId, String username, String fullName, String email, String phone,
+                                   boolean activeCoordinator, Timestamp createdAt) {}
+
+    private static final String TEACHER_ROSTER_SQL = """
+        SELECT u.user_id, u.username, u.full_name, u.email, u.phone, u.is_active, u.created_at,
+               c.club_id, c.club_name,
+               COALESCE(tg.grade_names, ARRAY[]::text[]) AS grade_names
+        FROM users u
+        LEFT JOIN club_teachers ct ON u.user_id = ct.teacher_id
+        LEFT JOIN clubs c ON ct.club_id = c.club_id
+        LEFT JOIN (
+            SELECT tg.teacher_id, array_agg(g.grade_name::text ORDER BY g.grade_name) AS grade_names
+            FROM teacher_grades tg
+            JOIN grades g ON tg.grade_id = g.grade_id
+            WHERE tg.school_id = ?
+            GROUP BY tg.teacher_id
+        ) tg ON tg.teacher_id = u.user_id
+        WHERE u.school_id = ?
+        AND u.role = 'teacher'
+        ORDER BY u.full_name
+        """;
+
+    private static final String COORDINATOR_ROSTER_SQL = """
+        SELECT user_id, username, full_name, email, phone, is_active_coordinator, created_at
+        FROM users
+        WHERE school_id = ? AND role = 'club_coordinator'
+        ORDER BY is_active_coordinator DESC, full_name
+        """;
+
+    public List<TeacherEntry> loadTeachers(UUID schoolId, UUID userId) throws SQLException {
+        List<TeacherEntry> teachers = new ArrayList<>();
+        try (Connection conn = connect(schoolId, userId);
+             PreparedStatement stmt = conn.prepareStatement(TEACHER_ROSTER_SQL)) {
+            stmt.setObject(1, schoolId);
+            stmt.setObject(2, schoolId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    teachers.add(new TeacherEntry(
+                            (UUID) rs.getObject("user_id"),
+                            rs.getString("username"),
+                            rs.getString("full_name"),
+                            rs.getString("email"),
+                            rs.getString("phone"),
+                            rs.getBoolean("is_active"),
+                            rs.getTimestamp("created_at"),
+                            (UUID) rs.getObject("club_id"),
+                            rs.getString("club_name"),
+                            readStrings(rs.getArray("grade_names"))
+                    ));
+                }
+            }
+        }
+        return teachers;
+    }
+
+    public List<CoordinatorEntry> loadCoordinators(UUID schoolId, UUID userId) throws SQLException {
+        List<CoordinatorEntry> coordinators = new ArrayList<>();
+        try (Connection conn = connect(schoolId, userId);
+             PreparedStatement stmt = conn.prepareStatement(COORDINATOR_ROSTER_SQL)) {
+            stmt.setObject(1, schoolId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    coordinators.add(new CoordinatorEntry(
+                            (UUID) rs.getObject("user_id"),
+                            rs.getString("username"),
+                            rs.getString("full_name"),
+                            rs.getString("email"),
+                            rs.getString("phone"),
+                            rs.getBoolean("is_active_coordinator"),
+                            rs.getTimestamp("created_at")
+                    ));
+                }
+            }
+        }
+        return coordinators;
+    }
+
+    private static Connection connect(UUID schoolId, UUID userId) throws SQLException {
+        Connection conn = DatabaseConnector.getConnection();
+        try {
+            TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    private static List<String> readStrings(Array array) throws SQLException {
+        if (array == null) {
+            return List.of();
+        }
+        try {
+            return List.of((String[]) array.getArray());
+        } finally {
+            array.free();
+        }
+    }
+}
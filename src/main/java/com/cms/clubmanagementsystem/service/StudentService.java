@@ -2,38 +2,87 @@ package com.cms.clubmanagementsystem.service;
 
 import com.cms.clubmanagementsystem.model.Learner;
 import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.PagedTableSource.SortKey;
+import com.cms.clubmanagementsystem.utils.TenantContext;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class StudentService {
 
-    public List<Learner> fetchAllStudentsFromDatabase(UUID schoolId) {
-        List<Learner> students = new ArrayList<>();
+    // Sort keys the student list may request, mapped to their columns
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "admissionNumber", "l.admission_number",
+            "fullName", "l.full_name",
+            "gradeName", "g.grade_name",
+            "gender", "l.gender"
+    );
+
+    private static final String SEARCH_CONDITION =
+            " AND (l.admission_number ILIKE ? OR l.full_name ILIKE ? OR g.grade_name ILIKE ? OR l.gender ILIKE ?)";
+
+    /**
+     * Number of learners in the school matching the search text (blank matches all).
+     * Runs on loader threads, so the tenant is passed in rather than read from the session.
+     */
+    public int countStudents(UUID schoolId, UUID userId, String search) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM learners l " +
+                "LEFT JOIN grades g ON l.grade_id = g.grade_id " +
+                "WHERE l.school_id = ?" + (isBlank(search) ? "" : SEARCH_CONDITION);
+
+        try (Connection conn = connect(schoolId, userId);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            bindSearch(pstmt, schoolId, search);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * One page of learners matching the search text. With no sort keys the list
+     * is ordered by grade; name and then learner_id break ties so pages never overlap.
+     */
+    public List<Learner> fetchStudentPage(UUID schoolId, UUID userId, String search, List<SortKey> sort,
+                                          int offset, int limit) throws SQLException {
+        StringBuilder orderBy = new StringBuilder();
+        for (SortKey key : sort) {
+            String column = SORT_COLUMNS.get(key.key());
+            if (column != null) {
+                orderBy.append(column).append(key.ascending() ? " ASC" : " DESC").append(", ");
+            }
+        }
+        if (orderBy.isEmpty()) {
+            orderBy.append("g.grade_name, ");
+        }
+        orderBy.append("l.full_name, l.learner_id");
+
         String sql = "SELECT l.learner_id, l.admission_number, l.full_name, " +
-                "l.grade_id, g.grade_name, l.school_id, " + // Removed is_active
+                "l.grade_id, g.grade_name, l.school_id, " +
                 "l.date_joined_school, l.created_at, l.gender " +
                 "FROM learners l " +
                 "LEFT JOIN grades g ON l.grade_id = g.grade_id " +
-                "WHERE l.school_id = ? " +
-                "ORDER BY l.full_name";
+                "WHERE l.school_id = ?" + (isBlank(search) ? "" : SEARCH_CONDITION) +
+                " ORDER BY " + orderBy +
+                " LIMIT ? OFFSET ?";
 
-        try (Connection conn = DatabaseConnector.getConnection();
+        List<Learner> students = new ArrayList<>();
+        try (Connection conn = connect(schoolId, userId);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setObject(1, schoolId);
+            int index = bindSearch(pstmt, schoolId, search);
+            pstmt.setInt(index++, limit);
+            pstmt.setInt(index, offset);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Learner learner = new Learner(
+                    students.add(new Learner(
                             (UUID) rs.getObject("learner_id"),
                             rs.getString("admission_number"),
                             rs.getString("full_name"),
@@ -42,19 +91,40 @@ public class StudentService {
                             (UUID) rs.getObject("school_id"),
                             rs.getDate("date_joined_school").toLocalDate(),
                             rs.getTimestamp("created_at") != null ?
-                                    rs.getTimestamp("created_at").toInstant().atZone(java.time.ZoneId.systemDefault()) : null,
+                                    rs.getTimestamp("created_at").toInstant().atZone(ZoneId.systemDefault()) : null,
                             rs.getString("gender")
-                    );
-                    students.add(learner);
+                    ));
                 }
             }
+        }
+        return students;
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Error fetching students from database: " + e.getMessage());
-            e.printStackTrace();
+    private int bindSearch(PreparedStatement pstmt, UUID schoolId, String search) throws SQLException {
+        int index = 1;
+        pstmt.setObject(index++, schoolId);
+        if (!isBlank(search)) {
+            String pattern = "%" + search.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            for (int i = 0; i < 4; i++) {
+                pstmt.setString(index++, pattern);
+            }
         }
+        return index;
+    }
 
-        return students;
+    // The session is thread-local, so connections opened off the FX thread get the tenant explicitly
+    private static Connection connect(UUID schoolId, UUID userId) throws SQLException {
+        Connection conn = DatabaseConnector.getConnection();
+        try {
+            TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
     }
 
-}
\ No newline at end of file
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,328 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.utils.DatabaseConnector;
+import com.cms.clubmanagementsystem.utils.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory index of the usernames and emails already taken in each school, so
+ * availability can be checked as the user types without a query per keystroke.
+ *
+ * Each school is loaded once with a single query into a Bloom filter plus an
+ * exact set. A Bloom miss means the value is free. A Bloom hit that is also in
+ * the exact set is confirmed against the database, since the user may have been
+ * changed elsewhere. Forms still check the database on submit.
+ *
+ * Callers must record users they create or update through this class so the
+ * index stays current. All methods may block and must not run on the FX thread.
+ * The threads they run on have no session, so callers pass the school and user
+ * captured on the FX thread and they are set on each connection.
+ */
+public class UserAvailabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityIndex.class);
+    private static final UserAvailabilityIndex instance = new UserAvailabilityIndex();
+
+    public enum Kind {
+        USERNAME("username"),
+        EMAIL("email");
+
+        private final String column;
+
+        Kind(String column) {
+            this.column = column;
+        }
+    }
+
+    private final ConcurrentHashMap<UUID, CompletableFuture<SchoolIndex>> schools = new ConcurrentHashMap<>();
+    // Loads block on JDBC, so they get their own thread rather than the common ForkJoin pool
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "user-index-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private UserAvailabilityIndex() {
+    }
+
+    public static UserAvailabilityIndex getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts loading the school's index in the background if it is not loaded yet.
+     */
+    public void preload(UUID schoolId, UUID userId) {
+        if (schoolId != null && userId != null) {
+            schools.computeIfAbsent(schoolId, id -> startLoad(id, userId));
+        }
+    }
+
+    public boolean isUsernameAvailable(UUID schoolId, UUID userId, String username) throws SQLException {
+        return isAvailable(schoolId, userId, Kind.USERNAME, username);
+    }
+
+    public boolean isEmailAvailable(UUID schoolId, UUID userId, String email) throws SQLException {
+        return isAvailable(schoolId, userId, Kind.EMAIL, email);
+    }
+
+    public boolean isAvailable(UUID schoolId, UUID userId, Kind kind, String value) throws SQLException {
+        String key = normalize(value);
+        SchoolIndex index = index(schoolId, userId);
+        if (!index.mightContain(kind, key)) {
+            return true;
+        }
+        if (!index.contains(kind, key)) {
+            // Bloom false positive
+            return true;
+        }
+
+        // Probable hit: confirm, the user may have been renamed or removed elsewhere
+        boolean taken = countInDatabase(schoolId, userId, kind, key) > 0;
+        if (!taken) {
+            index.remove(kind, key);
+        }
+        return !taken;
+    }
+
+    public void recordUser(UUID schoolId, String username, String email) {
+        SchoolIndex index = loadedIndex(schoolId);
+        if (index != null) {
+            index.add(Kind.USERNAME, normalize(username));
+            index.add(Kind.EMAIL, normalize(email));
+        }
+    }
+
+    public void recordEmailChange(UUID schoolId, String oldEmail, String newEmail) {
+        SchoolIndex index = loadedIndex(schoolId);
+        if (index != null) {
+            if (oldEmail != null) {
+                index.remove(Kind.EMAIL, normalize(oldEmail));
+            }
+            index.add(Kind.EMAIL, normalize(newEmail));
+        }
+    }
+
+    /**
+     * Drops a school's index; it is reloaded on the next check.
+     */
+    public void invalidate(UUID schoolId) {
+        if (schoolId != null) {
+            schools.remove(schoolId);
+        }
+    }
+
+    private SchoolIndex index(UUID schoolId, UUID userId) throws SQLException {
+        if (schoolId == null || userId == null) {
+            throw new SQLException("No school session found");
+        }
+        CompletableFuture<SchoolIndex> future = schools.computeIfAbsent(schoolId, id -> startLoad(id, userId));
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while loading user index", e);
+        } catch (ExecutionException e) {
+            // Let the next check retry the load
+            schools.remove(schoolId, future);
+            throw new SQLException("Failed to load user index", e.getCause());
+        }
+    }
+
+    // Returns the index only if it has finished loading; a later load reads the new row anyway
+    private SchoolIndex loadedIndex(UUID schoolId) {
+        if (schoolId == null) {
+            return null;
+        }
+        CompletableFuture<SchoolIndex> future = schools.get(schoolId);
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    private CompletableFuture<SchoolIndex> startLoad(UUID schoolId, UUID userId) {
+        return CompletableFuture.supplyAsync(() -> load(schoolId, userId), loader);
+    }
+
+    private SchoolIndex load(UUID schoolId, UUID userId) {
+        String sql = "SELECT username, email FROM users WHERE school_id = ?";
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        try (Connection conn = connect(schoolId, userId);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, schoolId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String username = rs.getString(1);
+                    String email = rs.getString(2);
+                    if (username != null) {
+                        usernames.add(normalize(username));
+                    }
+                    if (email != null) {
+                        emails.add(normalize(email));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        logger.info("Loaded user availability index for school {}: {} usernames, {} emails",
+                schoolId, usernames.size(), emails.size());
+        return new SchoolIndex(usernames, emails);
+    }
+
+    private int countInDatabase(UUID schoolId, UUID userId, Kind kind, String key) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM users WHERE " + kind.column + " = ? AND school_id = ?";
+        try (Connection conn = connect(schoolId, userId);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.setObject(2, schoolId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static Connection connect(UUID schoolId, UUID userId) throws SQLException {
+        Connection conn = DatabaseConnector.getConnection();
+        try {
+            TenantContext.setTenant(conn, schoolId.toString(), userId.toString());
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    // Usernames and emails are stored lowercased
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class SchoolIndex {
+        private final Set<String> usernames;
+        private final Set<String> emails;
+        private BloomFilter usernameFilter;
+        private BloomFilter emailFilter;
+
+        SchoolIndex(Set<String> usernames, Set<String> emails) {
+            this.usernames = usernames;
+            this.emails = emails;
+            this.usernameFilter = BloomFilter.of(usernames);
+            this.emailFilter = BloomFilter.of(emails);
+        }
+
+        synchronized boolean mightContain(Kind kind, String key) {
+            return (kind == Kind.USERNAME ? usernameFilter : emailFilter).mightContain(key);
+        }
+
+        synchronized boolean contains(Kind kind, String key) {
+            return (kind == Kind.USERNAME ? usernames : emails).contains(key);
+        }
+
+        synchronized void add(Kind kind, String key) {
+            if (key.isEmpty()) {
+                return;
+            }
+            if (kind == Kind.USERNAME) {
+                usernames.add(key);
+                usernameFilter = usernameFilter.withAdded(key, usernames);
+            } else {
+                emails.add(key);
+                emailFilter = emailFilter.withAdded(key, emails);
+            }
+        }
+
+        // Bloom filters can't delete; the exact set is what turns the stale bit into a miss
+        synchronized void remove(Kind kind, String key) {
+            (kind == Kind.USERNAME ? usernames : emails).remove(key);
+        }
+    }
+
+    /**
+     * Fixed-size Bloom filter sized for about 1% false positives at its capacity.
+     * Indexes are derived from two halves of a 64-bit hash (Kirsch-Mitzenmacher).
+     */
+    private static final class BloomFilter {
+        private static final int HASHES = 7;
+        private static final int BITS_PER_ENTRY = 10;
+        private static final int MIN_CAPACITY = 256;
+
+        private final long[] bits;
+        private final int bitCount;
+        private final int capacity;
+        private int size;
+
+        private BloomFilter(int capacity) {
+            this.capacity = capacity;
+            this.bitCount = capacity * BITS_PER_ENTRY;
+            this.bits = new long[(bitCount + 63) / 64];
+        }
+
+        static BloomFilter of(Set<String> values) {
+            BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, values.size() * 2));
+            values.forEach(filter::put);
+            return filter;
+        }
+
+        // Rebuilds at twice the size once full so the false-positive rate stays low
+        BloomFilter withAdded(String value, Set<String> all) {
+            if (size >= capacity) {
+                return of(all);
+            }
+            put(value);
+            return this;
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int index = Math.floorMod(h1 + i * h2, bitCount);
+                bits[index >>> 6] |= 1L << index;
+            }
+            size++;
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits[index >>> 6] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over the chars, then a murmur finalizer to spread the bits
+        private static long hash64(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
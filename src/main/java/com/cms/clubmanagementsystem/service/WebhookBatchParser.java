@@ -0,0 +1,127 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for batched webhook payloads.
+ * Accepts either a JSON array of event objects or NDJSON (one object per line)
+ * and reads them with {@link JsonReader} without building a JSON tree.
+ */
+public class WebhookBatchParser {
+
+    public static final String FIELD_EVENT_TYPE = "event_type";
+    public static final String FIELD_ADMISSION_NUMBER = "admission_number";
+    public static final String FIELD_ID = "id";
+
+    private final int maxItems;
+
+    public WebhookBatchParser(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * A single event read from the batch. Fields that were missing or not strings are null.
+     */
+    public record BatchItem(int index, String id, String eventType, String admissionNumber, String error) {
+        public boolean isParsed() {
+            return error == null;
+        }
+    }
+
+    public static class BatchTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public BatchTooLargeException(int maxItems) {
+            super("Batch exceeds maximum of " + maxItems + " events");
+        }
+    }
+
+    /**
+     * Parses the raw body. Malformed JSON aborts the whole batch, while objects with
+     * missing fields are returned as items so they can be reported individually.
+     */
+    public List<BatchItem> parse(byte[] body) throws IOException {
+        List<BatchItem> items = new ArrayList<>();
+
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+
+            JsonToken first = reader.peek();
+            if (first == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    addItem(items, readItem(reader, items.size()));
+                }
+                reader.endArray();
+                if (reader.peek() != JsonToken.END_DOCUMENT) {
+                    throw new MalformedJsonException("Unexpected content after JSON array");
+                }
+            } else if (first == JsonToken.BEGIN_OBJECT) {
+                // NDJSON: lenient mode lets the reader consume consecutive top-level values
+                reader.setLenient(true);
+                while (reader.peek() != JsonToken.END_DOCUMENT) {
+                    addItem(items, readItem(reader, items.size()));
+                }
+            } else {
+                throw new MalformedJsonException("Batch must be a JSON array or NDJSON objects");
+            }
+        } catch (IllegalStateException e) {
+            throw new MalformedJsonException(e.getMessage());
+        }
+
+        return items;
+    }
+
+    private void addItem(List<BatchItem> items, BatchItem item) throws BatchTooLargeException {
+        if (items.size() >= maxItems) {
+            throw new BatchTooLargeException(maxItems);
+        }
+        items.add(item);
+    }
+
+    private BatchItem readItem(JsonReader reader, int index) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return new BatchItem(index, null, null, null, "INVALID_PAYLOAD");
+        }
+
+        String id = null;
+        String eventType = null;
+        String admissionNumber = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case FIELD_ID -> id = readString(reader);
+                case FIELD_EVENT_TYPE -> eventType = readString(reader);
+                case FIELD_ADMISSION_NUMBER -> admissionNumber = readString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (eventType == null || admissionNumber == null || admissionNumber.isEmpty()) {
+            return new BatchItem(index, id, eventType, admissionNumber, "INVALID_PAYLOAD");
+        }
+        return new BatchItem(index, id, eventType, admissionNumber, null);
+    }
+
+    private String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,418 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.JfrEvents;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small embedded HTTP server for the webhook listener.
+ *
+ * Unlike Spark's static singleton, each instance owns its own listener, so
+ * several can run in one JVM. Handlers run on virtual threads; concurrency is
+ * bounded by a semaphore rather than a thread pool size. Routes and filters use
+ * a Spark-like API so the webhook handlers read the same way they did before.
+ */
+public class WebhookHttpServer {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookHttpServer.class);
+
+    private final Config config;
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final Semaphore concurrencyLimit;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService handlerExecutor;
+
+    public WebhookHttpServer(Config config) {
+        this.config = config;
+        this.concurrencyLimit = new Semaphore(config.maxConcurrentRequests());
+    }
+
+    /**
+     * Listener settings. Keep-alive and header limits map onto the JDK server's
+     * {@code sun.net.httpserver.*} properties, which are read once per JVM.
+     */
+    public record Config(int port,
+                         int maxConcurrentRequests,
+                         long maxRequestBytes,
+                         int keepAliveSeconds,
+                         int maxIdleConnections,
+                         int maxRequestHeaders,
+                         long acquireTimeoutMs,
+                         int drainTimeoutSeconds) {
+
+        public static Config fromEnvironment(int port) {
+            return new Config(
+                    port,
+                    intSetting("WEBHOOK_MAX_CONCURRENCY", 64),
+                    longSetting("WEBHOOK_MAX_REQUEST_BYTES", 10L * 1024 * 1024),
+                    intSetting("WEBHOOK_KEEP_ALIVE_SECONDS", 30),
+                    intSetting("WEBHOOK_MAX_IDLE_CONNECTIONS", 200),
+                    intSetting("WEBHOOK_MAX_REQUEST_HEADERS", 100),
+                    longSetting("WEBHOOK_ACQUIRE_TIMEOUT_MS", 250),
+                    intSetting("WEBHOOK_DRAIN_TIMEOUT_SECONDS", 10));
+        }
+
+        private static int intSetting(String key, int defaultValue) {
+            return (int) longSetting(key, defaultValue);
+        }
+
+        private static long longSetting(String key, long defaultValue) {
+            String value = EnvLoader.get(key);
+            if (value == null || value.trim().isEmpty()) {
+                return defaultValue;
+            }
+            try {
+                long parsed = Long.parseLong(value.trim());
+                return parsed > 0 ? parsed : defaultValue;
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' for {}, using default {}", value, key, defaultValue);
+                return defaultValue;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Filter {
+        void handle(Request req, Response res) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Route {
+        String handle(Request req, Response res) throws Exception;
+    }
+
+    /**
+     * Thrown by {@link #halt(String)} to stop filter/route processing with the
+     * response status already set on the {@link Response}.
+     */
+    public static class HaltException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final String body;
+
+        HaltException(String body) {
+            super(null, null, false, false);
+            this.body = body;
+        }
+
+        public String body() {
+            return body;
+        }
+    }
+
+    private static final class Endpoint {
+        final List<Filter> filters = new ArrayList<>();
+        final Map<String, Route> routes = new LinkedHashMap<>();
+    }
+
+    public void before(String path, Filter filter) {
+        endpoint(path).filters.add(filter);
+    }
+
+    public void post(String path, Route route) {
+        endpoint(path).routes.put("POST", route);
+    }
+
+    public void get(String path, Route route) {
+        endpoint(path).routes.put("GET", route);
+    }
+
+    public HaltException halt(String body) {
+        throw new HaltException(body);
+    }
+
+    private synchronized Endpoint endpoint(String path) {
+        if (server != null) {
+            throw new IllegalStateException("Routes must be registered before the server starts");
+        }
+        return endpoints.computeIfAbsent(path, p -> new Endpoint());
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Webhook server already started on port " + config.port());
+        }
+
+        applyConnectionSettings();
+
+        handlerExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("webhook-handler-", 0).factory());
+
+        server = HttpServer.create(new InetSocketAddress(config.port()), 0);
+        server.setExecutor(handlerExecutor);
+        for (String path : endpoints.keySet()) {
+            server.createContext(path, exchange -> dispatch(path, exchange));
+        }
+        server.start();
+
+        logger.info("Webhook HTTP server listening on port {} (max concurrency: {}, max request: {} bytes, keep-alive: {}s)",
+                config.port(), config.maxConcurrentRequests(), config.maxRequestBytes(), config.keepAliveSeconds());
+    }
+
+    private void applyConnectionSettings() {
+        // Only fills in values not already set on the command line
+        setPropertyIfAbsent("sun.net.httpserver.idleInterval", config.keepAliveSeconds());
+        setPropertyIfAbsent("sun.net.httpserver.maxIdleConnections", config.maxIdleConnections());
+        setPropertyIfAbsent("sun.net.httpserver.maxReqHeaders", config.maxRequestHeaders());
+    }
+
+    private static void setPropertyIfAbsent(String key, long value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, String.valueOf(value));
+        }
+    }
+
+    /**
+     * Stops accepting new requests, waits up to the drain timeout for in-flight
+     * requests to finish, then closes the listener.
+     */
+    public void stop() {
+        HttpServer current;
+        ExecutorService executor;
+        synchronized (this) {
+            current = server;
+            executor = handlerExecutor;
+            server = null;
+            handlerExecutor = null;
+        }
+        if (current == null) {
+            return;
+        }
+
+        draining.set(true);
+        logger.info("Draining webhook server on port {} ({} requests in flight)", config.port(), inFlight.get());
+
+        // HttpServer.stop closes the listener, then waits up to the delay for open exchanges
+        current.stop(config.drainTimeoutSeconds());
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(config.drainTimeoutSeconds(), TimeUnit.SECONDS)) {
+                logger.warn("Webhook handlers did not finish within {}s, interrupting", config.drainTimeoutSeconds());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Webhook server on port {} stopped", config.port());
+    }
+
+    public boolean isRunning() {
+        return server != null && !draining.get();
+    }
+
+    public int inFlightRequests() {
+        return inFlight.get();
+    }
+
+    public Config config() {
+        return config;
+    }
+
+    private void dispatch(String path, HttpExchange exchange) {
+        JfrEvents.WebhookRequest event = new JfrEvents.WebhookRequest();
+        event.begin();
+        Request req = new Request(exchange, config.maxRequestBytes());
+        Response res = new Response(exchange);
+        try (exchange) {
+            // Contexts match by prefix; only serve the exact path
+            if (!path.equals(exchange.getRequestURI().getPath())) {
+                res.status(404);
+                res.send("{\"error\": \"Not found\", \"code\": \"NOT_FOUND\"}");
+                return;
+            }
+
+            if (draining.get()) {
+                res.status(503);
+                res.header("Connection", "close");
+                res.send("{\"error\": \"Server shutting down\", \"code\": \"SHUTTING_DOWN\"}");
+                return;
+            }
+
+            Endpoint endpoint = endpoints.get(path);
+            Route route = endpoint.routes.get(exchange.getRequestMethod());
+            if (route == null) {
+                res.status(405);
+                res.send("{\"error\": \"Method not allowed\", \"code\": \"METHOD_NOT_ALLOWED\"}");
+                return;
+            }
+
+            if (!concurrencyLimit.tryAcquire(config.acquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Webhook server at max concurrency ({}), rejecting {} {}",
+                        config.maxConcurrentRequests(), exchange.getRequestMethod(), path);
+                res.status(503);
+                res.header("Retry-After", "1");
+                res.send("{\"error\": \"Server busy\", \"code\": \"SERVER_BUSY\"}");
+                return;
+            }
+
+            inFlight.incrementAndGet();
+            try {
+                res.send(handle(endpoint, route, req, res));
+            } finally {
+                inFlight.decrementAndGet();
+                concurrencyLimit.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.debug("I/O error writing webhook response for {}: {}", path, e.getMessage());
+        } finally {
+            if (event.shouldCommit()) {
+                event.method = exchange.getRequestMethod();
+                event.path = exchange.getRequestURI().getPath();
+                event.status = res.status();
+                event.requestBytes = req.bodyLength();
+                event.client = req.ip();
+                event.commit();
+            }
+        }
+    }
+
+    private String handle(Endpoint endpoint, Route route, Request req, Response res) {
+        try {
+            for (Filter filter : endpoint.filters) {
+                filter.handle(req, res);
+            }
+            return route.handle(req, res);
+        } catch (HaltException e) {
+            return e.body();
+        } catch (RequestTooLargeException e) {
+            res.status(413);
+            return "{\"error\": \"Request body too large\", \"code\": \"PAYLOAD_TOO_LARGE\", \"max_bytes\": "
+                    + config.maxRequestBytes() + "}";
+        } catch (Exception e) {
+            logger.error("Unhandled error in webhook route {}", req.path(), e);
+            res.status(500);
+            return "{\"error\": \"Internal server error\", \"code\": \"INTERNAL_ERROR\"}";
+        }
+    }
+
+    static class RequestTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RequestTooLargeException(long limit) {
+            super("Request body exceeds " + limit + " bytes");
+        }
+    }
+
+    public static class Request {
+        private final HttpExchange exchange;
+        private final long maxBytes;
+        private byte[] body;
+
+        Request(HttpExchange exchange, long maxBytes) {
+            this.exchange = exchange;
+            this.maxBytes = maxBytes;
+        }
+
+        public String headers(String name) {
+            return exchange.getRequestHeaders().getFirst(name);
+        }
+
+        public String ip() {
+            InetSocketAddress remote = exchange.getRemoteAddress();
+            return remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : "unknown";
+        }
+
+        public String path() {
+            return exchange.getRequestURI().getPath();
+        }
+
+        // Size of the body if a filter or route has read it, otherwise -1
+        long bodyLength() {
+            return body != null ? body.length : -1;
+        }
+
+        /**
+         * Reads the body once, enforcing the size limit, and caches the bytes so
+         * filters and the route share a single copy.
+         */
+        public byte[] bodyAsBytes() throws IOException {
+            if (body == null) {
+                String contentLength = headers("Content-Length");
+                if (contentLength != null) {
+                    try {
+                        if (Long.parseLong(contentLength.trim()) > maxBytes) {
+                            throw new RequestTooLargeException(maxBytes);
+                        }
+                    } catch (NumberFormatException ignored) {
+                        // Fall through to the bounded read
+                    }
+                }
+                try (InputStream in = exchange.getRequestBody()) {
+                    byte[] read = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBytes + 1));
+                    if (read.length > maxBytes) {
+                        throw new RequestTooLargeException(maxBytes);
+                    }
+                    body = read;
+                }
+            }
+            return body;
+        }
+
+        public String body() throws IOException {
+            return new String(bodyAsBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static class Response {
+        private final HttpExchange exchange;
+        private int status = 200;
+        private String contentType = "application/json";
+
+        Response(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        public void status(int status) {
+            this.status = status;
+        }
+
+        public int status() {
+            return status;
+        }
+
+        public void type(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public void header(String name, String value) {
+            exchange.getResponseHeaders().set(name, value);
+        }
+
+        void send(String body) throws IOException {
+            byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+}
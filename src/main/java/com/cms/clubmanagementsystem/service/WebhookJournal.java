@@ -0,0 +1,564 @@
+package com.cms.clubmanagementsystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only journal for inbound webhook events.
+ *
+ * Events are written to memory-mapped segment files and acknowledged only once
+ * they have been forced to disk. Concurrent appenders share a single force
+ * (group commit). A single consumer thread reads entries in order, hands them
+ * to the handler and checkpoints its position, so entries that were acknowledged
+ * but not yet processed are replayed the next time the journal is opened.
+ *
+ * Record layout: {@code [int length][int crc32][payload]}, where the payload is
+ * {@code eventType '\0' admissionNumber} in UTF-8. A zero length marks the end of
+ * the written part of a segment.
+ */
+public class WebhookJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookJournal.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "journal.lock";
+    private static final int HEADER_BYTES = 8;
+    private static final int CHECKPOINT_EVERY_ENTRIES = 256;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final Condition dataDurable = lock.newCondition();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final AtomicLong pendingEntries = new AtomicLong();
+
+    private FileChannel lockChannel;
+    private FileLock directoryLock;
+    private FileChannel checkpointChannel;
+    private Segment current;
+    private long writePosition;
+    private long durablePosition;
+    private volatile long readPosition;
+    private IOException flushFailure;
+    private volatile boolean closed;
+    private Thread flusherThread;
+    private Thread consumerThread;
+
+    /**
+     * A journaled event. {@code position} is the journal offset just past the entry.
+     */
+    public record Entry(long position, String eventType, String admissionNumber) {}
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle(Entry entry) throws Exception;
+    }
+
+    private static final class Segment {
+        final long base;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(long base, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.base = base;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Error closing journal segment {}", path, e);
+            }
+        }
+    }
+
+    private WebhookJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens (or creates) the journal in the given directory and recovers the
+     * write and read positions. Only one process may hold a journal directory.
+     */
+    public static WebhookJournal open(Path directory, int segmentSize) throws IOException {
+        WebhookJournal journal = new WebhookJournal(directory, segmentSize);
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.releaseFiles();
+            throw e;
+        }
+        return journal;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        directoryLock = lockChannel.tryLock();
+        if (directoryLock == null) {
+            throw new IOException("Webhook journal is already in use: " + directory);
+        }
+
+        checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long checkpoint = readCheckpoint();
+
+        List<Long> bases = listSegmentBases();
+        for (int i = 0; i < bases.size(); i++) {
+            long base = bases.get(i);
+            long nextBase = i + 1 < bases.size() ? bases.get(i + 1) : Long.MAX_VALUE;
+            if (nextBase <= checkpoint) {
+                // Fully consumed before the last shutdown
+                Files.deleteIfExists(segmentPath(base));
+                continue;
+            }
+            segments.put(base, mapSegment(base));
+        }
+
+        if (segments.isEmpty()) {
+            long base = Math.max(checkpoint, 0);
+            segments.put(base, mapSegment(base));
+        }
+
+        readPosition = Math.max(checkpoint, segments.firstKey());
+        current = segments.lastEntry().getValue();
+
+        // Count unprocessed entries and find the end of the last segment
+        long position = readPosition;
+        long unprocessed = 0;
+        for (Segment segment : segments.values()) {
+            int offset = (int) Math.max(0, position - segment.base);
+            while (true) {
+                int length = validRecordLength(segment, offset);
+                if (length < 0) {
+                    break;
+                }
+                offset += HEADER_BYTES + length;
+                unprocessed++;
+            }
+            position = segment.base + offset;
+        }
+
+        int endOffset = (int) (position - current.base);
+        // Clear a torn tail so the zero-length terminator is valid again
+        for (int i = endOffset; i < Math.min(segmentSize, endOffset + HEADER_BYTES); i++) {
+            current.buffer.put(i, (byte) 0);
+        }
+
+        writePosition = position;
+        durablePosition = position;
+        pendingEntries.set(unprocessed);
+
+        if (unprocessed > 0) {
+            logger.info("Webhook journal recovered {} unprocessed events from {}", unprocessed, directory);
+        }
+    }
+
+    /**
+     * Returns the payload length of the record at the offset, or -1 if there is
+     * no complete, intact record there.
+     */
+    private int validRecordLength(Segment segment, int offset) {
+        if (offset + HEADER_BYTES > segmentSize) {
+            return -1;
+        }
+        int length = segment.buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_BYTES + length > segmentSize) {
+            return -1;
+        }
+        byte[] payload = new byte[length];
+        segment.buffer.get(offset + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == segment.buffer.getInt(offset + 4) ? length : -1;
+    }
+
+    private List<Long> listSegmentBases() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    bases.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file in webhook journal: {}", path);
+                }
+            }
+        }
+        bases.sort(Long::compare);
+        return bases;
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    }
+
+    private Segment mapSegment(long base) throws IOException {
+        Path path = segmentPath(base);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segment(base, path, channel, buffer);
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        int read = checkpointChannel.read(buffer, 0);
+        return read == Long.BYTES ? buffer.flip().getLong() : 0L;
+    }
+
+    private void writeCheckpoint(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(position).flip();
+        while (buffer.hasRemaining()) {
+            checkpointChannel.write(buffer, buffer.position());
+        }
+        checkpointChannel.force(false);
+    }
+
+    /**
+     * Starts the flusher and the consumer. Recovered entries are delivered first.
+     */
+    public void start(Handler handler) {
+        flusherThread = new Thread(this::flushLoop, "Webhook-Journal-Flusher");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+
+        consumerThread = new Thread(() -> consumeLoop(handler), "Webhook-Journal-Consumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Appends an event and returns the journal position to pass to {@link #awaitDurable}.
+     */
+    public long append(String eventType, String admissionNumber) throws IOException {
+        byte[] payload = (eventType + '\0' + admissionNumber).getBytes(StandardCharsets.UTF_8);
+        if (HEADER_BYTES + payload.length + HEADER_BYTES > segmentSize) {
+            throw new IOException("Webhook event too large for journal segment");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Webhook journal is closed");
+            }
+            int offset = (int) (writePosition - current.base);
+            // Keep room for the zero-length terminator after the record
+            if (offset + HEADER_BYTES + payload.length + HEADER_BYTES > segmentSize) {
+                rollSegment();
+                offset = 0;
+            }
+            MappedByteBuffer buffer = current.buffer;
+            buffer.put(offset + HEADER_BYTES, payload);
+            buffer.putInt(offset + 4, (int) crc.getValue());
+            // Length goes last so a torn write never looks like a complete record
+            buffer.putInt(offset, payload.length);
+            writePosition += HEADER_BYTES + payload.length;
+            pendingEntries.incrementAndGet();
+            flushNeeded.signal();
+            return writePosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        // Everything in the old segment must be durable before new writes land elsewhere
+        current.buffer.force();
+        durablePosition = writePosition;
+        dataDurable.signalAll();
+        flushed.signalAll();
+
+        Segment next = mapSegment(writePosition);
+        segments.put(next.base, next);
+        current = next;
+    }
+
+    /**
+     * Blocks until everything up to the position is on disk. The flusher only runs
+     * after {@link #start}, so callers must start the journal first.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitDurable(long position, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                if (flushFailure != null) {
+                    throw flushFailure;
+                }
+                if (closed || remaining <= 0) {
+                    return false;
+                }
+                remaining = flushed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            MappedByteBuffer buffer;
+            lock.lock();
+            try {
+                while (!closed && durablePosition >= writePosition) {
+                    flushNeeded.awaitUninterruptibly();
+                }
+                if (durablePosition >= writePosition) {
+                    return;
+                }
+                target = writePosition;
+                buffer = current.buffer;
+            } finally {
+                lock.unlock();
+            }
+
+            // Appenders that arrive during the force are picked up by the next round
+            IOException failure = null;
+            try {
+                buffer.force();
+            } catch (RuntimeException e) {
+                failure = new IOException("Failed to force webhook journal", e);
+                logger.error("Webhook journal flush failed", e);
+            }
+
+            lock.lock();
+            try {
+                if (failure != null) {
+                    flushFailure = failure;
+                } else if (target > durablePosition) {
+                    durablePosition = target;
+                    dataDurable.signalAll();
+                }
+                flushed.signalAll();
+                if (failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void consumeLoop(Handler handler) {
+        int sinceCheckpoint = 0;
+        while (true) {
+            List<Entry> batch;
+            lock.lock();
+            try {
+                while (!closed && readPosition >= durablePosition) {
+                    if (sinceCheckpoint > 0) {
+                        break;
+                    }
+                    dataDurable.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                batch = readDurableEntries();
+            } finally {
+                lock.unlock();
+            }
+
+            for (Entry entry : batch) {
+                try {
+                    handler.handle(entry);
+                } catch (Exception e) {
+                    logger.error("Error processing journaled webhook {} for {}", entry.eventType(), entry.admissionNumber(), e);
+                }
+                readPosition = entry.position();
+                pendingEntries.decrementAndGet();
+                sinceCheckpoint++;
+            }
+
+            // Checkpoint periodically, and whenever the consumer catches up
+            if (sinceCheckpoint >= CHECKPOINT_EVERY_ENTRIES || (sinceCheckpoint > 0 && batch.isEmpty())) {
+                checkpoint();
+                sinceCheckpoint = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads entries between the read position and the durable position. Called
+     * with the lock held; only the consumer thread advances the read position.
+     */
+    private List<Entry> readDurableEntries() {
+        List<Entry> entries = new ArrayList<>();
+        long position = readPosition;
+        while (position < durablePosition && entries.size() < CHECKPOINT_EVERY_ENTRIES) {
+            Map.Entry<Long, Segment> floor = segments.floorEntry(position);
+            if (floor == null) {
+                break;
+            }
+            Segment segment = floor.getValue();
+            int offset = (int) (position - segment.base);
+            int length = offset + HEADER_BYTES <= segmentSize ? segment.buffer.getInt(offset) : 0;
+            if (length <= 0) {
+                // End of a rolled segment, continue in the next one
+                Long next = segments.higherKey(segment.base);
+                if (next == null) {
+                    break;
+                }
+                position = next;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer.get(offset + HEADER_BYTES, payload);
+            position += HEADER_BYTES + length;
+
+            String decoded = new String(payload, StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('\0');
+            entries.add(new Entry(position,
+                    separator >= 0 ? decoded.substring(0, separator) : decoded,
+                    separator >= 0 ? decoded.substring(separator + 1) : ""));
+        }
+        if (entries.isEmpty() && position > readPosition) {
+            // Only skipped over segment ends
+            readPosition = position;
+        }
+        return entries;
+    }
+
+    private void checkpoint() {
+        long position = readPosition;
+        try {
+            writeCheckpoint(position);
+        } catch (IOException e) {
+            logger.error("Failed to write webhook journal checkpoint", e);
+            return;
+        }
+
+        lock.lock();
+        try {
+            // Drop segments that are fully consumed
+            Iterator<Map.Entry<Long, Segment>> it = segments.entrySet().iterator();
+            while (it.hasNext()) {
+                Segment segment = it.next().getValue();
+                Long next = segments.higherKey(segment.base);
+                if (segment == current || next == null || next > position) {
+                    break;
+                }
+                segment.close();
+                it.remove();
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    // Mapped files cannot be deleted on some platforms; recovery removes them later
+                    logger.debug("Could not delete consumed journal segment {}: {}", segment.path, e.getMessage());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of accepted events not yet handed to the consumer's handler.
+     */
+    public long pendingEntries() {
+        return pendingEntries.get();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signalAll();
+            dataDurable.signalAll();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        joinQuietly(flusherThread);
+        joinQuietly(consumerThread);
+
+        lock.lock();
+        try {
+            if (current != null) {
+                current.buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (consumerThread != null) {
+            checkpoint();
+        }
+        releaseFiles();
+        logger.info("Webhook journal closed with {} unprocessed events", pendingEntries.get());
+    }
+
+    private void joinQuietly(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void releaseFiles() {
+        segments.values().forEach(Segment::close);
+        try {
+            if (checkpointChannel != null) {
+                checkpointChannel.close();
+            }
+            if (directoryLock != null) {
+                directoryLock.release();
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Error releasing webhook journal files", e);
+        }
+    }
+}
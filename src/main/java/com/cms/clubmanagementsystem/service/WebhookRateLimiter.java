@@ -0,0 +1,181 @@
+package com.cms.clubmanagementsystem.service;
+
+import com.cms.clubmanagementsystem.utils.EnvLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token-bucket rate limiting for the webhook endpoints.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival
+ * time of the next request (the GCRA form of a token bucket), so checks are one
+ * CAS with no locks and no allocation once the bucket exists.
+ *
+ * At most {@code MAX_TRACKED_CLIENTS} buckets exist. When the table is full,
+ * idle buckets are swept (at most once per second, so a flood of new keys
+ * doesn't turn every check into a full scan) and new clients are refused
+ * until a slot frees up; known clients are unaffected.
+ */
+public class WebhookRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookRateLimiter.class);
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double DEFAULT_RATE = 20;
+    private static final int DEFAULT_BURST = 100;
+    private static final Decision TABLE_FULL = new Decision(false, 1);
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Slots taken in buckets, reserved before inserting so concurrent inserts can't overshoot the cap
+    private final AtomicInteger tracked = new AtomicInteger();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime() - SWEEP_INTERVAL_NANOS);
+
+    /**
+     * @param requestsPerSecond sustained rate allowed per client
+     * @param burst             number of requests a client may send back to back
+     */
+    public WebhookRateLimiter(double requestsPerSecond, int burst) {
+        if (requestsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1L);
+    }
+
+    public static WebhookRateLimiter fromEnvironment() {
+        double rate;
+        String rateSetting = EnvLoader.get("WEBHOOK_RATE_LIMIT_PER_SECOND", String.valueOf(DEFAULT_RATE));
+        try {
+            rate = Double.parseDouble(rateSetting.trim());
+        } catch (NumberFormatException ignored) {
+            rate = Double.NaN;
+        }
+        if (!(rate > 0) || Double.isInfinite(rate)) {
+            logger.warn("Invalid WEBHOOK_RATE_LIMIT_PER_SECOND '{}', using {}", rateSetting, DEFAULT_RATE);
+            rate = DEFAULT_RATE;
+        }
+
+        int burst;
+        String burstSetting = EnvLoader.get("WEBHOOK_RATE_LIMIT_BURST", String.valueOf(DEFAULT_BURST));
+        try {
+            burst = Integer.parseInt(burstSetting.trim());
+        } catch (NumberFormatException ignored) {
+            burst = 0;
+        }
+        if (burst <= 0) {
+            logger.warn("Invalid WEBHOOK_RATE_LIMIT_BURST '{}', using {}", burstSetting, DEFAULT_BURST);
+            burst = DEFAULT_BURST;
+        }
+        return new WebhookRateLimiter(rate, burst);
+    }
+
+    /**
+     * Result of a rate-limit check. {@code retryAfterSeconds} is only meaningful
+     * when the request was not allowed.
+     */
+    public record Decision(boolean allowed, long retryAfterSeconds) {
+        static final Decision ALLOWED = new Decision(true, 0);
+    }
+
+    public Decision tryAcquire(String clientKey) {
+        return tryAcquire(clientKey, System.nanoTime());
+    }
+
+    Decision tryAcquire(String clientKey, long now) {
+        Bucket bucket = buckets.get(clientKey);
+        if (bucket == null) {
+            bucket = track(clientKey, now);
+            if (bucket == null) {
+                return TABLE_FULL;
+            }
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    // Returns null when every slot is taken by a client that is still being limited
+    private Bucket track(String clientKey, long now) {
+        if (!reserveSlot(now)) {
+            return null;
+        }
+        Bucket created = new Bucket(now);
+        Bucket existing = buckets.putIfAbsent(clientKey, created);
+        if (existing != null) {
+            // Another thread added it first
+            tracked.decrementAndGet();
+            return existing;
+        }
+        return created;
+    }
+
+    private boolean reserveSlot(long now) {
+        if (tracked.incrementAndGet() <= MAX_TRACKED_CLIENTS) {
+            return true;
+        }
+        tracked.decrementAndGet();
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return false;
+        }
+        evictIdle(now);
+        if (tracked.incrementAndGet() <= MAX_TRACKED_CLIENTS) {
+            return true;
+        }
+        tracked.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Drops buckets whose clients have been quiet long enough to be full again.
+     */
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    private void evictIdle(long now) {
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            if (entry.getValue().isIdle(now) && buckets.remove(entry.getKey(), entry.getValue())) {
+                tracked.decrementAndGet();
+            }
+        }
+    }
+
+    public int trackedClients() {
+        return tracked.get();
+    }
+
+    private final class Bucket {
+        private final AtomicLong theoreticalArrival;
+
+        Bucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        Decision tryAcquire(long now) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long start = Math.max(tat, now);
+                long next = start + emissionIntervalNanos;
+                long earliest = next - emissionIntervalNanos - burstToleranceNanos;
+                if (earliest > now) {
+                    long waitNanos = earliest - now;
+                    return new Decision(false, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+                }
+                if (theoreticalArrival.compareAndSet(tat, next)) {
+                    return Decision.ALLOWED;
+                }
+            }
+        }
+
+        boolean isIdle(long now) {
+            return theoreticalArrival.get() <= now;
+        }
+    }
+}
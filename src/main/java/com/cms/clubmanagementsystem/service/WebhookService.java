@@ -1,43 +1,63 @@
 package com.cms.clubmanagementsystem.service;
 
 import com.cms.clubmanagementsystem.utils.EnvLoader;
+import com.cms.clubmanagementsystem.utils.EventBus;
+import com.cms.clubmanagementsystem.utils.EventTypes;
+import com.cms.clubmanagementsystem.utils.FxStallDetector;
+import com.cms.clubmanagementsystem.utils.HmacSignatureVerifier;
+import com.cms.clubmanagementsystem.utils.JfrEvents;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
-import javafx.application.Platform;
+import com.google.gson.stream.JsonWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import spark.Spark;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
-import static spark.Spark.*;
-
 public class WebhookService {
     private static final Logger logger = LoggerFactory.getLogger(WebhookService.class);
     private static final int MAX_RETRY_ATTEMPTS = 5;
+    private static final int MAX_BATCH_SIZE = 5000;
+    private static final int DEFAULT_QUEUE_HIGH_WATER_MARK = 2000;
+    private static final int DEFAULT_FX_HIGH_WATER_MARK = 500;
+    private static final int LOAD_SHED_RETRY_AFTER_SECONDS = 5;
+    private static final int MAX_REPORTED_STALL_SITES = 5;
+    private static final long JOURNAL_ACK_TIMEOUT_MS = 5000;
+    private static final int DEFAULT_JOURNAL_SEGMENT_MB = 8;
     private static final String[] SUPPORTED_EVENTS = {"new_student", "student_updated", "student_removed"};
 
     private final int port;
     private final String apiKey;
     private final boolean requireAuth;
     private final boolean enableHmacValidation;
-    private final String hmacSecret;
+    private final HmacSignatureVerifier signatureVerifier;
     private final Map<String, Integer> retryCounts = new ConcurrentHashMap<>();
     private final Gson gson = new Gson();
+    private final WebhookBatchParser batchParser = new WebhookBatchParser(MAX_BATCH_SIZE);
+    private final WebhookRateLimiter rateLimiter;
+    private final int queueHighWaterMark;
+    private final int fxHighWaterMark;
+    private WebhookHttpServer http;
+    private WebhookJournal journal;
 
     public WebhookService(int port) {
         this.port = port;
@@ -45,8 +65,14 @@ public class WebhookService {
         // Load security configurations
         this.apiKey = EnvLoader.get("WEBHOOK_API_KEY");
         this.requireAuth = apiKey != null && !apiKey.trim().isEmpty();
-        this.hmacSecret = EnvLoader.get("WEBHOOK_HMAC_SECRET");
+        String hmacSecret = EnvLoader.get("WEBHOOK_HMAC_SECRET");
         this.enableHmacValidation = hmacSecret != null && !hmacSecret.trim().isEmpty();
+        this.signatureVerifier = enableHmacValidation ? new HmacSignatureVerifier(hmacSecret) : null;
+
+        // Flood protection
+        this.rateLimiter = WebhookRateLimiter.fromEnvironment();
+        this.queueHighWaterMark = parsePositiveInt(EnvLoader.get("WEBHOOK_QUEUE_HIGH_WATER"), DEFAULT_QUEUE_HIGH_WATER_MARK);
+        this.fxHighWaterMark = parsePositiveInt(EnvLoader.get("WEBHOOK_FX_HIGH_WATER"), DEFAULT_FX_HIGH_WATER_MARK);
 
         logSecurityConfiguration();
     }
@@ -63,96 +89,203 @@ public class WebhookService {
         }
     }
 
+    /**
+     * Receives accepted events in order from the journal consumer thread (not the
+     * FX thread). Events may be delivered again after a crash, so handlers should
+     * be idempotent.
+     */
     public interface WebhookListener {
         void onWebhookReceived(String eventType, String admissionNumber);
     }
 
+    /**
+     * Published on {@link EventTypes#WEBHOOK_RECEIVED} after the listener has
+     * handled an event. Views should subscribe coalesced, so a burst of events
+     * costs one FX update rather than one each.
+     */
+    public record ReceivedEvent(String eventType, String admissionNumber) {}
+
     public void start(WebhookListener listener) {
         try {
-            configureServer();
-            setupRoutes(listener);
-            awaitInitialization();
+            // Open the journal first so events acknowledged before a crash are replayed
+            journal = openJournal();
+            journal.start(entry -> {
+                listener.onWebhookReceived(entry.eventType(), entry.admissionNumber());
+                EventBus.publish(EventTypes.WEBHOOK_RECEIVED, new ReceivedEvent(entry.eventType(), entry.admissionNumber()));
+            });
+
+            http = new WebhookHttpServer(WebhookHttpServer.Config.fromEnvironment(port));
+            setupRoutes();
+            http.start();
             logger.info("Webhook service started successfully on port {} - Authentication: {}", port, requireAuth);
         } catch (Exception e) {
             logger.error("Failed to start webhook service on port {}", port, e);
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
             throw new RuntimeException("Could not start webhook listener", e);
         }
     }
 
-    private void configureServer() {
-        port(port);
-        // Configure server timeouts
-        Spark.threadPool(10, 2, 30000);
+    private WebhookJournal openJournal() throws IOException {
+        Path directory = Paths.get(EnvLoader.get("WEBHOOK_JOURNAL_DIR", "data/webhook-journal"), "port-" + port);
+        int segmentMb = parsePositiveInt(EnvLoader.get("WEBHOOK_JOURNAL_SEGMENT_MB"), DEFAULT_JOURNAL_SEGMENT_MB);
+        WebhookJournal opened = WebhookJournal.open(directory, segmentMb * 1024 * 1024);
+        logger.info("Webhook journal opened at {} ({} unprocessed events)", directory.toAbsolutePath(), opened.pendingEntries());
+        return opened;
     }
 
-    private void setupRoutes(WebhookListener listener) {
+    private void setupRoutes() {
         setupSecurityFilters();
-        setupWebhookEndpoint(listener);
+        setupWebhookEndpoint();
+        setupBatchEndpoint();
         setupHealthEndpoint();
         setupMetricsEndpoint();
-        setupRetryEndpoint(listener);
+        setupRetryEndpoint();
     }
 
     private void setupSecurityFilters() {
+        // Rate limiting and load shedding run first so floods are rejected before any HMAC work
+        http.before("/webhook", this::applyRateLimit);
+        http.before("/webhook/batch", this::applyRateLimit);
+        http.before("/webhook/retry", this::applyRateLimit);
+
         // API Key authentication
         if (requireAuth) {
-            before("/webhook", this::validateApiKey);
+            http.before("/webhook", this::validateApiKey);
         }
 
         // Content type validation
-        before("/webhook", this::validateContentType);
+        http.before("/webhook", this::validateContentType);
 
         // HMAC validation
         if (enableHmacValidation) {
-            before("/webhook", this::validateHmacSignature);
+            http.before("/webhook", this::validateHmacSignature);
+        }
+
+        // Batch endpoint: same checks, HMAC computed once over the raw body bytes
+        if (requireAuth) {
+            http.before("/webhook/batch", this::validateApiKey);
+        }
+        http.before("/webhook/batch", this::validateBatchContentType);
+        if (enableHmacValidation) {
+            http.before("/webhook/batch", this::validateBatchHmacSignature);
+        }
+    }
+
+    private void applyRateLimit(WebhookHttpServer.Request req, WebhookHttpServer.Response res) {
+        long pending = journal.pendingEntries();
+        if (pending >= queueHighWaterMark) {
+            logger.debug("Shedding webhook from {} - {} events pending processing", req.ip(), pending);
+            res.status(503);
+            res.header("Retry-After", String.valueOf(LOAD_SHED_RETRY_AFTER_SECONDS));
+            http.halt("{\"error\": \"Server overloaded, retry later\", \"code\": \"LOAD_SHEDDING\"}");
+        }
+
+        // Events already journaled still have to be shown; a stalled FX thread is overload too
+        int fxPending = EventBus.pendingFxEvents();
+        if (fxPending >= fxHighWaterMark) {
+            logger.debug("Shedding webhook from {} - {} events waiting for the FX thread", req.ip(), fxPending);
+            res.status(503);
+            res.header("Retry-After", String.valueOf(LOAD_SHED_RETRY_AFTER_SECONDS));
+            http.halt("{\"error\": \"Server overloaded, retry later\", \"code\": \"LOAD_SHEDDING\"}");
+        }
+
+        WebhookRateLimiter.Decision decision = rateLimiter.tryAcquire(getRateLimitKey(req));
+        if (!decision.allowed()) {
+            logger.debug("Rate limit exceeded for {}", getClientInfo(req));
+            res.status(429);
+            res.header("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+            http.halt("{\"error\": \"Rate limit exceeded\", \"code\": \"RATE_LIMITED\"}");
         }
     }
 
-    private void validateApiKey(spark.Request req, spark.Response res) {
+    // The limiter runs before authentication, so an unverified key would let a sender pick a fresh bucket per request
+    private String getRateLimitKey(WebhookHttpServer.Request req) {
+        String clientApiKey = req.headers("X-API-Key");
+        if (requireAuth && clientApiKey != null && HmacSignatureVerifier.constantTimeEquals(apiKey, clientApiKey)) {
+            return "key:" + clientApiKey;
+        }
+        return "ip:" + req.ip();
+    }
+
+    private void validateApiKey(WebhookHttpServer.Request req, WebhookHttpServer.Response res) {
         String clientApiKey = req.headers("X-API-Key");
 
         if (clientApiKey == null || clientApiKey.trim().isEmpty()) {
             logger.warn("Unauthorized webhook attempt - missing API key from {}", getClientInfo(req));
             res.status(401);
-            halt("{\"error\": \"API key required\", \"code\": \"MISSING_API_KEY\"}");
+            http.halt("{\"error\": \"API key required\", \"code\": \"MISSING_API_KEY\"}");
         }
 
-        if (!apiKey.equals(clientApiKey)) {
+        if (!HmacSignatureVerifier.constantTimeEquals(apiKey, clientApiKey)) {
             logger.warn("Unauthorized webhook attempt - invalid API key from {}", getClientInfo(req));
             res.status(401);
-            halt("{\"error\": \"Invalid API key\", \"code\": \"INVALID_API_KEY\"}");
+            http.halt("{\"error\": \"Invalid API key\", \"code\": \"INVALID_API_KEY\"}");
         }
 
         logger.debug("API key validation successful for {}", getClientInfo(req));
     }
 
-    private void validateContentType(spark.Request req, spark.Response res) {
+    private void validateContentType(WebhookHttpServer.Request req, WebhookHttpServer.Response res) {
         res.type("application/json");
 
         String contentType = req.headers("Content-Type");
         if (contentType == null || !contentType.toLowerCase().contains("application/json")) {
             res.status(400);
-            halt("{\"error\": \"Content-Type must be application/json\", \"code\": \"INVALID_CONTENT_TYPE\"}");
+            http.halt("{\"error\": \"Content-Type must be application/json\", \"code\": \"INVALID_CONTENT_TYPE\"}");
+        }
+    }
+
+    private void validateBatchContentType(WebhookHttpServer.Request req, WebhookHttpServer.Response res) {
+        res.type("application/json");
+
+        String contentType = req.headers("Content-Type");
+        if (contentType == null) {
+            res.status(400);
+            http.halt("{\"error\": \"Content-Type must be application/json or application/x-ndjson\", \"code\": \"INVALID_CONTENT_TYPE\"}");
+        }
+
+        String normalized = contentType.toLowerCase();
+        if (!normalized.contains("application/json") && !normalized.contains("application/x-ndjson")) {
+            res.status(400);
+            http.halt("{\"error\": \"Content-Type must be application/json or application/x-ndjson\", \"code\": \"INVALID_CONTENT_TYPE\"}");
+        }
+    }
+
+    private void validateBatchHmacSignature(WebhookHttpServer.Request req, WebhookHttpServer.Response res) throws IOException {
+        String signature = req.headers("X-Hub-Signature-256");
+        if (signature == null || signature.trim().isEmpty()) {
+            logger.warn("Missing HMAC signature on batch from {}", getClientInfo(req));
+            res.status(401);
+            http.halt("{\"error\": \"HMAC signature required\", \"code\": \"MISSING_SIGNATURE\"}");
+        }
+
+        if (!validateHmacSignature(req.bodyAsBytes(), signature)) {
+            logger.warn("Invalid HMAC signature on batch from {}", getClientInfo(req));
+            res.status(401);
+            http.halt("{\"error\": \"Invalid signature\", \"code\": \"INVALID_SIGNATURE\"}");
         }
     }
 
-    private void validateHmacSignature(spark.Request req, spark.Response res) {
+    private void validateHmacSignature(WebhookHttpServer.Request req, WebhookHttpServer.Response res) throws IOException {
         String signature = req.headers("X-Hub-Signature-256");
         if (signature == null || signature.trim().isEmpty()) {
             logger.warn("Missing HMAC signature from {}", getClientInfo(req));
             res.status(401);
-            halt("{\"error\": \"HMAC signature required\", \"code\": \"MISSING_SIGNATURE\"}");
+            http.halt("{\"error\": \"HMAC signature required\", \"code\": \"MISSING_SIGNATURE\"}");
         }
 
-        if (!validateHmacSignature(req.body(), signature)) {
+        if (!validateHmacSignature(req.bodyAsBytes(), signature)) {
             logger.warn("Invalid HMAC signature from {}", getClientInfo(req));
             res.status(401);
-            halt("{\"error\": \"Invalid signature\", \"code\": \"INVALID_SIGNATURE\"}");
+            http.halt("{\"error\": \"Invalid signature\", \"code\": \"INVALID_SIGNATURE\"}");
         }
     }
 
-    private void setupWebhookEndpoint(WebhookListener listener) {
-        post("/webhook", (req, res) -> {
+    private void setupWebhookEndpoint() {
+        http.post("/webhook", (req, res) -> {
             long startTime = System.currentTimeMillis();
             String clientInfo = getClientInfo(req);
 
@@ -166,7 +299,9 @@ public class WebhookService {
                 }
 
                 // Process the webhook
-                return processWebhook(req, res, listener, startTime, clientInfo);
+                return processWebhook(req, res, startTime, clientInfo);
+            } catch (WebhookHttpServer.RequestTooLargeException e) {
+                throw e;
             } catch (Exception e) {
                 logger.error("Unexpected error processing webhook from {}", clientInfo, e);
                 res.status(500);
@@ -175,8 +310,8 @@ public class WebhookService {
         });
     }
 
-    private String processWebhook(spark.Request req, spark.Response res, WebhookListener listener,
-                                  long startTime, String clientInfo) {
+    private String processWebhook(WebhookHttpServer.Request req, WebhookHttpServer.Response res,
+                                  long startTime, String clientInfo) throws IOException {
         String payload = req.body();
         logger.debug("Received webhook payload from {}: {}", clientInfo, payload);
 
@@ -207,14 +342,12 @@ public class WebhookService {
             return "{\"error\": \"Invalid event type: " + eventType + "\", \"code\": \"INVALID_EVENT_TYPE\"}";
         }
 
-        // Process the webhook on FX thread
-        Platform.runLater(() -> {
-            try {
-                listener.onWebhookReceived(eventType, admissionNumber);
-            } catch (Exception e) {
-                logger.error("Error in webhook listener from {}", clientInfo, e);
-            }
-        });
+        // Acknowledge only once the event is on disk; the journal consumer processes it
+        if (!journalEvents(List.<String[]>of(new String[]{eventType, admissionNumber}), clientInfo)) {
+            res.status(503);
+            res.header("Retry-After", String.valueOf(LOAD_SHED_RETRY_AFTER_SECONDS));
+            return "{\"error\": \"Event could not be stored, retry later\", \"code\": \"JOURNAL_UNAVAILABLE\"}";
+        }
 
         long processingTime = System.currentTimeMillis() - startTime;
         logger.info("Webhook processed successfully from {} in {} ms - Event: {}, Admission: {}",
@@ -225,8 +358,129 @@ public class WebhookService {
                 processingTime);
     }
 
+    private void setupBatchEndpoint() {
+        http.post("/webhook/batch", (req, res) -> {
+            long startTime = System.currentTimeMillis();
+            String clientInfo = getClientInfo(req);
+
+            try {
+                return processBatch(req, res, startTime, clientInfo);
+            } catch (WebhookHttpServer.RequestTooLargeException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error("Unexpected error processing webhook batch from {}", clientInfo, e);
+                res.status(500);
+                return "{\"error\": \"Internal server error\", \"code\": \"INTERNAL_ERROR\"}";
+            }
+        });
+    }
+
+    private String processBatch(WebhookHttpServer.Request req, WebhookHttpServer.Response res,
+                                long startTime, String clientInfo) throws IOException {
+        byte[] body = req.bodyAsBytes();
+        if (body == null || body.length == 0) {
+            res.status(400);
+            return "{\"error\": \"Empty payload\", \"code\": \"EMPTY_PAYLOAD\"}";
+        }
+
+        List<WebhookBatchParser.BatchItem> items;
+        try {
+            items = batchParser.parse(body);
+        } catch (WebhookBatchParser.BatchTooLargeException e) {
+            logger.warn("Webhook batch from {} rejected: {}", clientInfo, e.getMessage());
+            res.status(413);
+            return "{\"error\": \"Batch too large\", \"code\": \"BATCH_TOO_LARGE\", \"max_items\": " + MAX_BATCH_SIZE + "}";
+        } catch (IOException e) {
+            logger.error("Invalid JSON batch payload from {}: {}", clientInfo, e.getMessage());
+            res.status(400);
+            return "{\"error\": \"Invalid JSON format\", \"code\": \"INVALID_JSON\"}";
+        }
+
+        String[] codes = new String[items.size()];
+        List<String[]> accepted = new ArrayList<>(items.size());
+        for (WebhookBatchParser.BatchItem item : items) {
+            String code = item.error();
+            if (code == null && !isValidEventType(item.eventType())) {
+                code = "INVALID_EVENT_TYPE";
+            }
+            codes[item.index()] = code;
+            if (code == null) {
+                accepted.add(new String[]{item.eventType(), item.admissionNumber()});
+            }
+        }
+
+        // The whole batch shares one durable write before it is acknowledged
+        if (!accepted.isEmpty() && !journalEvents(accepted, clientInfo)) {
+            res.status(503);
+            res.header("Retry-After", String.valueOf(LOAD_SHED_RETRY_AFTER_SECONDS));
+            return "{\"error\": \"Events could not be stored, retry later\", \"code\": \"JOURNAL_UNAVAILABLE\"}";
+        }
+
+        StringWriter out = new StringWriter();
+        int rejected = items.size() - accepted.size();
+
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("results").beginArray();
+            for (WebhookBatchParser.BatchItem item : items) {
+                String code = codes[item.index()];
+                writer.beginObject();
+                writer.name("index").value(item.index());
+                if (item.id() != null) {
+                    writer.name("id").value(item.id());
+                }
+                if (code == null) {
+                    writer.name("status").value("accepted");
+                } else {
+                    writer.name("status").value("rejected");
+                    writer.name("code").value(code);
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+
+            long processingTime = System.currentTimeMillis() - startTime;
+            writer.name("status").value(rejected == 0 ? "ok" : "partial");
+            writer.name("received").value(items.size());
+            writer.name("accepted").value(accepted.size());
+            writer.name("rejected").value(rejected);
+            writer.name("processing_time_ms").value(processingTime);
+            writer.endObject();
+
+            logger.info("Webhook batch processed from {} in {} ms - {} received, {} accepted, {} rejected",
+                    clientInfo, processingTime, items.size(), accepted.size(), rejected);
+        }
+
+        res.status(200);
+        return out.toString();
+    }
+
+    /**
+     * Appends {eventType, admissionNumber} pairs to the journal and waits for them to
+     * be durable. Returns false if they could not be stored in time.
+     */
+    private boolean journalEvents(List<String[]> events, String clientInfo) {
+        try {
+            long position = 0;
+            for (String[] event : events) {
+                position = journal.append(event[0], event[1]);
+            }
+            if (!journal.awaitDurable(position, JOURNAL_ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.error("Timed out persisting {} webhook events from {}", events.size(), clientInfo);
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException e) {
+            logger.error("Failed to journal {} webhook events from {}", events.size(), clientInfo, e);
+            return false;
+        }
+    }
+
     private void setupHealthEndpoint() {
-        get("/health", (req, res) -> {
+        http.get("/health", (req, res) -> {
             res.type("application/json");
             return String.format("{\"status\": \"ok\", \"service\": \"webhook\", \"port\": %d, \"authentication\": %b, \"hmac_validation\": %b}",
                     port, requireAuth, enableHmacValidation);
@@ -234,16 +488,56 @@ public class WebhookService {
     }
 
     private void setupMetricsEndpoint() {
-        get("/metrics", (req, res) -> {
+        http.get("/metrics", (req, res) -> {
             res.type("application/json");
-            return String.format("{\"endpoints\": [\"/webhook\", \"/health\", \"/metrics\", \"/webhook/retry\"], " +
-                            "\"authentication_required\": %b, \"hmac_validation_enabled\": %b, \"retry_counts\": %d}",
-                    requireAuth, enableHmacValidation, retryCounts.size());
+            return String.format("{\"endpoints\": [\"/webhook\", \"/webhook/batch\", \"/health\", \"/metrics\", \"/webhook/retry\"], " +
+                            "\"authentication_required\": %b, \"hmac_validation_enabled\": %b, \"retry_counts\": %d, " +
+                            "\"in_flight_requests\": %d, \"max_concurrent_requests\": %d, " +
+                            "\"pending_events\": %d, \"queue_high_water_mark\": %d, " +
+                            "\"pending_fx_events\": %d, \"fx_high_water_mark\": %d, \"rate_limited_clients\": %d, " +
+                            "\"fx_stalls\": %s}",
+                    requireAuth, enableHmacValidation, retryCounts.size(),
+                    http.inFlightRequests(), http.config().maxConcurrentRequests(),
+                    journal.pendingEntries(), queueHighWaterMark,
+                    EventBus.pendingFxEvents(), fxHighWaterMark, rateLimiter.trackedClients(),
+                    fxStallsJson());
         });
     }
 
-    private void setupRetryEndpoint(WebhookListener listener) {
-        post("/webhook/retry", (req, res) -> {
+    // Live view of the FX stall detector. /metrics is unauthenticated, so SQL is reported as fingerprints
+    private String fxStallsJson() {
+        FxStallDetector detector = FxStallDetector.getInstance();
+        JsonObject stalls = new JsonObject();
+        stalls.addProperty("count", detector.stallCount());
+        stalls.addProperty("max_probe_latency_ms", detector.maxProbeLatencyMillis());
+
+        FxStallDetector.Stall latest = detector.latestStall();
+        if (latest != null) {
+            JsonObject stall = new JsonObject();
+            stall.addProperty("started_at", Instant.ofEpochMilli(latest.startedAtMillis()).toString());
+            stall.addProperty("duration_ms", latest.durationMillis());
+            stall.addProperty("site", latest.site());
+            stall.addProperty("blocking_frame", latest.blockingFrame());
+            stall.addProperty("sql", JfrEvents.fingerprint(latest.sql()));
+            stalls.add("latest", stall);
+        }
+
+        JsonArray worst = new JsonArray();
+        for (FxStallDetector.SiteSummary site : detector.summary().stream().limit(MAX_REPORTED_STALL_SITES).toList()) {
+            JsonObject summary = new JsonObject();
+            summary.addProperty("site", site.site());
+            summary.addProperty("stalls", site.stalls());
+            summary.addProperty("total_ms", site.totalMillis());
+            summary.addProperty("max_ms", site.maxMillis());
+            summary.addProperty("last_sql", JfrEvents.fingerprint(site.lastSql()));
+            worst.add(summary);
+        }
+        stalls.add("worst_sites", worst);
+        return gson.toJson(stalls);
+    }
+
+    private void setupRetryEndpoint() {
+        http.post("/webhook/retry", (req, res) -> {
             String retryId = req.headers("X-Retry-ID");
             if (retryId != null) {
                 int retryCount = retryCounts.getOrDefault(retryId, 0);
@@ -256,7 +550,7 @@ public class WebhookService {
 
             // Process the webhook normally
             long startTime = System.currentTimeMillis();
-            return processWebhook(req, res, listener, startTime, getClientInfo(req));
+            return processWebhook(req, res, startTime, getClientInfo(req));
         });
     }
 
@@ -267,32 +561,15 @@ public class WebhookService {
         return false; // Simplified implementation
     }
 
-    private boolean validateHmacSignature(String payload, String signature) {
+    private boolean validateHmacSignature(byte[] payload, String signature) {
         try {
-            String expectedSignature = "sha256=" + calculateHmac(payload, hmacSecret);
-            return MessageDigest.isEqual(expectedSignature.getBytes(), signature.getBytes());
+            return signatureVerifier.verify(payload, signature);
         } catch (Exception e) {
             logger.error("Error validating HMAC signature", e);
             return false;
         }
     }
 
-    private String calculateHmac(String data, String key) throws Exception {
-        Mac mac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        mac.init(secretKeySpec);
-        byte[] hmacData = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        return bytesToHex(hmacData);
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
-    }
-
     public boolean registerWithSchoolServer(String schoolWebhookUrl, String callbackUrl) {
         try {
             JsonObject registrationPayload = new JsonObject();
@@ -375,17 +652,34 @@ public class WebhookService {
         return false;
     }
 
-    private String getClientInfo(spark.Request req) {
+    private static int parsePositiveInt(String value, int defaultValue) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : defaultValue;
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid numeric setting '{}', using default {}", value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private String getClientInfo(WebhookHttpServer.Request req) {
         String ip = req.ip();
         String userAgent = req.headers("User-Agent");
         return String.format("IP: %s, User-Agent: %s", ip, userAgent != null ? userAgent : "Unknown");
     }
 
     public void stop() {
+        if (http == null) {
+            return;
+        }
         try {
-            Spark.stop();
-            // Wait for server to stop gracefully
-            Spark.awaitStop();
+            // Drains in-flight requests before closing the listener
+            http.stop();
+            // Unprocessed events stay in the journal and are replayed on next start
+            journal.close();
             logger.info("Webhook service stopped");
         } catch (Exception e) {
             logger.warn("Error during webhook service shutdown", e);
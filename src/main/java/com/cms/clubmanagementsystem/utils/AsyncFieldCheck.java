@@ -0,0 +1,101 @@
+package com.cms.clubmanagementsystem.utils;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Debounced background check for one form field, such as username availability.
+ *
+ * Form validation calls {@link #check} on every change. Once the value has been
+ * stable for the debounce delay the lookup runs off the FX thread, and
+ * {@code onResolved} is called on the FX thread so the form can revalidate.
+ * Results for values the user has since edited are dropped.
+ *
+ * All methods must be called on the FX thread.
+ */
+public final class AsyncFieldCheck {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncFieldCheck.class);
+    private static final Duration DEFAULT_DELAY = Duration.millis(300);
+    private static final ExecutorService lookupExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("field-check-", 0).factory());
+
+    public enum Result { PENDING, PASSED, FAILED, ERROR }
+
+    @FunctionalInterface
+    public interface Lookup {
+        boolean test(String value) throws Exception;
+    }
+
+    private final Lookup lookup;
+    private final Runnable onResolved;
+    private final PauseTransition debounce;
+
+    private String requested;
+    private String resolvedValue;
+    private Result resolved = Result.PENDING;
+
+    public AsyncFieldCheck(Lookup lookup, Runnable onResolved) {
+        this(lookup, onResolved, DEFAULT_DELAY);
+    }
+
+    public AsyncFieldCheck(Lookup lookup, Runnable onResolved, Duration delay) {
+        this.lookup = lookup;
+        this.onResolved = onResolved;
+        this.debounce = new PauseTransition(delay);
+        this.debounce.setOnFinished(e -> runLookup());
+    }
+
+    /**
+     * Returns the result for the value if it is known, otherwise schedules a
+     * lookup and returns {@link Result#PENDING}.
+     */
+    public Result check(String value) {
+        if (value.equals(resolvedValue)) {
+            return resolved;
+        }
+        if (!value.equals(requested)) {
+            requested = value;
+            debounce.playFromStart();
+        }
+        return Result.PENDING;
+    }
+
+    /**
+     * Stops any pending lookup, e.g. when the value no longer needs checking.
+     */
+    public void cancel() {
+        debounce.stop();
+        requested = null;
+    }
+
+    private void runLookup() {
+        String value = requested;
+        if (value == null) {
+            return;
+        }
+        lookupExecutor.execute(() -> {
+            Result result;
+            try {
+                result = lookup.test(value) ? Result.PASSED : Result.FAILED;
+            } catch (Exception e) {
+                logger.warn("Field check failed for '{}': {}", value, e.getMessage());
+                result = Result.ERROR;
+            }
+            Result finalResult = result;
+            Platform.runLater(() -> {
+                if (value.equals(requested)) {
+                    resolvedValue = value;
+                    resolved = finalResult;
+                    requested = null;
+                    onResolved.run();
+                }
+            });
+        });
+    }
+}
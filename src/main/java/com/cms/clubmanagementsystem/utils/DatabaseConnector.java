@@ -95,7 +95,14 @@ public class DatabaseConnector {
             System.out.println("⚠️  No tenant context applied - no user logged in");
         }
 
-        return conn;
+        // Statements are traced only when something is listening: a JFR recording with SQL
+        // events on, or the stall detector watching this (the FX) thread. Otherwise the
+        // connection is handed out as is, without the proxy's per-call reflection.
+        if (!JfrEvents.sqlExecutionEnabled() && !FxStallDetector.getInstance().isWatching(Thread.currentThread())) {
+            return conn;
+        }
+        UUID schoolId = SessionManager.getCurrentSchoolId();
+        return SqlTracing.wrap(conn, schoolId != null ? schoolId.toString() : null);
     }
 
     public static void applyTenantContext(Connection conn) throws SQLException {
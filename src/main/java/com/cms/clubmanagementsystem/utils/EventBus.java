@@ -1,83 +1,449 @@
 package com.cms.clubmanagementsystem.utils;
 
-import java.util.HashMap;
-import java.util.Map;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+/**
+ * Application-wide publish/subscribe bus.
+ *
+ * The registry is a concurrent map of copy-on-write lists, so publishing never
+ * takes a lock and can happen from any thread (FX, loaders, webhook, Excel sync).
+ * Each subscriber chooses how it is called:
+ * <ul>
+ *   <li>{@link Delivery#INLINE} - on the publishing thread, before publish returns</li>
+ *   <li>{@link Delivery#BACKGROUND} - on a background thread, one event at a time per subscriber</li>
+ *   <li>{@link Delivery#FX} - on the FX thread, with all pending events delivered in one hop</li>
+ * </ul>
+ *
+ * Subscribers that only need to refresh can use {@link #subscribeCoalesced} to get
+ * one callback per burst of events, optionally across several topics.
+ *
+ * Every subscribe call returns a {@link Subscription}. Views should keep it and
+ * cancel it, or bind it to one of their nodes with {@link Subscription#bindTo},
+ * rather than unsubscribing a whole topic. The bus holds subscribers strongly,
+ * so a live subscription keeps its controller and scene graph reachable;
+ * {@link #subscribeWeak} avoids that for owners with no clear end of life.
+ */
 public class EventBus {
-    private static EventBus instance;
-    private final Map<String, CopyOnWriteArrayList<Consumer<Object>>> subscribers;
+    private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
+    private static final EventBus instance = new EventBus();
+    private static final Object NO_DATA = new Object();
+
+    public enum Delivery { INLINE, BACKGROUND, FX }
+
+    /**
+     * A named event with the type of data it carries. Data may be null.
+     */
+    public record Topic<T>(String name, Class<T> payloadType) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final ConcurrentHashMap<Topic<?>, CopyOnWriteArrayList<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService backgroundExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("event-bus-", 0).factory());
+    private final Queue<Runnable> fxQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean fxDrainScheduled = new AtomicBoolean();
+    // Events queued for the FX thread and not yet delivered; a coalesced burst counts each of its events
+    private final AtomicInteger fxBacklog = new AtomicInteger();
+    private final ScheduledThreadPoolExecutor coalesceTimer;
 
     private EventBus() {
-        subscribers = new HashMap<>();
+        coalesceTimer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "event-bus-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+        coalesceTimer.setRemoveOnCancelPolicy(true);
     }
 
+    /**
+     * One published event, as handed to coalesced subscribers.
+     */
+    public record Event(Topic<?> topic, Object data) {}
+
     public static EventBus getInstance() {
-        if (instance == null) {
-            instance = new EventBus();
-        }
         return instance;
     }
 
-    public static void subscribe(String eventType, Consumer<Object> subscriber) {
-        getInstance()._subscribe(eventType, subscriber);
+    public static <T> Subscription subscribe(Topic<T> topic, Consumer<? super T> subscriber) {
+        return subscribe(topic, Delivery.INLINE, subscriber);
     }
 
-    public static void publish(String eventType, Object data) {
-        getInstance()._publish(eventType, data);
+    public static <T> Subscription subscribe(Topic<T> topic, Delivery delivery, Consumer<? super T> subscriber) {
+        return getInstance()._subscribe(topic, delivery, subscriber);
     }
 
-    public static void publish(String eventType) {
-        getInstance()._publish(eventType, null);
+    /**
+     * Subscribes on behalf of an owner that is only weakly referenced. The handler
+     * gets the owner as its first argument and must not capture it (use an unbound
+     * method reference such as {@code MyController::onChange}). Once the owner is
+     * collected the subscription cancels itself.
+     */
+    public static <O, T> Subscription subscribeWeak(Topic<T> topic, Delivery delivery, O owner,
+                                                    BiConsumer<? super O, ? super T> handler) {
+        WeakReference<O> ref = new WeakReference<>(owner);
+        Subscription[] self = new Subscription[1];
+        Consumer<T> relay = data -> {
+            O target = ref.get();
+            if (target == null) {
+                self[0].cancel();
+            } else {
+                handler.accept(target, data);
+            }
+        };
+        self[0] = subscribe(topic, delivery, relay);
+        return self[0];
     }
 
-    private void _subscribe(String eventType, Consumer<Object> subscriber) {
-        subscribers.computeIfAbsent(eventType, k -> new CopyOnWriteArrayList<>()).add(subscriber);
+    /**
+     * Subscribes to one or more topics and receives the events of each burst in a
+     * single callback, once no event has arrived for {@code quietPeriod}. A steady
+     * stream is still flushed at least every ten quiet periods.
+     */
+    public static Subscription subscribeCoalesced(Duration quietPeriod, Delivery delivery,
+                                                  Consumer<List<Event>> subscriber, Topic<?>... topics) {
+        return getInstance()._subscribeCoalesced(quietPeriod, delivery, subscriber, topics);
     }
 
-    private void _publish(String eventType, Object data) {
-        if (subscribers.containsKey(eventType)) {
-            subscribers.get(eventType).forEach(subscriber -> {
-                try {
-                    subscriber.accept(data);
-                } catch (Exception e) {
-                    System.err.println("Error in event subscriber for " + eventType + ": " + e.getMessage());
-                }
-            });
-        }
+    /**
+     * Events waiting for the FX thread. Grows while the FX thread is stalled or
+     * flooded, so producers can use it to slow down.
+     */
+    public static int pendingFxEvents() {
+        return getInstance().fxBacklog.get();
     }
 
-    public static void unsubscribe(String eventType, Consumer<Object> subscriber) {
-        getInstance()._unsubscribe(eventType, subscriber);
+    public static <T> void publish(Topic<T> topic, T data) {
+        getInstance()._publish(topic, data);
     }
 
-    // NEW METHOD: Unsubscribe all listeners for a specific event type
-    public static void unsubscribe(String eventType) {
-        getInstance()._unsubscribe(eventType);
+    public static void publish(Topic<?> topic) {
+        getInstance()._publish(topic, null);
     }
 
-    // NEW METHOD: Unsubscribe all listeners (complete cleanup)
+    public static <T> void unsubscribe(Topic<T> topic, Consumer<? super T> subscriber) {
+        getInstance()._unsubscribe(topic, subscriber);
+    }
+
+    // Unsubscribe a listener from every topic it was registered on
+    public static void unsubscribe(Consumer<?> subscriber) {
+        getInstance()._unsubscribe(subscriber);
+    }
+
+    // Unsubscribe all listeners for a specific event type, including other views'.
+    // Prefer cancelling the Subscription returned by subscribe.
+    public static void unsubscribe(Topic<?> topic) {
+        getInstance()._unsubscribe(topic);
+    }
+
+    // Unsubscribe all listeners (complete cleanup)
     public static void unsubscribeAll() {
         getInstance()._unsubscribeAll();
     }
 
-    private void _unsubscribe(String eventType, Consumer<Object> subscriber) {
-        if (subscribers.containsKey(eventType)) {
-            subscribers.get(eventType).remove(subscriber);
+    private Subscription _subscribe(Topic<?> topic, Delivery delivery, Consumer<?> subscriber) {
+        Subscriber s = new Subscriber(topic, delivery, subscriber, null);
+        subscribers.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(s);
+        return new Subscription(List.of(s));
+    }
+
+    private Subscription _subscribeCoalesced(Duration quietPeriod, Delivery delivery,
+                                             Consumer<List<Event>> subscriber, Topic<?>... topics) {
+        if (topics.length == 0) {
+            throw new IllegalArgumentException("At least one topic is required");
+        }
+        // One coalescer shared by every topic, so events from all of them merge into one burst
+        Coalescer coalescer = new Coalescer(quietPeriod.toNanos());
+        List<Subscriber> registered = new ArrayList<>(topics.length);
+        for (Topic<?> topic : topics) {
+            Subscriber s = new Subscriber(topic, delivery, subscriber, coalescer);
+            coalescer.target = s;
+            registered.add(s);
+            subscribers.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(s);
+        }
+        return new Subscription(registered);
+    }
+
+    private void _publish(Topic<?> topic, Object data) {
+        List<Subscriber> list = subscribers.get(topic);
+        if (list == null) {
+            return;
+        }
+        for (Subscriber subscriber : list) {
+            if (subscriber.coalescer != null) {
+                subscriber.coalescer.offer(new Event(topic, data));
+            } else {
+                dispatch(subscriber, data);
+            }
+        }
+    }
+
+    private void dispatch(Subscriber subscriber, Object data) {
+        switch (subscriber.delivery) {
+            case INLINE -> subscriber.invoke(data);
+            case BACKGROUND -> subscriber.enqueue(data);
+            case FX -> {
+                // A coalesced burst is one delivery but counts as all of its events
+                int events = subscriber.coalescer != null && data instanceof List<?> burst ? burst.size() : 1;
+                enqueueFx(() -> subscriber.invoke(data), events);
+            }
         }
     }
 
-    // NEW METHOD: Remove all subscribers for an event type
-    private void _unsubscribe(String eventType) {
-        if (subscribers.containsKey(eventType)) {
-            subscribers.get(eventType).clear();
+    private void _unsubscribe(Topic<?> topic, Consumer<?> subscriber) {
+        List<Subscriber> list = subscribers.get(topic);
+        if (list != null) {
+            removeMatching(list, s -> s.consumer.equals(subscriber));
         }
     }
 
-    // NEW METHOD: Remove all subscribers for all event types
+    private void _unsubscribe(Consumer<?> subscriber) {
+        subscribers.values().forEach(list -> removeMatching(list, s -> s.consumer.equals(subscriber)));
+    }
+
+    // Remove all subscribers for an event type
+    private void _unsubscribe(Topic<?> topic) {
+        List<Subscriber> list = subscribers.get(topic);
+        if (list != null) {
+            removeMatching(list, s -> true);
+        }
+    }
+
+    // Remove all subscribers for all event types
     private void _unsubscribeAll() {
-        subscribers.values().forEach(CopyOnWriteArrayList::clear);
+        subscribers.values().forEach(list -> removeMatching(list, s -> true));
         subscribers.clear();
     }
-}
\ No newline at end of file
+
+    // Removed subscribers are also marked cancelled so queued deliveries are dropped
+    private static void removeMatching(List<Subscriber> list, Predicate<Subscriber> filter) {
+        list.removeIf(s -> {
+            if (filter.test(s)) {
+                s.cancelled = true;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.cancelled = true;
+        List<Subscriber> list = subscribers.get(subscriber.topic);
+        if (list != null) {
+            list.remove(subscriber);
+        }
+    }
+
+    /**
+     * Handle for one subscribe call. Cancelling it removes only this registration
+     * (on every topic it covers) and drops deliveries that are still queued.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final List<Subscriber> registrations;
+        private final AtomicBoolean active = new AtomicBoolean(true);
+
+        private Subscription(List<Subscriber> registrations) {
+            this.registrations = registrations;
+        }
+
+        public void cancel() {
+            if (active.compareAndSet(true, false)) {
+                registrations.forEach(EventBus.this::remove);
+            }
+        }
+
+        public boolean isActive() {
+            return active.get() && !registrations.get(0).cancelled;
+        }
+
+        @Override
+        public void close() {
+            cancel();
+        }
+
+        /**
+         * Cancels this subscription when the node stops being shown: it is removed
+         * from its scene (e.g. a module replaced in the content area), its scene is
+         * swapped out of the window, or the window is hidden. Binding before the
+         * node is attached is fine; only a shown-to-hidden change cancels.
+         * Must be called on the FX thread.
+         */
+        public Subscription bindTo(Node node) {
+            ObservableValue<Boolean> shown = node.sceneProperty()
+                    .flatMap(Scene::windowProperty)
+                    .flatMap(Window::showingProperty)
+                    .orElse(false);
+            ChangeListener<Boolean> listener = new ChangeListener<>() {
+                @Override
+                public void changed(ObservableValue<? extends Boolean> obs, Boolean wasShown, Boolean isShown) {
+                    if (wasShown && !isShown) {
+                        shown.removeListener(this);
+                        cancel();
+                    }
+                }
+            };
+            shown.addListener(listener);
+            return this;
+        }
+    }
+
+    /**
+     * Queues an FX delivery. Only the first event after a drain schedules a
+     * runLater, so a burst of publishes costs one FX hop instead of one each.
+     */
+    private void enqueueFx(Runnable delivery, int events) {
+        fxBacklog.addAndGet(events);
+        fxQueue.add(() -> {
+            fxBacklog.addAndGet(-events);
+            delivery.run();
+        });
+        if (fxDrainScheduled.compareAndSet(false, true)) {
+            try {
+                Platform.runLater(this::drainFx);
+            } catch (IllegalStateException e) {
+                // FX toolkit not running (e.g. during shutdown); deliver on this thread
+                drainFx();
+            }
+        }
+    }
+
+    private void drainFx() {
+        fxDrainScheduled.set(false);
+        Runnable delivery;
+        while ((delivery = fxQueue.poll()) != null) {
+            delivery.run();
+        }
+    }
+
+    private final class Subscriber {
+        private final Topic<?> topic;
+        private final Delivery delivery;
+        private final Consumer<?> consumer;
+        private final Coalescer coalescer;
+        private volatile boolean cancelled;
+        // Background lane: events wait here so one subscriber never runs concurrently with itself
+        private final Queue<Object> mailbox;
+        private final AtomicBoolean draining;
+
+        Subscriber(Topic<?> topic, Delivery delivery, Consumer<?> consumer, Coalescer coalescer) {
+            this.topic = topic;
+            this.delivery = delivery;
+            this.consumer = consumer;
+            this.coalescer = coalescer;
+            this.mailbox = delivery == Delivery.BACKGROUND ? new ConcurrentLinkedQueue<>() : null;
+            this.draining = delivery == Delivery.BACKGROUND ? new AtomicBoolean() : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        void invoke(Object data) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                ((Consumer<Object>) consumer).accept(data);
+            } catch (Exception e) {
+                logger.error("Error in event subscriber for {}", topic, e);
+            }
+        }
+
+        void enqueue(Object data) {
+            // ConcurrentLinkedQueue rejects nulls
+            mailbox.add(data == null ? NO_DATA : data);
+            if (draining.compareAndSet(false, true)) {
+                backgroundExecutor.execute(this::drainMailbox);
+            }
+        }
+
+        private void drainMailbox() {
+            while (true) {
+                Object data;
+                while ((data = mailbox.poll()) != null) {
+                    invoke(data == NO_DATA ? null : data);
+                }
+                draining.set(false);
+                // Re-check: an event may have arrived after the last poll
+                if (mailbox.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects events until the topics go quiet, then hands the whole burst to the
+     * subscriber's lane as a List of {@link Event}.
+     */
+    private final class Coalescer {
+        private final long quietNanos;
+        private final long maxWaitNanos;
+        private Subscriber target;
+        private List<Event> pending = new ArrayList<>();
+        private long firstEventAt;
+        private ScheduledFuture<?> flush;
+
+        Coalescer(long quietNanos) {
+            if (quietNanos <= 0) {
+                throw new IllegalArgumentException("Quiet period must be positive");
+            }
+            this.quietNanos = quietNanos;
+            this.maxWaitNanos = quietNanos * 10;
+        }
+
+        synchronized void offer(Event event) {
+            if (target.cancelled) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (pending.isEmpty()) {
+                firstEventAt = now;
+            }
+            pending.add(event);
+            if (flush != null) {
+                flush.cancel(false);
+            }
+            long delay = Math.min(quietNanos, firstEventAt + maxWaitNanos - now);
+            flush = coalesceTimer.schedule(this::flush, Math.max(0, delay), TimeUnit.NANOSECONDS);
+        }
+
+        private void flush() {
+            List<Event> burst;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                burst = pending;
+                pending = new ArrayList<>();
+                flush = null;
+            }
+            dispatch(target, List.copyOf(burst));
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package com.cms.clubmanagementsystem.utils;
 
+import com.cms.clubmanagementsystem.service.AttendanceSyncService;
+import com.cms.clubmanagementsystem.service.ReportJobService;
+import com.cms.clubmanagementsystem.service.WebhookService;
+import com.cms.clubmanagementsystem.utils.EventBus.Topic;
+
+import java.util.UUID;
+
 public class EventTypes {
-    public static final String ENROLLMENT_ADDED = "ENROLLMENT_ADDED";
-    public static final String ENROLLMENT_WITHDRAWN = "ENROLLMENT_WITHDRAWN";
-    public static final String ENROLLMENT_CHANGED = "ENROLLMENT_CHANGED";
-    public static final String CLUB_STATS_UPDATED = "CLUB_STATS_UPDATED";
-    public static final String USER_LOGGED_IN = "USER_LOGGED_IN";
-    public static final String USER_LOGGED_OUT = "USER_LOGGED_OUT";
+    // Enrollment and club events carry the affected club ID when the publisher knows it
+    public static final Topic<UUID> ENROLLMENT_ADDED = new Topic<>("ENROLLMENT_ADDED", UUID.class);
+    public static final Topic<UUID> ENROLLMENT_WITHDRAWN = new Topic<>("ENROLLMENT_WITHDRAWN", UUID.class);
+    public static final Topic<UUID> ENROLLMENT_CHANGED = new Topic<>("ENROLLMENT_CHANGED", UUID.class);
+    public static final Topic<UUID> CLUB_STATS_UPDATED = new Topic<>("CLUB_STATS_UPDATED", UUID.class);
+    // Learners were imported or changed outside the app; carries the school ID
+    public static final Topic<UUID> LEARNERS_CHANGED = new Topic<>("LEARNERS_CHANGED", UUID.class);
+    public static final Topic<UUID> USER_LOGGED_IN = new Topic<>("USER_LOGGED_IN", UUID.class);
+    public static final Topic<UUID> USER_LOGGED_OUT = new Topic<>("USER_LOGGED_OUT", UUID.class);
+    // Published by AttendanceSyncService whenever the local attendance journal's sync state changes
+    public static final Topic<AttendanceSyncService.Status> ATTENDANCE_SYNC_STATUS =
+            new Topic<>("ATTENDANCE_SYNC_STATUS", AttendanceSyncService.Status.class);
+    // Published by ReportJobService when a report job is queued, progresses or finishes
+    public static final Topic<ReportJobService.JobUpdate> REPORT_JOB_UPDATED =
+            new Topic<>("REPORT_JOB_UPDATED", ReportJobService.JobUpdate.class);
+    // Published by WebhookService for each inbound event once its listener has handled it
+    public static final Topic<WebhookService.ReceivedEvent> WEBHOOK_RECEIVED =
+            new Topic<>("WEBHOOK_RECEIVED", WebhookService.ReceivedEvent.class);
 
     private EventTypes() {
         // Private constructor to prevent instantiation
     }
-}
\ No newline at end of file
+}
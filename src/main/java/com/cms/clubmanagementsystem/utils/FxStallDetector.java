@@ -0,0 +1,299 @@
+package com.cms.clubmanagementsystem.utils;
+
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watchdog for the JavaFX Application Thread.
+ *
+ * A daemon thread posts a probe with {@link Platform#runLater} and measures how
+ * long the FX thread takes to run it. If the probe is still waiting after the
+ * threshold, the FX thread is stalled: its stack is sampled until the probe
+ * runs, and the stall is attributed to the controller method seen most often in
+ * the samples, together with any SQL in flight (see {@link SqlTracing}).
+ *
+ * Each stall is logged as it ends. {@link #formatReport()} gives the live
+ * per-method summary; it is also logged on shutdown. While the app runs, the
+ * latest stall and the worst methods are reported on the webhook server's
+ * /metrics endpoint.
+ *
+ * Config: FX_STALL_DETECTOR_ENABLED (default true), FX_STALL_THRESHOLD_MS
+ * (default 250), FX_STALL_SAMPLE_MS (default 25).
+ */
+public final class FxStallDetector {
+    private static final Logger logger = LoggerFactory.getLogger(FxStallDetector.class);
+    private static final FxStallDetector instance = new FxStallDetector();
+
+    private static final String APP_PACKAGE = "com.cms.clubmanagementsystem.";
+    private static final String CONTROLLER_PACKAGE = APP_PACKAGE + "controller.";
+    private static final int MAX_RECENT_STALLS = 100;
+
+    /**
+     * One completed stall. {@code site} is the controller (or other app) method
+     * the FX thread was in, {@code blockingFrame} the innermost frame it was
+     * stuck in, and {@code sql} the statement executing at the time, if any.
+     */
+    public record Stall(long startedAtMillis, long durationMillis, String site, String blockingFrame,
+                        String sql, int samples) {}
+
+    /**
+     * Totals for one attributed method.
+     */
+    public record SiteSummary(String site, int stalls, long totalMillis, long maxMillis, String lastSql) {}
+
+    private final Deque<Stall> recent = new ArrayDeque<>();
+    private final Map<String, SiteSummary> bySite = new HashMap<>();
+    private long stallCount;
+
+    private volatile Thread watchdog;
+    private volatile Thread fxThread;
+    private volatile long probePostedAt;
+    private volatile boolean probeOutstanding;
+    private volatile long maxLatencyNanos;
+
+    private FxStallDetector() {
+    }
+
+    public static FxStallDetector getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts the watchdog if enabled. Must be called on the FX thread.
+     */
+    public synchronized void start() {
+        if (watchdog != null || !Boolean.parseBoolean(EnvLoader.get("FX_STALL_DETECTOR_ENABLED", "true"))) {
+            return;
+        }
+        long thresholdMs = parseMillis("FX_STALL_THRESHOLD_MS", 250);
+        long sampleMs = parseMillis("FX_STALL_SAMPLE_MS", 25);
+        fxThread = Thread.currentThread();
+
+        Thread thread = new Thread(() -> watch(TimeUnit.MILLISECONDS.toNanos(thresholdMs), sampleMs),
+                "FX-Stall-Detector");
+        thread.setDaemon(true);
+        watchdog = thread;
+        thread.start();
+        logger.info("FX stall detector started (threshold {} ms, sampling every {} ms)", thresholdMs, sampleMs);
+    }
+
+    public synchronized void stop() {
+        Thread thread = watchdog;
+        watchdog = null;
+        if (thread != null) {
+            thread.interrupt();
+            String report = formatReport();
+            if (!report.isEmpty()) {
+                logger.info("FX stall summary:\n{}", report);
+            }
+        }
+    }
+
+    private void watch(long thresholdNanos, long sampleMs) {
+        List<StackTraceElement[]> samples = new ArrayList<>();
+        List<String> sqlSamples = new ArrayList<>();
+        try {
+            while (watchdog == Thread.currentThread()) {
+                if (!probeOutstanding) {
+                    postProbe();
+                    Thread.sleep(sampleMs);
+                    continue;
+                }
+
+                long waited = System.nanoTime() - probePostedAt;
+                if (waited < thresholdNanos) {
+                    Thread.sleep(sampleMs);
+                    continue;
+                }
+
+                // Stalled: sample until the probe gets to run
+                samples.clear();
+                sqlSamples.clear();
+                long stalledSince = probePostedAt;
+                while (probeOutstanding && watchdog == Thread.currentThread()) {
+                    samples.add(fxThread.getStackTrace());
+                    SqlTracing.InFlight sql = SqlTracing.inFlight(fxThread);
+                    if (sql != null) {
+                        sqlSamples.add(sql.sql());
+                    }
+                    Thread.sleep(sampleMs);
+                }
+                record(stalledSince, samples, sqlSamples);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void postProbe() {
+        long postedAt = System.nanoTime();
+        probePostedAt = postedAt;
+        probeOutstanding = true;
+        try {
+            Platform.runLater(() -> {
+                long latency = System.nanoTime() - postedAt;
+                if (latency > maxLatencyNanos) {
+                    maxLatencyNanos = latency;
+                }
+                probeOutstanding = false;
+            });
+        } catch (IllegalStateException e) {
+            // FX toolkit has shut down
+            probeOutstanding = false;
+            watchdog = null;
+        }
+    }
+
+    private void record(long stalledSinceNanos, List<StackTraceElement[]> samples, List<String> sqlSamples) {
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stalledSinceNanos);
+        long startedAt = System.currentTimeMillis() - durationMs;
+
+        String site = mostFrequent(samples.stream().map(FxStallDetector::attribute).toList());
+        String blockingFrame = mostFrequent(samples.stream()
+                .map(stack -> stack.length > 0 ? format(stack[0]) : null).toList());
+        String sql = mostFrequent(sqlSamples);
+
+        Stall stall = new Stall(startedAt, durationMs, site != null ? site : "unknown",
+                blockingFrame, sql, samples.size());
+        synchronized (this) {
+            stallCount++;
+            recent.addLast(stall);
+            if (recent.size() > MAX_RECENT_STALLS) {
+                recent.removeFirst();
+            }
+            bySite.merge(stall.site(), new SiteSummary(stall.site(), 1, durationMs, durationMs, sql),
+                    (a, b) -> new SiteSummary(a.site(), a.stalls() + 1, a.totalMillis() + b.totalMillis(),
+                            Math.max(a.maxMillis(), b.maxMillis()), b.lastSql() != null ? b.lastSql() : a.lastSql()));
+        }
+
+        if (sql != null) {
+            logger.warn("FX thread stalled {} ms in {} (blocked in {}) running SQL: {}",
+                    durationMs, stall.site(), blockingFrame, abbreviate(sql));
+        } else {
+            logger.warn("FX thread stalled {} ms in {} (blocked in {})", durationMs, stall.site(), blockingFrame);
+        }
+    }
+
+    /**
+     * Picks the innermost controller frame, falling back to the innermost app
+     * frame outside the diagnostics classes.
+     */
+    private static String attribute(StackTraceElement[] stack) {
+        String appFrame = null;
+        for (StackTraceElement frame : stack) {
+            String cls = frame.getClassName();
+            if (!cls.startsWith(APP_PACKAGE) || cls.startsWith(SqlTracing.class.getName())
+                    || cls.startsWith(DatabaseConnector.class.getName())) {
+                continue;
+            }
+            if (cls.startsWith(CONTROLLER_PACKAGE)) {
+                return shortName(frame);
+            }
+            if (appFrame == null) {
+                appFrame = shortName(frame);
+            }
+        }
+        return appFrame;
+    }
+
+    private static String shortName(StackTraceElement frame) {
+        String cls = frame.getClassName();
+        int dollar = cls.indexOf('$');
+        if (dollar > 0) {
+            cls = cls.substring(0, dollar);
+        }
+        return cls.substring(cls.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+    }
+
+    private static String format(StackTraceElement frame) {
+        return frame.getClassName() + "." + frame.getMethodName();
+    }
+
+    private static String mostFrequent(List<String> values) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String value : values) {
+            if (value != null) {
+                counts.merge(value, 1, Integer::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() > 200 ? flat.substring(0, 200) + "..." : flat;
+    }
+
+    private static long parseMillis(String key, long defaultValue) {
+        try {
+            long value = Long.parseLong(EnvLoader.get(key, String.valueOf(defaultValue)));
+            return value > 0 ? value : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * True if the watchdog is running and samples the given thread, i.e. SQL run
+     * on it should be traced.
+     */
+    public boolean isWatching(Thread thread) {
+        return watchdog != null && thread == fxThread;
+    }
+
+    public synchronized List<Stall> recentStalls() {
+        return List.copyOf(recent);
+    }
+
+    /**
+     * The most recent stall, or null if there has been none.
+     */
+    public synchronized Stall latestStall() {
+        return recent.peekLast();
+    }
+
+    public synchronized long stallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Methods that stalled the FX thread, worst total first.
+     */
+    public synchronized List<SiteSummary> summary() {
+        return bySite.values().stream()
+                .sorted(Comparator.comparingLong(SiteSummary::totalMillis).reversed())
+                .toList();
+    }
+
+    public long maxProbeLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+    }
+
+    public String formatReport() {
+        List<SiteSummary> sites = summary();
+        if (sites.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-50s %7s %9s %7s  %s%n", "Method", "Stalls", "Total ms", "Max ms", "SQL"));
+        for (SiteSummary site : sites) {
+            sb.append(String.format("%-50s %7d %9d %7d  %s%n", site.site(), site.stalls(), site.totalMillis(),
+                    site.maxMillis(), site.lastSql() != null ? abbreviate(site.lastSql()) : "-"));
+        }
+        sb.append("Worst FX probe latency: ").append(maxProbeLatencyMillis()).append(" ms");
+        return sb.toString();
+    }
+}
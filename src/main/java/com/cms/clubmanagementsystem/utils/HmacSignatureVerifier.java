@@ -0,0 +1,150 @@
+package com.cms.clubmanagementsystem.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * HMAC-SHA256 signing and verification for webhook payloads using the
+ * {@code X-Hub-Signature-256: sha256=<hex>} header format.
+ *
+ * Initialized {@link Mac}s are kept in a small shared pool rather than per
+ * thread: the webhook server runs each request on a fresh virtual thread, so a
+ * ThreadLocal would build a new Mac every time. When the pool is empty a Mac
+ * is cloned from an initialized prototype, which skips key setup. Verification
+ * decodes the incoming hex once and compares raw digest bytes in constant time.
+ */
+public final class HmacSignatureVerifier {
+
+    public static final String ALGORITHM = "HmacSHA256";
+    public static final String SIGNATURE_PREFIX = "sha256=";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int DIGEST_LENGTH = 32;
+
+    // HMAC is CPU-bound, so more idle Macs than cores would never be in use at once
+    private static final int POOL_CAPACITY = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final SecretKeySpec keySpec;
+    private final Mac prototype;
+    private final BlockingQueue<Mac> pool = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    public HmacSignatureVerifier(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("HMAC secret cannot be empty");
+        }
+        this.keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // Fail fast on an unusable key instead of on the first request
+        this.prototype = newMac();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(keySpec);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not initialize " + ALGORITHM, e);
+        }
+    }
+
+    private Mac borrow() {
+        Mac mac = pool.poll();
+        if (mac != null) {
+            return mac;
+        }
+        synchronized (prototype) {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                // Provider without clone support; fall back to a full init
+                return newMac();
+            }
+        }
+    }
+
+    /**
+     * Computes the raw HMAC digest of the payload. doFinal resets the Mac, so it
+     * goes back to the pool ready for the next call; extras beyond the pool's
+     * capacity are dropped.
+     */
+    public byte[] digest(byte[] payload) {
+        Mac mac = borrow();
+        byte[] digest = mac.doFinal(payload);
+        pool.offer(mac);
+        return digest;
+    }
+
+    /**
+     * Returns the signature header value ({@code sha256=<hex>}) for the payload.
+     */
+    public String sign(byte[] payload) {
+        byte[] digest = digest(payload);
+        char[] out = new char[SIGNATURE_PREFIX.length() + digest.length * 2];
+        SIGNATURE_PREFIX.getChars(0, SIGNATURE_PREFIX.length(), out, 0);
+        int pos = SIGNATURE_PREFIX.length();
+        for (byte b : digest) {
+            out[pos++] = HEX[(b >> 4) & 0x0f];
+            out[pos++] = HEX[b & 0x0f];
+        }
+        return new String(out);
+    }
+
+    public String sign(String payload) {
+        return sign(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks a {@code sha256=<hex>} header against the payload. Malformed headers
+     * are rejected before any HMAC work is done.
+     */
+    public boolean verify(byte[] payload, String signatureHeader) {
+        byte[] expected = decodeSignature(signatureHeader);
+        if (expected == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(digest(payload), expected);
+    }
+
+    /**
+     * Decodes the hex part of a signature header, or returns null if it is not
+     * a well-formed SHA-256 signature. Hex digits are accepted in either case.
+     */
+    static byte[] decodeSignature(String signatureHeader) {
+        if (signatureHeader == null) {
+            return null;
+        }
+        String header = signatureHeader.trim();
+        int prefixLength = SIGNATURE_PREFIX.length();
+        if (header.length() != prefixLength + DIGEST_LENGTH * 2
+                || !header.regionMatches(true, 0, SIGNATURE_PREFIX, 0, prefixLength)) {
+            return null;
+        }
+
+        byte[] decoded = new byte[DIGEST_LENGTH];
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            int hi = Character.digit(header.charAt(prefixLength + i * 2), 16);
+            int lo = Character.digit(header.charAt(prefixLength + i * 2 + 1), 16);
+            if (hi < 0 || lo < 0) {
+                return null;
+            }
+            decoded[i] = (byte) ((hi << 4) | lo);
+        }
+        return decoded;
+    }
+
+    /**
+     * Constant-time comparison of two secrets such as API keys.
+     */
+    public static boolean constantTimeEquals(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
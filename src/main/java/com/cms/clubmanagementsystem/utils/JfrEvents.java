@@ -0,0 +1,171 @@
+package com.cms.clubmanagementsystem.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Java Flight Recorder events emitted by the application's own subsystems.
+ *
+ * They cost next to nothing unless a recording is running. To capture a session:
+ * <pre>
+ *   java -XX:StartFlightRecording=filename=cms.jfr,settings=profile ...
+ *   jfr print --categories "Club Management" cms.jfr
+ * </pre>
+ * or open the file in JDK Mission Control and filter on the "Club Management"
+ * category.
+ */
+public final class JfrEvents {
+
+    private static final String CATEGORY = "Club Management";
+
+    private static final EventType SQL_EXECUTION = EventType.getEventType(SqlExecution.class);
+
+    private JfrEvents() {
+    }
+
+    /**
+     * True while a running recording has {@link SqlExecution} enabled.
+     */
+    public static boolean sqlExecutionEnabled() {
+        return SQL_EXECUTION.isEnabled();
+    }
+
+    @Name("cms.SqlExecution")
+    @Label("SQL Execution")
+    @Category({CATEGORY, "Database"})
+    @Description("A JDBC execute call on a pooled connection; for queries the span runs until the result set is closed")
+    @StackTrace(false)
+    public static final class SqlExecution extends Event {
+        @Label("Fingerprint")
+        @Description("SQL with literals replaced by ? and whitespace collapsed")
+        public String fingerprint;
+
+        @Label("Method")
+        public String method;
+
+        @Label("Rows")
+        @Description("Rows read for queries, rows affected for updates and batches, -1 if unknown")
+        public long rows;
+
+        @Label("Execute Time")
+        @Description("Time until the execute call returned, before rows were fetched")
+        @Timespan(Timespan.NANOSECONDS)
+        public long executeTime;
+
+        @Label("Tenant")
+        @Description("School ID applied to the connection")
+        public String tenant;
+
+        @Label("FX Thread")
+        public boolean fxThread;
+    }
+
+    @Name("cms.ExcelSyncCycle")
+    @Label("Excel Sync Cycle")
+    @Category({CATEGORY, "Excel Sync"})
+    @Description("One ExcelSchoolServer reload: parse the workbook, diff against the last snapshot, write changes")
+    public static final class ExcelSyncCycle extends Event {
+        @Label("Parse Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long parseTime;
+
+        @Label("Diff Time")
+        @Description("Change detection and webhook sends")
+        @Timespan(Timespan.NANOSECONDS)
+        public long diffTime;
+
+        @Label("Database Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long dbTime;
+
+        @Label("Learners")
+        public int learners;
+
+        @Label("Changes")
+        public int changes;
+
+        @Label("File Size")
+        @DataAmount
+        public long fileSize;
+    }
+
+    @Name("cms.WebhookRequest")
+    @Label("Webhook Request")
+    @Category({CATEGORY, "Webhooks"})
+    @Description("One request handled by the webhook listener")
+    @StackTrace(false)
+    public static final class WebhookRequest extends Event {
+        @Label("Method")
+        public String method;
+
+        @Label("Path")
+        public String path;
+
+        @Label("Status")
+        public int status;
+
+        @Label("Request Size")
+        @Description("-1 if the body was not read")
+        @DataAmount
+        public long requestBytes;
+
+        @Label("Client")
+        public String client;
+    }
+
+    @Name("cms.ScreenLoad")
+    @Label("Screen Load")
+    @Category({CATEGORY, "UI"})
+    @Description("From a module load request until the first layout pass showing its data, including data loaded in the background")
+    public static final class ScreenLoad extends Event {
+        @Label("FXML")
+        public String fxml;
+
+        @Label("FXML Load Time")
+        @Description("Time spent in FXMLLoader.load, including the controller's initialize")
+        @Timespan(Timespan.NANOSECONDS)
+        public long fxmlLoadTime;
+
+        @Label("Succeeded")
+        @Description("False if loading failed or the screen was left before its data arrived")
+        public boolean succeeded;
+    }
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_CACHED_FINGERPRINTS = 2048;
+    private static final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Normalizes SQL so executions of the same statement group together. Prepared
+     * statements reuse the same string, so results are cached.
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String cached = fingerprints.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        if (fingerprints.size() < MAX_CACHED_FINGERPRINTS) {
+            fingerprints.put(sql, normalized);
+        }
+        return normalized;
+    }
+}
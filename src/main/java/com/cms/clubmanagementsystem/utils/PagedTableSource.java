@@ -0,0 +1,299 @@
+package com.cms.clubmanagementsystem.utils;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Read-only list for a {@link TableView} whose rows are fetched from the
+ * database in pages as the table asks for them.
+ *
+ * The table only calls {@link #get} for rows it is about to show, so only
+ * those pages are loaded; the rest of the list is just a row count. Rows not
+ * loaded yet read as null and the table redraws them when their page arrives.
+ * Filtering and sorting happen in the query: {@link #setFilter} and the table's
+ * sort order (via {@link #bindSorting}) reset the list and recount it. The most
+ * recently used pages are kept, up to a fixed number.
+ *
+ * Queries run on one background thread per source. Everything else, including
+ * change notifications, happens on the FX thread.
+ *
+ * @param <F> filter the loader understands
+ * @param <T> row type
+ */
+public class PagedTableSource<F, T> extends ObservableListBase<T> {
+    private static final Logger logger = LoggerFactory.getLogger(PagedTableSource.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_MAX_PAGES = 10;
+
+    /**
+     * One column of the sort order; {@code key} is whatever the loader maps to an
+     * ORDER BY expression.
+     */
+    public record SortKey(String key, boolean ascending) {}
+
+    public interface PageLoader<F, T> {
+        int count(F filter) throws Exception;
+
+        /**
+         * Rows {@code offset} to {@code offset + limit} in the given order. The
+         * loader should add a unique tiebreaker so pages don't overlap.
+         */
+        List<T> load(F filter, List<SortKey> sort, int offset, int limit) throws Exception;
+    }
+
+    private final PageLoader<F, T> loader;
+    private final int pageSize;
+    private final Map<Integer, List<T>> pages;
+    private final Set<Integer> requested = new HashSet<>();
+    private final ExecutorService executor;
+
+    private F filter;
+    private List<SortKey> sort = List.of();
+    private int size;
+    private volatile int generation;
+    private Consumer<Integer> onRefreshed = count -> {};
+    private Consumer<Throwable> onFailed = e -> {};
+    private Runnable onPageLoaded = () -> {};
+
+    public PagedTableSource(String name, PageLoader<F, T> loader, F filter) {
+        this(name, loader, filter, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    public PagedTableSource(String name, PageLoader<F, T> loader, F filter, int pageSize, int maxPages) {
+        this.loader = loader;
+        this.filter = filter;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name + "-pages");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Called on the FX thread with the new row count after each refresh.
+     */
+    public void setOnRefreshed(Consumer<Integer> onRefreshed) {
+        this.onRefreshed = onRefreshed;
+    }
+
+    public void setOnFailed(Consumer<Throwable> onFailed) {
+        this.onFailed = onFailed;
+    }
+
+    /**
+     * Called on the FX thread after a page of rows has been put in the list.
+     */
+    public void setOnPageLoaded(Runnable onPageLoaded) {
+        this.onPageLoaded = onPageLoaded;
+    }
+
+    public F getFilter() {
+        return filter;
+    }
+
+    public List<SortKey> getSort() {
+        return sort;
+    }
+
+    public void setFilter(F filter) {
+        if (!Objects.equals(this.filter, filter)) {
+            this.filter = filter;
+            refresh();
+        }
+    }
+
+    public void setSort(List<SortKey> sort) {
+        if (!this.sort.equals(sort)) {
+            this.sort = List.copyOf(sort);
+            refresh();
+        }
+    }
+
+    /**
+     * Drops every cached page and recounts. Rows keep reading as null until their
+     * page is loaded again.
+     */
+    public void refresh() {
+        int gen = ++generation;
+        pages.clear();
+        requested.clear();
+        F currentFilter = filter;
+        executor.execute(() -> {
+            if (gen != generation) {
+                return;
+            }
+            try {
+                int count = loader.count(currentFilter);
+                Platform.runLater(() -> applyCount(gen, count));
+            } catch (Exception e) {
+                logger.error("Failed to count rows: {}", e.getMessage(), e);
+                Platform.runLater(() -> {
+                    if (gen == generation) {
+                        onFailed.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyCount(int gen, int count) {
+        if (gen != generation) {
+            return;
+        }
+        int oldSize = size;
+        size = count;
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (count > 0) {
+            nextAdd(0, count);
+        }
+        endChange();
+        onRefreshed.accept(count);
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / pageSize;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index - page * pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Searching only looks at loaded rows; anything else would load every page
+    @Override
+    public int indexOf(Object o) {
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            int offset = entry.getValue().indexOf(o);
+            if (offset >= 0) {
+                return entry.getKey() * pageSize + offset;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    private void requestPage(int page) {
+        if (!requested.add(page)) {
+            return;
+        }
+        int gen = generation;
+        F currentFilter = filter;
+        List<SortKey> currentSort = sort;
+        executor.execute(() -> {
+            if (gen != generation) {
+                return;
+            }
+            try {
+                List<T> rows = loader.load(currentFilter, currentSort, page * pageSize, pageSize);
+                Platform.runLater(() -> pageLoaded(gen, page, rows));
+            } catch (Exception e) {
+                logger.error("Failed to load rows {}-{}: {}", page * pageSize, (page + 1) * pageSize - 1,
+                        e.getMessage(), e);
+                Platform.runLater(() -> {
+                    if (gen == generation) {
+                        requested.remove(page);
+                        onFailed.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    private void pageLoaded(int gen, int page, List<T> rows) {
+        if (gen != generation) {
+            return;
+        }
+        requested.remove(page);
+        pages.put(page, List.copyOf(rows));
+
+        int from = page * pageSize;
+        int to = Math.min(size, from + rows.size());
+        if (from < to) {
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, null));
+            endChange();
+        }
+        onPageLoaded.run();
+    }
+
+    /**
+     * Loads every row for the current filter and sort in one query, for exports.
+     * Blocks the calling thread.
+     */
+    public List<T> loadAll() throws Exception {
+        return loader.load(filter, sort, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Makes the table's sort order drive the query. Columns without a key are
+     * made unsortable.
+     */
+    public void bindSorting(TableView<T> table, Map<TableColumn<T, ?>, String> sortKeys) {
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            if (!sortKeys.containsKey(column)) {
+                column.setSortable(false);
+            }
+        }
+        table.setSortPolicy(t -> {
+            List<SortKey> keys = new ArrayList<>();
+            for (TableColumn<T, ?> column : t.getSortOrder()) {
+                String key = sortKeys.get(column);
+                if (key != null) {
+                    keys.add(new SortKey(key, column.getSortType() == TableColumn.SortType.ASCENDING));
+                }
+            }
+            setSort(keys);
+            return true;
+        });
+    }
+
+    public void dispose() {
+        generation++;
+        executor.shutdownNow();
+    }
+}
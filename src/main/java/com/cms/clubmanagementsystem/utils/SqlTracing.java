@@ -0,0 +1,214 @@
+package com.cms.clubmanagementsystem.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps pooled connections so statement executions are visible to the
+ * diagnostics tooling. {@link DatabaseConnector} only wraps connections while a
+ * recording or the stall detector needs them. While a statement runs, its SQL is recorded against the
+ * calling thread, which lets {@link FxStallDetector} name the query behind a
+ * frozen UI. Each execution is also recorded as a {@link JfrEvents.SqlExecution}
+ * event when a flight recording is running.
+ */
+public final class SqlTracing {
+
+    /**
+     * A statement currently executing on some thread.
+     */
+    public record InFlight(String sql, long startedAtNanos) {}
+
+    private static final Map<Thread, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private SqlTracing() {
+    }
+
+    /**
+     * @param tenant school ID applied to the connection, or null
+     */
+    public static Connection wrap(Connection connection, String tenant) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, tenant));
+    }
+
+    /**
+     * Returns the statement the thread is executing, or null if it is not in a
+     * JDBC execute call.
+     */
+    public static InFlight inFlight(Thread thread) {
+        return inFlight.get(thread);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection delegate;
+        private final String tenant;
+
+        ConnectionHandler(Connection delegate, String tenant) {
+            this.delegate = delegate;
+            this.tenant = tenant;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlTracing.invoke(delegate, method, args);
+            String name = method.getName();
+            if (result instanceof Statement statement
+                    && (name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement"))) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{type}, new StatementHandler(statement, sql, tenant));
+            }
+            return result;
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement delegate;
+        private final String preparedSql;
+        private final String tenant;
+        // Query event still open because its result set has not been closed yet
+        private RowCounter openQuery;
+
+        StatementHandler(Statement delegate, String preparedSql, String tenant) {
+            this.delegate = delegate;
+            this.preparedSql = preparedSql;
+            this.tenant = tenant;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("close")) {
+                    finishOpenQuery();
+                }
+                return SqlTracing.invoke(delegate, method, args);
+            }
+            finishOpenQuery();
+
+            // Plain Statements pass the SQL to execute; prepared ones already have it
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+            Thread thread = Thread.currentThread();
+            long startedAt = System.nanoTime();
+            JfrEvents.SqlExecution event = new JfrEvents.SqlExecution();
+            event.begin();
+            InFlight previous = inFlight.put(thread, new InFlight(sql, startedAt));
+            Object result;
+            try {
+                result = SqlTracing.invoke(delegate, method, args);
+            } finally {
+                if (previous != null) {
+                    inFlight.put(thread, previous);
+                } else {
+                    inFlight.remove(thread);
+                }
+            }
+
+            if (!event.isEnabled()) {
+                return result;
+            }
+            event.method = name;
+            event.fingerprint = JfrEvents.fingerprint(sql);
+            event.tenant = tenant;
+            event.fxThread = thread.getName().equals("JavaFX Application Thread");
+            event.executeTime = System.nanoTime() - startedAt;
+            if (result instanceof ResultSet resultSet) {
+                // Rows are only known once the caller has read them
+                openQuery = new RowCounter(event, resultSet);
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class}, openQuery);
+            }
+            event.rows = rowsAffected(result);
+            event.commit();
+            return result;
+        }
+
+        private void finishOpenQuery() {
+            if (openQuery != null) {
+                openQuery.finish();
+                openQuery = null;
+            }
+        }
+
+        private static long rowsAffected(Object result) {
+            if (result instanceof Integer count) {
+                return count;
+            }
+            if (result instanceof Long count) {
+                return count;
+            }
+            if (result instanceof int[] counts) {
+                long total = 0;
+                for (int count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            if (result instanceof long[] counts) {
+                long total = 0;
+                for (long count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Counts rows as the caller iterates and commits the query's event when the
+     * result set (or its statement) is closed.
+     */
+    private static final class RowCounter implements InvocationHandler {
+        private final JfrEvents.SqlExecution event;
+        private final ResultSet delegate;
+        private long rows;
+        private boolean finished;
+
+        RowCounter(JfrEvents.SqlExecution event, ResultSet delegate) {
+            this.event = event;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                finish();
+            }
+            Object result = SqlTracing.invoke(delegate, method, args);
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                rows++;
+            }
+            return result;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                event.rows = rows;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,704 @@
+package com.cms.clubmanagementsystem.utils;
+
+import com.itextpdf.kernel.colors.DeviceGray;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongFunction;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the result of a query straight to a CSV, XLSX or PDF file without
+ * holding the result in memory.
+ *
+ * The query runs in a read-only transaction with a fetch size, so the driver
+ * uses a cursor and only keeps one batch of rows at a time. XLSX output goes
+ * through a streaming workbook and PDF output through an iText large table that
+ * is flushed as it grows. Column widths are estimated from the first rows rather
+ * than measured over the whole sheet.
+ *
+ * <pre>
+ * long rows = StreamingExport.query(sql)
+ *         .bind(ps -> ps.setObject(1, clubId))
+ *         .onProgress((done, total) -> ...)
+ *         .writeTo(conn, file, StreamingExport.Format.forFile(file));
+ * </pre>
+ *
+ * Interrupting the exporting thread stops the export and deletes the partial file.
+ *
+ * {@link #writeZipTo} splits one query into a file per partition (for example
+ * per club) inside a ZIP archive. The rows must come ordered by the partition
+ * key; each entry is written as its rows arrive, so memory stays bounded no
+ * matter how many partitions there are.
+ */
+public final class StreamingExport {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingExport.class);
+
+    private static final int FETCH_SIZE = Integer.parseInt(EnvLoader.get("EXPORT_FETCH_SIZE", "1000"));
+    private static final int XLSX_WINDOW = Integer.parseInt(EnvLoader.get("EXPORT_XLSX_WINDOW", "100"));
+    private static final int SAMPLE_ROWS = 200;
+    private static final int PROGRESS_INTERVAL = 500;
+    private static final int PDF_FLUSH_ROWS = 200;
+    private static final int MIN_WIDTH = 6;
+    private static final int MAX_WIDTH = 50;
+
+    public enum Format {
+        CSV("csv"), XLSX("xlsx"), PDF("pdf");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * Picks the format from the file's extension, falling back to CSV.
+         */
+        public static Format forFile(File file) {
+            String name = file.getName().toLowerCase();
+            for (Format format : values()) {
+                if (name.endsWith("." + format.extension)) {
+                    return format;
+                }
+            }
+            return CSV;
+        }
+    }
+
+    public interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    public interface RowMapper {
+        String[] map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Called from the exporting thread; {@code total} is -1 when unknown.
+     */
+    public interface Progress {
+        void update(long done, long total);
+    }
+
+    private final String sql;
+    private Binder binder = ps -> {};
+    private List<String> headers;
+    private UnaryOperator<String> headerNames = UnaryOperator.identity();
+    private RowMapper mapper;
+    private String sheetName = "Export";
+    private String title;
+    private String subtitle;
+    private LongFunction<List<String[]>> footer = rows -> List.of();
+    private long expectedRows = -1;
+    private int xlsxWindow = XLSX_WINDOW;
+    private Progress progress = (done, total) -> {};
+    private String partitionKey;
+    private String partitionLabel;
+    // 1-based result columns left out of the output
+    private Set<Integer> skippedColumns = Set.of();
+
+    private StreamingExport(String sql) {
+        this.sql = sql;
+    }
+
+    public static StreamingExport query(String sql) {
+        return new StreamingExport(sql);
+    }
+
+    public StreamingExport bind(Binder binder) {
+        this.binder = binder;
+        return this;
+    }
+
+    /**
+     * Column headers. Without them the result set's column labels are used,
+     * passed through {@link #headerNames}.
+     */
+    public StreamingExport headers(List<String> headers) {
+        this.headers = List.copyOf(headers);
+        return this;
+    }
+
+    public StreamingExport headerNames(UnaryOperator<String> headerNames) {
+        this.headerNames = headerNames;
+        return this;
+    }
+
+    /**
+     * Turns the current row into cell text. Without a mapper every column is
+     * read with getString.
+     */
+    public StreamingExport rows(RowMapper mapper) {
+        this.mapper = mapper;
+        return this;
+    }
+
+    public StreamingExport sheetName(String sheetName) {
+        this.sheetName = sheetName;
+        return this;
+    }
+
+    /**
+     * Heading printed above the table in PDF output; ignored by the other formats.
+     */
+    public StreamingExport title(String title, String subtitle) {
+        this.title = title;
+        this.subtitle = subtitle;
+        return this;
+    }
+
+    /**
+     * Label/value lines written after the data, given the number of rows written.
+     */
+    public StreamingExport footer(LongFunction<List<String[]>> footer) {
+        this.footer = footer;
+        return this;
+    }
+
+    public StreamingExport expectedRows(long expectedRows) {
+        this.expectedRows = expectedRows;
+        return this;
+    }
+
+    public StreamingExport xlsxWindow(int xlsxWindow) {
+        this.xlsxWindow = xlsxWindow;
+        return this;
+    }
+
+    /**
+     * Columns holding each row's partition key and the partition's name, for
+     * {@link #writeZipTo}. Neither is written out. The query must be ordered by
+     * the key.
+     */
+    public StreamingExport partitionBy(String keyColumn, String labelColumn) {
+        this.partitionKey = keyColumn;
+        this.partitionLabel = labelColumn;
+        return this;
+    }
+
+    public StreamingExport onProgress(Progress progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Runs the query on {@code conn} and writes every row to {@code file}.
+     * The connection's auto-commit and read-only settings are restored afterwards.
+     *
+     * @return number of rows written
+     */
+    public long writeTo(Connection conn, File file, Format format) throws SQLException, IOException {
+        boolean autoCommit = conn.getAutoCommit();
+        boolean readOnly = conn.isReadOnly();
+        boolean completed = false;
+        try {
+            // The driver only streams with a cursor inside a transaction
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+
+            long written;
+            try (PreparedStatement ps = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery();
+                     OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+                     RowWriter writer = openWriter(format, out, title)) {
+                    written = copyRows(rs, writer);
+                }
+            }
+            conn.commit();
+            completed = true;
+            logger.info("Exported {} rows to {} ({})", written, file.getAbsolutePath(), format);
+            return written;
+        } finally {
+            if (!completed) {
+                rollbackQuietly(conn);
+                if (file.exists() && !file.delete()) {
+                    logger.warn("Could not delete incomplete export {}", file.getAbsolutePath());
+                }
+            }
+            conn.setAutoCommit(autoCommit);
+            conn.setReadOnly(readOnly);
+        }
+    }
+
+    /**
+     * Runs the query on {@code conn} and writes one entry per partition into the
+     * ZIP archive {@code file}, named after the partition with the format's
+     * extension. Needs {@link #partitionBy}. Progress counts rows across all
+     * partitions; the footer is applied to each entry with its own row count.
+     *
+     * @return number of rows written
+     */
+    public long writeZipTo(Connection conn, File file, Format format) throws SQLException, IOException {
+        if (partitionKey == null) {
+            throw new IllegalStateException("writeZipTo needs partitionBy");
+        }
+        boolean autoCommit = conn.getAutoCommit();
+        boolean readOnly = conn.isReadOnly();
+        boolean completed = false;
+        try {
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+
+            long written;
+            try (PreparedStatement ps = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery();
+                     ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                    written = copyPartitions(rs, zip, format);
+                }
+            }
+            conn.commit();
+            completed = true;
+            logger.info("Exported {} rows to {} ({} per partition)", written, file.getAbsolutePath(), format);
+            return written;
+        } finally {
+            if (!completed) {
+                rollbackQuietly(conn);
+                if (file.exists() && !file.delete()) {
+                    logger.warn("Could not delete incomplete export {}", file.getAbsolutePath());
+                }
+            }
+            conn.setAutoCommit(autoCommit);
+            conn.setReadOnly(readOnly);
+        }
+    }
+
+    private long copyPartitions(ResultSet rs, ZipOutputStream zip, Format format) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int keyColumn = rs.findColumn(partitionKey);
+        int labelColumn = rs.findColumn(partitionLabel);
+        skippedColumns = Set.of(keyColumn, labelColumn);
+        List<String> columns = headers != null ? headers : resultSetHeaders(metaData);
+        progress.update(0, expectedRows);
+
+        // Writers must not close the archive, and some formats close whatever they write to
+        OutputStream entryOut = new FilterOutputStream(zip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+
+        Set<String> entryNames = new HashSet<>();
+        long written = 0;
+        int partitions = 0;
+        boolean hasRow = rs.next();
+        while (hasRow) {
+            String key = rs.getString(keyColumn);
+            String label = rs.getString(labelColumn);
+            zip.putNextEntry(new ZipEntry(entryName(label, format, entryNames)));
+
+            long partitionRows = 0;
+            try (RowWriter writer = openWriter(format, entryOut, title != null ? label + " " + title : label)) {
+                List<String[]> sample = new ArrayList<>();
+                while (hasRow && sample.size() < SAMPLE_ROWS && Objects.equals(key, rs.getString(keyColumn))) {
+                    sample.add(readRow(rs));
+                    hasRow = rs.next();
+                }
+                writer.start(columns, estimateWidths(columns, sample));
+                for (String[] row : sample) {
+                    writer.row(row);
+                    written = rowWritten(written);
+                }
+                partitionRows = sample.size();
+                sample.clear();
+                while (hasRow && Objects.equals(key, rs.getString(keyColumn))) {
+                    writer.row(readRow(rs));
+                    written = rowWritten(written);
+                    partitionRows++;
+                    hasRow = rs.next();
+                }
+                writer.finish(footer.apply(partitionRows));
+            }
+            zip.closeEntry();
+            partitions++;
+        }
+
+        progress.update(written, expectedRows);
+        logger.debug("Wrote {} partitions", partitions);
+        return written;
+    }
+
+    // File name for a partition, unique within the archive
+    private static String entryName(String label, Format format, Set<String> used) {
+        String base = label == null || label.isBlank() ? "export" : label.trim().replaceAll("[^A-Za-z0-9._-]+", "_");
+        String name = base + "." + format.extension();
+        for (int i = 2; !used.add(name); i++) {
+            name = base + "_" + i + "." + format.extension();
+        }
+        return name;
+    }
+
+    private long copyRows(ResultSet rs, RowWriter writer) throws SQLException, IOException {
+        List<String> columns = headers != null ? headers : resultSetHeaders(rs.getMetaData());
+        progress.update(0, expectedRows);
+
+        // Size the columns from the first rows, then write those and stream the rest
+        List<String[]> sample = new ArrayList<>();
+        while (sample.size() < SAMPLE_ROWS && rs.next()) {
+            sample.add(readRow(rs));
+        }
+        writer.start(columns, estimateWidths(columns, sample));
+
+        long written = 0;
+        for (String[] row : sample) {
+            writer.row(row);
+            written = rowWritten(written);
+        }
+        sample.clear();
+        while (rs.next()) {
+            writer.row(readRow(rs));
+            written = rowWritten(written);
+        }
+
+        writer.finish(footer.apply(written));
+        progress.update(written, expectedRows);
+        return written;
+    }
+
+    private long rowWritten(long written) {
+        written++;
+        if (written % PROGRESS_INTERVAL == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Export cancelled after " + written + " rows");
+            }
+            progress.update(written, expectedRows);
+        }
+        return written;
+    }
+
+    private String[] readRow(ResultSet rs) throws SQLException {
+        if (mapper != null) {
+            return mapper.map(rs);
+        }
+        int columnCount = rs.getMetaData().getColumnCount();
+        String[] row = new String[columnCount - skippedColumns.size()];
+        for (int i = 1, cell = 0; i <= columnCount; i++) {
+            if (!skippedColumns.contains(i)) {
+                row[cell++] = rs.getString(i);
+            }
+        }
+        return row;
+    }
+
+    private List<String> resultSetHeaders(ResultSetMetaData metaData) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (!skippedColumns.contains(i)) {
+                names.add(headerNames.apply(metaData.getColumnLabel(i)));
+            }
+        }
+        return names;
+    }
+
+    // Widest value seen per column, in characters, clamped to a readable range
+    private static int[] estimateWidths(List<String> columns, List<String[]> sample) {
+        int[] widths = new int[columns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = columns.get(i).length();
+        }
+        for (String[] row : sample) {
+            for (int i = 0; i < widths.length && i < row.length; i++) {
+                if (row[i] != null) {
+                    widths[i] = Math.max(widths[i], row[i].length());
+                }
+            }
+        }
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = Math.max(MIN_WIDTH, Math.min(MAX_WIDTH, widths[i]));
+        }
+        return widths;
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            logger.debug("Rollback after failed export failed: {}", e.getMessage());
+        }
+    }
+
+    // Writers leave the stream open; whoever opened it closes it
+    private RowWriter openWriter(Format format, OutputStream out, String pdfTitle) {
+        return switch (format) {
+            case CSV -> new CsvRowWriter(out);
+            case XLSX -> new XlsxRowWriter(out, sheetName, xlsxWindow);
+            case PDF -> new PdfRowWriter(out, pdfTitle, subtitle);
+        };
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void start(List<String> headers, int[] widths) throws IOException;
+
+        void row(String[] values) throws IOException;
+
+        void finish(List<String[]> footer) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+
+        CsvRowWriter(OutputStream stream) {
+            this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void start(List<String> headers, int[] widths) throws IOException {
+            row(headers.toArray(new String[0]));
+        }
+
+        @Override
+        public void row(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(escape(values[i]));
+            }
+            out.write('\n');
+        }
+
+        @Override
+        public void finish(List<String[]> footer) throws IOException {
+            if (!footer.isEmpty()) {
+                out.write('\n');
+                for (String[] line : footer) {
+                    row(line);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+                return "\"" + value.replace("\"", "\"\"") + "\"";
+            }
+            return value;
+        }
+    }
+
+    private static final class XlsxRowWriter implements RowWriter {
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook;
+        private final Sheet sheet;
+        private final CellStyle dataStyle;
+        private int rowNum;
+
+        XlsxRowWriter(OutputStream out, String sheetName, int window) {
+            this.out = out;
+            this.workbook = new SXSSFWorkbook(window);
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet(sheetName);
+            this.dataStyle = workbook.createCellStyle();
+            setThinBorders(dataStyle);
+        }
+
+        @Override
+        public void start(List<String> headers, int[] widths) {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font font = workbook.createFont();
+            font.setBold(true);
+            font.setColor(IndexedColors.WHITE.getIndex());
+            headerStyle.setFont(font);
+            headerStyle.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            setThinBorders(headerStyle);
+
+            Row header = sheet.createRow(rowNum++);
+            for (int i = 0; i < headers.size(); i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(headers.get(i));
+                cell.setCellStyle(headerStyle);
+                sheet.setColumnWidth(i, (widths[i] + 2) * 256);
+            }
+            sheet.createFreezePane(0, 1);
+        }
+
+        @Override
+        public void row(String[] values) {
+            Row row = sheet.createRow(rowNum++);
+            for (int i = 0; i < values.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(values[i] != null ? values[i] : "");
+                cell.setCellStyle(dataStyle);
+            }
+        }
+
+        @Override
+        public void finish(List<String[]> footer) throws IOException {
+            if (!footer.isEmpty()) {
+                rowNum++;
+                for (String[] line : footer) {
+                    Row row = sheet.createRow(rowNum++);
+                    for (int i = 0; i < line.length; i++) {
+                        row.createCell(i).setCellValue(line[i]);
+                    }
+                }
+            }
+            workbook.write(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Also removes the temporary sheet files
+            workbook.close();
+        }
+
+        private static void setThinBorders(CellStyle style) {
+            style.setBorderBottom(BorderStyle.THIN);
+            style.setBorderTop(BorderStyle.THIN);
+            style.setBorderLeft(BorderStyle.THIN);
+            style.setBorderRight(BorderStyle.THIN);
+        }
+    }
+
+    private static final class PdfRowWriter implements RowWriter {
+        private final PdfDocument pdf;
+        private final Document document;
+        private final String title;
+        private final String subtitle;
+        private Table table;
+        private int pending;
+
+        PdfRowWriter(OutputStream out, String title, String subtitle) {
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
+            this.pdf = new PdfDocument(writer);
+            this.document = new Document(pdf, PageSize.A4);
+            this.title = title;
+            this.subtitle = subtitle;
+        }
+
+        @Override
+        public void start(List<String> headers, int[] widths) {
+            if (headers.size() > 6) {
+                pdf.setDefaultPageSize(PageSize.A4.rotate());
+            }
+            if (title != null) {
+                document.add(new Paragraph(title)
+                        .setFontSize(18)
+                        .setBold()
+                        .setTextAlignment(TextAlignment.CENTER));
+            }
+            if (subtitle != null) {
+                document.add(new Paragraph(subtitle)
+                        .setFontSize(10)
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setFontColor(DeviceGray.GRAY));
+            }
+
+            float[] relativeWidths = new float[widths.length];
+            for (int i = 0; i < widths.length; i++) {
+                relativeWidths[i] = widths[i];
+            }
+            // A large table is laid out and written in chunks as rows are flushed
+            table = new Table(UnitValue.createPercentArray(relativeWidths), true);
+            table.setWidth(UnitValue.createPercentValue(100));
+            for (String header : headers) {
+                table.addHeaderCell(new com.itextpdf.layout.element.Cell()
+                        .add(new Paragraph(header))
+                        .setBold()
+                        .setFontSize(10)
+                        .setBackgroundColor(new DeviceRgb(52, 152, 219))
+                        .setFontColor(DeviceGray.WHITE)
+                        .setTextAlignment(TextAlignment.CENTER));
+            }
+            document.add(table);
+        }
+
+        @Override
+        public void row(String[] values) {
+            for (String value : values) {
+                table.addCell(new com.itextpdf.layout.element.Cell()
+                        .add(new Paragraph(value != null ? value : ""))
+                        .setPadding(4)
+                        .setFontSize(9));
+            }
+            if (++pending >= PDF_FLUSH_ROWS) {
+                table.flush();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void finish(List<String[]> footer) {
+            table.complete();
+            if (!footer.isEmpty()) {
+                document.add(new Paragraph("\n"));
+                for (String[] line : footer) {
+                    document.add(new Paragraph(String.join(" ", line)).setFontSize(10));
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cms.clubmanagementsystem.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one instance of frequently repeated strings such as grade names,
+ * genders and statuses, so a list of thousands of rows holds a handful of
+ * strings instead of one copy per row.
+ *
+ * Only meant for low-cardinality values. The pool stops growing once it is
+ * full and hands back the value unchanged after that.
+ */
+public final class StringPool {
+
+    private static final int MAX_SIZE = 4096;
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    private StringPool() {}
+
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = POOL.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (POOL.size() >= MAX_SIZE) {
+            return value;
+        }
+        pooled = POOL.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+}
@@ -0,0 +1,157 @@
+package com.cms.clubmanagementsystem.utils;
+
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.Region;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Prepares date-based values for charts so a chart never holds more points
+ * than it has room to draw.
+ *
+ * Values are first grouped into day, week or month buckets (see
+ * {@link Bucket#forRange}, meant for the query's {@code date_trunc}), then
+ * reduced with Largest-Triangle-Three-Buckets to about one point per few pixels
+ * of chart width. LTTB keeps the points that shape the line, so peaks and dips
+ * survive where plain averaging would flatten them.
+ */
+public final class TrendSeries {
+
+    // Horizontal pixels per point; closer than this and points just overlap
+    private static final int PIXELS_PER_POINT = 6;
+    private static final int MIN_POINTS = 10;
+    // How many more rows than points the query may return, to give LTTB something to choose from
+    private static final int OVERSAMPLE = 4;
+
+    public record Point(LocalDate date, double value) {}
+
+    public enum Bucket {
+        DAY("day", "MMM dd", "dd MMM yy"),
+        WEEK("week", "MMM dd", "dd MMM yy"),
+        MONTH("month", "MMM", "MMM yyyy");
+
+        private final String sqlField;
+        private final DateTimeFormatter label;
+        private final DateTimeFormatter labelWithYear;
+
+        Bucket(String sqlField, String label, String labelWithYear) {
+            this.sqlField = sqlField;
+            this.label = DateTimeFormatter.ofPattern(label);
+            this.labelWithYear = DateTimeFormatter.ofPattern(labelWithYear);
+        }
+
+        /**
+         * Field name for PostgreSQL's {@code date_trunc}.
+         */
+        public String sqlField() {
+            return sqlField;
+        }
+
+        /**
+         * Labels for a category axis. Ranges that cross a year include the year,
+         * so two buckets never share a label.
+         */
+        public Function<LocalDate, String> labels(LocalDate from, LocalDate to) {
+            DateTimeFormatter formatter = from.getYear() == to.getYear() ? label : labelWithYear;
+            return formatter::format;
+        }
+
+        /**
+         * The finest bucket that keeps the range within a few times
+         * {@code maxPoints} rows.
+         */
+        public static Bucket forRange(LocalDate from, LocalDate to, int maxPoints) {
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            long limit = (long) maxPoints * OVERSAMPLE;
+            if (days <= limit) {
+                return DAY;
+            }
+            return days / 7 <= limit ? WEEK : MONTH;
+        }
+    }
+
+    private TrendSeries() {}
+
+    /**
+     * How many points fit across the chart, using its preferred width before it
+     * has been laid out.
+     */
+    public static int targetPoints(Region chart) {
+        double width = chart.getWidth() > 0 ? chart.getWidth() : chart.getPrefWidth();
+        return Math.max(MIN_POINTS, (int) (width / PIXELS_PER_POINT));
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets. Keeps the first and last points and, from
+     * each bucket in between, the point forming the largest triangle with the
+     * previously kept point and the average of the next bucket. Points must be
+     * in date order; lists already within {@code threshold} come back unchanged.
+     */
+    public static List<Point> downsample(List<Point> points, int threshold) {
+        int n = points.size();
+        if (threshold < 3 || n <= threshold) {
+            return points;
+        }
+
+        List<Point> sampled = new ArrayList<>(threshold);
+        double every = (double) (n - 2) / (threshold - 2);
+        int kept = 0;
+        sampled.add(points.get(0));
+
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = (int) ((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) ((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x(points.get(j));
+                avgY += points.get(j).value();
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            int rangeStart = (int) (i * every) + 1;
+            int rangeEnd = (int) ((i + 1) * every) + 1;
+            Point a = points.get(kept);
+            double ax = x(a);
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                Point p = points.get(j);
+                double area = Math.abs((ax - avgX) * (p.value() - a.value()) - (ax - x(p)) * (avgY - a.value()));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled.add(points.get(next));
+            kept = next;
+        }
+
+        sampled.add(points.get(n - 1));
+        return sampled;
+    }
+
+    public static XYChart.Series<String, Number> toSeries(String name, List<Point> points,
+                                                          Function<LocalDate, String> labels) {
+        List<XYChart.Data<String, Number>> data = new ArrayList<>(points.size());
+        for (Point point : points) {
+            data.add(new XYChart.Data<>(labels.apply(point.date()), point.value()));
+        }
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName(name);
+        // One bulk change rather than a layout pass per point
+        series.getData().setAll(data);
+        return series;
+    }
+
+    private static double x(Point point) {
+        return point.date().toEpochDay();
+    }
+}
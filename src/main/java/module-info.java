@@ -22,9 +22,10 @@ module com.cms.clubmanagementsystem {
     requires io.github.cdimascio.dotenv.java;
     requires java.desktop;
     requires com.google.gson;
-    requires spark.core;
+    requires jdk.httpserver;
     requires java.net.http;
     requires java.prefs;
+    requires jdk.jfr;
     requires org.apache.poi.poi;
     requires org.apache.poi.ooxml;
     requires layout;